@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall;
+
+import io.rainfall.configuration.ConcurrencyConfig;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.utils.CurrentThreadpool;
+import io.rainfall.utils.InFlightLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * An {@link Operation} of a non-blocking client, which returns as soon as the request is sent: the response time is
+ * recorded when the returned {@link CompletionStage} completes, so one thread can keep many operations in flight.
+ * <p>
+ * The threads of the threadpool only dispatch the operations. They block once the maximum amount of operations in
+ * flight of their threadpool is reached, see {@link ConcurrencyConfig#maxInFlight(String, int)}, until an operation
+ * completes.
+ *
+ * @author Aurelien Broszniowski
+ */
+public abstract class AsyncOperation implements Operation {
+
+  private static final Logger logger = LoggerFactory.getLogger(AsyncOperation.class);
+
+  private final String name;
+  private final Enum errorResult;
+
+  /**
+   * @param name        name the operations are recorded under
+   * @param errorResult result the operations completing exceptionally are recorded with
+   */
+  protected AsyncOperation(final String name, final Enum errorResult) {
+    this.name = name;
+    this.errorResult = errorResult;
+  }
+
+  @Override
+  public final void exec(final StatisticsHolder statisticsHolder,
+                         final Map<Class<? extends Configuration>, Configuration> configurations,
+                         final List<AssertionEvaluator> assertions) throws TestException {
+    ConcurrencyConfig concurrencyConfig = (ConcurrencyConfig)configurations.get(ConcurrencyConfig.class);
+    final InFlightLimiter limiter = concurrencyConfig == null ? null
+        : concurrencyConfig.getInFlightLimiter(CurrentThreadpool.get());
+    if (limiter != null) {
+      try {
+        limiter.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new TestException("Interrupted while waiting for an asynchronous operation to complete", e);
+      }
+    }
+    // the holder of a worker is confined to its thread, and already records the next operation at completion time
+    final StatisticsHolder completionStatisticsHolder = statisticsHolder.snapshot();
+    final long start = statisticsHolder.getTimeInNs();
+    CompletionStage<? extends Enum> stage;
+    try {
+      stage = execAsync(configurations, assertions);
+    } catch (TestException | RuntimeException e) {
+      if (limiter != null) {
+        limiter.release();
+      }
+      throw e;
+    }
+    stage.whenComplete((result, throwable) -> {
+      try {
+        if (throwable != null) {
+          logger.debug("Asynchronous operation " + name + " failed", throwable);
+        } else if (result == null) {
+          logger.debug("Asynchronous operation " + name + " completed without a result");
+        }
+        completionStatisticsHolder.record(name, completionStatisticsHolder.getTimeInNs() - start,
+            throwable == null && result != null ? result : errorResult);
+      } finally {
+        if (limiter != null) {
+          limiter.release();
+        }
+      }
+    });
+  }
+
+  /**
+   * Sends the operation, without waiting for its completion.
+   *
+   * @return a stage completing with the result the operation is recorded with, the operation is recorded with the error
+   * result if the stage completes exceptionally or without a result
+   */
+  protected abstract CompletionStage<? extends Enum> execAsync(
+      final Map<Class<? extends Configuration>, Configuration> configurations,
+      final List<AssertionEvaluator> assertions) throws TestException;
+
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public List<String> getDescription() {
+    return Collections.singletonList("Asynchronous " + name);
+  }
+}
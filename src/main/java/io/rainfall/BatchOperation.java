@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall;
+
+import io.rainfall.batch.BatchSize;
+import io.rainfall.statistics.StatisticsHolder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@link Operation} whose execution covers a batch of logical operations in one call, e.g. a multi-get, a putAll or
+ * pipelined writes.
+ * <p>
+ * The batch is timed and recorded once, with {@link StatisticsHolder#recordBatch(String, long, Enum, int)}, so the
+ * statistics report both the TPS of the batches and of their items.
+ *
+ * @author Aurelien Broszniowski
+ */
+public abstract class BatchOperation implements Operation {
+
+  private final String name;
+  private final BatchSize batchSize;
+
+  /**
+   * @param name      name the batches are recorded under
+   * @param batchSize sizes the batches
+   */
+  protected BatchOperation(final String name, final BatchSize batchSize) {
+    this.name = name;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public final void exec(final StatisticsHolder statisticsHolder,
+                         final Map<Class<? extends Configuration>, Configuration> configurations,
+                         final List<AssertionEvaluator> assertions) throws TestException {
+    int size = batchSize.next();
+    long start = statisticsHolder.getTimeInNs();
+    Enum result = execBatch(size, configurations, assertions);
+    long latencyInNs = statisticsHolder.getTimeInNs() - start;
+    statisticsHolder.recordBatch(name, latencyInNs, result, size);
+    batchSize.completed(size, latencyInNs);
+  }
+
+  /**
+   * Executes one batch.
+   *
+   * @param batchSize amount of logical operations of the batch
+   * @return the result the batch is recorded with
+   */
+  protected abstract Enum execBatch(final int batchSize,
+                                    final Map<Class<? extends Configuration>, Configuration> configurations,
+                                    final List<AssertionEvaluator> assertions) throws TestException;
+
+  public String getName() {
+    return name;
+  }
+
+  public BatchSize getBatchSize() {
+    return batchSize;
+  }
+
+  @Override
+  public List<String> getDescription() {
+    return Collections.singletonList(name + " in " + batchSize);
+  }
+}
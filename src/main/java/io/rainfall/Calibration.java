@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall;
+
+import io.rainfall.configuration.ConcurrencyConfig;
+import io.rainfall.configuration.DistributedConfig;
+import io.rainfall.configuration.ReportingConfig;
+import io.rainfall.execution.Times;
+import io.rainfall.statistics.RuntimeStatisticsHolder;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.utils.RangeMap;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the overhead of Rainfall itself, by executing a no-op {@link Operation} through the same execution and
+ * statistics path as the scenario, before the scenario is run.
+ * <p>
+ * The no-op operation measures and records its response time like a real operation, so the median of its recorded
+ * response times is the overhead added to every recorded response time, and the time per operation gives the
+ * maximum throughput a thread can reach.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class Calibration {
+
+  static final String CALIBRATION_NAME = "calibration";
+
+  private final long iterations;
+  private boolean subtractOverhead = false;
+  private boolean calibrated = false;
+  private long medianOverheadInNs;
+  private double timePerOperationInNs;
+  private double maxTpsPerThread;
+
+  public Calibration(final long iterations) {
+    if (iterations <= 0) {
+      throw new IllegalArgumentException("The calibration needs a positive amount of iterations.");
+    }
+    this.iterations = iterations;
+  }
+
+  public static Calibration calibration(final long iterations) {
+    return new Calibration(iterations);
+  }
+
+  /**
+   * Subtracts the median overhead measured by the calibration from the response times recorded during the run.
+   *
+   * @return this calibration
+   */
+  public Calibration subtractOverhead() {
+    this.subtractOverhead = true;
+    return this;
+  }
+
+  public <E extends Enum<E>> void calibrate(final Scenario scenario,
+                                            final Map<Class<? extends Configuration>, Configuration> configurations,
+                                            final ReportingConfig<E> reportingConfig) throws TestException {
+    final RuntimeStatisticsHolder<E> statisticsHolder = new RuntimeStatisticsHolder<E>(reportingConfig.getResults(),
+        reportingConfig.getResultsReported(), Collections.emptySet(), reportingConfig.getHistogramStripes());
+    final Enum<E> result = reportingConfig.getResults()[0];
+    final Operation noop = new Operation() {
+      @Override
+      public void exec(final StatisticsHolder statisticsHolder,
+                       final Map<Class<? extends Configuration>, Configuration> configurations,
+                       final List<AssertionEvaluator> assertions) {
+        long start = statisticsHolder.getTimeInNs();
+        statisticsHolder.record(CALIBRATION_NAME, statisticsHolder.getTimeInNs() - start, result);
+      }
+
+      @Override
+      public List<String> getDescription() {
+        return Collections.singletonList("No-op calibration operation");
+      }
+    };
+
+    // same threadpools and weights as the scenario, so that the operation selection costs the same
+    Scenario calibrationScenario = Scenario.scenario(CALIBRATION_NAME);
+    for (Map.Entry<String, RangeMap<WeightedOperation>> entry : scenario.getOperations().entrySet()) {
+      List<WeightedOperation> noops = new ArrayList<WeightedOperation>();
+      for (WeightedOperation weightedOperation : entry.getValue().getAll()) {
+        noops.add(new WeightedOperation(weightedOperation.getExactWeight(), noop));
+      }
+      calibrationScenario.exec(entry.getKey(), noops.toArray(new WeightedOperation[0]));
+    }
+
+    Map<Class<? extends Configuration>, Configuration> calibrationConfigurations =
+        new HashMap<Class<? extends Configuration>, Configuration>(configurations);
+    calibrationConfigurations.remove(DistributedConfig.class);
+    ConcurrencyConfig concurrencyConfig = (ConcurrencyConfig)configurations.get(ConcurrencyConfig.class);
+    int threadCount = 0;
+    for (Integer count : concurrencyConfig.getThreadCountMap().values()) {
+      threadCount += count;
+    }
+
+    long start = System.nanoTime();
+    new Times(iterations).execute(statisticsHolder, calibrationScenario, calibrationConfigurations,
+        Collections.<AssertionEvaluator>emptyList());
+    long elapsedInNs = System.nanoTime() - start;
+
+    Histogram histogram = statisticsHolder.fetchHistogram(result);
+    this.medianOverheadInNs = histogram.getValueAtPercentile(50.0d);
+    this.timePerOperationInNs = (double)elapsedInNs * threadCount / iterations;
+    this.maxTpsPerThread = timePerOperationInNs > 0 ? 1_000_000_000d / timePerOperationInNs : 0d;
+    this.calibrated = true;
+  }
+
+  public boolean isSubtractingOverhead() {
+    return subtractOverhead;
+  }
+
+  public long getMedianOverheadInNs() {
+    return medianOverheadInNs;
+  }
+
+  public double getTimePerOperationInNs() {
+    return timePerOperationInNs;
+  }
+
+  public double getMaxTpsPerThread() {
+    return maxTpsPerThread;
+  }
+
+  public List<String> getDescription() {
+    List<String> description = new ArrayList<String>();
+    if (!calibrated) {
+      description.add("Harness calibration of " + iterations + " iterations");
+      return description;
+    }
+    description.add("Harness calibration (" + iterations + " no-op iterations) : median recorded overhead = "
+                    + medianOverheadInNs + " ns, time per operation = " + String.format("%.1f", timePerOperationInNs)
+                    + " ns, max throughput = " + String.format("%.0f", maxTpsPerThread) + " operations per second per thread");
+    if (subtractOverhead) {
+      description.add("The median overhead is subtracted from the recorded response times");
+    }
+    return description;
+  }
+}
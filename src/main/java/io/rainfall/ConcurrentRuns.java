@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall;
+
+import io.rainfall.configuration.ReportingConfig;
+import io.rainfall.reporting.HtmlReport;
+import io.rainfall.statistics.StatisticsPeekHolder;
+import io.rainfall.utils.CurrentThreadpool;
+import io.rainfall.utils.RandomStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Several {@link ScenarioRun}s started together, e.g. a background workload loading data alongside a latency
+ * sensitive foreground workload.
+ * <p>
+ * Each run keeps its own configurations, executions and statistics. The runs wait for each other on a start barrier
+ * once they are calibrated and warmed up, then their statistics share the same start time, so that their phases can
+ * be lined up. The html reports of the runs, which must be written to distinct directories, can be aggregated into
+ * one report.
+ * <p>
+ * The runs are named after their rank (e.g. "run-1"), which prefixes the names of their workers, so that the workers
+ * of distinct runs draw distinct random streams from the shared master seed. The runs can be started again once they
+ * ended, but not while they are running.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class ConcurrentRuns {
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final List<ScenarioRun<?>> runs;
+  private boolean running = false;
+  private int startedCount = 0;
+  private long startTime = 0L;
+  private Throwable failure = null;
+  private Long seed = null;
+  private File reportPath = null;
+
+  ConcurrentRuns(final ScenarioRun<?>... runs) {
+    if (runs.length == 0) {
+      throw new IllegalArgumentException("At least one scenario run is needed.");
+    }
+    this.runs = Arrays.asList(runs);
+  }
+
+  // Seed the pseudo random generators of all the runs, to replay them
+  public ConcurrentRuns seed(final long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  // Aggregate the html reports of the runs into one report
+  public ConcurrentRuns report(final String reportPath) {
+    this.reportPath = new File(reportPath);
+    return this;
+  }
+
+  /**
+   * Starts all the runs, each on its own thread, and waits for their end.
+   *
+   * @return the final statistics of each run, by scenario run, in the order they were given
+   */
+  public Map<ScenarioRun<?>, StatisticsPeekHolder<?>> start() {
+    synchronized (this) {
+      if (running) {
+        throw new IllegalStateException("The concurrent runs are already running.");
+      }
+      running = true;
+      startedCount = 0;
+      startTime = 0L;
+      failure = null;
+    }
+    long masterSeed = seed == null ? RandomStreams.newMasterSeed() : seed;
+    RandomStreams.seed(masterSeed);
+    logger.info("Master seed of the concurrent runs : {}", masterSeed);
+
+    final AtomicInteger threadNumber = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(runs.size(), runnable -> {
+      Thread thread = new Thread(runnable, "Rainfall-core Scenario Run - " + threadNumber.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+    Map<ScenarioRun<?>, Future<? extends StatisticsPeekHolder<?>>> futures =
+        new LinkedHashMap<ScenarioRun<?>, Future<? extends StatisticsPeekHolder<?>>>();
+    try {
+      for (int i = 0; i < runs.size(); i++) {
+        final ScenarioRun<?> run = runs.get(i);
+        final String runName = "run-" + (i + 1);
+        run.joinConcurrentRuns(this);
+        futures.put(run, executor.submit(() -> {
+          CurrentThreadpool.setRun(runName);
+          try {
+            return run.start();
+          } catch (RuntimeException | Error e) {
+            // release the runs waiting for this one at the start barrier
+            fail(e);
+            throw e;
+          } finally {
+            CurrentThreadpool.setRun(null);
+          }
+        }));
+      }
+
+      Map<ScenarioRun<?>, StatisticsPeekHolder<?>> peeks = new LinkedHashMap<ScenarioRun<?>, StatisticsPeekHolder<?>>();
+      RuntimeException failure = null;
+      for (Map.Entry<ScenarioRun<?>, Future<? extends StatisticsPeekHolder<?>>> future : futures.entrySet()) {
+        try {
+          peeks.put(future.getKey(), future.getValue().get());
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = new RuntimeException("A concurrent scenario run failed", e.getCause());
+          } else {
+            failure.addSuppressed(e.getCause());
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      if (reportPath != null) {
+        aggregateReports();
+      }
+      return peeks;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for the concurrent scenario runs", e);
+    } finally {
+      executor.shutdownNow();
+      for (ScenarioRun<?> run : runs) {
+        run.joinConcurrentRuns(null);
+      }
+      synchronized (this) {
+        running = false;
+      }
+    }
+  }
+
+  /**
+   * Waits until all the runs are ready to start their executions.
+   *
+   * @return the start time of the runs, shared by all of them
+   */
+  synchronized long awaitStart() {
+    if (++startedCount == runs.size()) {
+      startTime = System.currentTimeMillis();
+      notifyAll();
+    }
+    try {
+      while (startTime == 0L && failure == null) {
+        wait();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for the other scenario runs to start", e);
+    }
+    if (startTime == 0L) {
+      throw new RuntimeException("Another concurrent scenario run failed before starting", failure);
+    }
+    return startTime;
+  }
+
+  private synchronized void fail(final Throwable throwable) {
+    if (failure == null) {
+      failure = throwable;
+    }
+    notifyAll();
+  }
+
+  private void aggregateReports() {
+    List<String> reportSubdirs = new ArrayList<String>();
+    Map<String, Enum> resultsReported = new LinkedHashMap<String, Enum>();
+    for (ScenarioRun<?> run : runs) {
+      ReportingConfig<?> reportingConfig = (ReportingConfig<?>)run.getConfiguration(ReportingConfig.class);
+      File htmlReportPath = reportingConfig == null ? null : reportingConfig.getHtmlReportPath();
+      if (htmlReportPath == null) {
+        logger.warn("The run of the scenario {} has no html report to aggregate.", run.getScenario().getName());
+        continue;
+      }
+      reportSubdirs.add(htmlReportPath.getAbsolutePath());
+      for (Enum<?> result : reportingConfig.getResultsReported()) {
+        resultsReported.putIfAbsent(result.name(), result);
+      }
+    }
+    if (reportSubdirs.isEmpty()) {
+      return;
+    }
+    try {
+      reportPath.mkdirs();
+      HtmlReport.aggregate(resultsReported.values().toArray(new Enum[0]), reportSubdirs, reportPath);
+    } catch (IOException e) {
+      throw new RuntimeException("Can not aggregate the reports of the concurrent runs in " + reportPath, e);
+    }
+  }
+}
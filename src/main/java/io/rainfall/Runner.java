@@ -30,4 +30,9 @@ public class Runner {
     return new ScenarioRun(scenario);
   }
 
+  // run several scenarios side by side, each with its own configurations and statistics
+  public static ConcurrentRuns concurrently(ScenarioRun<?>... runs) {
+    return new ConcurrentRuns(runs);
+  }
+
 }
@@ -16,9 +16,13 @@
 
 package io.rainfall;
 
+import io.rainfall.utils.FrozenRangeMap;
+import io.rainfall.utils.OperationWatchdog;
 import io.rainfall.utils.RangeMap;
+import io.rainfall.utils.TokenBucket;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -36,11 +40,17 @@ public class Scenario {
 
   private String name;
   private final Map<String, RangeMap<WeightedOperation>> operations = new HashMap<>();
+  private final Map<String, double[]> weights = new HashMap<>();
+  private TokenBucket rateLimit = null;
 
   public Scenario(final String name) {
     this.name = name;
   }
 
+  public String getName() {
+    return name;
+  }
+
   public Scenario exec(final WeightedOperation... operations) {
     return exec(defaultThreadpoolname, operations);
   }
@@ -50,11 +60,14 @@ public class Scenario {
       throw new IllegalArgumentException("The threadpool " + threadpoolName + " has already been defined for a scenario execution.");
     }
 
-    RangeMap<WeightedOperation> operationRangeMap = new RangeMap<>();
-    for (WeightedOperation operation : operations) {
-      operationRangeMap.put(operation.getWeight(), operation);
+    double[] weights = new double[operations.length];
+    for (int i = 0; i < operations.length; i++) {
+      weights[i] = operations[i].getExactWeight();
     }
+    RangeMap<WeightedOperation> operationRangeMap = new FrozenRangeMap<WeightedOperation>(weights, Arrays.asList(operations));
     this.operations.put(threadpoolName, operationRangeMap);
+    this.weights.put(threadpoolName, weights);
+    applyRateLimits();
     return this;
   }
 
@@ -67,15 +80,80 @@ public class Scenario {
       throw new IllegalArgumentException("The threadpool " + threadpoolName + " has already been defined for a scenario execution.");
     }
 
-    RangeMap<WeightedOperation> operationRangeMap = new RangeMap<WeightedOperation>();
-    for (Operation operation : operations) {
-      float percent = 1.0f / operations.length;
-      operationRangeMap.put(percent, new WeightedOperation((double)percent, operation));
+    // equal integer weights, so that the ranges don't accumulate rounding errors
+    double[] weights = new double[operations.length];
+    List<WeightedOperation> weightedOperations = new ArrayList<WeightedOperation>(operations.length);
+    for (int i = 0; i < operations.length; i++) {
+      weights[i] = 1.0d;
+      weightedOperations.add(new WeightedOperation(1.0d / operations.length, operations[i]));
     }
+    RangeMap<WeightedOperation> operationRangeMap = new FrozenRangeMap<WeightedOperation>(weights, weightedOperations);
     this.operations.put(threadpoolName, operationRangeMap);
+    this.weights.put(threadpoolName, weights);
+    applyRateLimits();
+    return this;
+  }
+
+  /**
+   * Caps the rate of all the operations of the scenario, on top of the caps of their threadpools and their own.
+   *
+   * @param rateLimit token bucket giving the permits of the scenario
+   * @return this scenario
+   */
+  public Scenario rateLimit(final TokenBucket rateLimit) {
+    this.rateLimit = rateLimit;
+    applyRateLimits();
     return this;
   }
 
+  /**
+   * Copies the scenario for one run: the operations of the copy are also capped by the rate limits of the threadpools
+   * of the {@link io.rainfall.configuration.ConcurrencyConfig} and watched by the watchdog of the run, so that the
+   * runs sharing the scenario don't share their state.
+   *
+   * @param threadpoolRateLimits token buckets giving the permits of the threadpools, by name of threadpool
+   * @param watchdog             watchdog of the run detecting the hung operations, or null
+   * @return the scenario executed by the run
+   */
+  public Scenario forRun(final Map<String, TokenBucket> threadpoolRateLimits, final OperationWatchdog watchdog) {
+    Scenario runScenario = new Scenario(name);
+    runScenario.rateLimit = rateLimit;
+    for (Map.Entry<String, RangeMap<WeightedOperation>> threadpoolOperations : operations.entrySet()) {
+      String threadpoolName = threadpoolOperations.getKey();
+      TokenBucket threadpoolRateLimit = threadpoolRateLimits.get(threadpoolName);
+      List<WeightedOperation> runOperations = new ArrayList<WeightedOperation>();
+      for (WeightedOperation operation : threadpoolOperations.getValue().getAll()) {
+        runOperations.add(operation.forRun(threadpoolRateLimit, watchdog));
+      }
+      runScenario.operations.put(threadpoolName,
+          new FrozenRangeMap<WeightedOperation>(weights.get(threadpoolName), runOperations));
+      runScenario.weights.put(threadpoolName, weights.get(threadpoolName));
+    }
+    return runScenario;
+  }
+
+  /**
+   * @return true if an operation has its own timeout
+   */
+  public boolean hasOperationTimeouts() {
+    for (RangeMap<WeightedOperation> threadpoolOperations : operations.values()) {
+      for (WeightedOperation operation : threadpoolOperations.getAll()) {
+        if (operation.getTimeoutInNs() > 0L) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private void applyRateLimits() {
+    for (RangeMap<WeightedOperation> threadpoolOperations : operations.values()) {
+      for (WeightedOperation operation : threadpoolOperations.getAll()) {
+        operation.inheritRateLimit(rateLimit);
+      }
+    }
+  }
+
   public static Scenario scenario(final String name) {
     return new Scenario(name);
   }
@@ -87,6 +165,9 @@ public class Scenario {
   public List<String> getDescription() {
     List<String> desc = new ArrayList<String>();
     desc.add("Scenario : " + name);
+    if (rateLimit != null) {
+      desc.add("Rate limit : " + rateLimit);
+    }
     for (String threadpoolName : operations.keySet()) {
       RangeMap<WeightedOperation> operationMap = this.operations.get(threadpoolName);
       desc.add("Threadpool [" + threadpoolName + "]");
@@ -19,18 +19,25 @@ package io.rainfall;
 import io.rainfall.configuration.ConcurrencyConfig;
 import io.rainfall.configuration.DistributedConfig;
 import io.rainfall.configuration.ReportingConfig;
+import io.rainfall.execution.WarmUp;
 import io.rainfall.reporting.PeriodicReporter;
 import io.rainfall.reporting.Reporter;
 import io.rainfall.statistics.RuntimeStatisticsHolder;
 import io.rainfall.statistics.StatisticsPeekHolder;
 import io.rainfall.statistics.StatisticsThread;
+import io.rainfall.statistics.eventlog.EventLog;
+import io.rainfall.utils.OperationWatchdog;
+import io.rainfall.utils.RandomStreams;
+import io.rainfall.utils.WorkerPools;
 import io.rainfall.utils.distributed.RainfallClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -53,8 +60,11 @@ public class ScenarioRun<E extends Enum<E>> {
   private Map<Class<? extends Configuration>, Configuration> configurations = new ConcurrentHashMap<Class<? extends Configuration>, Configuration>();
   private List<AssertionEvaluator> assertions = new ArrayList<AssertionEvaluator>();
   private Execution warmup = null;
+  private Calibration calibration = null;
   private List<Execution> executions = null;
   private RuntimeStatisticsHolder<E> statisticsHolder;
+  private Long seed = null;
+  private ConcurrentRuns concurrentRuns = null;
 
   public ScenarioRun(final Scenario scenario) {
     this.scenario = scenario;
@@ -74,6 +84,15 @@ public class ScenarioRun<E extends Enum<E>> {
     return this;
   }
 
+  // Measure the overhead of the harness before the run
+  public ScenarioRun calibrate(Calibration calibration) throws SyntaxException {
+    if (this.calibration != null) {
+      throw new SyntaxException("Calibration is already defined.");
+    }
+    this.calibration = calibration;
+    return this;
+  }
+
   // Add executions
   public ScenarioRun executed(Execution... executions) throws SyntaxException {
     if (this.executions != null) {
@@ -97,8 +116,61 @@ public class ScenarioRun<E extends Enum<E>> {
     return this;
   }
 
+  // Seed the pseudo random generators, to replay a run
+  public ScenarioRun seed(final long seed) {
+    this.seed = seed;
+    return this;
+  }
+
   // Start Scenario run
   public StatisticsPeekHolder<E> start() {
+    long masterSeed;
+    if (concurrentRuns == null) {
+      masterSeed = seed == null ? RandomStreams.newMasterSeed() : seed;
+      RandomStreams.seed(masterSeed);
+      logger.info("Master seed of the run : {}", masterSeed);
+    } else {
+      // the random streams are shared by the concurrent runs, which seeded them together
+      masterSeed = RandomStreams.getMasterSeed();
+    }
+    ConcurrencyConfig concurrencyConfig = (ConcurrencyConfig)configurations.get(ConcurrencyConfig.class);
+    WorkerPools workerPools = concurrencyConfig.createWorkerPools();
+    OperationWatchdog watchdog = null;
+    if (concurrencyConfig.getOperationTimeoutInNs() > 0L || scenario.hasOperationTimeouts()) {
+      watchdog = concurrencyConfig.createOperationWatchdog();
+    }
+    // the state of the run is kept apart from the scenario and the configurations, which other runs can share
+    Scenario runScenario = scenario.forRun(concurrencyConfig.getRateLimits(), watchdog);
+    Map<Class<? extends Configuration>, Configuration> runConfigurations =
+        new HashMap<Class<? extends Configuration>, Configuration>(configurations);
+    runConfigurations.put(WorkerPools.class, workerPools);
+    RuntimeException failure = null;
+    try {
+      StatisticsPeekHolder<E> peek = run(runScenario, runConfigurations);
+      if (watchdog == null || watchdog.getAbandonedOperation() == null) {
+        return peek;
+      }
+    } catch (RuntimeException e) {
+      if (watchdog == null || watchdog.getAbandonedOperation() == null) {
+        throw e;
+      }
+      failure = e;
+    } finally {
+      if (watchdog != null) {
+        watchdog.close();
+      }
+      workerPools.close();
+      logger.info("Random streams of the run (master seed {}) by worker : {}", masterSeed,
+          RandomStreams.getWorkerSeeds());
+    }
+    // the watchdog interrupted this thread to end the run
+    Thread.interrupted();
+    throw new RuntimeException("The run was abandoned, the operation " + watchdog.getAbandonedOperation()
+                               + " is hung.", failure);
+  }
+
+  private StatisticsPeekHolder<E> run(final Scenario runScenario,
+                                      final Map<Class<? extends Configuration>, Configuration> runConfigurations) {
     DistributedConfig distributedConfig = (DistributedConfig)configurations.get(DistributedConfig.class);
     if (distributedConfig != null) {
       startCluster(distributedConfig);
@@ -111,20 +183,44 @@ public class ScenarioRun<E extends Enum<E>> {
 
 
     try {
+      if (calibration != null) {
+        logger.info("Executing harness calibration, please wait.");
+        calibration.calibrate(runScenario, runConfigurations, reportingConfig);
+        awaitEndOfPhase(runConfigurations);
+      }
       if (warmup != null) {
         logger.error("This Warmup syntax is deprecated, please use the syntax:  Runner.setUp(scenario)\n" +
                      "        .executed(warmup(during(30, seconds)), during(60, seconds))");
         RuntimeStatisticsHolder<E> blankStatisticsHolder = new RuntimeStatisticsHolder<E>(reportingConfig.getResults(), reportingConfig
             .getResultsReported(), reportingConfig.getStatisticsCollectors());
         logger.info("Executing warmup phase, please wait.");
-        warmup.execute(blankStatisticsHolder, scenario, configurations, assertions);
+        warmup.execute(blankStatisticsHolder, runScenario, runConfigurations, assertions);
+        awaitEndOfPhase(runConfigurations);
       }
     } catch (TestException e) {
       throw new RuntimeException(e);
     }
 
     this.statisticsHolder = new RuntimeStatisticsHolder<E>(reportingConfig.getResults(), reportingConfig.getResultsReported(),
-        reportingConfig.getStatisticsCollectors());
+        reportingConfig.getStatisticsCollectors(), reportingConfig.getHistogramStripes(),
+        reportingConfig.getMaxHistogramNames());
+    if (calibration != null && calibration.isSubtractingOverhead()) {
+      this.statisticsHolder.setLatencyOffsetInNs(calibration.getMedianOverheadInNs());
+    }
+    EventLog eventLog = null;
+    if (reportingConfig.getEventLogPath() != null) {
+      try {
+        eventLog = new EventLog(Paths.get(reportingConfig.getEventLogPath()), reportingConfig.getResults(),
+            reportingConfig.getEventLogSegmentSize(), reportingConfig.getEventLogMaxSegments(),
+            EventLog.DEFAULT_BUFFER_RECORDS, EventLog.DEFAULT_FLUSH_INTERVAL_IN_MS);
+      } catch (IOException e) {
+        throw new RuntimeException("Can not create the event log in " + reportingConfig.getEventLogPath(), e);
+      }
+      this.statisticsHolder.setEventLog(eventLog);
+    }
+    if (concurrentRuns != null) {
+      this.statisticsHolder.setStartTime(concurrentRuns.awaitStart());
+    }
 
     final Set<Reporter<E>> logReporters = reportingConfig.getLogReporters();
     Map<Long, List<Reporter<E>>> reportersByInterval = groupReportersByInterval(logReporters, reportingConfig);
@@ -151,12 +247,16 @@ public class ScenarioRun<E extends Enum<E>> {
         }, initialReportDelayInMillis(intervalInMillis), intervalInMillis, TimeUnit.MILLISECONDS);
       }
 
+      int step = 1;
       for (final Execution execution : executions) {
-        execution.execute(statisticsHolder, scenario, configurations, assertions);
+        statisticsHolder.beginPhase(step++ + ") " + execution.toString());
+        execution.execute(statisticsHolder, runScenario, runConfigurations, assertions);
+        awaitEndOfPhase(runConfigurations);
       }
     } catch (Exception e) {
       throw new RuntimeException(e);
     } finally {
+      statisticsHolder.endPhase();
       topOfSecondExecutor.shutdown();
       try {
         if (!topOfSecondExecutor.awaitTermination(1000, TimeUnit.MILLISECONDS)) {
@@ -169,6 +269,9 @@ public class ScenarioRun<E extends Enum<E>> {
       if (stats != null) {
         peek = stats.shutdown();
       }
+      if (eventLog != null) {
+        closeEventLog(eventLog);
+      }
       long end = System.currentTimeMillis();
     }
 
@@ -182,6 +285,44 @@ public class ScenarioRun<E extends Enum<E>> {
     return peek;
   }
 
+  /**
+   * Barrier between two executions: the next one starts once all the operations of the previous one are done,
+   * including the asynchronous operations still in flight.
+   */
+  private void awaitEndOfPhase(final Map<Class<? extends Configuration>, Configuration> runConfigurations)
+      throws TestException {
+    ConcurrencyConfig concurrencyConfig = (ConcurrencyConfig)runConfigurations.get(ConcurrencyConfig.class);
+    WorkerPools workerPools = (WorkerPools)runConfigurations.get(WorkerPools.class);
+    try {
+      if ((workerPools != null && !workerPools.awaitIdle(concurrencyConfig.getTimeoutInSeconds(), TimeUnit.SECONDS))
+          || !concurrencyConfig.awaitInFlightCompletion(concurrencyConfig.getTimeoutInSeconds(), TimeUnit.SECONDS)) {
+        throw new TestException("The operations of the previous execution are still running after "
+                                + concurrencyConfig.getTimeoutInSeconds() + " seconds.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TestException("Interrupted while waiting for the end of an execution.", e);
+    }
+  }
+
+  /**
+   * @param concurrentRuns the runs started together with this one, or null once they are done
+   */
+  void joinConcurrentRuns(final ConcurrentRuns concurrentRuns) {
+    this.concurrentRuns = concurrentRuns;
+  }
+
+  private void closeEventLog(final EventLog eventLog) {
+    try {
+      eventLog.close();
+    } catch (IOException e) {
+      logger.error("Can not close the event log in " + eventLog.getDirectory(), e);
+    }
+    if (eventLog.getDroppedCount() > 0) {
+      logger.warn("{} events were dropped from the event log, its buffers were full.", eventLog.getDroppedCount());
+    }
+  }
+
   long initialReportDelayInMillis(final long intervalInMillis) {
     return intervalInMillis;
   }
@@ -240,8 +381,15 @@ public class ScenarioRun<E extends Enum<E>> {
 
     description.add("");
 
+    description.add("Master seed : " + RandomStreams.getMasterSeed() + " (one random stream per worker, "
+                    + "named after its threadpool and rank, e.g. DEFAULT-0)");
+
+    if (calibration != null) {
+      description.addAll(calibration.getDescription());
+    }
+
     if (warmup != null) {
-      description.add("Warmup phase " + this.warmup.toString());
+      description.addAll(WarmUp.describe(this.warmup));
     }
 
     description.add("Execution of the scenario : ");
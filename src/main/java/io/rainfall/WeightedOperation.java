@@ -16,8 +16,15 @@
 
 package io.rainfall;
 
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.utils.OperationWatchdog;
+import io.rainfall.utils.TokenBucket;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * TODO : changer le weight system: on a soit -1 = 1 thread, ou calculler weights:  public Scenario exec(final WeightedOperation... operations) {
@@ -28,14 +35,21 @@ import java.util.List;
 
 public class WeightedOperation {
 
-  private float weight = 1;
+  private double weight = 1;
   private final Operation operation;
   private int weightInPercent;
   private List<String> description;
   private Execution.ExecutionState state;
+  private String name = null;
+  private TokenBucket rateLimit = null;
+  private TokenBucket threadpoolRateLimit = null;
+  private TokenBucket scenarioRateLimit = null;
+  private long timeoutInNs = 0L;
+  private OperationWatchdog watchdog = null;
+  private Operation executedOperation = null;
 
   public WeightedOperation(final Double weight, final Operation operation) {
-    this.weight = weight.floatValue();
+    this.weight = weight;
     this.weightInPercent = (int)(100 * weight);
     //TODO : read annotation to add desc.
     this.operation = operation;
@@ -45,7 +59,111 @@ public class WeightedOperation {
     this.operation = operation;
   }
 
+  private WeightedOperation(final WeightedOperation weightedOperation) {
+    this.weight = weightedOperation.weight;
+    this.operation = weightedOperation.operation;
+    this.weightInPercent = weightedOperation.weightInPercent;
+    this.description = weightedOperation.description;
+    this.name = weightedOperation.name;
+    this.rateLimit = weightedOperation.rateLimit;
+    this.scenarioRateLimit = weightedOperation.scenarioRateLimit;
+    this.timeoutInNs = weightedOperation.timeoutInNs;
+  }
+
+  /**
+   * Names the operation, so that the records of a replayed {@link io.rainfall.trace.Trace} are dispatched to it.
+   *
+   * @param name name of the operation in the trace
+   * @return this operation
+   */
+  public WeightedOperation named(final String name) {
+    this.name = name;
+    return this;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Caps the rate of the operation, on top of the caps of its threadpool and of its scenario.
+   *
+   * @param rateLimit token bucket giving the permits of the operation
+   * @return this operation
+   */
+  public WeightedOperation rateLimit(final TokenBucket rateLimit) {
+    this.rateLimit = rateLimit;
+    updateExecutedOperation();
+    return this;
+  }
+
+  /**
+   * Sets the time after which the watchdog of the run considers the operation as hung, instead of the operation
+   * timeout of the {@link io.rainfall.configuration.ConcurrencyConfig}.
+   *
+   * @param timeout timeout of the operation
+   * @param unit    unit of the timeout
+   * @return this operation
+   */
+  public WeightedOperation timeout(final long timeout, final TimeUnit unit) {
+    this.timeoutInNs = unit.toNanos(timeout);
+    updateExecutedOperation();
+    return this;
+  }
+
+  public long getTimeoutInNs() {
+    return timeoutInNs;
+  }
+
+  /**
+   * @param scenarioRateLimit cap of the scenario of the operation, or null
+   */
+  void inheritRateLimit(final TokenBucket scenarioRateLimit) {
+    this.scenarioRateLimit = scenarioRateLimit;
+    updateExecutedOperation();
+  }
+
+  /**
+   * @param threadpoolRateLimit cap of the threadpool of the operation in the run, or null
+   * @param watchdog            watchdog of the run, or null
+   * @return a copy of the operation for one run, also capped by its threadpool and watched by the watchdog of the run
+   */
+  WeightedOperation forRun(final TokenBucket threadpoolRateLimit, final OperationWatchdog watchdog) {
+    WeightedOperation runOperation = new WeightedOperation(this);
+    runOperation.threadpoolRateLimit = threadpoolRateLimit;
+    runOperation.watchdog = watchdog;
+    runOperation.updateExecutedOperation();
+    return runOperation;
+  }
+
+  private void updateExecutedOperation() {
+    // the time waited for the permits is not part of the time watched
+    Operation watchedOperation = watchdog == null ? operation
+        : new WatchedOperation(operation, watchdog, timeoutInNs, getWatchedName());
+    List<TokenBucket> rateLimits = new ArrayList<TokenBucket>();
+    for (TokenBucket bucket : new TokenBucket[] { rateLimit, threadpoolRateLimit, scenarioRateLimit }) {
+      if (bucket != null) {
+        rateLimits.add(bucket);
+      }
+    }
+    Operation throttledOperation = rateLimits.isEmpty() ? watchedOperation
+        : new ThrottledOperation(watchedOperation, rateLimits.toArray(new TokenBucket[0]));
+    this.executedOperation = throttledOperation == operation ? null : throttledOperation;
+  }
+
+  private String getWatchedName() {
+    if (name != null) {
+      return name;
+    }
+    String className = operation.getClass().getSimpleName();
+    return className.isEmpty() ? operation.getClass().getName() : className;
+  }
+
   public float getWeight() {
+    return (float)weight;
+  }
+
+  public double getExactWeight() {
     return weight;
   }
 
@@ -55,13 +173,23 @@ public class WeightedOperation {
 
   public List<String> getDescription() {
     List<String> desc = new ArrayList<String>();
-    desc.add("Operation weight : " + this.weightInPercent + " % ");
+    desc.add("Operation weight : " + this.weightInPercent + " % " + (name == null ? "" : "(" + name + ")"));
+    if (rateLimit != null) {
+      desc.add("Rate limit : " + rateLimit);
+    }
+    if (timeoutInNs > 0L) {
+      desc.add("Timeout : " + TimeUnit.NANOSECONDS.toMillis(timeoutInNs) + " ms");
+    }
     desc.addAll(this.operation.getDescription());
     return desc;
   }
 
+  /**
+   * @return the operation, which takes the permits of its rate limits before being executed if it is capped, and
+   * which is watched while the run has a watchdog
+   */
   public Operation getOperation() {
-    return operation;
+    return executedOperation == null ? operation : executedOperation;
   }
 
   public Execution.ExecutionState getExecutionState() {
@@ -71,4 +199,107 @@ public class WeightedOperation {
   public void markExecutionState(Execution.ExecutionState state) {
     this.state = state;
   }
+
+  /**
+   * Takes a permit from each of the token buckets capping the operation before executing it. The time waited for the
+   * permits is recorded apart from the response time, and the operation isn't executed if a permit is refused, in
+   * which case the worker backs off briefly.
+   */
+  private static final class ThrottledOperation implements Operation {
+
+    private final Operation operation;
+    private final TokenBucket[] rateLimits;
+
+    ThrottledOperation(final Operation operation, final TokenBucket[] rateLimits) {
+      this.operation = operation;
+      this.rateLimits = rateLimits;
+    }
+
+    @Override
+    public void exec(final StatisticsHolder statisticsHolder,
+                     final Map<Class<? extends Configuration>, Configuration> configurations,
+                     final List<AssertionEvaluator> assertions) throws TestException {
+      long nowInNs = System.nanoTime();
+      long waitInNs = reserve(0, nowInNs);
+      if (waitInNs < 0L) {
+        statisticsHolder.increaseRefusedCount();
+        // backs off, else a worker whose operations are all capped would spin on the bucket
+        LockSupport.parkNanos(rateLimits[(int)(-1L - waitInNs)].getRefusalBackoffInNs());
+        return;
+      }
+      if (waitInNs > 0L) {
+        long deadlineInNs = nowInNs + waitInNs;
+        long remainingInNs;
+        while ((remainingInNs = deadlineInNs - System.nanoTime()) > 0L && !Thread.currentThread().isInterrupted()) {
+          LockSupport.parkNanos(remainingInNs);
+        }
+        statisticsHolder.recordThrottle(System.nanoTime() - nowInNs);
+      }
+      operation.exec(statisticsHolder, configurations, assertions);
+    }
+
+    /**
+     * Reserves a permit from the bucket of the level and from the next ones, the reservations are kept on the stack so
+     * that they can be refunded without allocating.
+     *
+     * @return the time to wait for all the permits, or -1 - the level of the bucket which refused its permit, in which
+     * case no permit is kept
+     */
+    private long reserve(final int level, final long nowInNs) {
+      if (level == rateLimits.length) {
+        return 0L;
+      }
+      long reservation = rateLimits[level].reserve(nowInNs);
+      if (reservation == TokenBucket.REFUSED) {
+        return -1L - level;
+      }
+      long waitInNs = reserve(level + 1, nowInNs);
+      if (waitInNs < 0L) {
+        rateLimits[level].refund(reservation);
+        return waitInNs;
+      }
+      return Math.max(waitInNs, TokenBucket.waitInNs(reservation));
+    }
+
+    @Override
+    public List<String> getDescription() {
+      return operation.getDescription();
+    }
+  }
+
+  /**
+   * Publishes the start and the end of the operation in the slot of the worker, for the watchdog to detect it hung.
+   */
+  private static final class WatchedOperation implements Operation {
+
+    private final Operation operation;
+    private final OperationWatchdog watchdog;
+    private final long timeoutInNs;
+    private final String name;
+
+    WatchedOperation(final Operation operation, final OperationWatchdog watchdog, final long timeoutInNs,
+                     final String name) {
+      this.operation = operation;
+      this.watchdog = watchdog;
+      this.timeoutInNs = timeoutInNs;
+      this.name = name;
+    }
+
+    @Override
+    public void exec(final StatisticsHolder statisticsHolder,
+                     final Map<Class<? extends Configuration>, Configuration> configurations,
+                     final List<AssertionEvaluator> assertions) throws TestException {
+      OperationWatchdog.Slot slot = watchdog.begin(name, timeoutInNs, statisticsHolder);
+      try {
+        operation.exec(slot.getStatisticsHolder(), configurations, assertions);
+      } finally {
+        slot.end();
+      }
+    }
+
+    @Override
+    public List<String> getDescription() {
+      return operation.getDescription();
+    }
+  }
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.batch;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sizes the batches of a {@link io.rainfall.BatchOperation}, it is shared by all the workers executing the operation.
+ *
+ * @author Aurelien Broszniowski
+ */
+public interface BatchSize {
+
+  /**
+   * @return the size of the next batch
+   */
+  int next();
+
+  /**
+   * Called after each batch, to adapt the size of the next ones.
+   *
+   * @param batchSize   size of the batch
+   * @param latencyInNs response time of the batch
+   */
+  default void completed(int batchSize, long latencyInNs) {
+  }
+
+  /**
+   * @param batchSize size of all the batches
+   * @return batches of a constant size
+   */
+  static BatchSize fixed(int batchSize) {
+    return new FixedBatchSize(batchSize);
+  }
+
+  /**
+   * @param minBatchSize  smallest batch
+   * @param maxBatchSize  largest batch
+   * @param targetLatency response time the batches should take
+   * @param unit          unit of the response time
+   * @return batches sized from the latency of the previous ones, to take the target response time
+   */
+  static BatchSize latencyTarget(int minBatchSize, int maxBatchSize, long targetLatency, TimeUnit unit) {
+    return new LatencyTargetBatchSize(minBatchSize, maxBatchSize, unit.toNanos(targetLatency));
+  }
+}
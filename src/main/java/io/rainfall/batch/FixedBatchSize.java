@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.batch;
+
+/**
+ * Batches of a constant size.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class FixedBatchSize implements BatchSize {
+
+  private final int batchSize;
+
+  public FixedBatchSize(final int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("The batch size must be positive.");
+    }
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public int next() {
+    return batchSize;
+  }
+
+  @Override
+  public String toString() {
+    return "batches of " + batchSize;
+  }
+}
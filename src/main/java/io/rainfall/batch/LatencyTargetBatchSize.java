@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.batch;
+
+/**
+ * Batches sized so that they take a target response time.
+ * <p>
+ * The response time of a batch is assumed to grow linearly with its size: after each batch, the size moves a fraction
+ * of the way towards the size which would have taken the target response time, and at most doubles. The workers
+ * update the size without locking, a lost update only delays the convergence.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class LatencyTargetBatchSize implements BatchSize {
+
+  private static final double GAIN = 0.2d;
+
+  private final int minBatchSize;
+  private final int maxBatchSize;
+  private final long targetLatencyInNs;
+  private volatile double batchSize;
+
+  public LatencyTargetBatchSize(final int minBatchSize, final int maxBatchSize, final long targetLatencyInNs) {
+    if (minBatchSize <= 0 || maxBatchSize < minBatchSize) {
+      throw new IllegalArgumentException("The batch sizes must be positive, and the minimum lower than the maximum.");
+    }
+    if (targetLatencyInNs <= 0L) {
+      throw new IllegalArgumentException("The target latency must be positive.");
+    }
+    this.minBatchSize = minBatchSize;
+    this.maxBatchSize = maxBatchSize;
+    this.targetLatencyInNs = targetLatencyInNs;
+    this.batchSize = minBatchSize;
+  }
+
+  @Override
+  public int next() {
+    return (int)Math.round(batchSize);
+  }
+
+  @Override
+  public void completed(final int batchSize, final long latencyInNs) {
+    double targetSize = latencyInNs <= 0L ? 2.0d * batchSize
+        : Math.min(2.0d * batchSize, (double)batchSize * targetLatencyInNs / latencyInNs);
+    double current = this.batchSize;
+    this.batchSize = Math.max(minBatchSize, Math.min(maxBatchSize, current + (targetSize - current) * GAIN));
+  }
+
+  @Override
+  public String toString() {
+    return "batches of " + minBatchSize + " to " + maxBatchSize + " operations, sized to take "
+           + (targetLatencyInNs / 1_000_000.0d) + "ms";
+  }
+}
@@ -17,13 +17,22 @@
 package io.rainfall.configuration;
 
 import io.rainfall.Configuration;
+import io.rainfall.utils.CurrentThreadpool;
+import io.rainfall.utils.InFlightLimiter;
+import io.rainfall.utils.OperationWatchdog;
+import io.rainfall.utils.TokenBucket;
+import io.rainfall.utils.VirtualThreads;
+import io.rainfall.utils.WorkerPools;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -39,8 +48,16 @@ public class ConcurrencyConfig extends Configuration {
   private final static Logger logger = LoggerFactory.getLogger(ConcurrencyConfig.class);
 
   private Map<String, Integer> threadpoolCount = new HashMap<>();
+  private final Set<String> virtualThreadpools = new HashSet<>();
   private final Map<Integer, AtomicLong> iterationCountPerThread = new HashMap<Integer, AtomicLong>();
   private long timeoutInSeconds = 600L;
+  private long operationTimeoutInNs = 0L;
+  private OperationWatchdog.Action operationTimeoutAction = OperationWatchdog.Action.RECORD;
+  private Enum<?> operationTimeoutResult = null;
+  private final Map<String, Integer> maxInFlight = new HashMap<>();
+  private final ConcurrentHashMap<String, InFlightLimiter> inFlightLimiters = new ConcurrentHashMap<>();
+  private final Map<String, TokenBucket> rateLimits = new HashMap<>();
+  public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
   public static final String defaultThreadpoolname = "DEFAULT";;
 
   public static ConcurrencyConfig concurrencyConfig() {
@@ -53,20 +70,170 @@ public class ConcurrencyConfig extends Configuration {
 
   public ConcurrencyConfig threads(int threadCount) {
     this.threadpoolCount.put(defaultThreadpoolname, threadCount);
+    this.virtualThreadpools.remove(defaultThreadpoolname);
     return this;
   }
 
   public ConcurrencyConfig threads(String threadpoolName, int threadCount) {
     this.threadpoolCount.remove(defaultThreadpoolname);
+    this.virtualThreadpools.remove(defaultThreadpoolname);
     this.threadpoolCount.put(threadpoolName, threadCount);
+    this.virtualThreadpools.remove(threadpoolName);
     return this;
   }
 
+  /**
+   * Runs the default threadpool on virtual threads, which requires Java 21 or later.
+   *
+   * @param threadCount amount of virtual threads
+   * @return this configuration
+   */
+  public ConcurrencyConfig virtualThreads(int threadCount) {
+    VirtualThreads.checkSupported();
+    threads(threadCount);
+    this.virtualThreadpools.add(defaultThreadpoolname);
+    return this;
+  }
+
+  /**
+   * Runs a threadpool on virtual threads, which requires Java 21 or later.
+   *
+   * @param threadpoolName name of the threadpool
+   * @param threadCount    amount of virtual threads
+   * @return this configuration
+   */
+  public ConcurrencyConfig virtualThreads(String threadpoolName, int threadCount) {
+    VirtualThreads.checkSupported();
+    threads(threadpoolName, threadCount);
+    this.virtualThreadpools.add(threadpoolName);
+    return this;
+  }
+
+  public boolean isVirtual(String threadpoolName) {
+    return virtualThreadpools.contains(threadpoolName);
+  }
+
+  /**
+   * Bounds the amount of {@link io.rainfall.AsyncOperation}s in flight in the default threadpool, its threads block
+   * when the bound is reached.
+   *
+   * @param maxInFlight maximum amount of asynchronous operations in flight, 1024 by default
+   * @return this configuration
+   */
+  public ConcurrencyConfig maxInFlight(int maxInFlight) {
+    return maxInFlight(defaultThreadpoolname, maxInFlight);
+  }
+
+  /**
+   * Bounds the amount of {@link io.rainfall.AsyncOperation}s in flight in a threadpool, its threads block when the
+   * bound is reached.
+   *
+   * @param threadpoolName name of the threadpool
+   * @param maxInFlight    maximum amount of asynchronous operations in flight, 1024 by default
+   * @return this configuration
+   */
+  public ConcurrencyConfig maxInFlight(String threadpoolName, int maxInFlight) {
+    if (maxInFlight <= 0) {
+      throw new IllegalArgumentException("The maximum amount of operations in flight must be positive.");
+    }
+    this.maxInFlight.put(threadpoolName, maxInFlight);
+    this.inFlightLimiters.remove(threadpoolName);
+    return this;
+  }
+
+  /**
+   * Caps the rate of the operations executed by a threadpool, on top of the caps of the scenario and of the operations.
+   *
+   * @param threadpoolName name of the threadpool
+   * @param rateLimit      token bucket giving the permits of the threadpool
+   * @return this configuration
+   */
+  public ConcurrencyConfig rateLimit(String threadpoolName, TokenBucket rateLimit) {
+    this.rateLimits.put(threadpoolName, rateLimit);
+    return this;
+  }
+
+  /**
+   * @return the token buckets capping the threadpools, by name of threadpool
+   */
+  public Map<String, TokenBucket> getRateLimits() {
+    return rateLimits;
+  }
+
+  /**
+   * @param threadpoolName name of the threadpool, or null for the default threadpool
+   * @return the limiter of the asynchronous operations in flight of the threadpool, shared by all the executions
+   */
+  public InFlightLimiter getInFlightLimiter(String threadpoolName) {
+    String name = threadpoolName == null ? defaultThreadpoolname : threadpoolName;
+    return inFlightLimiters.computeIfAbsent(name,
+        key -> new InFlightLimiter(maxInFlight.getOrDefault(key, DEFAULT_MAX_IN_FLIGHT)));
+  }
+
+  /**
+   * Waits until the asynchronous operations in flight in all the threadpools completed.
+   *
+   * @return true if no operation is in flight, false if the timeout elapsed before
+   */
+  public boolean awaitInFlightCompletion(final long timeout, final TimeUnit unit) throws InterruptedException {
+    long deadlineInNs = System.nanoTime() + unit.toNanos(timeout);
+    for (InFlightLimiter limiter : inFlightLimiters.values()) {
+      if (!limiter.awaitCompletion(deadlineInNs - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public ConcurrencyConfig timeout(final int nb, final TimeUnit unit) {
     this.timeoutInSeconds = unit.toSeconds(nb);
     return this;
   }
 
+  /**
+   * Watches the operations, those running for longer than the timeout are recorded as timed out, see
+   * {@link #onOperationTimeout(OperationWatchdog.Action, Enum)}. An operation can have its own timeout.
+   *
+   * @param nb   timeout of the operations
+   * @param unit unit of the timeout
+   * @return this configuration
+   */
+  public ConcurrencyConfig operationTimeout(final long nb, final TimeUnit unit) {
+    this.operationTimeoutInNs = unit.toNanos(nb);
+    return this;
+  }
+
+  /**
+   * @param action what to do with an operation running for longer than its timeout
+   * @return this configuration
+   */
+  public ConcurrencyConfig onOperationTimeout(final OperationWatchdog.Action action) {
+    return onOperationTimeout(action, null);
+  }
+
+  /**
+   * @param action        what to do with an operation running for longer than its timeout
+   * @param timeoutResult result recorded for the operation, with the time it was running for, or null to only count
+   *                      the timed out operations
+   * @return this configuration
+   */
+  public ConcurrencyConfig onOperationTimeout(final OperationWatchdog.Action action, final Enum<?> timeoutResult) {
+    this.operationTimeoutAction = action;
+    this.operationTimeoutResult = timeoutResult;
+    return this;
+  }
+
+  /**
+   * @return the watchdog of the operations of a run, abandoning the current thread if the action is to abandon
+   */
+  public OperationWatchdog createOperationWatchdog() {
+    return new OperationWatchdog(operationTimeoutInNs, operationTimeoutAction, operationTimeoutResult);
+  }
+
+  public long getOperationTimeoutInNs() {
+    return operationTimeoutInNs;
+  }
+
   public int getThreadCount(String threadpoolName) {
     return threadpoolCount.get(threadpoolName);
   }
@@ -75,18 +242,64 @@ public class ConcurrencyConfig extends Configuration {
     return this.threadpoolCount;
   }
 
+  /**
+   * @return threadpools of the platform threadpools, to be lent to the executions of a run
+   */
+  public WorkerPools createWorkerPools() {
+    Map<String, Integer> platformThreadpoolCount = new HashMap<>(threadpoolCount);
+    platformThreadpoolCount.keySet().removeAll(virtualThreadpools);
+    return new WorkerPools(platformThreadpoolCount);
+  }
+
   public Map<String, ScheduledExecutorService> createScheduledExecutorService() {
+    return createScheduledExecutorService(null);
+  }
+
+  /**
+   * Lends the threads of the run-scoped threadpools to the execution, instead of creating new threads for it. The
+   * virtual threadpools are not pooled, their threads are cheap to create.
+   *
+   * @param workerPools threadpools of the run, or null to create threadpools for the execution
+   * @return the executors of the execution, by name of threadpool
+   */
+  public Map<String, ScheduledExecutorService> createScheduledExecutorService(final WorkerPools workerPools) {
     Map<String, ScheduledExecutorService> executorServices = new HashMap<>();
     for (String threadpoolName : threadpoolCount.keySet()) {
-      executorServices.put(threadpoolName, Executors.newScheduledThreadPool(threadpoolCount.get(threadpoolName)));
+      if (workerPools != null && workerPools.contains(threadpoolName)) {
+        executorServices.put(threadpoolName, workerPools.borrow(threadpoolName));
+      } else if (isVirtual(threadpoolName)) {
+        executorServices.put(threadpoolName, Executors.newScheduledThreadPool(threadpoolCount.get(threadpoolName),
+            CurrentThreadpool.factory(threadpoolName, VirtualThreads.factory(threadpoolName + "-"))));
+      } else {
+        executorServices.put(threadpoolName, Executors.newScheduledThreadPool(threadpoolCount.get(threadpoolName),
+            CurrentThreadpool.factory(threadpoolName, Executors.defaultThreadFactory())));
+      }
     }
     return executorServices;
   }
 
   public Map<String, ExecutorService> createFixedExecutorService() {
+    return createFixedExecutorService(null);
+  }
+
+  /**
+   * @param workerPools threadpools of the run, or null to create threadpools for the execution
+   * @return the executors of the execution, by name of threadpool
+   * @see #createScheduledExecutorService(WorkerPools)
+   */
+  public Map<String, ExecutorService> createFixedExecutorService(final WorkerPools workerPools) {
     Map<String, ExecutorService> executorServices = new HashMap<>();
     for (String threadpoolName : threadpoolCount.keySet()) {
-      executorServices.put(threadpoolName, Executors.newFixedThreadPool(threadpoolCount.get(threadpoolName)));
+      if (workerPools != null && workerPools.contains(threadpoolName)) {
+        executorServices.put(threadpoolName, workerPools.borrow(threadpoolName));
+      } else if (isVirtual(threadpoolName)) {
+        // the executions submit one task per worker, so each worker gets its own virtual thread
+        executorServices.put(threadpoolName, VirtualThreads.newThreadPerTaskExecutor(
+            CurrentThreadpool.factory(threadpoolName, VirtualThreads.factory(threadpoolName + "-"))));
+      } else {
+        executorServices.put(threadpoolName, Executors.newFixedThreadPool(threadpoolCount.get(threadpoolName),
+            CurrentThreadpool.factory(threadpoolName, Executors.defaultThreadFactory())));
+      }
     }
     return executorServices;
   }
@@ -134,7 +347,15 @@ public class ConcurrencyConfig extends Configuration {
     List<String> descriptions = new ArrayList<>();
     descriptions.add("Threadpool size : ");
     for (String threadpoolName : threadpoolCount.keySet()) {
-      descriptions.add(" - " + threadpoolName + " - Size of " + threadpoolCount.get(threadpoolName));
+      descriptions.add(" - " + threadpoolName + " - Size of " + threadpoolCount.get(threadpoolName)
+                       + (isVirtual(threadpoolName) ? " virtual threads" : "")
+                       + (maxInFlight.containsKey(threadpoolName)
+          ? ", at most " + maxInFlight.get(threadpoolName) + " asynchronous operations in flight" : "")
+                       + (rateLimits.containsKey(threadpoolName) ? ", " + rateLimits.get(threadpoolName) : ""));
+    }
+    if (operationTimeoutInNs > 0L) {
+      descriptions.add("Operation timeout : " + TimeUnit.NANOSECONDS.toMillis(operationTimeoutInNs) + " ms, "
+                       + operationTimeoutAction.name().toLowerCase() + " the hung operations");
     }
     return descriptions;
   }
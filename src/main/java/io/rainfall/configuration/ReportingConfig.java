@@ -23,11 +23,14 @@ import io.rainfall.reporting.PeriodicHlogReporter;
 import io.rainfall.reporting.Reporter;
 import io.rainfall.reporting.TextReporter;
 import io.rainfall.reporting.PeriodicReporter;
+import io.rainfall.statistics.RainfallHistogramSink;
 import io.rainfall.statistics.collector.StatisticsCollector;
+import io.rainfall.statistics.eventlog.EventLog;
 import io.rainfall.statistics.monitor.CpuStatisticsCollector;
 import io.rainfall.statistics.monitor.GcStatisticsCollector;
 import io.rainfall.statistics.monitor.MemStatisticsCollector;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
@@ -48,6 +51,11 @@ public class ReportingConfig<E extends Enum<E>> extends Configuration {
   private Enum<E>[] resultsReported;
   private long commonReportingInterval = 1000;
   private TimeUnit reportIntervalUnit = TimeUnit.MILLISECONDS;
+  private int histogramStripes = RainfallHistogramSink.DEFAULT_STRIPES;
+  private int maxHistogramNames = 0;
+  private String eventLogPath = null;
+  private long eventLogSegmentSize = EventLog.DEFAULT_SEGMENT_SIZE;
+  private int eventLogMaxSegments = 0;
 
   private final Set<Reporter<E>> logReporters = new HashSet<Reporter<E>>();
   private final Set<StatisticsCollector> statisticsCollectors = new HashSet<>();
@@ -113,6 +121,65 @@ public class ReportingConfig<E extends Enum<E>> extends Configuration {
     return this;
   }
 
+  /**
+   * Sets the number of stripes of histograms the latencies are recorded into. More stripes lower the contention
+   * between the recording threads, at the cost of memory and of a longer aggregation when reporting.
+   *
+   * @param stripes number of stripes, rounded up to a power of two
+   * @return this configuration
+   */
+  public ReportingConfig histogramStripes(final int stripes) {
+    if (stripes <= 0) {
+      throw new IllegalArgumentException("The number of histogram stripes must be positive.");
+    }
+    this.histogramStripes = stripes;
+    return this;
+  }
+
+  /**
+   * Keeps latency histograms per operation name, in addition to the histograms per result.
+   * Names recorded once the limit is reached are only reported in the histograms per result.
+   *
+   * @param maxNames maximum amount of operation names having their own histograms
+   * @return this configuration
+   */
+  public ReportingConfig histogramsPerName(final int maxNames) {
+    if (maxNames < 0) {
+      throw new IllegalArgumentException("The maximum amount of histogram names can not be negative.");
+    }
+    this.maxHistogramNames = maxNames;
+    return this;
+  }
+
+  /**
+   * Records every operation in a binary event log, which can be read after the run with an
+   * {@link io.rainfall.statistics.eventlog.EventLogReader}.
+   *
+   * @param outputPath directory of the event log
+   * @return this configuration
+   */
+  public ReportingConfig eventLog(final String outputPath) {
+    return eventLog(outputPath, EventLog.DEFAULT_SEGMENT_SIZE, 0);
+  }
+
+  /**
+   * Records every operation in a binary event log, rotating its segments.
+   *
+   * @param outputPath  directory of the event log
+   * @param segmentSize size of a segment file, in bytes
+   * @param maxSegments amount of segments kept on disk, 0 to keep all of them
+   * @return this configuration
+   */
+  public ReportingConfig eventLog(final String outputPath, final long segmentSize, final int maxSegments) {
+    if (maxSegments < 0) {
+      throw new IllegalArgumentException("The amount of event log segments can not be negative.");
+    }
+    this.eventLogPath = outputPath;
+    this.eventLogSegmentSize = segmentSize;
+    this.eventLogMaxSegments = maxSegments;
+    return this;
+  }
+
   public static Reporter text() {
     return new TextReporter();
   }
@@ -163,6 +230,41 @@ public class ReportingConfig<E extends Enum<E>> extends Configuration {
     return reportIntervalUnit;
   }
 
+  /**
+   * @return the directory of the html report, or null if there is no {@link HtmlReporter}
+   */
+  public File getHtmlReportPath() {
+    for (Reporter<E> reporter : logReporters) {
+      if (reporter instanceof PeriodicReporter) {
+        reporter = ((PeriodicReporter<E>)reporter).getReporter();
+      }
+      if (reporter instanceof HtmlReporter) {
+        return ((HtmlReporter<E>)reporter).getReportPath();
+      }
+    }
+    return null;
+  }
+
+  public int getHistogramStripes() {
+    return histogramStripes;
+  }
+
+  public int getMaxHistogramNames() {
+    return maxHistogramNames;
+  }
+
+  public String getEventLogPath() {
+    return eventLogPath;
+  }
+
+  public long getEventLogSegmentSize() {
+    return eventLogSegmentSize;
+  }
+
+  public int getEventLogMaxSegments() {
+    return eventLogMaxSegments;
+  }
+
   public Set<StatisticsCollector> getStatisticsCollectors() {
     return statisticsCollectors;
   }
@@ -177,6 +279,13 @@ public class ReportingConfig<E extends Enum<E>> extends Configuration {
     sb.append("].");
     desc.add(sb.toString());
     desc.add("Common report interval = " + commonReportingInterval + " " + reportIntervalUnit.name());
+    desc.add("Histogram stripes = " + histogramStripes);
+    if (maxHistogramNames > 0) {
+      desc.add("Histograms per operation name, up to " + maxHistogramNames + " names");
+    }
+    if (eventLogPath != null) {
+      desc.add("Event log in " + eventLogPath);
+    }
     return desc;
   }
 }
@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+import io.rainfall.AssertionEvaluator;
+import io.rainfall.Configuration;
+import io.rainfall.Scenario;
+import io.rainfall.TestException;
+import io.rainfall.configuration.ReportingConfig;
+import io.rainfall.execution.arrival.ArrivalProcess;
+import io.rainfall.execution.arrival.UniformArrivals;
+import io.rainfall.statistics.OfferedLoad;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.unit.Over;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execute the {@link Scenario} at an arrival rate driven by a {@link RateController} to hold the system under test at
+ * its {@link ServiceLevelObjective}, e.g. for soak tests while the system under test degrades.
+ * <p>
+ * At every interval, the controller reads the latency and error ratio of the operations completed during that
+ * interval, from histograms fed directly by the operations, and sets the rate of the next interval. The workers read
+ * the current rate when they schedule their next operation.
+ * <p>
+ * Every decision is logged, and written as a CSV time series next to the output of the
+ * {@link io.rainfall.reporting.HtmlReporter} when there is one.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class AdaptiveRate extends AtRate {
+
+  public static final String DECISIONS_FILE = "adaptive-rate.csv";
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final ServiceLevelObjective slo;
+  private long startRate = 100L;
+  private double minRate = 1.0d;
+  private double maxRate = 1_000_000.0d;
+  private long intervalInMs = 1000L;
+  private RateController controller;
+  private String decisionsPath;
+
+  private final List<Decision> decisions = Collections.synchronizedList(new ArrayList<Decision>());
+  private volatile RatePoint current;
+
+  /**
+   * @param slo    objective to hold the system under test at
+   * @param during length of the execution
+   */
+  public AdaptiveRate(final ServiceLevelObjective slo, final Over during) {
+    super(during);
+    this.slo = slo;
+  }
+
+  /**
+   * @param startRate rate of the first interval, in operations per second
+   * @return this execution
+   */
+  public AdaptiveRate from(final long startRate) {
+    if (startRate <= 0) {
+      throw new IllegalArgumentException("The start rate must be positive.");
+    }
+    this.startRate = startRate;
+    return this;
+  }
+
+  /**
+   * @param minRate lowest rate the controller can set, in operations per second
+   * @param maxRate highest rate the controller can set, in operations per second
+   * @return this execution
+   */
+  public AdaptiveRate between(final long minRate, final long maxRate) {
+    if (minRate <= 0 || maxRate < minRate) {
+      throw new IllegalArgumentException("The rates must be positive, and the minimum rate lower than the maximum.");
+    }
+    this.minRate = minRate;
+    this.maxRate = maxRate;
+    return this;
+  }
+
+  /**
+   * @param amount interval between two decisions of the controller
+   * @param unit   unit of the interval
+   * @return this execution
+   */
+  public AdaptiveRate adjustEvery(final long amount, final TimeUnit unit) {
+    if (unit.toMillis(amount) <= 0) {
+      throw new IllegalArgumentException("The interval between two decisions must be at least 1ms.");
+    }
+    this.intervalInMs = unit.toMillis(amount);
+    return this;
+  }
+
+  /**
+   * @param controller controller of the rate, an {@link AimdController} adding 5% of the start rate by default
+   * @return this execution
+   */
+  public AdaptiveRate controller(final RateController controller) {
+    this.controller = controller;
+    return this;
+  }
+
+  /**
+   * @param decisionsPath file the decisions are written to, instead of the directory of the html report
+   * @return this execution
+   */
+  public AdaptiveRate decisions(final String decisionsPath) {
+    this.decisionsPath = decisionsPath;
+    return this;
+  }
+
+  @Override
+  public <E extends Enum<E>> void execute(final StatisticsHolder<E> statisticsHolder, final Scenario scenario,
+                                          final Map<Class<? extends Configuration>, Configuration> configurations,
+                                          final List<AssertionEvaluator> assertions) throws TestException {
+    final RateController rateController = controller == null
+        ? new AimdController(Math.max(1.0d, startRate * 0.05d), 0.75d) : controller;
+    rateController.reset();
+    decisions.clear();
+
+    final ObjectiveStatisticsHolder<E> objectiveStatisticsHolder =
+        new ObjectiveStatisticsHolder<E>(statisticsHolder, slo);
+    current = new RatePoint(System.nanoTime(), Math.max(minRate, Math.min(maxRate, startRate)), 0.0d);
+    ScheduledExecutorService controllerExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "Rainfall-core Rate Controller");
+      thread.setDaemon(true);
+      return thread;
+    });
+    controllerExecutor.scheduleAtFixedRate(() -> adjust(objectiveStatisticsHolder, rateController),
+        intervalInMs, intervalInMs, TimeUnit.MILLISECONDS);
+    try {
+      super.execute(objectiveStatisticsHolder, scenario, configurations, assertions);
+    } finally {
+      controllerExecutor.shutdownNow();
+      try {
+        controllerExecutor.awaitTermination(1, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      writeDecisions(configurations);
+    }
+  }
+
+  private void adjust(final ObjectiveStatisticsHolder<?> objectiveStatisticsHolder,
+                      final RateController rateController) {
+    try {
+      ObjectiveStatisticsHolder.Sample sample = objectiveStatisticsHolder.sample();
+      long nowInNs = System.nanoTime();
+      RatePoint point = current;
+      double nextRate = point.ratePerSecond;
+      if (sample.getTotalCount() > 0L) {
+        nextRate = rateController.nextRate(point.ratePerSecond, sample.getSloLatencyInNs(), sample.getErrorRatio(),
+            slo);
+        nextRate = Math.max(minRate, Math.min(maxRate, nextRate));
+      }
+      current = new RatePoint(nowInNs, nextRate, point.getIntendedCount(nowInNs));
+      Decision decision = new Decision(System.currentTimeMillis(), point.ratePerSecond, sample.getTps(),
+          sample.getSloLatencyInNs(), sample.getErrorRatio(), sample.isSloMet(), nextRate);
+      decisions.add(decision);
+      logger.info("Adaptive rate: " + decision);
+    } catch (RuntimeException e) {
+      logger.error("Adaptive rate: the controller failed, the rate is not adjusted anymore", e);
+      throw e;
+    }
+  }
+
+  private void writeDecisions(final Map<Class<? extends Configuration>, Configuration> configurations) {
+    ReportingConfig<?> reportingConfig = (ReportingConfig<?>)configurations.get(ReportingConfig.class);
+    File reportPath = reportingConfig == null ? null : reportingConfig.getHtmlReportPath();
+    File decisionsFile = decisionsPath != null ? new File(decisionsPath)
+        : reportPath == null ? null : new File(reportPath, DECISIONS_FILE);
+    if (decisionsFile == null) {
+      return;
+    }
+    File parent = decisionsFile.getAbsoluteFile().getParentFile();
+    if (parent != null) {
+      parent.mkdirs();
+    }
+    try (PrintStream stream = new PrintStream(decisionsFile)) {
+      stream.println("timestamp,rate,tps,p" + slo.getPercentile() + " (ms),error ratio,slo met,next rate");
+      for (Decision decision : getDecisions()) {
+        stream.println(String.format(Locale.ROOT, "%d,%.2f,%.2f,%.3f,%.6f,%b,%.2f", decision.getTimestamp(),
+            decision.getRate(), decision.getAchievedTps(), decision.getSloLatencyInNs() / 1_000_000.0d,
+            decision.getErrorRatio(), decision.isSloMet(), decision.getNextRate()));
+      }
+    } catch (IOException e) {
+      logger.error("Can not write the decisions of the adaptive rate to " + decisionsFile, e);
+    }
+  }
+
+  /**
+   * @return the decisions of the controller during the last execution, in their order
+   */
+  public List<Decision> getDecisions() {
+    synchronized (decisions) {
+      return new ArrayList<Decision>(decisions);
+    }
+  }
+
+  /**
+   * The arrivals are scheduled at a constant interval following the rate set by its controller, only the uniform
+   * process is supported.
+   *
+   * @throws IllegalArgumentException if the process is not uniform
+   */
+  @Override
+  public AdaptiveRate arrivals(final ArrivalProcess arrivalProcess) {
+    if (!(arrivalProcess instanceof UniformArrivals)) {
+      throw new IllegalArgumentException("The arrivals of a AdaptiveRate follow the rate set by its controller, "
+                                         + "they can not follow " + arrivalProcess + ".");
+    }
+    super.arrivals(arrivalProcess);
+    return this;
+  }
+
+  @Override
+  protected ArrivalSchedule createSchedule(final long startInNs, final int workerIndex, final int workerCount) {
+    return new ArrivalSchedule() {
+      private long expectedIntervalInNs = intervalInNs(workerCount);
+      private long nextInNs = startInNs + workerIndex * (expectedIntervalInNs / workerCount);
+
+      @Override
+      public long next() {
+        long intendedStartInNs = nextInNs;
+        expectedIntervalInNs = intervalInNs(workerCount);
+        nextInNs += expectedIntervalInNs;
+        return intendedStartInNs;
+      }
+
+      @Override
+      public long getExpectedIntervalInNs() {
+        return expectedIntervalInNs;
+      }
+    };
+  }
+
+  private long intervalInNs(final int workerCount) {
+    return Math.max(1L, (long)(workerCount * 1_000_000_000.0d / current.ratePerSecond));
+  }
+
+  @Override
+  protected OfferedLoad createOfferedLoad(final long startInNs, final long deadlineInNs, final double share) {
+    return new OfferedLoad() {
+      @Override
+      public double getIntendedCount(final long timeInNs) {
+        return current.getIntendedCount(Math.min(timeInNs, deadlineInNs)) * share;
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return "Adaptive rate from " + startRate + " operations per second " + during.toString() + ", objective " + slo
+           + ", adjusted every " + intervalInMs + "ms";
+  }
+
+  /**
+   * Rate set by the controller at a point in time, with the amount of operations intended before that point.
+   */
+  private static final class RatePoint {
+    private final long startInNs;
+    private final double ratePerSecond;
+    private final double intendedCount;
+
+    RatePoint(final long startInNs, final double ratePerSecond, final double intendedCount) {
+      this.startInNs = startInNs;
+      this.ratePerSecond = ratePerSecond;
+      this.intendedCount = intendedCount;
+    }
+
+    double getIntendedCount(final long timeInNs) {
+      return intendedCount + ratePerSecond * Math.max(0L, timeInNs - startInNs) / 1_000_000_000.0d;
+    }
+  }
+
+  /**
+   * Decision of the controller, from the measures of an interval.
+   */
+  public static class Decision {
+    private final long timestamp;
+    private final double rate;
+    private final double achievedTps;
+    private final long sloLatencyInNs;
+    private final double errorRatio;
+    private final boolean sloMet;
+    private final double nextRate;
+
+    public Decision(final long timestamp, final double rate, final double achievedTps, final long sloLatencyInNs,
+                    final double errorRatio, final boolean sloMet, final double nextRate) {
+      this.timestamp = timestamp;
+      this.rate = rate;
+      this.achievedTps = achievedTps;
+      this.sloLatencyInNs = sloLatencyInNs;
+      this.errorRatio = errorRatio;
+      this.sloMet = sloMet;
+      this.nextRate = nextRate;
+    }
+
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    public double getRate() {
+      return rate;
+    }
+
+    public double getAchievedTps() {
+      return achievedTps;
+    }
+
+    public long getSloLatencyInNs() {
+      return sloLatencyInNs;
+    }
+
+    public double getErrorRatio() {
+      return errorRatio;
+    }
+
+    public boolean isSloMet() {
+      return sloMet;
+    }
+
+    public double getNextRate() {
+      return nextRate;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "rate %.1f/s, achieved %.1f TPS, latency %.3fms, error ratio %.4f%%, "
+                                        + "objective %s, next rate %.1f/s", rate, achievedTps,
+          sloLatencyInNs / 1_000_000.0d, errorRatio * 100.0d, sloMet ? "met" : "violated", nextRate);
+    }
+  }
+}
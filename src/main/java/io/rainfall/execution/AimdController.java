@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rainfall.execution;
+
+/**
+ * Additive increase, multiplicative decrease: the rate grows by a constant while the objective is met, and is cut by
+ * a factor as soon as it is violated, so it saw-tooths just under the limit of the system under test.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class AimdController implements RateController {
+
+  private final double increase;
+  private final double decrease;
+
+  /**
+   * @param increase amount of operations per second added to the rate while the objective is met
+   * @param decrease factor applied to the rate when the objective is violated, e.g. 0.75
+   */
+  public AimdController(final double increase, final double decrease) {
+    if (increase <= 0.0d) {
+      throw new IllegalArgumentException("The increase of the rate must be positive.");
+    }
+    if (decrease <= 0.0d || decrease >= 1.0d) {
+      throw new IllegalArgumentException("The decrease factor must be between 0 and 1 (excluded).");
+    }
+    this.increase = increase;
+    this.decrease = decrease;
+  }
+
+  @Override
+  public void reset() {
+  }
+
+  @Override
+  public double nextRate(final double ratePerSecond, final long latencyInNs, final double errorRatio,
+                         final ServiceLevelObjective slo) {
+    return slo.isMet(latencyInNs, errorRatio) ? ratePerSecond + increase : ratePerSecond * decrease;
+  }
+
+  @Override
+  public String toString() {
+    return "AIMD controller (+" + increase + " operations per second, x" + decrease + ")";
+  }
+}
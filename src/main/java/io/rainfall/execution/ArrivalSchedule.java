@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+/**
+ * Intended start times of the operations executed by one worker of an {@link AtRate} execution.
+ * An instance is confined to its worker thread.
+ *
+ * @author Aurelien Broszniowski
+ */
+public interface ArrivalSchedule {
+
+  /**
+   * @return the intended start time of the next operation, in the {@link System#nanoTime()} time base
+   */
+  long next();
+
+  /**
+   * @return the expected interval between two operations of this worker at the current point of the schedule
+   */
+  long getExpectedIntervalInNs();
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+import io.rainfall.AssertionEvaluator;
+import io.rainfall.Configuration;
+import io.rainfall.Execution;
+import io.rainfall.Scenario;
+import io.rainfall.TestException;
+import io.rainfall.WeightedOperation;
+import io.rainfall.configuration.ConcurrencyConfig;
+import io.rainfall.configuration.DistributedConfig;
+import io.rainfall.execution.arrival.ArrivalProcess;
+import io.rainfall.execution.arrival.UniformArrivals;
+import io.rainfall.statistics.OfferedLoad;
+import io.rainfall.statistics.ScheduledStatisticsHolder;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.WorkerStatisticsHolder;
+import io.rainfall.unit.Over;
+import io.rainfall.unit.TimeDivision;
+import io.rainfall.utils.CurrentThreadpool;
+import io.rainfall.utils.RangeMap;
+import io.rainfall.utils.WorkerPools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Execute the {@link Scenario} at a constant arrival rate, during a time period (open model).
+ * <p>
+ * Operations are scheduled by their intended start time, independently of the completion of the previous ones, so
+ * a stalled system under test doesn't lower the offered load. The response times are measured from the intended start
+ * time, which prevents the coordinated omission.
+ * When a worker is behind its schedule by more than the backlog limit, the operations in excess are dropped and counted.
+ * <p>
+ * The inter-arrival times follow an {@link ArrivalProcess}, uniform by default, and the variability of the realized
+ * inter-arrival times is reported, each worker scaling its own intervals to the merged arrivals of its threadpool.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class AtRate extends Execution {
+
+  private static final AtomicLong THREAD_NUMBER_GENERATOR = new AtomicLong(0);
+  protected final long count;
+  protected final TimeDivision per;
+  protected final Over during;
+  private long backlogLimit = Long.MAX_VALUE;
+  private ArrivalProcess arrivalProcess = ArrivalProcess.uniform();
+
+  /**
+   * @param count  amount of operations started per time division
+   * @param per    time division of the rate
+   * @param during length of the execution
+   */
+  public AtRate(final long count, final TimeDivision per, final Over during) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("The rate of an execution must be positive.");
+    }
+    this.count = count;
+    this.per = per;
+    this.during = during;
+  }
+
+  /**
+   * For executions whose rate changes over time, which define their own schedule.
+   *
+   * @param during length of the execution
+   */
+  protected AtRate(final Over during) {
+    this.count = 0L;
+    this.per = null;
+    this.during = during;
+  }
+
+  /**
+   * Set the maximum amount of operations a worker can be late on its schedule, the operations in excess are dropped.
+   *
+   * @param backlogLimit maximum amount of late operations per worker
+   * @return this execution
+   */
+  public AtRate backlog(final long backlogLimit) {
+    if (backlogLimit < 0) {
+      throw new IllegalArgumentException("The backlog limit can not be negative.");
+    }
+    this.backlogLimit = backlogLimit;
+    return this;
+  }
+
+  /**
+   * Set the process generating the inter-arrival times of the constant rate, the executions whose rate changes over
+   * time define their own schedule.
+   *
+   * @param arrivalProcess process of the arrivals, e.g. {@link ArrivalProcess#poisson()}
+   * @return this execution
+   */
+  public AtRate arrivals(final ArrivalProcess arrivalProcess) {
+    this.arrivalProcess = arrivalProcess;
+    return this;
+  }
+
+  @Override
+  public <E extends Enum<E>> void execute(final StatisticsHolder<E> statisticsHolder, final Scenario scenario,
+                                          final Map<Class<? extends Configuration>, Configuration> configurations,
+                                          final List<AssertionEvaluator> assertions) throws TestException {
+    final DistributedConfig distributedConfig = (DistributedConfig)configurations.get(DistributedConfig.class);
+    final ConcurrencyConfig concurrencyConfig = (ConcurrencyConfig)configurations.get(ConcurrencyConfig.class);
+    final int clientsCount = distributedConfig == null ? 1 : distributedConfig.getNbClients();
+
+    markExecutionState(scenario, ExecutionState.BEGINNING);
+
+    final Map<String, ExecutorService> executors = concurrencyConfig.createFixedExecutorService(
+        (WorkerPools)configurations.get(WorkerPools.class));
+    final long executionStartInNs = System.nanoTime();
+    final long executionDeadlineInNs = executionStartInNs + during.getTimeUnit().toNanos(during.getCount());
+    final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+    // every threadpool runs the whole rate, which is shared by the clients
+    statisticsHolder.offerLoad(createOfferedLoad(executionStartInNs, executionDeadlineInNs,
+        (double)executors.size() / clientsCount));
+
+    for (final String threadpoolName : executors.keySet()) {
+      final int threadCount = concurrencyConfig.getThreadCount(threadpoolName);
+      final ExecutorService executor = executors.get(threadpoolName);
+      final RangeMap<WeightedOperation> operations = scenario.getOperations().get(threadpoolName);
+
+      for (int threadNb = 0; threadNb < threadCount; threadNb++) {
+        final int workerIndex = threadNb;
+        final ArrivalSchedule schedule = createSchedule(executionStartInNs, workerIndex, threadCount * clientsCount);
+        final Future<Void> future = executor.submit(() -> {
+          Thread.currentThread().setName(
+              "Rainfall-core Operations Thread - " + THREAD_NUMBER_GENERATOR.getAndIncrement());
+          CurrentThreadpool.startWorker(workerIndex);
+          ScheduledStatisticsHolder<E> scheduledStatisticsHolder = new ScheduledStatisticsHolder<E>(statisticsHolder);
+          StatisticsHolder<E> workerStatisticsHolder = new WorkerStatisticsHolder<E>(scheduledStatisticsHolder);
+          // previous start of the worker, its intervals scaled to the merged arrivals of the threadpool
+          long previousStartInNs = 0L;
+          long intendedStartInNs = schedule.next();
+          while (!Thread.currentThread().isInterrupted() && intendedStartInNs < executionDeadlineInNs) {
+            waitUntil(intendedStartInNs);
+            long startInNs = System.nanoTime();
+            if (Thread.currentThread().isInterrupted() || startInNs >= executionDeadlineInNs) {
+              break;
+            }
+
+            long expectedIntervalInNs = schedule.getExpectedIntervalInNs();
+            long dropped = 0L;
+            while ((startInNs - intendedStartInNs) / expectedIntervalInNs > backlogLimit
+                   && intendedStartInNs < executionDeadlineInNs) {
+              intendedStartInNs = schedule.next();
+              dropped++;
+            }
+            if (dropped > 0) {
+              statisticsHolder.increaseDroppedCount(dropped);
+              if (intendedStartInNs >= executionDeadlineInNs) {
+                break;
+              }
+            }
+            if (startInNs - intendedStartInNs > expectedIntervalInNs) {
+              statisticsHolder.increaseLateCount();
+            }
+            if (previousStartInNs != 0L) {
+              statisticsHolder.recordArrival((startInNs - previousStartInNs) / threadCount);
+            }
+            previousStartInNs = startInNs;
+
+            scheduledStatisticsHolder.schedule(startInNs - intendedStartInNs);
+            operations.getNextRandom(weightRnd)
+                .getOperation().exec(workerStatisticsHolder, configurations, assertions);
+
+            intendedStartInNs = schedule.next();
+          }
+          return null;
+        });
+        futures.add(future);
+      }
+    }
+
+    for (ExecutorService executor : executors.values()) {
+      executor.shutdown();
+    }
+
+    try {
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          for (ExecutorService executor : executors.values()) {
+            executor.shutdownNow();
+          }
+          Thread.currentThread().interrupt();
+          throw new TestException("Thread execution Interruption", e);
+        } catch (ExecutionException e) {
+          for (ExecutorService executor : executors.values()) {
+            executor.shutdownNow();
+          }
+          throw new TestException("Thread execution error", e.getCause() == null ? e : e.getCause());
+        }
+      }
+
+      boolean success = true;
+      for (ExecutorService executor : executors.values()) {
+        boolean executorSuccess = executor.awaitTermination(60, SECONDS);
+        if (!executorSuccess) {
+          executor.shutdownNow();
+          success &= executor.awaitTermination(60, SECONDS);
+        }
+      }
+
+      if (!success) {
+        throw new TestException("Execution of Scenario timed out.");
+      }
+    } catch (InterruptedException e) {
+      for (ExecutorService executor : executors.values()) {
+        executor.shutdownNow();
+      }
+      Thread.currentThread().interrupt();
+      throw new TestException("Execution of Scenario didn't stop correctly.", e);
+    } finally {
+      markExecutionState(scenario, ExecutionState.ENDING);
+    }
+  }
+
+  /**
+   * Creates the schedule of one worker, the workers of a threadpool share the rate and draw their inter-arrival times
+   * from the arrival process.
+   *
+   * @param startInNs   start time of the execution
+   * @param workerIndex index of the worker in its threadpool
+   * @param workerCount amount of workers sharing the rate
+   * @return the schedule of the worker
+   */
+  protected ArrivalSchedule createSchedule(final long startInNs, final int workerIndex, final int workerCount) {
+    final double intervalInNs = (double)per.getTimeUnit().toNanos(1) / count;
+    final long expectedIntervalInNs = Math.max(1L, (long)(intervalInNs * workerCount));
+    final ArrivalProcess.Arrivals arrivals = arrivalProcess.arrivals(intervalInNs * workerCount, workerIndex,
+        workerCount);
+    return new ArrivalSchedule() {
+      private double offsetInNs = 0.0d;
+
+      @Override
+      public long next() {
+        offsetInNs += arrivals.nextIntervalInNs();
+        return startInNs + (long)offsetInNs;
+      }
+
+      @Override
+      public long getExpectedIntervalInNs() {
+        return expectedIntervalInNs;
+      }
+    };
+  }
+
+  /**
+   * @param startInNs    start time of the execution
+   * @param deadlineInNs end time of the execution
+   * @param share        share of the rate offered by this client
+   * @return the amount of operations intended to be started over time
+   */
+  protected OfferedLoad createOfferedLoad(final long startInNs, final long deadlineInNs, final double share) {
+    final double operationsPerNs = (double)count / per.getTimeUnit().toNanos(1);
+    return new OfferedLoad() {
+      @Override
+      public double getIntendedCount(final long timeInNs) {
+        long elapsedInNs = Math.max(0L, Math.min(timeInNs, deadlineInNs) - startInNs);
+        return elapsedInNs * operationsPerNs * share;
+      }
+    };
+  }
+
+  static void waitUntil(final long deadlineInNs) {
+    long remainingInNs;
+    while ((remainingInNs = deadlineInNs - System.nanoTime()) > 0L) {
+      LockSupport.parkNanos(remainingInNs);
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return count + " operations per " + per.toString() + " " + during.toString()
+           + (arrivalProcess instanceof UniformArrivals ? "" : " (" + arrivalProcess + ")");
+  }
+}
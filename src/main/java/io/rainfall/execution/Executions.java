@@ -18,6 +18,7 @@ package io.rainfall.execution;
 
 import io.rainfall.Execution;
 import io.rainfall.Unit;
+import io.rainfall.trace.Trace;
 import io.rainfall.unit.*;
 
 import java.time.Duration;
@@ -70,10 +71,54 @@ public class Executions {
     return new WarmUp(times);
   }
 
+  public static WarmUp warmup(UntilSteady untilSteady) {
+    return new WarmUp(untilSteady);
+  }
+
+  public static UntilSteady untilSteady(Over max) {
+    return new UntilSteady(max);
+  }
+
   public static Repeat repeat(int executionCount, Execution... executions) {
     return new Repeat(executionCount, executions);
   }
 
+  public static AtRate atRate(long count, TimeDivision per, Over over) {
+    return new AtRate(count, per, over);
+  }
+
+  public static AtRate atRate(long count, TimeDivision per, RunsDuring during) {
+    return new AtRate(count, per, during.getDuring());
+  }
+
+  public static RateProfile rateRamp(From from, To to, Over over) {
+    return RateProfile.rateRamp(from, to, over);
+  }
+
+  public static RateProfile rateSteps(Every every, long... ratesPerSecond) {
+    return RateProfile.rateSteps(every, ratesPerSecond);
+  }
+
+  public static RateProfile rateSine(From from, To to, Every period, Over over) {
+    return RateProfile.rateSine(from, to, period, over);
+  }
+
+  public static RateProfile rateProfile(Over over, Function<Long, Double> ratePerSecond) {
+    return new RateProfile(over, ratePerSecond, "Rate profile " + over.toString());
+  }
+
+  public static SaturationSearch saturationSearch(ServiceLevelObjective slo, Over stepDuration) {
+    return new SaturationSearch(slo, stepDuration);
+  }
+
+  public static AdaptiveRate adaptiveRate(ServiceLevelObjective slo, Over over) {
+    return new AdaptiveRate(slo, over);
+  }
+
+  public static Replay replay(Trace trace) {
+    return new Replay(trace);
+  }
+
   public static Pattern pattern(From from, To to, Over over, Function<Integer, Long> function) {
     return new Pattern(from, to, over, function);
   }
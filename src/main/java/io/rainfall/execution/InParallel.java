@@ -20,8 +20,11 @@ import io.rainfall.*;
 import io.rainfall.configuration.ConcurrencyConfig;
 import io.rainfall.configuration.DistributedConfig;
 import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.WorkerStatisticsHolder;
 import io.rainfall.unit.Every;
+import io.rainfall.utils.CurrentThreadpool;
 import io.rainfall.utils.RangeMap;
+import io.rainfall.utils.WorkerPools;
 import io.rainfall.unit.TimeMeasurement;
 
 import java.util.List;
@@ -64,7 +67,8 @@ public class InParallel extends Execution {
 
     markExecutionState(scenario, ExecutionState.BEGINNING);
 
-    final Map<String, ExecutorService> executors = concurrencyConfig.createFixedExecutorService();
+    final Map<String, ExecutorService> executors = concurrencyConfig.createFixedExecutorService(
+        (WorkerPools)configurations.get(WorkerPools.class));
     final long executionDurationInNs = during.getTimeUnit().toNanos(during.getCount());
     final long periodInNs = every.getTimeUnit().toNanos(every.getCount());
     final long executionStartInNs = System.nanoTime();
@@ -79,9 +83,12 @@ public class InParallel extends Execution {
 
       for (int threadNb = 0; threadNb < threadCount; threadNb++) {
         final long max = concurrencyConfig.getIterationCountForThread(threadpoolName, distributedConfig, threadNb, nb);
+        final int workerIndex = threadNb;
         final Future<Void> future = executor.submit(() -> {
           Thread.currentThread().setName(
               "Rainfall-core Operations Thread - " + THREAD_NUMBER_GENERATOR.getAndIncrement());
+          CurrentThreadpool.startWorker(workerIndex);
+          StatisticsHolder<E> workerStatisticsHolder = new WorkerStatisticsHolder<E>(statisticsHolder);
           long nextStartInNs = executionStartInNs;
           while (!Thread.currentThread().isInterrupted() && nextStartInNs < executionDeadlineInNs) {
             waitUntil(nextStartInNs);
@@ -91,7 +98,7 @@ public class InParallel extends Execution {
 
             for (long i = 0; i < max; i++) {
               operations.getNextRandom(weightRnd)
-                  .getOperation().exec(statisticsHolder, configurations, assertions);
+                  .getOperation().exec(workerStatisticsHolder, configurations, assertions);
             }
 
             nextStartInNs += periodInNs;
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+import io.rainfall.statistics.ForwardingStatisticsHolder;
+import io.rainfall.statistics.LongAdder;
+import io.rainfall.statistics.RainfallHistogramSink;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.StatisticsRecorder;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records into the statistics of the run, and into histograms of the successful and failed operations of a
+ * {@link ServiceLevelObjective}, which are sampled by interval to evaluate the objective on live values.
+ * <p>
+ * The throughput and the error ratio are computed from the counts of the completed operations, the histograms only
+ * give the latencies, which the open-model executions measure from the intended start of the operations.
+ *
+ * @author Aurelien Broszniowski
+ */
+class ObjectiveStatisticsHolder<E extends Enum<E>> extends ForwardingStatisticsHolder<E> {
+
+  private enum Outcome {
+    SUCCESS,
+    ERROR
+  }
+
+  private final StatisticsHolder<E> statisticsHolder;
+  private final ServiceLevelObjective slo;
+  private final RainfallHistogramSink<Outcome> sink = new RainfallHistogramSink<Outcome>(
+      new RainfallHistogramSink.Factory() {
+        @Override
+        public ConcurrentHashMap<Enum, Histogram> createHistograms() {
+          ConcurrentHashMap<Enum, Histogram> histograms = new ConcurrentHashMap<Enum, Histogram>();
+          for (Outcome outcome : Outcome.values()) {
+            histograms.put(outcome, new Histogram(3));
+          }
+          return histograms;
+        }
+      });
+  private final LongAdder successCount = new LongAdder();
+  private final LongAdder errorCount = new LongAdder();
+  private long lastSuccessCount = 0L;
+  private long lastErrorCount = 0L;
+  private long lastSampleInNs = System.nanoTime();
+
+  ObjectiveStatisticsHolder(final StatisticsHolder<E> statisticsHolder, final ServiceLevelObjective slo) {
+    this.statisticsHolder = statisticsHolder;
+    this.slo = slo;
+  }
+
+  @Override
+  protected StatisticsHolder<E> delegate() {
+    return statisticsHolder;
+  }
+
+  /**
+   * @return the measures of the operations completed since the previous sample
+   */
+  synchronized Sample sample() {
+    long nowInNs = System.nanoTime();
+    Histogram successLatencies = sink.fetchIntervalHistogram(Outcome.SUCCESS);
+    // drains the interval of the errors, whose latencies are not part of the objective
+    sink.fetchIntervalHistogram(Outcome.ERROR);
+    long successes = successCount.sum();
+    long errors = errorCount.sum();
+    Sample sample = new Sample(slo, successLatencies, successes - lastSuccessCount, errors - lastErrorCount,
+        nowInNs - lastSampleInNs);
+    lastSuccessCount = successes;
+    lastErrorCount = errors;
+    lastSampleInNs = nowInNs;
+    return sample;
+  }
+
+  @Override
+  public void record(final String name, final long responseTimeInNs, final Enum result) {
+    statisticsHolder.record(name, responseTimeInNs, result);
+    sink.recordValue(count(result), responseTimeInNs);
+  }
+
+  @Override
+  public void recordBatch(final String name, final long responseTimeInNs, final Enum result, final int batchSize) {
+    statisticsHolder.recordBatch(name, responseTimeInNs, result, batchSize);
+    sink.recordValueWithCount(count(result), responseTimeInNs, batchSize);
+  }
+
+  @Override
+  protected void record(final StatisticsRecorder recorder, final long responseTimeInNs, final Enum result) {
+    recorder.record(responseTimeInNs, result);
+    sink.recordValue(count(result), responseTimeInNs);
+  }
+
+  @Override
+  protected void recordBatch(final StatisticsRecorder recorder, final long responseTimeInNs, final Enum result,
+                             final int batchSize) {
+    recorder.recordBatch(responseTimeInNs, result, batchSize);
+    sink.recordValueWithCount(count(result), responseTimeInNs, batchSize);
+  }
+
+  private Outcome count(final Enum result) {
+    if (slo.isError(result)) {
+      errorCount.increment();
+      return Outcome.ERROR;
+    }
+    successCount.increment();
+    return Outcome.SUCCESS;
+  }
+
+  /**
+   * Measures of the operations completed during an interval.
+   */
+  static class Sample {
+    private final ServiceLevelObjective slo;
+    private final Histogram successLatencies;
+    private final long successCount;
+    private final long errorCount;
+    private final long lengthInNs;
+
+    Sample(final ServiceLevelObjective slo, final Histogram successLatencies, final long successCount,
+           final long errorCount, final long lengthInNs) {
+      this.slo = slo;
+      this.successLatencies = successLatencies;
+      this.successCount = successCount;
+      this.errorCount = errorCount;
+      this.lengthInNs = lengthInNs;
+    }
+
+    /**
+     * @return the amount of operations completed during the interval, without the back-filled values
+     */
+    long getTotalCount() {
+      return successCount + errorCount;
+    }
+
+    double getTps() {
+      return getTotalCount() * 1_000_000_000.0d / Math.max(1L, lengthInNs);
+    }
+
+    double getErrorRatio() {
+      long total = getTotalCount();
+      return total == 0L ? 0.0d : (double)errorCount / total;
+    }
+
+    double getMeanLatencyInNs() {
+      return successLatencies.getTotalCount() == 0L ? 0.0d : successLatencies.getMean();
+    }
+
+    long getLatencyInNs(final double percentile) {
+      return successLatencies.getTotalCount() == 0L ? 0L : successLatencies.getValueAtPercentile(percentile);
+    }
+
+    long getSloLatencyInNs() {
+      return getLatencyInNs(slo.getPercentile());
+    }
+
+    boolean isSloMet() {
+      return getTotalCount() > 0L && slo.isMet(getSloLatencyInNs(), getErrorRatio());
+    }
+  }
+}
@@ -19,10 +19,13 @@ package io.rainfall.execution;
 import io.rainfall.*;
 import io.rainfall.configuration.ConcurrencyConfig;
 import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.WorkerStatisticsHolder;
 import io.rainfall.unit.From;
 import io.rainfall.unit.Over;
 import io.rainfall.unit.To;
+import io.rainfall.utils.CurrentThreadpool;
 import io.rainfall.utils.RangeMap;
+import io.rainfall.utils.WorkerPools;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,13 +35,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
+ * Execute the {@link Scenario} with a thread count going from one value to another along a curve (closed model).
+ * <p>
+ * Threads are added when the thread count grows, and retired when it shrinks: every worker holds its own stop
+ * deadline, so the active thread count follows the curve in both directions. Every change is recorded in the
+ * {@link StatisticsHolder}, to correlate the throughput with the concurrency.
+ *
  * @author Aurelien Broszniowski
  */
 
@@ -73,7 +81,8 @@ public class Pattern extends Execution {
     }
 
     final ScheduledExecutorService endScheduler = Executors.newScheduledThreadPool(1);
-    final Map<String, ScheduledExecutorService> execSchedulers = concurrencyConfig.createScheduledExecutorService();
+    final Map<String, ScheduledExecutorService> execSchedulers = concurrencyConfig.createScheduledExecutorService(
+        (WorkerPools)configurations.get(WorkerPools.class));
     markExecutionState(scenario, ExecutionState.BEGINNING);
     final AtomicBoolean doneFlag = new AtomicBoolean(false);
 
@@ -130,29 +139,79 @@ public class Pattern extends Execution {
 
   List<ScheduledFuture<Void>> scheduleThreads(final StatisticsHolder statisticsHolder, final Scenario scenario, final Map<Class<? extends Configuration>, Configuration> configurations, final List<AssertionEvaluator> assertions, final AtomicBoolean doneFlag, Map<String, ScheduledExecutorService> executors) {
     List<ScheduledFuture<Void>> futures = new ArrayList<>();
-    int threadCountStep = to.getCount() - from.getCount() > 0 ? 1 : -1;
-    int lowerLimit = Math.min(from.getCount(), to.getCount());
-    final AtomicInteger threadCount = new AtomicInteger(from.getCount());
-    while (threadCount.get() != to.getCount()) {
-
+    final long executionStartInNs = System.nanoTime();
+    for (final WorkerSchedule workerSchedule : workerSchedules()) {
       for (final String threadpoolName : executors.keySet()) {
         final RangeMap<WeightedOperation> operations = scenario.getOperations().get(threadpoolName);
 
         futures.add(executors.get(threadpoolName).schedule(() -> {
-          logger.info("Rainfall Ramp - Adding thread " + threadCount.get() + " at " + new Date());
-          Thread.currentThread().setName("Rainfall-core Operations Thread - " + threadCount.get());
-          while (!Thread.currentThread().isInterrupted() && !doneFlag.get()) {
-            operations.getNextRandom(weightRnd).getOperation().exec(statisticsHolder, configurations, assertions);
+          final long stopAtInNs = workerSchedule.stopInMs == Long.MAX_VALUE
+              ? Long.MAX_VALUE : executionStartInNs + MILLISECONDS.toNanos(workerSchedule.stopInMs);
+          Thread.currentThread().setName("Rainfall-core Operations Thread - " + workerSchedule.number);
+          CurrentThreadpool.startWorker(workerSchedule.number);
+          statisticsHolder.changeActiveWorkers(1);
+          logger.info("Rainfall Ramp - Adding thread " + workerSchedule.number + " at " + new Date());
+          StatisticsHolder workerStatisticsHolder = new WorkerStatisticsHolder(statisticsHolder);
+          try {
+            while (!Thread.currentThread().isInterrupted() && !doneFlag.get() && System.nanoTime() < stopAtInNs) {
+              operations.getNextRandom(weightRnd).getOperation()
+                  .exec(workerStatisticsHolder, configurations, assertions);
+            }
+          } finally {
+            statisticsHolder.changeActiveWorkers(-1);
+            if (!doneFlag.get()) {
+              logger.info("Rainfall Ramp - Retiring thread " + workerSchedule.number + " at " + new Date());
+            }
           }
           return null;
-        }, function.apply(threadCount.get() - lowerLimit), MILLISECONDS));
+        }, workerSchedule.startInMs, MILLISECONDS));
       }
-      threadCount.getAndAdd(threadCountStep);
     }
 
     return futures;
   }
 
+  /**
+   * Computes when each worker starts and stops. The lower thread count runs during the whole execution, and the
+   * function gives the delay, in ms, at which each thread in excess is added (when ramping up) or retired (when ramping
+   * down), from the index of the thread above the lower thread count.
+   *
+   * @return the schedules of the workers
+   */
+  List<WorkerSchedule> workerSchedules() {
+    List<WorkerSchedule> schedules = new ArrayList<>();
+    int lowerLimit = Math.min(from.getCount(), to.getCount());
+    for (int threadCount = 1; threadCount <= lowerLimit; threadCount++) {
+      schedules.add(new WorkerSchedule(threadCount, 0L, Long.MAX_VALUE));
+    }
+    if (to.getCount() > from.getCount()) {
+      for (int threadCount = from.getCount(); threadCount < to.getCount(); threadCount++) {
+        schedules.add(new WorkerSchedule(threadCount + 1, function.apply(threadCount - lowerLimit), Long.MAX_VALUE));
+      }
+    } else {
+      for (int threadCount = from.getCount(); threadCount > to.getCount(); threadCount--) {
+        schedules.add(new WorkerSchedule(threadCount, 0L, function.apply(threadCount - lowerLimit)));
+      }
+    }
+    return schedules;
+  }
+
+  /**
+   * Start and stop delays of a worker, in ms since the start of the execution. A worker retires cooperatively, once its
+   * current operation is done.
+   */
+  static final class WorkerSchedule {
+    final int number;
+    final long startInMs;
+    final long stopInMs;
+
+    WorkerSchedule(final int number, final long startInMs, final long stopInMs) {
+      this.number = number;
+      this.startInMs = startInMs;
+      this.stopInMs = stopInMs;
+    }
+  }
+
   @Override
   public String toString() {
     return "Ramp " + from.toString() + " "
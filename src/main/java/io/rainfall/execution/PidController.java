@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rainfall.execution;
+
+/**
+ * Proportional-integral-derivative controller holding the latency at the percentile of the objective on its target.
+ * <p>
+ * The error is the distance to the target latency, relative to the target, so the gains don't depend on the scale of
+ * the latency; the rate is multiplied by one plus the output of the controller. An error ratio above the objective
+ * counts as the largest possible error. The integral term is bounded, to recover quickly after a long saturation.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class PidController implements RateController {
+
+  private static final double MAX_INTEGRAL = 10.0d;
+  private static final double MIN_OUTPUT = -0.5d;
+  private static final double MAX_OUTPUT = 1.0d;
+
+  private final double proportionalGain;
+  private final double integralGain;
+  private final double derivativeGain;
+  private double integral;
+  private double previousError;
+  private boolean first = true;
+
+  public PidController(final double proportionalGain, final double integralGain, final double derivativeGain) {
+    this.proportionalGain = proportionalGain;
+    this.integralGain = integralGain;
+    this.derivativeGain = derivativeGain;
+  }
+
+  @Override
+  public void reset() {
+    integral = 0.0d;
+    previousError = 0.0d;
+    first = true;
+  }
+
+  @Override
+  public double nextRate(final double ratePerSecond, final long latencyInNs, final double errorRatio,
+                         final ServiceLevelObjective slo) {
+    if (slo.getMaxLatencyInNs() == Long.MAX_VALUE) {
+      throw new IllegalStateException("A PID controller needs a latency objective.");
+    }
+    double target = slo.getMaxLatencyInNs();
+    double error = errorRatio > slo.getMaxErrorRatio() ? -1.0d : Math.max(-1.0d, (target - latencyInNs) / target);
+    integral = Math.max(-MAX_INTEGRAL, Math.min(MAX_INTEGRAL, integral + error));
+    double derivative = first ? 0.0d : error - previousError;
+    previousError = error;
+    first = false;
+    double output = proportionalGain * error + integralGain * integral + derivativeGain * derivative;
+    return ratePerSecond * (1.0d + Math.max(MIN_OUTPUT, Math.min(MAX_OUTPUT, output)));
+  }
+
+  @Override
+  public String toString() {
+    return "PID controller (kp=" + proportionalGain + ", ki=" + integralGain + ", kd=" + derivativeGain + ")";
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rainfall.execution;
+
+/**
+ * Feedback controller of an {@link AdaptiveRate} execution, which decides of the next arrival rate from the
+ * measures of the last interval.
+ *
+ * @author Aurelien Broszniowski
+ */
+public interface RateController {
+
+  /**
+   * Forgets the state of the previous executions.
+   */
+  void reset();
+
+  /**
+   * @param ratePerSecond current rate
+   * @param latencyInNs   latency at the percentile of the objective during the last interval
+   * @param errorRatio    ratio of failed operations during the last interval
+   * @param slo           objective of the execution
+   * @return the rate of the next interval, in operations per second
+   */
+  double nextRate(double ratePerSecond, long latencyInNs, double errorRatio, ServiceLevelObjective slo);
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+import io.rainfall.execution.arrival.ArrivalProcess;
+import io.rainfall.execution.arrival.UniformArrivals;
+import io.rainfall.statistics.OfferedLoad;
+import io.rainfall.unit.Every;
+import io.rainfall.unit.From;
+import io.rainfall.unit.Over;
+import io.rainfall.unit.TimeDivision;
+import io.rainfall.unit.To;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Execute the {@link io.rainfall.Scenario} at an arrival rate which changes over time (open model), e.g. a ramp of the
+ * rate, as opposed to {@link Ramp} which ramps the number of threads and lets the system under test decide of the rate.
+ * <p>
+ * The rate function is sampled once, in slots of at least 1ms, into a table of the cumulative amount of operations,
+ * shared by all the workers: the intended start time of the nth operation is found in that table, so the schedule
+ * costs neither allocation nor synchronization. The rate is sampled at the start of a slot, and considered constant
+ * within the slot.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class RateProfile extends AtRate {
+
+  private static final int MAX_SLOTS = 100_000;
+
+  private final String description;
+  private final long slotInNs;
+  private final double[] rates;
+  private final double[] cumulativeCounts;
+
+  /**
+   * @param during        length of the execution
+   * @param ratePerSecond amount of operations per second, function of the time elapsed since the start of the
+   *                      execution, in ms
+   * @param description   description of the profile
+   */
+  public RateProfile(final Over during, final Function<Long, Double> ratePerSecond, final String description) {
+    super(during);
+    this.description = description;
+
+    long durationInNs = during.getTimeUnit().toNanos(during.getCount());
+    if (durationInNs <= 0L) {
+      throw new IllegalArgumentException("The length of a rate profile must be positive.");
+    }
+    long slotInMs = Math.max(1L, (TimeUnit.NANOSECONDS.toMillis(durationInNs) + MAX_SLOTS - 1) / MAX_SLOTS);
+    this.slotInNs = TimeUnit.MILLISECONDS.toNanos(slotInMs);
+    int slots = (int)((durationInNs + slotInNs - 1) / slotInNs);
+    this.rates = new double[slots];
+    this.cumulativeCounts = new double[slots + 1];
+    for (int slot = 0; slot < slots; slot++) {
+      Double rate = ratePerSecond.apply(slot * slotInMs);
+      rates[slot] = rate == null || rate.isNaN() || rate < 0.0d ? 0.0d : rate;
+      cumulativeCounts[slot + 1] = cumulativeCounts[slot] + rates[slot] * slotInNs / 1_000_000_000.0d;
+    }
+  }
+
+  /**
+   * Linear ramp of the rate.
+   */
+  public static RateProfile rateRamp(final From from, final To to, final Over over) {
+    final double start = from.getCount();
+    final double end = to.getCount();
+    final double lengthInMs = over.getNbInMs();
+    return new RateProfile(over, elapsedInMs -> start + (end - start) * Math.min(1.0d, elapsedInMs / lengthInMs),
+        "Rate ramp " + from.getCount() + " to " + to.getCount() + " operations per second " + over.toString());
+  }
+
+  /**
+   * Successive constant rates, each one held during one step.
+   */
+  public static RateProfile rateSteps(final Every every, final long... ratesPerSecond) {
+    if (ratesPerSecond.length == 0) {
+      throw new IllegalArgumentException("A rate profile needs at least one step.");
+    }
+    final long stepInMs = Math.max(1L, (long)every.getNbInMs());
+    Over over = new Over((int)every.getCount() * ratesPerSecond.length, new TimeDivision(every.getTimeUnit()));
+    return new RateProfile(over,
+        elapsedInMs -> (double)ratesPerSecond[(int)Math.min(ratesPerSecond.length - 1, elapsedInMs / stepInMs)],
+        "Rate steps " + Arrays.toString(ratesPerSecond) + " operations per second, " + every.toString());
+  }
+
+  /**
+   * Rate oscillating between two values, starting at the first one.
+   */
+  public static RateProfile rateSine(final From from, final To to, final Every period, final Over over) {
+    final double low = from.getCount();
+    final double high = to.getCount();
+    final double periodInMs = period.getNbInMs();
+    return new RateProfile(over,
+        elapsedInMs -> low + (high - low) * (1.0d - Math.cos(2.0d * Math.PI * elapsedInMs / periodInMs)) / 2.0d,
+        "Rate sine between " + from.getCount() + " and " + to.getCount() + " operations per second, period "
+        + period.toString() + " " + over.toString());
+  }
+
+  /**
+   * @return the amount of operations intended to be started over the whole execution
+   */
+  public long getIntendedCount() {
+    return Math.round(cumulativeCounts[rates.length]);
+  }
+
+  /**
+   * The arrivals are scheduled at a constant interval following its rate profile, only the uniform process is supported.
+   *
+   * @throws IllegalArgumentException if the process is not uniform
+   */
+  @Override
+  public RateProfile arrivals(final ArrivalProcess arrivalProcess) {
+    if (!(arrivalProcess instanceof UniformArrivals)) {
+      throw new IllegalArgumentException("The arrivals of a RateProfile follow its rate profile, they can not follow "
+                                         + arrivalProcess + ".");
+    }
+    super.arrivals(arrivalProcess);
+    return this;
+  }
+
+  @Override
+  protected ArrivalSchedule createSchedule(final long startInNs, final int workerIndex, final int workerCount) {
+    final long totalCount = getIntendedCount();
+    return new ArrivalSchedule() {
+      private long arrival = workerIndex;
+      private int slot = 0;
+
+      @Override
+      public long next() {
+        if (arrival >= totalCount) {
+          return Long.MAX_VALUE;
+        }
+        // the arrivals of a worker are increasing, the slot is searched from the slot of the previous one
+        while (slot < rates.length - 1 && cumulativeCounts[slot + 1] <= arrival) {
+          slot++;
+        }
+        if (rates[slot] == 0.0d) {
+          return Long.MAX_VALUE;
+        }
+        double offsetInNs = (arrival - cumulativeCounts[slot]) / rates[slot] * 1_000_000_000.0d;
+        arrival += workerCount;
+        return startInNs + slot * slotInNs + Math.min(slotInNs - 1, (long)offsetInNs);
+      }
+
+      @Override
+      public long getExpectedIntervalInNs() {
+        double rate = rates[slot];
+        return rate == 0.0d ? Long.MAX_VALUE : Math.max(1L, (long)(workerCount * 1_000_000_000.0d / rate));
+      }
+    };
+  }
+
+  @Override
+  protected OfferedLoad createOfferedLoad(final long startInNs, final long deadlineInNs, final double share) {
+    return new OfferedLoad() {
+      @Override
+      public double getIntendedCount(final long timeInNs) {
+        long elapsedInNs = Math.min(timeInNs, deadlineInNs) - startInNs;
+        if (elapsedInNs <= 0L) {
+          return 0.0d;
+        }
+        int slot = (int)Math.min(rates.length - 1, elapsedInNs / slotInNs);
+        double count = cumulativeCounts[slot] + rates[slot] * (elapsedInNs - slot * slotInNs) / 1_000_000_000.0d;
+        return Math.min(count, cumulativeCounts[rates.length]) * share;
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return description;
+  }
+}
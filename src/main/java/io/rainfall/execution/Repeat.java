@@ -27,6 +27,9 @@ import java.util.List;
 import java.util.Map;
 
 /**
+ * Execute the executions steps several times, each iteration being a phase of the statistics, in place of the phase of
+ * the repeat itself.
+ *
  * @author Aurelien Broszniowski
  */
 
@@ -44,7 +47,14 @@ public class Repeat extends Execution {
   public <E extends Enum<E>> void execute(StatisticsHolder<E> statisticsHolder, Scenario scenario,
                                           Map<Class<? extends Configuration>, Configuration> configurations,
                                           List<AssertionEvaluator> assertions) throws TestException {
+    String phaseName = statisticsHolder.getPhaseName();
     for (int i = 0; i < this.executionCount; i++) {
+      String iterationName = (phaseName == null ? "" : phaseName + " - ") + "iteration " + (i + 1);
+      if (i == 0) {
+        statisticsHolder.replacePhase(iterationName);
+      } else {
+        statisticsHolder.beginPhase(iterationName);
+      }
       for (Execution execution : executions) {
         execution.execute(statisticsHolder, scenario, configurations, assertions);
       }
@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+import io.rainfall.AssertionEvaluator;
+import io.rainfall.Configuration;
+import io.rainfall.Execution;
+import io.rainfall.Scenario;
+import io.rainfall.TestException;
+import io.rainfall.WeightedOperation;
+import io.rainfall.configuration.ConcurrencyConfig;
+import io.rainfall.statistics.OfferedLoad;
+import io.rainfall.statistics.ScheduledStatisticsHolder;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.WorkerStatisticsHolder;
+import io.rainfall.trace.Trace;
+import io.rainfall.trace.TraceRecord;
+import io.rainfall.utils.CurrentThreadpool;
+import io.rainfall.utils.RangeMap;
+import io.rainfall.utils.WorkerPools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Replays a {@link Trace}: each record is dispatched to the operation of the {@link Scenario} named like the operation
+ * of the record (see {@link WeightedOperation#named(String)}), at its time relative to the first record of the trace,
+ * divided by the speedup factor.
+ * <p>
+ * The records of a threadpool are partitioned across its workers, by hash of their key so that the operations on a key
+ * keep their order, or round-robin. The trace is partitioned once before the replay, and a worker only reads its own
+ * records. The response times are measured from the replayed time of the records, and the
+ * lag of the workers behind the trace clock is recorded apart. When replayed as fast as possible, the records are
+ * executed back to back and no lag is recorded. The replayed record is available to the operations through
+ * {@link TraceRecord#current()}.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class Replay extends Execution {
+
+  public enum Partitioning {
+    KEY_HASH,
+    ROUND_ROBIN
+  }
+
+  private static final AtomicLong THREAD_NUMBER_GENERATOR = new AtomicLong(0);
+
+  private final Trace trace;
+  private double speedup = 1.0d;
+  private Partitioning partitioning = Partitioning.KEY_HASH;
+
+  public Replay(final Trace trace) {
+    this.trace = trace;
+  }
+
+  /**
+   * @param factor how many times faster than the trace the records are replayed
+   * @return this execution
+   */
+  public Replay speedup(final double factor) {
+    if (!(factor > 0.0d)) {
+      throw new IllegalArgumentException("The speedup of a replay must be positive.");
+    }
+    this.speedup = factor;
+    return this;
+  }
+
+  /**
+   * Replays the records back to back, ignoring their timestamps.
+   *
+   * @return this execution
+   */
+  public Replay asFastAsPossible() {
+    this.speedup = Double.POSITIVE_INFINITY;
+    return this;
+  }
+
+  public Replay partitionBy(final Partitioning partitioning) {
+    this.partitioning = partitioning;
+    return this;
+  }
+
+  @Override
+  public <E extends Enum<E>> void execute(final StatisticsHolder<E> statisticsHolder, final Scenario scenario,
+                                          final Map<Class<? extends Configuration>, Configuration> configurations,
+                                          final List<AssertionEvaluator> assertions) throws TestException {
+    final ConcurrencyConfig concurrencyConfig = (ConcurrencyConfig)configurations.get(ConcurrencyConfig.class);
+    final List<String> threadpoolNames = new ArrayList<String>(scenario.getOperations().keySet());
+    final WeightedOperation[] operationsByIndex = new WeightedOperation[trace.getOperationNames().size()];
+    final int[] threadpoolsByIndex = new int[operationsByIndex.length];
+    resolveOperations(scenario, threadpoolNames, operationsByIndex, threadpoolsByIndex);
+
+    markExecutionState(scenario, ExecutionState.BEGINNING);
+
+    final Map<String, ExecutorService> executors = concurrencyConfig.createFixedExecutorService(
+        (WorkerPools)configurations.get(WorkerPools.class));
+    final boolean timed = !Double.isInfinite(speedup);
+    final long traceStartInNs = trace.size() == 0L ? 0L : trace.getTimestampInNs(0);
+    final long executionStartInNs = System.nanoTime();
+    if (timed) {
+      statisticsHolder.offerLoad(new OfferedLoad() {
+        @Override
+        public double getIntendedCount(final long timeInNs) {
+          long elapsedInNs = timeInNs - executionStartInNs;
+          return elapsedInNs < 0L ? 0.0d : trace.countUntil(traceStartInNs + (long)(elapsedInNs * speedup));
+        }
+      });
+    }
+
+    final int[] threadCounts = new int[threadpoolNames.size()];
+    for (String threadpoolName : executors.keySet()) {
+      int threadpool = threadpoolNames.indexOf(threadpoolName);
+      if (threadpool >= 0) {
+        threadCounts[threadpool] = concurrencyConfig.getThreadCount(threadpoolName);
+      }
+    }
+    // the records of a single threadpool are strided across its workers, without partitioning the trace
+    final boolean strided = partitioning == Partitioning.ROUND_ROBIN && singleThreadpool(threadpoolsByIndex);
+    final RecordIndices[][] partitions = strided ? null : partition(threadpoolsByIndex, threadCounts);
+
+    final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+    for (final String threadpoolName : executors.keySet()) {
+      final int threadpool = threadpoolNames.indexOf(threadpoolName);
+      if (threadpool < 0) {
+        continue;
+      }
+      final int threadCount = threadCounts[threadpool];
+      final ExecutorService executor = executors.get(threadpoolName);
+
+      for (int threadNb = 0; threadNb < threadCount; threadNb++) {
+        final int workerIndex = threadNb;
+        final RecordIndices records = strided ? null : partitions[threadpool][workerIndex];
+        final Future<Void> future = executor.submit(() -> {
+          Thread.currentThread().setName(
+              "Rainfall-core Operations Thread - " + THREAD_NUMBER_GENERATOR.getAndIncrement());
+          CurrentThreadpool.startWorker(workerIndex);
+          ScheduledStatisticsHolder<E> scheduledStatisticsHolder = new ScheduledStatisticsHolder<E>(statisticsHolder);
+          StatisticsHolder<E> workerStatisticsHolder = new WorkerStatisticsHolder<E>(scheduledStatisticsHolder);
+          TraceRecord record = trace.cursor();
+          TraceRecord.setCurrent(record);
+          try {
+            long recordCount = strided ? (trace.size() - workerIndex + threadCount - 1) / threadCount
+                : records.size();
+            for (long r = 0; r < recordCount && !Thread.currentThread().isInterrupted(); r++) {
+              long i = strided ? workerIndex + r * threadCount : records.get((int)r);
+              int operationIndex = trace.getOperation(i);
+
+              if (timed) {
+                long intendedStartInNs = executionStartInNs
+                                         + (long)((trace.getTimestampInNs(i) - traceStartInNs) / speedup);
+                AtRate.waitUntil(intendedStartInNs);
+                if (Thread.currentThread().isInterrupted()) {
+                  break;
+                }
+                long lagInNs = System.nanoTime() - intendedStartInNs;
+                statisticsHolder.recordLag(lagInNs);
+                scheduledStatisticsHolder.schedule(lagInNs);
+              }
+              record.moveTo(i);
+              operationsByIndex[operationIndex].getOperation()
+                  .exec(workerStatisticsHolder, configurations, assertions);
+            }
+          } finally {
+            TraceRecord.setCurrent(null);
+          }
+          return null;
+        });
+        futures.add(future);
+      }
+    }
+
+    for (ExecutorService executor : executors.values()) {
+      executor.shutdown();
+    }
+
+    try {
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          for (ExecutorService executor : executors.values()) {
+            executor.shutdownNow();
+          }
+          Thread.currentThread().interrupt();
+          throw new TestException("Thread execution Interruption", e);
+        } catch (ExecutionException e) {
+          for (ExecutorService executor : executors.values()) {
+            executor.shutdownNow();
+          }
+          throw new TestException("Thread execution error", e.getCause() == null ? e : e.getCause());
+        }
+      }
+
+      boolean success = true;
+      for (ExecutorService executor : executors.values()) {
+        boolean executorSuccess = executor.awaitTermination(60, SECONDS);
+        if (!executorSuccess) {
+          executor.shutdownNow();
+          success &= executor.awaitTermination(60, SECONDS);
+        }
+      }
+
+      if (!success) {
+        throw new TestException("Execution of Scenario timed out.");
+      }
+    } catch (InterruptedException e) {
+      for (ExecutorService executor : executors.values()) {
+        executor.shutdownNow();
+      }
+      Thread.currentThread().interrupt();
+      throw new TestException("Execution of Scenario didn't stop correctly.", e);
+    } finally {
+      markExecutionState(scenario, ExecutionState.ENDING);
+    }
+  }
+
+  /**
+   * Maps each operation of the trace to the named operation of the scenario, and to its threadpool.
+   */
+  private void resolveOperations(final Scenario scenario, final List<String> threadpoolNames,
+                                 final WeightedOperation[] operationsByIndex, final int[] threadpoolsByIndex)
+      throws TestException {
+    List<String> operationNames = trace.getOperationNames();
+    for (int threadpool = 0; threadpool < threadpoolNames.size(); threadpool++) {
+      RangeMap<WeightedOperation> operations = scenario.getOperations().get(threadpoolNames.get(threadpool));
+      for (WeightedOperation operation : operations.getAll()) {
+        int index = operation.getName() == null ? -1 : operationNames.indexOf(operation.getName());
+        if (index < 0) {
+          continue;
+        }
+        if (operationsByIndex[index] != null) {
+          throw new TestException("The operation " + operation.getName() + " of the trace is named twice in the scenario.");
+        }
+        operationsByIndex[index] = operation;
+        threadpoolsByIndex[index] = threadpool;
+      }
+    }
+    List<String> missing = new ArrayList<String>();
+    for (int index = 0; index < operationsByIndex.length; index++) {
+      if (operationsByIndex[index] == null) {
+        missing.add(operationNames.get(index));
+      }
+    }
+    if (!missing.isEmpty()) {
+      throw new TestException("The operations " + missing + " of the " + trace + " are not named in the scenario.");
+    }
+  }
+
+  private static boolean singleThreadpool(final int[] threadpoolsByIndex) {
+    for (int threadpool : threadpoolsByIndex) {
+      if (threadpool != threadpoolsByIndex[0]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Partitions the records of the trace across the workers of their threadpools, in one pass.
+   *
+   * @return the indices of the records of each worker, by threadpool and worker
+   */
+  private RecordIndices[][] partition(final int[] threadpoolsByIndex, final int[] threadCounts) {
+    RecordIndices[][] partitions = new RecordIndices[threadCounts.length][];
+    for (int threadpool = 0; threadpool < threadCounts.length; threadpool++) {
+      partitions[threadpool] = new RecordIndices[threadCounts[threadpool]];
+      for (int worker = 0; worker < threadCounts[threadpool]; worker++) {
+        partitions[threadpool][worker] = new RecordIndices();
+      }
+    }
+    long[] threadpoolRecordNbs = new long[threadCounts.length];
+    for (long i = 0; i < trace.size(); i++) {
+      int threadpool = threadpoolsByIndex[trace.getOperation(i)];
+      int threadCount = threadCounts[threadpool];
+      if (threadCount > 0) {
+        partitions[threadpool][worker(i, threadpoolRecordNbs[threadpool]++, threadCount)].add(i);
+      }
+    }
+    return partitions;
+  }
+
+  private int worker(final long index, final long threadpoolRecordNb, final int threadCount) {
+    if (partitioning == Partitioning.ROUND_ROBIN) {
+      return (int)(threadpoolRecordNb % threadCount);
+    }
+    long hash = trace.getKey(index) * 0x9E3779B97F4A7C15L;
+    return (int)((hash >>> 32) % threadCount);
+  }
+
+  @Override
+  public String toString() {
+    return "Replay of the " + trace + (Double.isInfinite(speedup) ? " as fast as possible" : " at " + speedup + "x")
+           + ", partitioned by " + partitioning.name().toLowerCase().replace('_', ' ');
+  }
+
+  /**
+   * Growable array of the indices of the records of a worker.
+   */
+  private static final class RecordIndices {
+    private long[] indices = new long[64];
+    private int size = 0;
+
+    void add(final long index) {
+      if (size == indices.length) {
+        indices = Arrays.copyOf(indices, size * 2);
+      }
+      indices[size++] = index;
+    }
+
+    long get(final int position) {
+      return indices[position];
+    }
+
+    int size() {
+      return size;
+    }
+  }
+}
@@ -19,8 +19,11 @@ package io.rainfall.execution;
 import io.rainfall.*;
 import io.rainfall.configuration.ConcurrencyConfig;
 import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.WorkerStatisticsHolder;
 import io.rainfall.unit.Over;
 import io.rainfall.unit.TimeDivision;
+import io.rainfall.utils.CurrentThreadpool;
+import io.rainfall.utils.WorkerPools;
 
 import java.time.Duration;
 import java.util.ArrayList;
@@ -60,7 +63,8 @@ public class RunsDuring extends Execution {
 
     List<Future<Void>> futures = new ArrayList<Future<Void>>();
 
-    final Map<String, ExecutorService> executors = concurrencyConfig.createFixedExecutorService();
+    final Map<String, ExecutorService> executors = concurrencyConfig.createFixedExecutorService(
+        (WorkerPools)configurations.get(WorkerPools.class));
     for (final String threadpoolName : executors.keySet()) {
       final int threadCount = concurrencyConfig.getThreadCount(threadpoolName);
 
@@ -68,10 +72,11 @@ public class RunsDuring extends Execution {
         final int finalThreadNb = threadNb;
         Future<Void> future = executors.get(threadpoolName).submit(() -> {
           Thread.currentThread().setName("Rainfall-core Operations Thread - " + finalThreadNb);
-
+          CurrentThreadpool.startWorker(finalThreadNb);
+          StatisticsHolder<E> workerStatisticsHolder = new WorkerStatisticsHolder<E>(statisticsHolder);
           while (!Thread.currentThread().isInterrupted() && !doneFlag.get()) {
             scenario.getOperations().get(threadpoolName).getNextRandom(weightRnd)
-                .getOperation().exec(statisticsHolder, configurations, assertions);
+                .getOperation().exec(workerStatisticsHolder, configurations, assertions);
           }
           return null;
         });
@@ -131,6 +136,10 @@ public class RunsDuring extends Execution {
     }
   }
 
+  Over getDuring() {
+    return during;
+  }
+
   @Override
   public String toString() {
     return "" + during.toString();
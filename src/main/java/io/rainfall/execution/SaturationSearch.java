@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+import io.rainfall.AssertionEvaluator;
+import io.rainfall.Configuration;
+import io.rainfall.Execution;
+import io.rainfall.Scenario;
+import io.rainfall.TestException;
+import io.rainfall.configuration.ConcurrencyConfig;
+import io.rainfall.configuration.ReportingConfig;
+import io.rainfall.reporting.HtmlReporter;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.unit.Over;
+import io.rainfall.unit.TimeDivision;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Search the maximum arrival rate the system under test sustains within a {@link ServiceLevelObjective}.
+ * <p>
+ * Successive steps are executed {@link AtRate at a constant rate}, the rate growing geometrically until a step violates
+ * the objective, then the rate is searched by bisection between the last sustained rate and the first violating rate.
+ * The objective of a step is evaluated on the histograms of that step only, the main statistics keep recording the
+ * whole search.
+ * <p>
+ * Each threadpool would run the whole rate of a step, so the search runs with a single threadpool.
+ * <p>
+ * The latency and throughput of every step are written as a CSV curve, next to the output of the {@link HtmlReporter}
+ * when there is one.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class SaturationSearch extends Execution {
+
+  public static final String CURVE_FILE = "saturation.csv";
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final ServiceLevelObjective slo;
+  private final Over stepDuration;
+  private long startRate = 100L;
+  private long maxRate = 1_000_000L;
+  private double growth = 2.0d;
+  private double precision = 0.05d;
+  private int maxSteps = 20;
+  private String curvePath;
+
+  private final List<Step> steps = new ArrayList<Step>();
+  private long maxSustainableRate = 0L;
+
+  /**
+   * @param slo          objective a rate must meet to be sustainable
+   * @param stepDuration length of each step
+   */
+  public SaturationSearch(final ServiceLevelObjective slo, final Over stepDuration) {
+    this.slo = slo;
+    this.stepDuration = stepDuration;
+  }
+
+  /**
+   * @param startRate rate of the first step, in operations per second
+   * @return this execution
+   */
+  public SaturationSearch from(final long startRate) {
+    if (startRate <= 0) {
+      throw new IllegalArgumentException("The start rate must be positive.");
+    }
+    this.startRate = startRate;
+    return this;
+  }
+
+  /**
+   * @param maxRate rate not to exceed, in operations per second
+   * @return this execution
+   */
+  public SaturationSearch upTo(final long maxRate) {
+    if (maxRate <= 0) {
+      throw new IllegalArgumentException("The maximum rate must be positive.");
+    }
+    this.maxRate = maxRate;
+    return this;
+  }
+
+  /**
+   * @param growth factor applied to the rate after a sustained step, before the first violation
+   * @return this execution
+   */
+  public SaturationSearch growth(final double growth) {
+    if (growth <= 1.0d) {
+      throw new IllegalArgumentException("The growth of the rate must be greater than 1.");
+    }
+    this.growth = growth;
+    return this;
+  }
+
+  /**
+   * @param precision relative width of the interval the bisection stops at, e.g. 0.05 for 5%
+   * @return this execution
+   */
+  public SaturationSearch precision(final double precision) {
+    if (precision <= 0.0d || precision >= 1.0d) {
+      throw new IllegalArgumentException("The precision must be between 0 and 1 (excluded).");
+    }
+    this.precision = precision;
+    return this;
+  }
+
+  /**
+   * @param maxSteps maximum amount of steps of the search
+   * @return this execution
+   */
+  public SaturationSearch maxSteps(final int maxSteps) {
+    if (maxSteps <= 0) {
+      throw new IllegalArgumentException("The maximum amount of steps must be positive.");
+    }
+    this.maxSteps = maxSteps;
+    return this;
+  }
+
+  /**
+   * @param curvePath file the curve is written to, instead of the directory of the {@link HtmlReporter}
+   * @return this execution
+   */
+  public SaturationSearch curve(final String curvePath) {
+    this.curvePath = curvePath;
+    return this;
+  }
+
+  @Override
+  public <E extends Enum<E>> void execute(final StatisticsHolder<E> statisticsHolder, final Scenario scenario,
+                                          final Map<Class<? extends Configuration>, Configuration> configurations,
+                                          final List<AssertionEvaluator> assertions) throws TestException {
+    ConcurrencyConfig concurrencyConfig = (ConcurrencyConfig)configurations.get(ConcurrencyConfig.class);
+    if (concurrencyConfig != null && concurrencyConfig.getThreadCountMap().size() > 1) {
+      throw new TestException("The saturation search offers its rate to a single threadpool, "
+                              + concurrencyConfig.getThreadCountMap().size() + " are configured.");
+    }
+    steps.clear();
+    maxSustainableRate = 0L;
+
+    long sustained = 0L;
+    long violated = 0L;
+    long rate = Math.min(startRate, maxRate);
+    while (steps.size() < maxSteps) {
+      Step step = runStep(rate, statisticsHolder, scenario, configurations, assertions);
+      steps.add(step);
+      logger.info("Saturation search: " + step);
+      if (step.isSloMet()) {
+        sustained = rate;
+      } else {
+        violated = rate;
+      }
+
+      if (violated == 0L) {
+        if (rate >= maxRate) {
+          break;
+        }
+        rate = Math.min(maxRate, Math.max(rate + 1, (long)Math.ceil(rate * growth)));
+      } else {
+        if (violated - sustained <= Math.max(1L, (long)(violated * precision))) {
+          break;
+        }
+        rate = sustained + (violated - sustained) / 2;
+      }
+    }
+    maxSustainableRate = sustained;
+    logger.info("Saturation search: maximum sustainable rate is " + sustained + " operations per second ("
+                + slo + ")");
+
+    writeCurve(configurations);
+  }
+
+  /**
+   * Executes one step at a constant rate, and evaluates the objective on that step only.
+   *
+   * @param ratePerSecond rate of the step
+   * @return the measures of the step
+   */
+  protected <E extends Enum<E>> Step runStep(final long ratePerSecond, final StatisticsHolder<E> statisticsHolder,
+                                             final Scenario scenario,
+                                             final Map<Class<? extends Configuration>, Configuration> configurations,
+                                             final List<AssertionEvaluator> assertions) throws TestException {
+    ObjectiveStatisticsHolder<E> stepStatisticsHolder = new ObjectiveStatisticsHolder<E>(statisticsHolder, slo);
+    stepStatisticsHolder.sample();
+    new AtRate(ratePerSecond, TimeDivision.seconds, stepDuration)
+        .execute(stepStatisticsHolder, scenario, configurations, assertions);
+
+    ObjectiveStatisticsHolder.Sample sample = stepStatisticsHolder.sample();
+    return new Step(ratePerSecond, sample.getTps(), sample.getLatencyInNs(50.0d), sample.getLatencyInNs(99.0d),
+        sample.getLatencyInNs(99.9d), sample.getSloLatencyInNs(), sample.getErrorRatio(), sample.isSloMet());
+  }
+
+  private void writeCurve(final Map<Class<? extends Configuration>, Configuration> configurations) {
+    ReportingConfig<?> reportingConfig = (ReportingConfig<?>)configurations.get(ReportingConfig.class);
+    File reportPath = reportingConfig == null ? null : reportingConfig.getHtmlReportPath();
+    File curveFile = curvePath != null ? new File(curvePath)
+        : reportPath == null ? null : new File(reportPath, CURVE_FILE);
+    if (curveFile == null) {
+      return;
+    }
+    File parent = curveFile.getAbsoluteFile().getParentFile();
+    if (parent != null) {
+      parent.mkdirs();
+    }
+    try (PrintStream stream = new PrintStream(curveFile)) {
+      stream.println("rate,tps,p50 (ms),p99 (ms),p99.9 (ms),p" + slo.getPercentile() + " (ms),error ratio,slo met");
+      for (Step step : steps) {
+        stream.println(String.format(Locale.ROOT, "%d,%.2f,%.3f,%.3f,%.3f,%.3f,%.6f,%b", step.getRate(),
+            step.getAchievedTps(), step.getP50InNs() / 1_000_000.0d, step.getP99InNs() / 1_000_000.0d,
+            step.getP999InNs() / 1_000_000.0d, step.getSloLatencyInNs() / 1_000_000.0d, step.getErrorRatio(),
+            step.isSloMet()));
+      }
+    } catch (IOException e) {
+      logger.error("Can not write the saturation curve to " + curveFile, e);
+    }
+  }
+
+  /**
+   * @return the highest rate which met the objective, in operations per second, 0 if none did
+   */
+  public long getMaxSustainableRate() {
+    return maxSustainableRate;
+  }
+
+  /**
+   * @return the steps of the last search, in their order of execution
+   */
+  public List<Step> getSteps() {
+    return Collections.unmodifiableList(steps);
+  }
+
+  @Override
+  public String toString() {
+    return "Saturation search from " + startRate + " operations per second, up to " + maxRate + ", steps "
+           + stepDuration.toString() + ", objective " + slo;
+  }
+
+  /**
+   * Measures of a step of the search.
+   */
+  public static class Step {
+    private final long rate;
+    private final double achievedTps;
+    private final long p50InNs;
+    private final long p99InNs;
+    private final long p999InNs;
+    private final long sloLatencyInNs;
+    private final double errorRatio;
+    private final boolean sloMet;
+
+    public Step(final long rate, final double achievedTps, final long p50InNs, final long p99InNs,
+                final long p999InNs, final long sloLatencyInNs, final double errorRatio, final boolean sloMet) {
+      this.rate = rate;
+      this.achievedTps = achievedTps;
+      this.p50InNs = p50InNs;
+      this.p99InNs = p99InNs;
+      this.p999InNs = p999InNs;
+      this.sloLatencyInNs = sloLatencyInNs;
+      this.errorRatio = errorRatio;
+      this.sloMet = sloMet;
+    }
+
+    public long getRate() {
+      return rate;
+    }
+
+    public double getAchievedTps() {
+      return achievedTps;
+    }
+
+    public long getP50InNs() {
+      return p50InNs;
+    }
+
+    public long getP99InNs() {
+      return p99InNs;
+    }
+
+    public long getP999InNs() {
+      return p999InNs;
+    }
+
+    public long getSloLatencyInNs() {
+      return sloLatencyInNs;
+    }
+
+    public double getErrorRatio() {
+      return errorRatio;
+    }
+
+    public boolean isSloMet() {
+      return sloMet;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "rate %d/s, achieved %.1f TPS, p50 %.3fms, p99 %.3fms, p99.9 %.3fms, "
+                                        + "error ratio %.4f%%, objective %s", rate, achievedTps, p50InNs / 1_000_000.0d,
+          p99InNs / 1_000_000.0d, p999InNs / 1_000_000.0d, errorRatio * 100.0d, sloMet ? "met" : "violated");
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service level objective a rate must meet to be considered sustainable by a {@link SaturationSearch}: a maximum
+ * latency at a percentile, measured on the operations which didn't fail, and a maximum ratio of failed operations.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class ServiceLevelObjective {
+
+  private double percentile = 99.0d;
+  private long maxLatencyInNs = Long.MAX_VALUE;
+  private double maxErrorRatio = 1.0d;
+  private Enum<?>[] errorResults = new Enum<?>[0];
+
+  public static ServiceLevelObjective slo() {
+    return new ServiceLevelObjective();
+  }
+
+  /**
+   * @param percentile percentile of the latency, e.g. 99.0
+   * @param latency    maximum latency at that percentile
+   * @param unit       unit of the latency
+   * @return this objective
+   */
+  public ServiceLevelObjective percentile(final double percentile, final long latency, final TimeUnit unit) {
+    if (percentile <= 0.0d || percentile > 100.0d) {
+      throw new IllegalArgumentException("The percentile must be between 0 (excluded) and 100.");
+    }
+    if (latency <= 0) {
+      throw new IllegalArgumentException("The maximum latency must be positive.");
+    }
+    this.percentile = percentile;
+    this.maxLatencyInNs = unit.toNanos(latency);
+    return this;
+  }
+
+  /**
+   * @param maxErrorRatio maximum ratio of failed operations, e.g. 0.001 for 0.1%
+   * @param errorResults  results of the failed operations
+   * @return this objective
+   */
+  public ServiceLevelObjective errorRatio(final double maxErrorRatio, final Enum<?>... errorResults) {
+    if (maxErrorRatio < 0.0d || maxErrorRatio > 1.0d) {
+      throw new IllegalArgumentException("The maximum error ratio must be between 0 and 1.");
+    }
+    this.maxErrorRatio = maxErrorRatio;
+    this.errorResults = errorResults.clone();
+    return this;
+  }
+
+  public double getPercentile() {
+    return percentile;
+  }
+
+  public long getMaxLatencyInNs() {
+    return maxLatencyInNs;
+  }
+
+  public double getMaxErrorRatio() {
+    return maxErrorRatio;
+  }
+
+  boolean isError(final Enum<?> result) {
+    for (Enum<?> errorResult : errorResults) {
+      if (errorResult == result) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param latencyInNs latency at the percentile of the objective
+   * @param errorRatio  ratio of failed operations
+   * @return true if both values are within the objective
+   */
+  public boolean isMet(final long latencyInNs, final double errorRatio) {
+    return latencyInNs <= maxLatencyInNs && errorRatio <= maxErrorRatio;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("p").append(percentile);
+    if (maxLatencyInNs == Long.MAX_VALUE) {
+      sb.append(" unbounded");
+    } else {
+      sb.append(" <= ").append(maxLatencyInNs / 1_000_000.0d).append("ms");
+    }
+    sb.append(", error ratio <= ").append(maxErrorRatio * 100.0d).append("%");
+    if (errorResults.length > 0) {
+      sb.append(" of ").append(Arrays.toString(errorResults));
+    }
+    return sb.toString();
+  }
+}
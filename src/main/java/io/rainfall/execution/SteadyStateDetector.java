@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+
+/**
+ * Decides whether the system under test is steady, from the measures of the last intervals: the throughput and the
+ * latency must vary little from an interval to the next, and the JIT compiler and the garbage collector must take a
+ * small share of the time.
+ *
+ * @author Aurelien Broszniowski
+ */
+class SteadyStateDetector {
+
+  private final int window;
+  private final double tpsTolerance;
+  private final double latencyTolerance;
+  private final double jitTolerance;
+  private final double gcTolerance;
+  private final Deque<Interval> intervals = new ArrayDeque<Interval>();
+  private String lastVerdict = "not measured yet";
+
+  /**
+   * @param window           amount of consecutive intervals which must be steady
+   * @param tpsTolerance     maximum coefficient of variation of the TPS of the intervals
+   * @param latencyTolerance maximum coefficient of variation of the mean latency of the intervals
+   * @param jitTolerance     maximum share of the time spent compiling, or a negative value to ignore the compilation
+   * @param gcTolerance      maximum share of the time spent collecting garbage, or a negative value to ignore the GC
+   */
+  SteadyStateDetector(final int window, final double tpsTolerance, final double latencyTolerance,
+                      final double jitTolerance, final double gcTolerance) {
+    this.window = window;
+    this.tpsTolerance = tpsTolerance;
+    this.latencyTolerance = latencyTolerance;
+    this.jitTolerance = jitTolerance;
+    this.gcTolerance = gcTolerance;
+  }
+
+  /**
+   * @param interval measures of the last interval
+   * @return true if the last intervals of the window are steady
+   */
+  boolean offer(final Interval interval) {
+    intervals.addLast(interval);
+    if (intervals.size() > window) {
+      intervals.removeFirst();
+    }
+    if (intervals.size() < window) {
+      lastVerdict = "waiting for " + window + " intervals";
+      return false;
+    }
+
+    double[] tps = new double[window];
+    double[] latencies = new double[window];
+    long lengthInMs = 0L;
+    long compilationTimeInMs = 0L;
+    long gcTimeInMs = 0L;
+    int i = 0;
+    for (Interval measured : intervals) {
+      if (measured.count == 0L) {
+        lastVerdict = "no operation completed during an interval";
+        return false;
+      }
+      tps[i] = measured.tps;
+      latencies[i] = measured.meanLatencyInNs;
+      lengthInMs += measured.lengthInMs;
+      compilationTimeInMs += measured.compilationTimeInMs;
+      gcTimeInMs += measured.gcTimeInMs;
+      i++;
+    }
+    double tpsVariation = coefficientOfVariation(tps);
+    double latencyVariation = coefficientOfVariation(latencies);
+    double jitShare = (double)compilationTimeInMs / Math.max(1L, lengthInMs);
+    double gcShare = (double)gcTimeInMs / Math.max(1L, lengthInMs);
+    lastVerdict = String.format(Locale.ROOT, "TPS variation %.2f%%, latency variation %.2f%%, JIT %.2f%%, GC %.2f%%",
+        tpsVariation * 100.0d, latencyVariation * 100.0d, jitShare * 100.0d, gcShare * 100.0d);
+    return tpsVariation <= tpsTolerance && latencyVariation <= latencyTolerance
+           && (jitTolerance < 0.0d || jitShare <= jitTolerance) && (gcTolerance < 0.0d || gcShare <= gcTolerance);
+  }
+
+  /**
+   * @return the measures of the last decision
+   */
+  String getLastVerdict() {
+    return lastVerdict;
+  }
+
+  static double coefficientOfVariation(final double[] values) {
+    double sum = 0.0d;
+    for (double value : values) {
+      sum += value;
+    }
+    double mean = sum / values.length;
+    if (mean == 0.0d) {
+      return 0.0d;
+    }
+    double squares = 0.0d;
+    for (double value : values) {
+      squares += (value - mean) * (value - mean);
+    }
+    return Math.sqrt(squares / values.length) / mean;
+  }
+
+  /**
+   * Measures of an interval.
+   */
+  static class Interval {
+    private final long count;
+    private final double tps;
+    private final double meanLatencyInNs;
+    private final long lengthInMs;
+    private final long compilationTimeInMs;
+    private final long gcTimeInMs;
+
+    Interval(final long count, final double tps, final double meanLatencyInNs, final long lengthInMs,
+             final long compilationTimeInMs, final long gcTimeInMs) {
+      this.count = count;
+      this.tps = tps;
+      this.meanLatencyInNs = meanLatencyInNs;
+      this.lengthInMs = lengthInMs;
+      this.compilationTimeInMs = compilationTimeInMs;
+      this.gcTimeInMs = gcTimeInMs;
+    }
+  }
+}
@@ -25,7 +25,10 @@ import io.rainfall.WeightedOperation;
 import io.rainfall.configuration.ConcurrencyConfig;
 import io.rainfall.configuration.DistributedConfig;
 import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.WorkerStatisticsHolder;
+import io.rainfall.utils.CurrentThreadpool;
 import io.rainfall.utils.RangeMap;
+import io.rainfall.utils.WorkerPools;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -65,7 +68,8 @@ public class Times extends Execution {
     markExecutionState(scenario, ExecutionState.BEGINNING);
 
     List<Future<Void>> tasks = new ArrayList<>();
-    final Map<String, ExecutorService> executors = concurrencyConfig.createFixedExecutorService();
+    final Map<String, ExecutorService> executors = concurrencyConfig.createFixedExecutorService(
+        (WorkerPools)configurations.get(WorkerPools.class));
     for (final String threadpoolName : executors.keySet()) {
       final int threadCount = concurrencyConfig.getThreadCount(threadpoolName);
       final ExecutorService executor = executors.get(threadpoolName);
@@ -75,10 +79,12 @@ public class Times extends Execution {
         final int finalThreadNb = threadNb;
         final Future<Void> future = executor.submit(() -> {
           Thread.currentThread().setName("Rainfall-core Operations Thread - " + finalThreadNb);
+          CurrentThreadpool.startWorker(finalThreadNb);
           RangeMap<WeightedOperation> operations = scenario.getOperations().get(threadpoolName);
+          StatisticsHolder<E> workerStatisticsHolder = new WorkerStatisticsHolder<E>(statisticsHolder);
           for (long i = 0; i < max; i++) {
             operations.getNextRandom(weightRnd)
-                .getOperation().exec(statisticsHolder, configurations, assertions);
+                .getOperation().exec(workerStatisticsHolder, configurations, assertions);
           }
           return null;
         });
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+import io.rainfall.AssertionEvaluator;
+import io.rainfall.Configuration;
+import io.rainfall.Execution;
+import io.rainfall.Scenario;
+import io.rainfall.TestException;
+import io.rainfall.configuration.ConcurrencyConfig;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.WorkerStatisticsHolder;
+import io.rainfall.unit.Over;
+import io.rainfall.utils.CurrentThreadpool;
+import io.rainfall.utils.WorkerPools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Execute the {@link Scenario} until the system under test is steady, to end a {@link WarmUp} as soon as possible.
+ * <p>
+ * At every interval, the TPS and the mean latency of the operations completed during the interval are measured, with
+ * the time spent by the JIT compiler and by the garbage collector. The execution ends once the TPS and the latency
+ * vary little over a window of intervals, while the JIT compiler and the garbage collector take a small share of the
+ * time, or once the maximum duration elapsed. How long it took and why it ended are logged, and kept in the execution.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class UntilSteady extends Execution {
+
+  public enum EndReason {
+    STEADY,
+    MAX_DURATION
+  }
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final Over max;
+  private long intervalInMs = 1000L;
+  private int window = 5;
+  private double tpsTolerance = 0.05d;
+  private double latencyTolerance = 0.10d;
+  private double jitTolerance = 0.01d;
+  private double gcTolerance = 0.05d;
+
+  private volatile EndReason endReason = null;
+  private volatile long durationInMs = 0L;
+  private volatile String lastVerdict = null;
+
+  /**
+   * @param max maximum duration of the execution, when the system under test doesn't become steady
+   */
+  public UntilSteady(final Over max) {
+    this.max = max;
+  }
+
+  /**
+   * @param amount interval between two measures
+   * @param unit   unit of the interval
+   * @return this execution
+   */
+  public UntilSteady checkEvery(final long amount, final TimeUnit unit) {
+    if (unit.toMillis(amount) <= 0) {
+      throw new IllegalArgumentException("The interval between two measures must be at least 1ms.");
+    }
+    this.intervalInMs = unit.toMillis(amount);
+    return this;
+  }
+
+  /**
+   * @param window amount of consecutive intervals which must be steady, 5 by default
+   * @return this execution
+   */
+  public UntilSteady window(final int window) {
+    if (window < 2) {
+      throw new IllegalArgumentException("The window must hold at least 2 intervals.");
+    }
+    this.window = window;
+    return this;
+  }
+
+  /**
+   * @param tpsTolerance     maximum coefficient of variation of the TPS over the window, 5% by default
+   * @param latencyTolerance maximum coefficient of variation of the mean latency over the window, 10% by default
+   * @return this execution
+   */
+  public UntilSteady tolerance(final double tpsTolerance, final double latencyTolerance) {
+    this.tpsTolerance = tpsTolerance;
+    this.latencyTolerance = latencyTolerance;
+    return this;
+  }
+
+  /**
+   * @param jitTolerance maximum share of the time spent by the JIT compiler over the window, 1% by default, or a
+   *                     negative value to ignore the JIT compiler
+   * @param gcTolerance  maximum share of the time spent by the garbage collector over the window, 5% by default, or a
+   *                     negative value to ignore the garbage collector
+   * @return this execution
+   */
+  public UntilSteady runtimeTolerance(final double jitTolerance, final double gcTolerance) {
+    this.jitTolerance = jitTolerance;
+    this.gcTolerance = gcTolerance;
+    return this;
+  }
+
+  @Override
+  public <E extends Enum<E>> void execute(final StatisticsHolder<E> statisticsHolder, final Scenario scenario,
+                                          final Map<Class<? extends Configuration>, Configuration> configurations,
+                                          final List<AssertionEvaluator> assertions) throws TestException {
+    ConcurrencyConfig concurrencyConfig = (ConcurrencyConfig)configurations.get(ConcurrencyConfig.class);
+    final ObjectiveStatisticsHolder<E> measuredStatisticsHolder =
+        new ObjectiveStatisticsHolder<E>(statisticsHolder, ServiceLevelObjective.slo());
+    final SteadyStateDetector detector = new SteadyStateDetector(window, tpsTolerance, latencyTolerance,
+        jitTolerance, gcTolerance);
+    final AtomicBoolean doneFlag = new AtomicBoolean(false);
+    final long startInMs = System.currentTimeMillis();
+    final long maxInMs = max.getTimeUnit().toMillis(max.getCount());
+    endReason = null;
+    lastVerdict = null;
+
+    markExecutionState(scenario, ExecutionState.BEGINNING);
+    List<Future<Void>> futures = new ArrayList<Future<Void>>();
+    final Map<String, ExecutorService> executors = concurrencyConfig.createFixedExecutorService(
+        (WorkerPools)configurations.get(WorkerPools.class));
+    for (final String threadpoolName : executors.keySet()) {
+      final int threadCount = concurrencyConfig.getThreadCount(threadpoolName);
+      for (int threadNb = 0; threadNb < threadCount; threadNb++) {
+        final int finalThreadNb = threadNb;
+        futures.add(executors.get(threadpoolName).submit(() -> {
+          Thread.currentThread().setName("Rainfall-core Operations Thread - " + finalThreadNb);
+          CurrentThreadpool.startWorker(finalThreadNb);
+          StatisticsHolder<E> workerStatisticsHolder = new WorkerStatisticsHolder<E>(measuredStatisticsHolder);
+          while (!Thread.currentThread().isInterrupted() && !doneFlag.get()) {
+            scenario.getOperations().get(threadpoolName).getNextRandom(weightRnd)
+                .getOperation().exec(workerStatisticsHolder, configurations, assertions);
+          }
+          return null;
+        }));
+      }
+    }
+
+    ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "Rainfall-core Steady State Monitor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    final RuntimeTimes runtimeTimes = new RuntimeTimes();
+    monitor.scheduleAtFixedRate(() -> {
+      try {
+        ObjectiveStatisticsHolder.Sample sample = measuredStatisticsHolder.sample();
+        long compilationTimeInMs = runtimeTimes.compilationTimeDeltaInMs();
+        long gcTimeInMs = runtimeTimes.gcTimeDeltaInMs();
+        boolean steady = detector.offer(new SteadyStateDetector.Interval(sample.getTotalCount(), sample.getTps(),
+            sample.getMeanLatencyInNs(), intervalInMs, compilationTimeInMs, gcTimeInMs));
+        lastVerdict = detector.getLastVerdict();
+        if (steady) {
+          end(EndReason.STEADY, startInMs, doneFlag);
+        } else if (System.currentTimeMillis() - startInMs >= maxInMs) {
+          end(EndReason.MAX_DURATION, startInMs, doneFlag);
+        }
+      } catch (RuntimeException e) {
+        logger.error("Warmup: the steady state can not be measured, ending the warmup", e);
+        end(EndReason.MAX_DURATION, startInMs, doneFlag);
+      }
+    }, intervalInMs, intervalInMs, TimeUnit.MILLISECONDS);
+
+    try {
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      doneFlag.set(true);
+      Thread.currentThread().interrupt();
+      throw new TestException("Thread execution Interruption", e);
+    } catch (ExecutionException e) {
+      doneFlag.set(true);
+      throw new TestException("Thread execution error", e);
+    } finally {
+      monitor.shutdownNow();
+      markExecutionState(scenario, ExecutionState.ENDING);
+      for (ExecutorService executor : executors.values()) {
+        executor.shutdown();
+      }
+    }
+
+    try {
+      boolean success = true;
+      for (ExecutorService executor : executors.values()) {
+        boolean executorSuccess = executor.awaitTermination(60, SECONDS);
+        if (!executorSuccess) {
+          executor.shutdownNow();
+          success &= executor.awaitTermination(60, SECONDS);
+        }
+      }
+      if (!success) {
+        throw new TestException("Execution of Scenario timed out.");
+      }
+    } catch (InterruptedException e) {
+      for (ExecutorService executor : executors.values()) {
+        executor.shutdownNow();
+      }
+      Thread.currentThread().interrupt();
+      throw new TestException("Execution of Scenario didn't stop correctly.", e);
+    }
+    statisticsHolder.setPhaseOutcome(getOutcome());
+  }
+
+  private void end(final EndReason reason, final long startInMs, final AtomicBoolean doneFlag) {
+    if (doneFlag.compareAndSet(false, true)) {
+      durationInMs = System.currentTimeMillis() - startInMs;
+      endReason = reason;
+      if (reason == EndReason.STEADY) {
+        logger.info("Warmup: steady state reached after {}ms ({})", durationInMs, lastVerdict);
+      } else {
+        logger.warn("Warmup: no steady state after the maximum duration of {}ms ({})", durationInMs, lastVerdict);
+      }
+    }
+  }
+
+  /**
+   * @return why the last execution ended, or null if it didn't end
+   */
+  public EndReason getEndReason() {
+    return endReason;
+  }
+
+  /**
+   * @return the duration of the last execution, in milliseconds
+   */
+  public long getDurationInMs() {
+    return durationInMs;
+  }
+
+  /**
+   * @return the measures of the last interval of the last execution
+   */
+  public String getLastVerdict() {
+    return lastVerdict;
+  }
+
+  /**
+   * @return the description of the warmup, with its duration and why it ended once it ran
+   */
+  public List<String> getDescription() {
+    List<String> description = new ArrayList<String>();
+    String outcome = getOutcome();
+    if (outcome == null) {
+      description.add("Warmup " + toString());
+      return description;
+    }
+    description.add("Warmup " + toString() + " : " + outcome);
+    if (lastVerdict != null) {
+      description.add("Last measured interval of the warmup : " + lastVerdict);
+    }
+    return description;
+  }
+
+  /**
+   * @return the end reason and the duration of the last execution, or null if it didn't end
+   */
+  public String getOutcome() {
+    EndReason reason = endReason;
+    if (reason == null) {
+      return null;
+    }
+    return reason == EndReason.STEADY ? "steady state reached after " + durationInMs + " ms"
+        : "no steady state after the maximum duration of " + durationInMs + " ms";
+  }
+
+  @Override
+  public String toString() {
+    return "until steady, at most " + max.toString();
+  }
+
+  /**
+   * Time spent by the JIT compiler and the garbage collectors since the previous call.
+   */
+  private static final class RuntimeTimes {
+    private final CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private long compilationTimeInMs = compilationTimeInMs();
+    private long gcTimeInMs = gcTimeInMs();
+
+    long compilationTimeDeltaInMs() {
+      long previous = compilationTimeInMs;
+      compilationTimeInMs = compilationTimeInMs();
+      return compilationTimeInMs - previous;
+    }
+
+    long gcTimeDeltaInMs() {
+      long previous = gcTimeInMs;
+      gcTimeInMs = gcTimeInMs();
+      return gcTimeInMs - previous;
+    }
+
+    private long compilationTimeInMs() {
+      return compilation != null && compilation.isCompilationTimeMonitoringSupported()
+          ? compilation.getTotalCompilationTime() : 0L;
+    }
+
+    private long gcTimeInMs() {
+      long total = 0L;
+      for (GarbageCollectorMXBean collector : collectors) {
+        total += Math.max(0L, collector.getCollectionTime());
+      }
+      return total;
+    }
+  }
+}
@@ -24,6 +24,7 @@ import io.rainfall.TestException;
 import io.rainfall.statistics.StatisticsHolder;
 import io.rainfall.statistics.WarmUpStatisticsHolder;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -45,15 +46,43 @@ public class WarmUp extends Execution {
     this.execution = times;
   }
 
+  public WarmUp(UntilSteady untilSteady) {
+    this.execution = untilSteady;
+  }
+
   @Override
   public <E extends Enum<E>> void execute(final StatisticsHolder<E> statisticsHolder, final Scenario scenario,
                                           final Map<Class<? extends Configuration>, Configuration> configurations,
                                           final List<AssertionEvaluator> assertions) throws TestException {
     statisticsHolder.pause();
     this.execution.execute(blankStatsHolder, scenario, configurations, assertions);
+    if (this.execution instanceof UntilSteady) {
+      statisticsHolder.setPhaseOutcome(((UntilSteady)this.execution).getOutcome());
+    }
     statisticsHolder.resume();
   }
 
+  /**
+   * @return the description of the warmup, with the outcome of a steady-state warmup once it ran
+   */
+  public List<String> getDescription() {
+    return describe(execution);
+  }
+
+  /**
+   * @param warmup execution run as a warmup
+   * @return the description of the warmup
+   */
+  public static List<String> describe(final Execution warmup) {
+    if (warmup instanceof WarmUp) {
+      return ((WarmUp)warmup).getDescription();
+    }
+    if (warmup instanceof UntilSteady) {
+      return ((UntilSteady)warmup).getDescription();
+    }
+    return Collections.singletonList("Warmup phase " + warmup.toString());
+  }
+
   @Override
   public String toString() {
     return "" + execution.toString();
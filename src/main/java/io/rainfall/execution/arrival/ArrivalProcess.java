@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution.arrival;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process generating the inter-arrival times of the operations of an open-model execution. Each worker draws its own
+ * {@link Arrivals}, confined to its thread, so the schedules are generated on the fly without any lock.
+ *
+ * @author Aurelien Broszniowski
+ */
+public interface ArrivalProcess {
+
+  /**
+   * @param meanIntervalInNs mean interval between two arrivals of the worker
+   * @param workerIndex      index of the worker
+   * @param workerCount      amount of workers sharing the rate
+   * @return the arrivals of one worker
+   */
+  Arrivals arrivals(double meanIntervalInNs, int workerIndex, int workerCount);
+
+  /**
+   * Inter-arrival times of one worker.
+   */
+  interface Arrivals {
+
+    /**
+     * @return the time between the previous arrival (or the start of the execution) and the next one
+     */
+    double nextIntervalInNs();
+  }
+
+  /**
+   * @return arrivals at a constant interval, the workers being evenly interleaved
+   */
+  static ArrivalProcess uniform() {
+    return new UniformArrivals();
+  }
+
+  /**
+   * @return arrivals of a Poisson process, i.e. exponentially distributed inter-arrival times
+   */
+  static ArrivalProcess poisson() {
+    return new PoissonArrivals();
+  }
+
+  /**
+   * @param burstFactor    how many times higher the rate is during a burst than between bursts
+   * @param burstTimeRatio fraction of the time spent in bursts
+   * @param meanBurst      mean length of a burst
+   * @param unit           unit of the length of a burst
+   * @return arrivals of a two-state Markov-modulated Poisson process, with the same mean rate
+   */
+  static ArrivalProcess bursts(double burstFactor, double burstTimeRatio, long meanBurst, TimeUnit unit) {
+    return new MarkovModulatedArrivals(burstFactor, burstTimeRatio, unit.toNanos(meanBurst));
+  }
+
+  /**
+   * @param meanOn  mean length of the on periods
+   * @param meanOff mean length of the off periods
+   * @param unit    unit of the lengths
+   * @param shape   shape of the Pareto distribution of the lengths, between 1 (heaviest tail) and 2 for an infinite
+   *                variance
+   * @return arrivals of a source alternating heavy-tailed on and off periods, with the same mean rate
+   */
+  static ArrivalProcess onOff(long meanOn, long meanOff, TimeUnit unit, double shape) {
+    return new OnOffArrivals(unit.toNanos(meanOn), unit.toNanos(meanOff), shape);
+  }
+}
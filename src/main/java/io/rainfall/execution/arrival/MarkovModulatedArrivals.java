@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution.arrival;
+
+import io.rainfall.utils.ConcurrentPseudoRandom;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Arrivals of a two-state Markov-modulated Poisson process: the source alternates between bursts and calm periods of
+ * exponentially distributed lengths, and the arrivals are Poisson in each state, at a higher rate during the bursts.
+ * The rates are set so that the mean rate is the rate of the execution, and the workers of a threadpool share the
+ * timeline of the bursts.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class MarkovModulatedArrivals implements ArrivalProcess {
+
+  private final ConcurrentPseudoRandom rnd = new ConcurrentPseudoRandom();
+  private final double burstFactor;
+  private final double burstTimeRatio;
+  private final double meanBurstInNs;
+
+  /**
+   * @param burstFactor    how many times higher the rate is during a burst than between bursts
+   * @param burstTimeRatio fraction of the time spent in bursts
+   * @param meanBurstInNs  mean length of a burst
+   */
+  public MarkovModulatedArrivals(final double burstFactor, final double burstTimeRatio, final double meanBurstInNs) {
+    if (burstFactor < 1.0d) {
+      throw new IllegalArgumentException("The burst factor must be at least 1.");
+    }
+    if (!(burstTimeRatio > 0.0d && burstTimeRatio < 1.0d)) {
+      throw new IllegalArgumentException("The burst time ratio must be between 0 and 1.");
+    }
+    if (!(meanBurstInNs > 0.0d)) {
+      throw new IllegalArgumentException("The mean length of a burst must be positive.");
+    }
+    this.burstFactor = burstFactor;
+    this.burstTimeRatio = burstTimeRatio;
+    this.meanBurstInNs = meanBurstInNs;
+  }
+
+  @Override
+  public Arrivals arrivals(final double meanIntervalInNs, final int workerIndex, final int workerCount) {
+    // mean rate = ratio * burst rate + (1 - ratio) * calm rate
+    final double calmIntervalInNs = meanIntervalInNs * (burstTimeRatio * burstFactor + 1.0d - burstTimeRatio);
+    final double meanCalmInNs = meanBurstInNs * (1.0d - burstTimeRatio) / burstTimeRatio;
+    return new ModulatedArrivals(new ModulatedArrivals.Source() {
+      @Override
+      public boolean startsHigh(final SplittableRandom rnd) {
+        return rnd.nextDouble() < burstTimeRatio;
+      }
+
+      @Override
+      public double nextLengthInNs(final boolean high, final SplittableRandom rnd) {
+        // the lengths are exponential, so the first state has the same distribution as the next ones
+        return -(high ? meanBurstInNs : meanCalmInNs) * Math.log1p(-rnd.nextDouble());
+      }
+    }, rnd, calmIntervalInNs / burstFactor, 1.0d / burstFactor);
+  }
+
+  @Override
+  public String toString() {
+    return "bursts of " + String.format(Locale.ROOT, "%.1f", meanBurstInNs / 1_000_000d) + "ms at " + burstFactor
+           + "x the calm rate, " + Math.round(burstTimeRatio * 100) + "% of the time";
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution.arrival;
+
+import io.rainfall.utils.ConcurrentPseudoRandom;
+import io.rainfall.utils.CurrentThreadpool;
+import io.rainfall.utils.RandomStreams;
+
+import java.util.SplittableRandom;
+
+import static io.rainfall.execution.arrival.PoissonArrivals.exponential;
+
+/**
+ * Arrivals of one worker, whose rate is modulated by a source alternating high and low states.
+ * <p>
+ * The timeline of the states is generated from a seed shared by the threadpool of the worker, so that all its workers
+ * replay the same timeline, without any synchronization, and burst together: independent timelines would smooth the
+ * superposition of the workers to a Poisson process. Each worker draws its candidate arrivals at the rate of the high
+ * state, and thins them by the relative rate of the state in effect.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class ModulatedArrivals implements ArrivalProcess.Arrivals {
+
+  /**
+   * Lengths of the states of the modulating source.
+   */
+  interface Source {
+
+    /**
+     * @param rnd generator of the timeline
+     * @return true if the timeline starts with a high state
+     */
+    boolean startsHigh(SplittableRandom rnd);
+
+    /**
+     * @param high true for the length of a high state, false for a low one
+     * @param rnd  generator of the timeline
+     * @return the length of the state
+     */
+    double nextLengthInNs(boolean high, SplittableRandom rnd);
+  }
+
+  private final Source source;
+  private final ConcurrentPseudoRandom rnd;
+  private final double highIntervalInNs;
+  private final double lowRateRatio;
+  private SplittableRandom timeline = null;
+  private boolean high;
+  private double stateEndInNs;
+  private double timeInNs = 0.0d;
+
+  /**
+   * @param source           lengths of the states
+   * @param rnd              generator of the arrivals of the worker
+   * @param highIntervalInNs mean interval between two arrivals of the worker in the high state
+   * @param lowRateRatio     rate of the low state relative to the rate of the high state, between 0 and 1
+   */
+  ModulatedArrivals(final Source source, final ConcurrentPseudoRandom rnd, final double highIntervalInNs,
+                    final double lowRateRatio) {
+    this.source = source;
+    this.rnd = rnd;
+    this.highIntervalInNs = highIntervalInNs;
+    this.lowRateRatio = lowRateRatio;
+  }
+
+  @Override
+  public double nextIntervalInNs() {
+    if (timeline == null) {
+      // resolved by the worker, the threads which don't belong to a threadpool have their own timeline
+      String threadpool = CurrentThreadpool.get();
+      String run = CurrentThreadpool.getRun();
+      timeline = new SplittableRandom(RandomStreams.sharedSeed((run == null ? "" : run + "/")
+          + (threadpool == null ? Thread.currentThread().getName() : threadpool)));
+      high = source.startsHigh(timeline);
+      stateEndInNs = source.nextLengthInNs(high, timeline);
+    }
+    double previousInNs = timeInNs;
+    while (true) {
+      if (!high && lowRateRatio == 0.0d) {
+        // no arrival until the end of the low state
+        timeInNs = Math.max(timeInNs, stateEndInNs);
+        nextState();
+        continue;
+      }
+      timeInNs += exponential(rnd, highIntervalInNs);
+      while (timeInNs >= stateEndInNs) {
+        nextState();
+      }
+      if (high || (lowRateRatio > 0.0d && rnd.nextDouble() < lowRateRatio)) {
+        return timeInNs - previousInNs;
+      }
+    }
+  }
+
+  private void nextState() {
+    high = !high;
+    stateEndInNs += source.nextLengthInNs(high, timeline);
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution.arrival;
+
+import io.rainfall.utils.ConcurrentPseudoRandom;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Arrivals of a source alternating on and off periods whose lengths follow a Pareto distribution: the arrivals are
+ * Poisson during the on periods, and there is none during the off periods. The heavy tail of the periods makes the
+ * aggregated traffic self-similar, bursty at every time scale. The rate of the on periods is set so that the mean rate
+ * is the rate of the execution, and the workers of a threadpool share the timeline of the periods.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class OnOffArrivals implements ArrivalProcess {
+
+  private final ConcurrentPseudoRandom rnd = new ConcurrentPseudoRandom();
+  private final double meanOnInNs;
+  private final double meanOffInNs;
+  private final double shape;
+
+  /**
+   * @param meanOnInNs  mean length of the on periods
+   * @param meanOffInNs mean length of the off periods
+   * @param shape       shape of the Pareto distribution of the lengths, must be greater than 1 for a finite mean
+   */
+  public OnOffArrivals(final double meanOnInNs, final double meanOffInNs, final double shape) {
+    if (!(meanOnInNs > 0.0d) || meanOffInNs < 0.0d) {
+      throw new IllegalArgumentException("The on periods must have a positive length, and the off periods can not "
+                                         + "have a negative one.");
+    }
+    if (!(shape > 1.0d)) {
+      throw new IllegalArgumentException("The shape of the Pareto distribution must be greater than 1.");
+    }
+    this.meanOnInNs = meanOnInNs;
+    this.meanOffInNs = meanOffInNs;
+    this.shape = shape;
+  }
+
+  @Override
+  public Arrivals arrivals(final double meanIntervalInNs, final int workerIndex, final int workerCount) {
+    final double onIntervalInNs = meanIntervalInNs * meanOnInNs / (meanOnInNs + meanOffInNs);
+    return new ModulatedArrivals(new ModulatedArrivals.Source() {
+      @Override
+      public boolean startsHigh(final SplittableRandom rnd) {
+        return true;
+      }
+
+      @Override
+      public double nextLengthInNs(final boolean high, final SplittableRandom rnd) {
+        return pareto(high ? meanOnInNs : meanOffInNs, rnd);
+      }
+    }, rnd, onIntervalInNs, 0.0d);
+  }
+
+  private double pareto(final double mean, final SplittableRandom rnd) {
+    if (mean == 0.0d) {
+      return 0.0d;
+    }
+    double scale = mean * (shape - 1.0d) / shape;
+    return scale / Math.pow(1.0d - rnd.nextDouble(), 1.0d / shape);
+  }
+
+  @Override
+  public String toString() {
+    return "on/off Pareto source (on " + String.format(Locale.ROOT, "%.1f", meanOnInNs / 1_000_000d) + "ms, off "
+           + String.format(Locale.ROOT, "%.1f", meanOffInNs / 1_000_000d) + "ms, shape " + shape + ")";
+  }
+}
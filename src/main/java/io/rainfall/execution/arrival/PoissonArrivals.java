@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution.arrival;
+
+import io.rainfall.utils.ConcurrentPseudoRandom;
+
+/**
+ * Arrivals of a Poisson process: the inter-arrival times are exponentially distributed, and the arrivals of independent
+ * workers add up to a Poisson process as well.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class PoissonArrivals implements ArrivalProcess {
+
+  private final ConcurrentPseudoRandom rnd = new ConcurrentPseudoRandom();
+
+  @Override
+  public Arrivals arrivals(final double meanIntervalInNs, final int workerIndex, final int workerCount) {
+    return () -> exponential(rnd, meanIntervalInNs);
+  }
+
+  static double exponential(final ConcurrentPseudoRandom rnd, final double mean) {
+    return -mean * Math.log1p(-rnd.nextDouble());
+  }
+
+  @Override
+  public String toString() {
+    return "Poisson arrivals";
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution.arrival;
+
+/**
+ * Arrivals at a constant interval, the first arrival of each worker being shifted so that the arrivals of the workers
+ * are evenly interleaved.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class UniformArrivals implements ArrivalProcess {
+
+  @Override
+  public Arrivals arrivals(final double meanIntervalInNs, final int workerIndex, final int workerCount) {
+    return new Arrivals() {
+      private double nextIntervalInNs = meanIntervalInNs * workerIndex / workerCount;
+
+      @Override
+      public double nextIntervalInNs() {
+        double intervalInNs = nextIntervalInNs;
+        nextIntervalInNs = meanIntervalInNs;
+        return intervalInNs;
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return "uniform arrivals";
+  }
+}
@@ -17,9 +17,9 @@
 package io.rainfall.generator;
 
 import io.rainfall.ObjectGenerator;
+import io.rainfall.utils.ConcurrentPseudoRandom;
 
 import java.util.Arrays;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author Aurelien Broszniowski
@@ -28,6 +28,7 @@ import java.util.concurrent.ThreadLocalRandom;
 public class ByteArrayGenerator implements ObjectGenerator<byte[]> {
 
   private final int length;
+  private final ConcurrentPseudoRandom rnd = new ConcurrentPseudoRandom();
 
   public ByteArrayGenerator(final int length) {
     this.length = length;
@@ -36,7 +37,7 @@ public class ByteArrayGenerator implements ObjectGenerator<byte[]> {
   @Override
   public byte[] generate(Long seed) {
     byte[] object = new byte[length];
-    Arrays.fill(object, (byte)ThreadLocalRandom.current().nextInt());
+    Arrays.fill(object, (byte)rnd.nextLong());
     return object;
   }
 
@@ -88,8 +88,171 @@ public enum Distribution {
     public String getDescription() {
       return "Gaussian";
     }
+  },
+  /**
+   * Gaussian with a standard deviation of width, generated with the ziggurat method.
+   * Values outside of the range are wrapped around instead of being rejected, so the generation time is bounded
+   * whatever the width.
+   */
+  ZIGGURAT_GAUSSIAN {
+    @Override
+    public long generate(ConcurrentPseudoRandom rnd, long minimum, long maximum, long width) {
+      double center = minimum + (maximum - minimum) / 2.0;
+      return wrap((long)Math.floor(Ziggurat.nextGaussian(rnd) * width + center), minimum, maximum);
+    }
+
+    @Override
+    public String getDescription() {
+      return "Ziggurat Gaussian";
+    }
+  },
+  /**
+   * Zipfian with the YCSB exponent (0.99): minimum is the most frequent value, minimum + 1 the second one, etc.
+   * The width is ignored.
+   */
+  ZIPFIAN {
+    @Override
+    public long generate(ConcurrentPseudoRandom rnd, long minimum, long maximum, long width) {
+      return minimum + Zipf.nextRank(rnd, maximum - minimum) - 1;
+    }
+
+    @Override
+    public String getDescription() {
+      return "Zipfian";
+    }
+  },
+  /**
+   * Zipfian with the YCSB exponent (0.99), whose frequent values are scattered over the range by hashing the ranks.
+   * The width is ignored.
+   */
+  SCRAMBLED_ZIPFIAN {
+    @Override
+    public long generate(ConcurrentPseudoRandom rnd, long minimum, long maximum, long width) {
+      long range = maximum - minimum;
+      return minimum + Math.floorMod(fnvHash(Zipf.nextRank(rnd, range)), range);
+    }
+
+    @Override
+    public String getDescription() {
+      return "Scrambled Zipfian";
+    }
+  },
+  /**
+   * Zipfian with the YCSB exponent (0.99), favouring the latest values: maximum - 1 is the most frequent value.
+   * The width is ignored.
+   */
+  LATEST {
+    @Override
+    public long generate(ConcurrentPseudoRandom rnd, long minimum, long maximum, long width) {
+      return maximum - Zipf.nextRank(rnd, maximum - minimum);
+    }
+
+    @Override
+    public String getDescription() {
+      return "Latest";
+    }
+  },
+  /**
+   * Hotspot: the width first values of the range (the hot set) are picked 80% of the time, uniformly,
+   * and the other values are picked uniformly the rest of the time.
+   */
+  HOTSPOT {
+    @Override
+    public long generate(ConcurrentPseudoRandom rnd, long minimum, long maximum, long width) {
+      long range = maximum - minimum;
+      long hotSetSize = Math.max(1L, Math.min(width, range));
+      long coldSetSize = range - hotSetSize;
+      double u = rnd.nextDouble();
+      if (u < HOTSPOT_PROBABILITY || coldSetSize == 0) {
+        return minimum + Math.min(hotSetSize - 1, (long)(u / HOTSPOT_PROBABILITY * hotSetSize));
+      }
+      double cold = (u - HOTSPOT_PROBABILITY) / (1.0 - HOTSPOT_PROBABILITY);
+      return minimum + hotSetSize + Math.min(coldSetSize - 1, (long)(cold * coldSetSize));
+    }
+
+    @Override
+    public String getDescription() {
+      return "Hotspot";
+    }
+  },
+  /**
+   * Exponential with a mean of width, starting at minimum. Values beyond the range are wrapped around.
+   */
+  EXPONENTIAL {
+    @Override
+    public long generate(ConcurrentPseudoRandom rnd, long minimum, long maximum, long width) {
+      return wrap(minimum + (long)(-Math.log1p(-rnd.nextDouble()) * width), minimum, maximum);
+    }
+
+    @Override
+    public String getDescription() {
+      return "Exponential";
+    }
+  },
+  /**
+   * The distribution of {@link #SLOW_GAUSSIAN}, drawn from the per-worker {@link ConcurrentPseudoRandom} with the
+   * ziggurat method instead of a shared {@link Random}, so that it doesn't contend and a seeded run draws the same
+   * values.
+   */
+  SEEDED_GAUSSIAN {
+    @Override
+    public long generate(final ConcurrentPseudoRandom rnd, final long minimum, final long maximum, final long width) {
+      while (true) {
+        long candidate = (long)((Ziggurat.nextGaussian(rnd) * width) + (((double)maximum + minimum) / 2));
+        if (candidate >= minimum && candidate < maximum) {
+          return candidate;
+        }
+      }
+    }
+
+    @Override
+    public String getDescription() {
+      return "Seeded Gaussian";
+    }
+  },
+  /**
+   * The distribution of {@link #SLOW_GAUSSIAN_PARETO}, drawn like {@link #SEEDED_GAUSSIAN}.
+   */
+  SEEDED_GAUSSIAN_PARETO {
+    @Override
+    public long generate(final ConcurrentPseudoRandom rnd, final long minimum, final long maximum, final long ignore) {
+      long width = (long)(0.7 * (maximum - minimum));
+      while (true) {
+        long candidate = (long)((Ziggurat.nextGaussian(rnd) * width) + (((double)maximum + minimum) / 2));
+        if (candidate >= minimum && candidate < maximum) {
+          return candidate;
+        }
+      }
+    }
+
+    @Override
+    public String getDescription() {
+      return "Seeded Gaussian with Pareto distribution";
+    }
   };
 
+  /**
+   * Probability to pick a value in the hot set of the {@link #HOTSPOT} distribution
+   */
+  public static final double HOTSPOT_PROBABILITY = 0.8;
+
+  private static long wrap(long candidate, long minimum, long maximum) {
+    if (candidate >= minimum && candidate < maximum) {
+      return candidate;
+    }
+    return minimum + Math.floorMod(candidate - minimum, maximum - minimum);
+  }
+
+  private static long fnvHash(long value) {
+    long hash = 0xCBF29CE484222325L;
+    for (int i = 0; i < 8; i++) {
+      hash ^= value & 0xFF;
+      hash *= 0x100000001B3L;
+      value >>>= 8;
+    }
+    return hash;
+  }
+
   public abstract long generate(ConcurrentPseudoRandom rnd, long minimum, long maximum, long width);
 
   public abstract String getDescription();
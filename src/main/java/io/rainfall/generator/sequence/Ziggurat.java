@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.generator.sequence;
+
+import io.rainfall.utils.ConcurrentPseudoRandom;
+
+/**
+ * Standard normal deviates with the ziggurat method of Marsaglia and Tsang (128 layers).
+ * <p>
+ * About 99% of the deviates are produced with one random long, one table lookup and one multiplication; the rest
+ * (wedges and tail) take a few more random numbers.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class Ziggurat {
+
+  private static final int LAYERS = 128;
+  private static final double R = 3.442619855899;
+  private static final double AREA = 9.91256303526217e-3;
+  private static final double M1 = 2147483648.0;
+  private static final long MIX = 0x2545F4914F6CDD1DL;
+
+  private static final int[] KN = new int[LAYERS];
+  private static final double[] WN = new double[LAYERS];
+  private static final double[] FN = new double[LAYERS];
+
+  static {
+    double dn = R;
+    double tn = dn;
+    double q = AREA / Math.exp(-0.5 * dn * dn);
+
+    KN[0] = (int)((dn / q) * M1);
+    KN[1] = 0;
+    WN[0] = q / M1;
+    WN[LAYERS - 1] = dn / M1;
+    FN[0] = 1.0;
+    FN[LAYERS - 1] = Math.exp(-0.5 * dn * dn);
+
+    for (int i = LAYERS - 2; i >= 1; i--) {
+      dn = Math.sqrt(-2.0 * Math.log(AREA / dn + Math.exp(-0.5 * dn * dn)));
+      KN[i + 1] = (int)((dn / tn) * M1);
+      tn = dn;
+      FN[i] = Math.exp(-0.5 * dn * dn);
+      WN[i] = dn / M1;
+    }
+  }
+
+  private Ziggurat() {
+  }
+
+  static double nextGaussian(ConcurrentPseudoRandom rnd) {
+    while (true) {
+      long bits = rnd.nextLong() * MIX;
+      // the layer and the position in the layer are taken from distinct bits
+      int hz = (int)(bits >> 32);
+      int iz = (int)bits & (LAYERS - 1);
+      double x = hz * WN[iz];
+      if (Math.abs((long)hz) < KN[iz]) {
+        return x;
+      }
+      if (iz == 0) {
+        return tail(rnd, hz > 0);
+      }
+      double y = FN[iz] + rnd.nextDouble() * (FN[iz - 1] - FN[iz]);
+      if (y < Math.exp(-0.5 * x * x)) {
+        return x;
+      }
+    }
+  }
+
+  private static double tail(ConcurrentPseudoRandom rnd, boolean positive) {
+    double x;
+    double y;
+    do {
+      x = -Math.log1p(-rnd.nextDouble()) / R;
+      y = -Math.log1p(-rnd.nextDouble());
+    } while (y + y < x * x);
+    return positive ? R + x : -R - x;
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.generator.sequence;
+
+import io.rainfall.utils.ConcurrentPseudoRandom;
+
+/**
+ * Zipf distributed ranks between 1 and n, with the rejection-inversion method of Hörmann and Derflinger.
+ * <p>
+ * The constants depend only on the number of elements, and take a few logarithms to compute, so there is no table to
+ * precompute, whatever the number of keys. The last constants are kept, as a generator usually samples a fixed range.
+ * Less than 1.1 iteration is needed per rank on average.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class Zipf {
+
+  /**
+   * Exponent of the YCSB zipfian distribution
+   */
+  static final double EXPONENT = 0.99;
+
+  private static volatile Zipf last = new Zipf(1L);
+
+  private final long numberOfElements;
+  private final double hIntegralX1;
+  private final double hIntegralNumberOfElements;
+  private final double s;
+
+  private Zipf(long numberOfElements) {
+    this.numberOfElements = numberOfElements;
+    this.hIntegralX1 = hIntegral(1.5) - 1.0;
+    this.hIntegralNumberOfElements = hIntegral(numberOfElements + 0.5);
+    this.s = 2.0 - hIntegralInverse(hIntegral(2.5) - h(2.0));
+  }
+
+  /**
+   * @return a rank between 1 (the most frequent) and numberOfElements
+   */
+  static long nextRank(ConcurrentPseudoRandom rnd, long numberOfElements) {
+    Zipf zipf = last;
+    if (zipf.numberOfElements != numberOfElements) {
+      zipf = new Zipf(numberOfElements);
+      last = zipf;
+    }
+    return zipf.sample(rnd);
+  }
+
+  private long sample(ConcurrentPseudoRandom rnd) {
+    while (true) {
+      double u = hIntegralNumberOfElements + rnd.nextDouble() * (hIntegralX1 - hIntegralNumberOfElements);
+      double x = hIntegralInverse(u);
+      long k = (long)(x + 0.5);
+      if (k < 1) {
+        k = 1;
+      } else if (k > numberOfElements) {
+        k = numberOfElements;
+      }
+      if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+        return k;
+      }
+    }
+  }
+
+  private static double hIntegral(double x) {
+    double logX = Math.log(x);
+    return helper2((1.0 - EXPONENT) * logX) * logX;
+  }
+
+  private static double h(double x) {
+    return Math.exp(-EXPONENT * Math.log(x));
+  }
+
+  private static double hIntegralInverse(double x) {
+    double t = x * (1.0 - EXPONENT);
+    if (t < -1.0) {
+      t = -1.0;
+    }
+    return Math.exp(helper1(t) * x);
+  }
+
+  /**
+   * @return log(1 + x) / x, accurate for small values of x
+   */
+  private static double helper1(double x) {
+    if (Math.abs(x) > 1e-8) {
+      return Math.log1p(x) / x;
+    }
+    return 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+  }
+
+  /**
+   * @return (exp(x) - 1) / x, accurate for small values of x
+   */
+  private static double helper2(double x) {
+    if (Math.abs(x) > 1e-8) {
+      return Math.expm1(x) / x;
+    }
+    return 1.0 + x * 0.5 * (1.0 + x / 3.0 * (1.0 + 0.25 * x));
+  }
+}
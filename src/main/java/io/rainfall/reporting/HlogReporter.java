@@ -18,10 +18,12 @@ package io.rainfall.reporting;
 
 import io.rainfall.statistics.StatisticsHolder;
 import io.rainfall.statistics.StatisticsPeekHolder;
+import io.rainfall.statistics.StatisticsPhase;
 import org.HdrHistogram.Histogram;
 import org.HdrHistogram.HistogramLogWriter;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.PrintStream;
 import java.util.List;
 
@@ -61,27 +63,49 @@ public class HlogReporter<E extends Enum<E>> extends FileReporter<E> {
     try {
       Enum<E>[] results = statisticsHolder.getResultsReported();
       for (Enum<E> result : results) {
-        Histogram rawHistogram = statisticsHolder.fetchHistogram(result);
-        rawHistogram.setStartTimeStamp(startTime);
-        rawHistogram.setEndTimeStamp(endTime);
-
-        File hlogFile = new File(this.basedir + File.separatorChar + buildHlogFilename(result.name()));
-        hlogFile.getParentFile().mkdirs();
-        HistogramLogWriter writer = new HistogramLogWriter(new PrintStream(hlogFile));
-        writer.setBaseTime(startTime);
-
-        writer.outputLogFormatVersion();
-        writer.outputBaseTime(writer.getBaseTime());
-        writer.outputLegend();
-        writer.outputIntervalHistogram(rawHistogram);
-
-        writer.close();
+        writeHlog(statisticsHolder.fetchHistogram(result), result.name(), startTime, endTime);
+      }
+      for (String name : statisticsHolder.getStatisticsKeys()) {
+        for (Enum<E> result : results) {
+          Histogram histogram = statisticsHolder.fetchHistogram(name, result);
+          if (histogram != null && histogram.getTotalCount() > 0) {
+            writeHlog(histogram, name + "-" + result.name(), startTime, endTime);
+          }
+        }
+      }
+      List<StatisticsPhase<E>> phases = statisticsHolder.getPhases();
+      for (int i = 0; i < phases.size(); i++) {
+        StatisticsPhase<E> phase = phases.get(i);
+        long phaseEndTime = phase.isRunning() ? endTime : phase.getEndTime();
+        for (Enum<E> result : results) {
+          if (phase.getCount(result) > 0) {
+            writeHlog(phase.fetchHistogram(result), "phase-" + (i + 1) + "-" + result.name(), phase.getStartTime(),
+                phaseEndTime);
+          }
+        }
       }
     } catch (Exception e) {
       throw new RuntimeException("Can not report to hlog", e);
     }
   }
 
+  private void writeHlog(Histogram rawHistogram, String key, long startTime, long endTime) throws FileNotFoundException {
+    rawHistogram.setStartTimeStamp(startTime);
+    rawHistogram.setEndTimeStamp(endTime);
+
+    File hlogFile = new File(this.basedir + File.separatorChar + buildHlogFilename(key));
+    hlogFile.getParentFile().mkdirs();
+    HistogramLogWriter writer = new HistogramLogWriter(new PrintStream(hlogFile));
+    writer.setBaseTime(startTime);
+
+    writer.outputLogFormatVersion();
+    writer.outputBaseTime(writer.getBaseTime());
+    writer.outputLegend();
+    writer.outputIntervalHistogram(rawHistogram);
+
+    writer.close();
+  }
+
   private String buildHlogFilename(String result) {
     return cleanFilename(result) + ".hlog";
   }
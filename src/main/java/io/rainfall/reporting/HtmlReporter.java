@@ -19,6 +19,7 @@ package io.rainfall.reporting;
 import io.rainfall.statistics.StatisticsHolder;
 import io.rainfall.statistics.StatisticsPeek;
 import io.rainfall.statistics.StatisticsPeekHolder;
+import io.rainfall.statistics.StatisticsPhase;
 import io.rainfall.statistics.collector.StatisticsCollector;
 import io.rainfall.statistics.exporter.Exporter;
 import io.rainfall.statistics.exporter.HtmlExporter;
@@ -27,6 +28,7 @@ import org.HdrHistogram.Histogram;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -37,6 +39,7 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
@@ -55,6 +58,7 @@ public class HtmlReporter<E extends Enum<E>> extends FileReporter<E> {
   private String averageLatencyFile = "averageLatency.csv";
   private String tpsFile = "tps.csv";
   private String percentilesFile = "total-percentiles.csv";
+  private String phasesFile = "phases.csv";
   private String reportFile;
   private final File jarFile = new File(getClass().getProtectionDomain().getCodeSource().getLocation().getPath());
   private Calendar calendar = GregorianCalendar.getInstance(TimeZone.getDefault());
@@ -131,43 +135,31 @@ public class HtmlReporter<E extends Enum<E>> extends FileReporter<E> {
       copyReportTemplate(statisticsHolder);
       StringBuilder sb = new StringBuilder();
       Enum<E>[] results = statisticsHolder.getResultsReported();
+      // the operations measured from their intended start already account for the coordinated omission
+      boolean corrected = statisticsHolder.isMeasuredFromIntendedStart();
 
       for (Enum<E> result : results) {
-        Histogram histogram = statisticsHolder.fetchHistogram(result);
-        try {
-          histogram = histogram.copyCorrectedForCoordinatedOmission(1000000L);
-        } catch (Throwable t) {
-          // eat it. Sometimes, some places, it throws an exception here.
-        }
-        String percentilesFilename = this.basedir + File.separatorChar + getPercentilesFilename(result.name());
-        PrintStream stream = new PrintStream(new File(percentilesFilename));
-        try {
-          histogram.outputPercentileDistribution(stream, 5, 1000000d, true);
-        } catch (Exception e) {
-          e.printStackTrace();
-        }
-        stream.close();
-
-        String mean = "NaN";
-        try {
-          mean = "" + histogram.getMean();
-        } catch (Exception e) {
-          e.printStackTrace();
+        logPercentiles(sb, statisticsHolder.fetchHistogram(result), result.name(), result.name(), corrected);
+      }
+      for (String name : statisticsHolder.getStatisticsKeys()) {
+        for (Enum<E> result : results) {
+          Histogram histogram = statisticsHolder.fetchHistogram(name, result);
+          if (histogram != null && histogram.getTotalCount() > 0) {
+            logPercentiles(sb, histogram, name + "-" + result.name(), name + " - " + result.name(), corrected);
+          }
         }
-
-        String maxValue = "NaN";
-        try {
-          maxValue = "" + histogram.getMaxValue();
-        } catch (Exception e) {
-          e.printStackTrace();
+      }
+      List<StatisticsPhase<E>> phases = statisticsHolder.getPhases();
+      for (int i = 0; i < phases.size(); i++) {
+        StatisticsPhase<E> phase = phases.get(i);
+        for (Enum<E> result : results) {
+          if (phase.getCount(result) > 0) {
+            logPercentiles(sb, phase.fetchHistogram(result), "phase-" + (i + 1) + "-" + result.name(),
+                phase.getName() + " - " + result.name(), corrected);
+          }
         }
-
-        sb.append("reportPercentiles('")
-            .append(getPercentilesFilename(result.name()).substring(0, getPercentilesFilename(result.name()).length() - 4))
-            .append("', 'Response Time percentiles for ").append(result.name())
-            .append("', '" + mean + "', '" + maxValue)
-            .append("');").append(CRLF);
       }
+      logPhases(phases, results);
       compressionUtils.substituteInFile(reportFile, "//!summary!", sb);
 
     } catch (Exception e) {
@@ -176,6 +168,67 @@ public class HtmlReporter<E extends Enum<E>> extends FileReporter<E> {
     //TODO :  put onglets
   }
 
+  private void logPhases(final List<StatisticsPhase<E>> phases, final Enum<E>[] results) throws FileNotFoundException {
+    if (phases.isEmpty()) {
+      return;
+    }
+    PrintStream stream = new PrintStream(new File(this.basedir + File.separatorChar + this.phasesFile));
+    stream.println("phase,name,start,end,result,count,tps,mean (ms),p50 (ms),p99 (ms),max (ms),outcome");
+    for (int i = 0; i < phases.size(); i++) {
+      StatisticsPhase<E> phase = phases.get(i);
+      for (Enum<E> result : results) {
+        Histogram histogram = phase.fetchHistogram(result);
+        stream.println(String.format(Locale.ROOT, "%d,\"%s\",%s,%s,%s,%d,%d,%.4f,%.4f,%.4f,%.4f,\"%s\"", i + 1,
+            phase.getName().replace("\"", "\"\""), formatTimestampInNano(phase.getStartTime()),
+            formatTimestampInNano(phase.isRunning() ? System.currentTimeMillis() : phase.getEndTime()), result.name(),
+            phase.getCount(result), phase.getTps(result), histogram.getMean() / 1000000d,
+            histogram.getValueAtPercentile(50.0) / 1000000d, histogram.getValueAtPercentile(99.0) / 1000000d,
+            histogram.getMaxValue() / 1000000d,
+            phase.getOutcome() == null ? "" : phase.getOutcome().replace("\"", "\"\"")));
+      }
+    }
+    stream.close();
+  }
+
+  private void logPercentiles(StringBuilder sb, Histogram histogram, String key, String title, boolean corrected)
+      throws FileNotFoundException {
+    if (!corrected) {
+      try {
+        histogram = histogram.copyCorrectedForCoordinatedOmission(1000000L);
+      } catch (Throwable t) {
+        // eat it. Sometimes, some places, it throws an exception here.
+      }
+    }
+    String percentilesFilename = this.basedir + File.separatorChar + getPercentilesFilename(key);
+    PrintStream stream = new PrintStream(new File(percentilesFilename));
+    try {
+      histogram.outputPercentileDistribution(stream, 5, 1000000d, true);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+    stream.close();
+
+    String mean = "NaN";
+    try {
+      mean = "" + histogram.getMean();
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+
+    String maxValue = "NaN";
+    try {
+      maxValue = "" + histogram.getMaxValue();
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+
+    sb.append("reportPercentiles('")
+        .append(getPercentilesFilename(key).substring(0, getPercentilesFilename(key).length() - 4))
+        .append("', 'Response Time percentiles for ").append(title)
+        .append("', '" + mean + "', '" + maxValue)
+        .append("');").append(CRLF);
+  }
+
   private void logPeriodicStats(String name, StatisticsPeek<E> statisticsPeek, final Enum<E>[] resultsReported) throws IOException {
     String avgFilename = this.basedir + File.separatorChar + getAverageLatencyFilename(name);
     String tpsFilename = this.basedir + File.separatorChar + getTpsFilename(name);
@@ -30,6 +30,10 @@ public class PeriodicReporter<E extends Enum<E>> implements Reporter<E> {
     reporter.summarize(statisticsHolder);
   }
 
+  public Reporter<E> getReporter() {
+    return reporter;
+  }
+
   public long getReportingIntervalInMillis() {
     return reportingIntervalInMillis;
   }
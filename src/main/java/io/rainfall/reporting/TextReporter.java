@@ -19,6 +19,7 @@ package io.rainfall.reporting;
 import io.rainfall.statistics.StatisticsHolder;
 import io.rainfall.statistics.StatisticsPeek;
 import io.rainfall.statistics.StatisticsPeekHolder;
+import io.rainfall.statistics.StatisticsPhase;
 import org.HdrHistogram.Histogram;
 
 import java.text.NumberFormat;
@@ -76,8 +77,22 @@ public class TextReporter<E extends Enum<E>> implements Reporter<E> {
       logPeriodicStats(sb, key, statisticsPeeks, statisticsHolder.getResultsReported());
     }
 
-    if (totalStatisticsPeeks != null)
+    if (totalStatisticsPeeks != null) {
       logPeriodicStats(sb, "ALL", totalStatisticsPeeks, statisticsHolder.getResultsReported());
+      logLoadStats(sb, totalStatisticsPeeks.getPeriodicLateCount(), totalStatisticsPeeks.getPeriodicDroppedCount(),
+          totalStatisticsPeeks.getPeriodicIntendedCount(), totalStatisticsPeeks.getPeriodicIntendedTps(),
+          totalStatisticsPeeks.getSumOfPeriodicTps());
+      logThrottleStats(sb, totalStatisticsPeeks.getPeriodicRefusedCount(),
+          totalStatisticsPeeks.getPeriodicThrottledTimeInNs());
+      logTimeoutStats(sb, totalStatisticsPeeks.getPeriodicTimeoutCount(),
+          totalStatisticsPeeks.getPeriodicMaxTimeoutElapsedInMs());
+      logArrivalStats(sb, totalStatisticsPeeks.getPeriodicArrivalCov());
+      logLagStats(sb, totalStatisticsPeeks.getPeriodicLagCount(), totalStatisticsPeeks.getPeriodicAverageLagInMs(),
+          totalStatisticsPeeks.getPeriodicMaxLagInMs());
+      if (totalStatisticsPeeks.getActiveWorkers() > 0) {
+        sb.append("Active workers: ").append(nf.format(totalStatisticsPeeks.getActiveWorkers())).append(CRLF);
+      }
+    }
 
     sb.append("==================================================== CUMULATIVE =========================================")
         .append(CRLF);
@@ -92,8 +107,19 @@ public class TextReporter<E extends Enum<E>> implements Reporter<E> {
       logCumulativeStats(sb, key, statisticsPeeks, statisticsHolder.getResultsReported());
     }
 
-    if (totalStatisticsPeeks != null)
+    if (totalStatisticsPeeks != null) {
       logCumulativeStats(sb, "ALL", totalStatisticsPeeks, statisticsHolder.getResultsReported());
+      logLoadStats(sb, totalStatisticsPeeks.getCumulativeLateCount(), totalStatisticsPeeks.getCumulativeDroppedCount(),
+          totalStatisticsPeeks.getCumulativeIntendedCount(), totalStatisticsPeeks.getCumulativeIntendedTps(),
+          totalStatisticsPeeks.getSumOfCumulativeTps());
+      logThrottleStats(sb, totalStatisticsPeeks.getCumulativeRefusedCount(),
+          totalStatisticsPeeks.getCumulativeThrottledTimeInNs());
+      logTimeoutStats(sb, totalStatisticsPeeks.getCumulativeTimeoutCount(),
+          totalStatisticsPeeks.getCumulativeMaxTimeoutElapsedInMs());
+      logArrivalStats(sb, totalStatisticsPeeks.getCumulativeArrivalCov());
+      logLagStats(sb, totalStatisticsPeeks.getCumulativeLagCount(), totalStatisticsPeeks.getCumulativeAverageLagInMs(),
+          totalStatisticsPeeks.getCumulativeMaxLagInMs());
+    }
 
     System.out.println(sb.toString());
   }
@@ -106,16 +132,63 @@ public class TextReporter<E extends Enum<E>> implements Reporter<E> {
       System.out.println("Percentiles distribution for result : " + result);
       try {
         Histogram histogram = statisticsHolder.fetchHistogram(result);
-        try {
-          histogram = histogram.copyCorrectedForCoordinatedOmission(1000L);
-        } catch (Throwable t) {
-          // again, inexplicably needed
+        // the operations measured from their intended start already account for the coordinated omission
+        if (!statisticsHolder.isMeasuredFromIntendedStart()) {
+          try {
+            histogram = histogram.copyCorrectedForCoordinatedOmission(1000L);
+          } catch (Throwable t) {
+            // again, inexplicably needed
+          }
         }
         histogram.outputPercentileDistribution(System.out, 5, 1000000d, false);
       } catch (Exception e) {
         e.printStackTrace();
       }
     }
+    for (StatisticsPhase<E> phase : statisticsHolder.getPhases()) {
+      if (phase.getOutcome() != null) {
+        System.out.println("Phase " + phase.getName() + " : " + phase.getOutcome());
+      }
+    }
+  }
+
+  private void logLoadStats(StringBuilder sb, long lateCount, long droppedCount, long intendedCount, long intendedTps,
+                            long achievedTps) {
+    if (intendedCount > 0L) {
+      sb.append("Intended TPS: ").append(nf.format(intendedTps))
+          .append(" - Achieved TPS: ").append(nf.format(achievedTps)).append(CRLF);
+    }
+    if (lateCount > 0L || droppedCount > 0L) {
+      sb.append("Late operations: ").append(nf.format(lateCount))
+          .append(" - Dropped operations: ").append(nf.format(droppedCount)).append(CRLF);
+    }
+  }
+
+  private void logThrottleStats(StringBuilder sb, long refusedCount, long throttledTimeInNs) {
+    if (refusedCount > 0L || throttledTimeInNs > 0L) {
+      sb.append("Refused permits: ").append(nf.format(refusedCount))
+          .append(" - Throttled time: ").append(nf.format(throttledTimeInNs / 1_000_000L)).append(" ms").append(CRLF);
+    }
+  }
+
+  private void logArrivalStats(StringBuilder sb, double arrivalCov) {
+    if (!Double.isNaN(arrivalCov)) {
+      sb.append("Inter-arrival times CoV: ").append(String.format("%.2f", arrivalCov)).append(CRLF);
+    }
+  }
+
+  private void logTimeoutStats(StringBuilder sb, long timeoutCount, double maxElapsedInMs) {
+    if (timeoutCount > 0L) {
+      sb.append("Timed out operations: ").append(nf.format(timeoutCount))
+          .append(" - Longest running: ").append(nf.format(maxElapsedInMs)).append(" ms").append(CRLF);
+    }
+  }
+
+  private void logLagStats(StringBuilder sb, long lagCount, double averageLagInMs, double maxLagInMs) {
+    if (lagCount > 0L) {
+      sb.append("Lag behind the trace: ").append(nf.format(averageLagInMs))
+          .append(" ms average - ").append(nf.format(maxLagInMs)).append(" ms max").append(CRLF);
+    }
   }
 
   private void logCumulativeStats(StringBuilder sb, String name, StatisticsPeek<E> peek, final Enum<E>[] resultsReported) {
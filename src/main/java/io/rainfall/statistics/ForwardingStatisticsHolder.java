@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.statistics;
+
+import io.rainfall.statistics.collector.StatisticsCollector;
+import org.HdrHistogram.Histogram;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link StatisticsHolder} forwarding everything to another one, to be extended by the holders which only change
+ * how some of the operations are recorded.
+ * <p>
+ * The snapshot is not forwarded. A recorder registered with this holder wraps the recorder registered with the holder it
+ * forwards to, so that the operation name is resolved once along the chain of holders, and records through
+ * {@link #record(StatisticsRecorder, long, Enum)} and {@link #recordBatch(StatisticsRecorder, long, Enum, int)}.
+ *
+ * @author Aurelien Broszniowski
+ */
+public abstract class ForwardingStatisticsHolder<E extends Enum<E>> extends StatisticsHolder<E> {
+
+  /**
+   * @return the holder everything is forwarded to
+   */
+  protected abstract StatisticsHolder<E> delegate();
+
+  @Override
+  public StatisticsHolder<E> shared() {
+    return delegate().shared();
+  }
+
+  @Override
+  public void record(final String name, final long responseTimeInNs, final Enum result) {
+    delegate().record(name, responseTimeInNs, result);
+  }
+
+  @Override
+  public void recordBatch(final String name, final long responseTimeInNs, final Enum result, final int batchSize) {
+    delegate().recordBatch(name, responseTimeInNs, result, batchSize);
+  }
+
+  @Override
+  public StatisticsRecorder register(final String name) {
+    final StatisticsRecorder recorder = delegate().register(name);
+    return new StatisticsRecorder() {
+      @Override
+      public String getName() {
+        return name;
+      }
+
+      @Override
+      public void record(final long responseTimeInNs, final Enum result) {
+        ForwardingStatisticsHolder.this.record(recorder, responseTimeInNs, result);
+      }
+
+      @Override
+      public void recordBatch(final long responseTimeInNs, final Enum result, final int batchSize) {
+        ForwardingStatisticsHolder.this.recordBatch(recorder, responseTimeInNs, result, batchSize);
+      }
+    };
+  }
+
+  /**
+   * Records through a recorder registered with this holder.
+   *
+   * @param recorder the recorder of the operation name, registered with the holder everything is forwarded to
+   */
+  protected void record(final StatisticsRecorder recorder, final long responseTimeInNs, final Enum result) {
+    recorder.record(responseTimeInNs, result);
+  }
+
+  /**
+   * Records a batch through a recorder registered with this holder.
+   *
+   * @param recorder the recorder of the operation name, registered with the holder everything is forwarded to
+   */
+  protected void recordBatch(final StatisticsRecorder recorder, final long responseTimeInNs, final Enum result,
+                             final int batchSize) {
+    recorder.recordBatch(responseTimeInNs, result, batchSize);
+  }
+
+  @Override
+  public Enum<E>[] getResultsReported() {
+    return delegate().getResultsReported();
+  }
+
+  @Override
+  public Set<String> getStatisticsKeys() {
+    return delegate().getStatisticsKeys();
+  }
+
+  @Override
+  public Statistics<E> getStatistics(final String name) {
+    return delegate().getStatistics(name);
+  }
+
+  @Override
+  public Set<StatisticsCollector> getStatisticsCollectors() {
+    return delegate().getStatisticsCollectors();
+  }
+
+  @Override
+  public Histogram fetchHistogram(final Enum<E> result) {
+    return delegate().fetchHistogram(result);
+  }
+
+  @Override
+  public Histogram fetchHistogram(final String name, final Enum<E> result) {
+    return delegate().fetchHistogram(name, result);
+  }
+
+  @Override
+  public void reset() {
+    delegate().reset();
+  }
+
+  @Override
+  public long getCurrentTps(final Enum result) {
+    return delegate().getCurrentTps(result);
+  }
+
+  @Override
+  public void increaseAssertionsErrorsCount(final String name) {
+    delegate().increaseAssertionsErrorsCount(name);
+  }
+
+  @Override
+  public void measureFromIntendedStart() {
+    delegate().measureFromIntendedStart();
+  }
+
+  @Override
+  public boolean isMeasuredFromIntendedStart() {
+    return delegate().isMeasuredFromIntendedStart();
+  }
+
+  @Override
+  public void increaseLateCount() {
+    delegate().increaseLateCount();
+  }
+
+  @Override
+  public void increaseDroppedCount(final long count) {
+    delegate().increaseDroppedCount(count);
+  }
+
+  @Override
+  public void offerLoad(final OfferedLoad offeredLoad) {
+    delegate().offerLoad(offeredLoad);
+  }
+
+  @Override
+  public void recordThrottle(final long waitInNs) {
+    delegate().recordThrottle(waitInNs);
+  }
+
+  @Override
+  public void increaseRefusedCount() {
+    delegate().increaseRefusedCount();
+  }
+
+  @Override
+  public void recordTimeout(final long elapsedInNs) {
+    delegate().recordTimeout(elapsedInNs);
+  }
+
+  @Override
+  public void recordArrival(final long intervalInNs) {
+    delegate().recordArrival(intervalInNs);
+  }
+
+  @Override
+  public void recordLag(final long lagInNs) {
+    delegate().recordLag(lagInNs);
+  }
+
+  @Override
+  public void changeActiveWorkers(final int delta) {
+    delegate().changeActiveWorkers(delta);
+  }
+
+  @Override
+  public void beginPhase(final String name) {
+    delegate().beginPhase(name);
+  }
+
+  @Override
+  public void replacePhase(final String name) {
+    delegate().replacePhase(name);
+  }
+
+  @Override
+  public void setPhaseOutcome(final String outcome) {
+    delegate().setPhaseOutcome(outcome);
+  }
+
+  @Override
+  public String getPhaseName() {
+    return delegate().getPhaseName();
+  }
+
+  @Override
+  public List<StatisticsPhase<E>> getPhases() {
+    return delegate().getPhases();
+  }
+
+  @Override
+  public void pause() {
+    delegate().pause();
+  }
+
+  @Override
+  public void resume() {
+    delegate().resume();
+  }
+
+  @Override
+  public long getTimeInNs() {
+    return delegate().getTimeInNs();
+  }
+
+  @Override
+  public long getStartTime() {
+    return delegate().getStartTime();
+  }
+}
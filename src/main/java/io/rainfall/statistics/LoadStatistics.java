@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.statistics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the statistics of the load offered by the executions, as opposed to the statistics measured by the operations.
+ * <p>
+ * Open-model executions schedule operations at an intended start time: an operation that starts more than one
+ * interval after its intended start time is counted as late, and operations that are skipped because the backlog
+ * limit was reached are counted as dropped. The amount of operations the executions intended to start is computed from
+ * their {@link OfferedLoad}. The amount of active workers is kept as a gauge, for the closed-model executions whose
+ * concurrency changes over time. The executions replaying a trace record how far behind the trace clock their
+ * operations start, and the open-model executions record their realized inter-arrival times, whose coefficient of
+ * variation tells how bursty the offered load actually was. The operations capped by a token bucket account the time
+ * they waited for their permit, and the permits refused. The operations still running after their timeout are counted
+ * with the longest time they had been running for.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class LoadStatistics {
+
+  private final LongAdder lateCounter = new LongAdder();
+  private final LongAdder droppedCounter = new LongAdder();
+  private final AtomicInteger activeWorkers = new AtomicInteger();
+  private long lastDrainedLateCount = 0L;
+  private long lastDrainedDroppedCount = 0L;
+  private final LongAdder lagCounter = new LongAdder();
+  private final LongAdder lagTotalInNs = new LongAdder();
+  private final AtomicLong periodicMaxLagInNs = new AtomicLong();
+  private long cumulativeMaxLagInNs = 0L;
+  private long lastDrainedLagCount = 0L;
+  private long lastDrainedLagTotalInNs = 0L;
+  private final LongAdder refusedCounter = new LongAdder();
+  private final LongAdder throttledTimeInNs = new LongAdder();
+  private long lastDrainedRefusedCount = 0L;
+  private long lastDrainedThrottledTimeInNs = 0L;
+  private final LongAdder timeoutCounter = new LongAdder();
+  private final AtomicLong periodicMaxTimeoutElapsedInNs = new AtomicLong();
+  private long cumulativeMaxTimeoutElapsedInNs = 0L;
+  private long lastDrainedTimeoutCount = 0L;
+  private final LongAdder arrivalCounter = new LongAdder();
+  private final DoubleAdder arrivalIntervalSum = new DoubleAdder();
+  private final DoubleAdder arrivalIntervalSquareSum = new DoubleAdder();
+  private long lastDrainedArrivalCount = 0L;
+  private double lastDrainedArrivalIntervalSum = 0.0d;
+  private double lastDrainedArrivalIntervalSquareSum = 0.0d;
+  private OfferedLoad offeredLoad = null;
+  private double intendedCountBase = 0.0d;
+  private long lastDrainedIntendedCount = 0L;
+  private long startTimeInNs = System.nanoTime();
+  private long lastPeekTimeInNs = startTimeInNs;
+
+  public void increaseLateCount() {
+    lateCounter.increment();
+  }
+
+  public void increaseDroppedCount(long count) {
+    droppedCounter.add(count);
+  }
+
+  public void recordThrottle(long waitInNs) {
+    throttledTimeInNs.add(waitInNs);
+  }
+
+  public void increaseRefusedCount() {
+    refusedCounter.increment();
+  }
+
+  public void recordTimeout(long elapsedInNs) {
+    timeoutCounter.increment();
+    long max;
+    while (elapsedInNs > (max = periodicMaxTimeoutElapsedInNs.get())
+           && !periodicMaxTimeoutElapsedInNs.compareAndSet(max, elapsedInNs)) {
+      // retry
+    }
+  }
+
+  public void recordArrival(long intervalInNs) {
+    arrivalCounter.increment();
+    arrivalIntervalSum.add(intervalInNs);
+    arrivalIntervalSquareSum.add((double)intervalInNs * intervalInNs);
+  }
+
+  public void recordLag(long lagInNs) {
+    lagCounter.increment();
+    lagTotalInNs.add(lagInNs);
+    long max;
+    while (lagInNs > (max = periodicMaxLagInNs.get()) && !periodicMaxLagInNs.compareAndSet(max, lagInNs)) {
+      // retry
+    }
+  }
+
+  /**
+   * @return the amount of active workers after the change
+   */
+  public int changeActiveWorkers(int delta) {
+    return activeWorkers.addAndGet(delta);
+  }
+
+  /**
+   * Sets the load offered by the current execution, the load offered by the previous one is kept in the cumulative
+   * intended count.
+   */
+  public synchronized void offerLoad(OfferedLoad offeredLoad) {
+    intendedCountBase = intendedCount(System.nanoTime());
+    this.offeredLoad = offeredLoad;
+  }
+
+  private double intendedCount(long timeInNs) {
+    return intendedCountBase + (offeredLoad == null ? 0.0d : offeredLoad.getIntendedCount(timeInNs));
+  }
+
+  synchronized void peek(StatisticsPeek<?> statisticsPeek) {
+    long now = System.nanoTime();
+    long cumulativeLateCount = lateCounter.sum();
+    long cumulativeDroppedCount = droppedCounter.sum();
+    long cumulativeIntendedCount = Math.round(intendedCount(now));
+    statisticsPeek.setLoadValues(cumulativeLateCount - lastDrainedLateCount, cumulativeDroppedCount - lastDrainedDroppedCount,
+        cumulativeLateCount, cumulativeDroppedCount);
+    statisticsPeek.setIntendedValues(now - lastPeekTimeInNs, cumulativeIntendedCount - lastDrainedIntendedCount,
+        now - startTimeInNs, cumulativeIntendedCount);
+    statisticsPeek.setActiveWorkers(activeWorkers.get());
+    long cumulativeLagCount = lagCounter.sum();
+    long cumulativeLagTotalInNs = lagTotalInNs.sum();
+    long periodicMaxLag = periodicMaxLagInNs.getAndSet(0L);
+    cumulativeMaxLagInNs = Math.max(cumulativeMaxLagInNs, periodicMaxLag);
+    statisticsPeek.setLagValues(cumulativeLagCount - lastDrainedLagCount,
+        cumulativeLagTotalInNs - lastDrainedLagTotalInNs, periodicMaxLag,
+        cumulativeLagCount, cumulativeLagTotalInNs, cumulativeMaxLagInNs);
+    long cumulativeRefusedCount = refusedCounter.sum();
+    long cumulativeThrottledTimeInNs = throttledTimeInNs.sum();
+    statisticsPeek.setThrottleValues(cumulativeRefusedCount - lastDrainedRefusedCount,
+        cumulativeThrottledTimeInNs - lastDrainedThrottledTimeInNs, cumulativeRefusedCount, cumulativeThrottledTimeInNs);
+    lastDrainedRefusedCount = cumulativeRefusedCount;
+    lastDrainedThrottledTimeInNs = cumulativeThrottledTimeInNs;
+    long cumulativeTimeoutCount = timeoutCounter.sum();
+    long periodicMaxTimeoutElapsed = periodicMaxTimeoutElapsedInNs.getAndSet(0L);
+    cumulativeMaxTimeoutElapsedInNs = Math.max(cumulativeMaxTimeoutElapsedInNs, periodicMaxTimeoutElapsed);
+    statisticsPeek.setTimeoutValues(cumulativeTimeoutCount - lastDrainedTimeoutCount, periodicMaxTimeoutElapsed,
+        cumulativeTimeoutCount, cumulativeMaxTimeoutElapsedInNs);
+    lastDrainedTimeoutCount = cumulativeTimeoutCount;
+    long cumulativeArrivalCount = arrivalCounter.sum();
+    double cumulativeArrivalIntervalSum = arrivalIntervalSum.sum();
+    double cumulativeArrivalIntervalSquareSum = arrivalIntervalSquareSum.sum();
+    statisticsPeek.setArrivalValues(
+        coefficientOfVariation(cumulativeArrivalCount - lastDrainedArrivalCount,
+            cumulativeArrivalIntervalSum - lastDrainedArrivalIntervalSum,
+            cumulativeArrivalIntervalSquareSum - lastDrainedArrivalIntervalSquareSum),
+        coefficientOfVariation(cumulativeArrivalCount, cumulativeArrivalIntervalSum,
+            cumulativeArrivalIntervalSquareSum));
+    lastDrainedArrivalCount = cumulativeArrivalCount;
+    lastDrainedArrivalIntervalSum = cumulativeArrivalIntervalSum;
+    lastDrainedArrivalIntervalSquareSum = cumulativeArrivalIntervalSquareSum;
+    lastDrainedLagCount = cumulativeLagCount;
+    lastDrainedLagTotalInNs = cumulativeLagTotalInNs;
+    lastDrainedLateCount = cumulativeLateCount;
+    lastDrainedDroppedCount = cumulativeDroppedCount;
+    lastDrainedIntendedCount = cumulativeIntendedCount;
+    lastPeekTimeInNs = now;
+  }
+
+  /**
+   * @return the standard deviation of the intervals divided by their mean, or NaN without at least two intervals
+   */
+  static double coefficientOfVariation(long count, double sum, double squareSum) {
+    if (count < 2L || sum <= 0.0d) {
+      return Double.NaN;
+    }
+    double mean = sum / count;
+    double variance = Math.max(0.0d, squareSum / count - mean * mean);
+    return Math.sqrt(variance) / mean;
+  }
+
+  public synchronized void reset() {
+    long now = System.nanoTime();
+    lateCounter.reset();
+    droppedCounter.reset();
+    lastDrainedLateCount = 0L;
+    lastDrainedDroppedCount = 0L;
+    lagCounter.reset();
+    lagTotalInNs.reset();
+    periodicMaxLagInNs.set(0L);
+    cumulativeMaxLagInNs = 0L;
+    lastDrainedLagCount = 0L;
+    lastDrainedLagTotalInNs = 0L;
+    refusedCounter.reset();
+    throttledTimeInNs.reset();
+    lastDrainedRefusedCount = 0L;
+    lastDrainedThrottledTimeInNs = 0L;
+    timeoutCounter.reset();
+    periodicMaxTimeoutElapsedInNs.set(0L);
+    cumulativeMaxTimeoutElapsedInNs = 0L;
+    lastDrainedTimeoutCount = 0L;
+    arrivalCounter.reset();
+    arrivalIntervalSum.reset();
+    arrivalIntervalSquareSum.reset();
+    lastDrainedArrivalCount = 0L;
+    lastDrainedArrivalIntervalSum = 0.0d;
+    lastDrainedArrivalIntervalSquareSum = 0.0d;
+    intendedCountBase -= intendedCount(now);
+    lastDrainedIntendedCount = 0L;
+    startTimeInNs = now;
+    lastPeekTimeInNs = now;
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.statistics;
+
+/**
+ * The load an open-model execution intends to offer over time, so that the intended rate can be reported next to the
+ * achieved rate, whether the system under test keeps up or not.
+ *
+ * @author Aurelien Broszniowski
+ */
+public interface OfferedLoad {
+
+  /**
+   * @param timeInNs a time, in the {@link System#nanoTime()} time base
+   * @return the amount of operations intended to be started since the beginning of the execution, up to the time
+   */
+  double getIntendedCount(long timeInNs);
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2014-2022 Aurélien Broszniowski
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,54 +17,60 @@
 package io.rainfall.statistics;
 
 import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
 
-import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * This is a thin facade on the Histogram class's recording functions.
- * Per thread Histograms are created via a factory method. Other than the 3 record...
- * methods, the reset(), marks the per thread histograms and resets the values,
- * as dead, and fetchHistogram() method returns an aggregate Histogram of
- * all the active histograms.
+ * Values are recorded into a fixed number of stripes of {@link Recorder}s, the stripe being chosen by the id of the
+ * recording thread, so the memory used doesn't depend on the number of threads, and recording never blocks.
+ * fetchHistogram() swaps the interval histograms of all the stripes and accumulates them into an aggregate Histogram
+ * (created via a factory method) holding all the values recorded since the last reset().
  *
  * @author cschanck
  * @author Aurelien Broszniowski
  **/
 public class RainfallHistogramSink<E extends Enum<E>> {
 
-  private final Factory factory;
-  private final ConcurrentLinkedQueue<HistogramHolder> actives = new ConcurrentLinkedQueue<HistogramHolder>();
-  private final ThreadLocal<HistogramHolder> context = new ThreadLocal<HistogramHolder>();
-  private final ConcurrentHashMap<Enum, Histogram> aggregateHistograms;
-
-  private static class HistogramHolder {
-    private volatile boolean dead = false;
-    private ConcurrentHashMap<Enum, Histogram> histogram;
-
-    public HistogramHolder(ConcurrentHashMap<Enum, Histogram> histogram) {
-      this.setHistogram(histogram);
-    }
+  public static final int DEFAULT_STRIPES = defaultStripes();
 
-    public boolean isDead() {
-      return dead;
-    }
-
-    public void setDead(boolean dead) {
-      this.dead = dead;
+  private final ConcurrentHashMap<Enum, Histogram> aggregateHistograms;
+  private final ResultStripes[] resultStripes;
+  private final int stripeMask;
+
+  private static class ResultStripes {
+    private final Recorder[] recorders;
+    private final Histogram[] intervalHistograms;
+
+    ResultStripes(int stripes, int numberOfSignificantValueDigits) {
+      this.recorders = new Recorder[stripes];
+      this.intervalHistograms = new Histogram[stripes];
+      for (int i = 0; i < stripes; i++) {
+        recorders[i] = new Recorder(numberOfSignificantValueDigits);
+      }
     }
 
-    public Histogram getHistogram(Enum result) {
-      return histogram.get(result);
+    void drainInto(Histogram aggregate) {
+      for (int i = 0; i < recorders.length; i++) {
+        intervalHistograms[i] = recorders[i].getIntervalHistogram(intervalHistograms[i]);
+        aggregate.add(intervalHistograms[i]);
+      }
     }
 
-    public Collection<Histogram> getHistograms() {
-      return histogram.values();
+    void drainInto(Histogram aggregate, Histogram interval) {
+      for (int i = 0; i < recorders.length; i++) {
+        intervalHistograms[i] = recorders[i].getIntervalHistogram(intervalHistograms[i]);
+        aggregate.add(intervalHistograms[i]);
+        interval.add(intervalHistograms[i]);
+      }
     }
 
-    public void setHistogram(ConcurrentHashMap<Enum, Histogram> histogram) {
-      this.histogram = histogram;
+    void reset() {
+      for (Recorder recorder : recorders) {
+        recorder.reset();
+      }
     }
   }
 
@@ -73,63 +79,97 @@ public class RainfallHistogramSink<E extends Enum<E>> {
   }
 
   public RainfallHistogramSink(Factory factory) {
-    this.factory = factory;
+    this(factory, DEFAULT_STRIPES);
+  }
+
+  /**
+   * @param factory creates the aggregate Histograms, one per result
+   * @param stripes number of stripes of recorders, rounded up to a power of two
+   */
+  public RainfallHistogramSink(Factory factory, int stripes) {
+    if (stripes <= 0) {
+      throw new IllegalArgumentException("The number of histogram stripes must be positive.");
+    }
+    int stripesCount = Integer.highestOneBit(stripes);
+    if (stripesCount < stripes) {
+      stripesCount <<= 1;
+    }
+    this.stripeMask = stripesCount - 1;
     this.aggregateHistograms = factory.createHistograms();
+
+    int maxOrdinal = -1;
+    for (Enum result : aggregateHistograms.keySet()) {
+      maxOrdinal = Math.max(maxOrdinal, result.ordinal());
+    }
+    this.resultStripes = new ResultStripes[maxOrdinal + 1];
+    for (Map.Entry<Enum, Histogram> entry : aggregateHistograms.entrySet()) {
+      resultStripes[entry.getKey().ordinal()] = new ResultStripes(stripesCount,
+          entry.getValue().getNumberOfSignificantValueDigits());
+    }
   }
 
-  private HistogramHolder perThread() {
-    HistogramHolder hh = context.get();
-    if (hh == null || hh.isDead()) {
-      hh = new HistogramHolder(factory.createHistograms());
-      actives.add(hh);
-      context.set(hh);
+  private Recorder recorder(Enum result) {
+    int ordinal = result.ordinal();
+    ResultStripes stripes = ordinal < resultStripes.length ? resultStripes[ordinal] : null;
+    if (stripes == null) {
+      throw new IllegalArgumentException("No histogram is defined for the result " + result);
     }
-    return hh;
+    return stripes.recorders[probe() & stripeMask];
+  }
+
+  private static int probe() {
+    long id = Thread.currentThread().getId();
+    return (int)((id * 0x9E3779B97F4A7C15L) >>> 32);
   }
 
   public void recordValueWithExpectedInterval(Enum<E> result, long value,
                                               long expectedIntervalBetweenValueSamples) {
-    perThread().getHistogram(result).recordValueWithExpectedInterval(value, expectedIntervalBetweenValueSamples);
+    recorder(result).recordValueWithExpectedInterval(value, expectedIntervalBetweenValueSamples);
   }
 
   public void recordValueWithCount(Enum<E> result, long value, long count) {
-    perThread().getHistogram(result).recordValueWithCount(value, count);
+    recorder(result).recordValueWithCount(value, count);
   }
 
   public void recordValue(Enum result, long value) {
-    perThread().getHistogram(result).recordValue(value);
+    recorder(result).recordValue(value);
+  }
+
+  public int getStripesCount() {
+    return stripeMask + 1;
   }
 
   public synchronized Histogram fetchHistogram(final Enum<E> result) {
     Histogram aggregate = aggregateHistograms.get(result);
-    boolean copied = false;
-    for (HistogramHolder hh : actives) {
-      Histogram histogram = hh.getHistogram(result);
-      if (!copied) {
-        histogram.copyInto(aggregate);
-        copied = true;
-      } else {
-        aggregate.add(histogram);
-      }
-    }
-    if (!copied) {
-      aggregate.reset();
-    }
+    resultStripes[result.ordinal()].drainInto(aggregate);
     return aggregate;
   }
 
+  /**
+   * Accumulates the values recorded since the last fetch into the aggregate Histogram, like
+   * {@link #fetchHistogram(Enum)}, and returns them apart.
+   *
+   * @return a new Histogram of the values recorded since the last fetch of the result
+   */
+  public synchronized Histogram fetchIntervalHistogram(final Enum<E> result) {
+    Histogram aggregate = aggregateHistograms.get(result);
+    Histogram interval = new Histogram(aggregate.getNumberOfSignificantValueDigits());
+    resultStripes[result.ordinal()].drainInto(aggregate, interval);
+    return interval;
+  }
+
   public synchronized void reset() {
-    for (HistogramHolder hh : actives) {
-      hh.setDead(true);
-      Collection<Histogram> histograms = hh.getHistograms();
-      for (Histogram histogram : histograms) {
-        histogram.reset();
+    for (ResultStripes stripes : resultStripes) {
+      if (stripes != null) {
+        stripes.reset();
       }
     }
-    actives.clear();
     for (Histogram aggregate : aggregateHistograms.values()) {
       aggregate.reset();
     }
   }
 
+  private static int defaultStripes() {
+    return Math.min(64, Runtime.getRuntime().availableProcessors() * 2);
+  }
 }
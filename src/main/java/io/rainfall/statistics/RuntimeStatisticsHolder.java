@@ -17,11 +17,16 @@
 package io.rainfall.statistics;
 
 import io.rainfall.statistics.collector.StatisticsCollector;
+import io.rainfall.statistics.eventlog.EventLog;
 import org.HdrHistogram.ConcurrentHistogram;
 import org.HdrHistogram.Histogram;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Aurelien Broszniowski
@@ -29,21 +34,52 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class RuntimeStatisticsHolder<E extends Enum<E>> extends StatisticsHolder<E> {
 
+  private static final int NAMED_HISTOGRAM_STRIPES = 4;
+
   private final ConcurrentHashMap<String, LongAdder> assertionsErrors = new ConcurrentHashMap<String, LongAdder>();
   private final ConcurrentHashMap<String, Statistics<E>> statistics = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, StatisticsRecorder> recorders = new ConcurrentHashMap<>();
   private final RainfallHistogramSink<E> histograms;
+  private final ConcurrentHashMap<String, RainfallHistogramSink<E>> histogramsByName = new ConcurrentHashMap<>();
+  private final AtomicInteger histogramNamesCount = new AtomicInteger();
+  private final RainfallHistogramSink.Factory histogramFactory;
+  private final int histogramStripes;
+  private final int maxHistogramNames;
+  private final LoadStatistics loadStatistics = new LoadStatistics();
+  private final List<StatisticsPhase<E>> phases = new CopyOnWriteArrayList<>();
+  private volatile StatisticsPhase<E> currentPhase = null;
   private final Set<StatisticsCollector> statisticsCollectors;
   private Enum<E>[] results;
   private Enum<E>[] resultsReported;
   private volatile boolean running;
+  private long latencyOffsetInNs = 0L;
+  private volatile boolean measuredFromIntendedStart = false;
+  private EventLog eventLog = null;
   private volatile long startTime = System.currentTimeMillis();
 
   public RuntimeStatisticsHolder(final Enum<E>[] results, final Enum<E>[] resultsReported,
                                  final Set<StatisticsCollector> statisticsCollectors) {
+    this(results, resultsReported, statisticsCollectors, RainfallHistogramSink.DEFAULT_STRIPES);
+  }
+
+  public RuntimeStatisticsHolder(final Enum<E>[] results, final Enum<E>[] resultsReported,
+                                 final Set<StatisticsCollector> statisticsCollectors, final int histogramStripes) {
+    this(results, resultsReported, statisticsCollectors, histogramStripes, 0);
+  }
+
+  /**
+   * @param maxHistogramNames maximum amount of operation names having their own histograms, 0 to only keep the
+   *                          histograms per result
+   */
+  public RuntimeStatisticsHolder(final Enum<E>[] results, final Enum<E>[] resultsReported,
+                                 final Set<StatisticsCollector> statisticsCollectors, final int histogramStripes,
+                                 final int maxHistogramNames) {
     this.results = results;
     this.resultsReported = resultsReported;
     this.statisticsCollectors = statisticsCollectors;
-    this.histograms = new RainfallHistogramSink<E>(new RainfallHistogramSink.Factory() {
+    this.histogramStripes = histogramStripes;
+    this.maxHistogramNames = maxHistogramNames;
+    this.histogramFactory = new RainfallHistogramSink.Factory() {
       @Override
       public ConcurrentHashMap<Enum, Histogram> createHistograms() {
         ConcurrentHashMap<Enum, Histogram> histograms = new ConcurrentHashMap<Enum, Histogram>();
@@ -52,7 +88,8 @@ public class RuntimeStatisticsHolder<E extends Enum<E>> extends StatisticsHolder
         }
         return histograms;
       }
-    });
+    };
+    this.histograms = new RainfallHistogramSink<E>(histogramFactory, histogramStripes);
     this.running = true;
   }
 
@@ -84,12 +121,25 @@ public class RuntimeStatisticsHolder<E extends Enum<E>> extends StatisticsHolder
     return this.histograms.fetchHistogram(result);
   }
 
+  @Override
+  public Histogram fetchHistogram(final String name, final Enum<E> result) {
+    RainfallHistogramSink<E> sink = this.histogramsByName.get(name);
+    return sink == null ? null : sink.fetchHistogram(result);
+  }
+
   @Override
   public synchronized void reset() {
     for (Statistics<E> statistics : this.statistics.values()) {
       statistics.reset();
     }
     histograms.reset();
+    for (RainfallHistogramSink<E> sink : histogramsByName.values()) {
+      sink.reset();
+    }
+    loadStatistics.reset();
+    for (StatisticsPhase<E> phase : phases) {
+      phase.reset();
+    }
   }
 
   @Override
@@ -107,6 +157,215 @@ public class RuntimeStatisticsHolder<E extends Enum<E>> extends StatisticsHolder
 
   @Override
   public void record(final String name, final long responseTimeInNs, final Enum result) {
+    register(name).record(responseTimeInNs, result);
+  }
+
+  @Override
+  public void recordBatch(final String name, final long responseTimeInNs, final Enum result, final int batchSize) {
+    register(name).recordBatch(responseTimeInNs, result, batchSize);
+  }
+
+  /**
+   * Sets a constant overhead which is subtracted from every recorded response time, must be set before recording.
+   *
+   * @param latencyOffsetInNs the overhead to subtract
+   */
+  public void setLatencyOffsetInNs(final long latencyOffsetInNs) {
+    this.latencyOffsetInNs = latencyOffsetInNs;
+  }
+
+  /**
+   * Records every operation in an event log, in addition to the statistics, must be set before recording.
+   *
+   * @param eventLog the event log
+   */
+  public void setEventLog(final EventLog eventLog) {
+    this.eventLog = eventLog;
+  }
+
+  /**
+   * The recorders are cached, registering the same name returns the same {@link StatisticsRecorder}.
+   */
+  @Override
+  public StatisticsRecorder register(final String name) {
+    StatisticsRecorder recorder = this.recorders.get(name);
+    if (recorder == null) {
+      recorder = this.recorders.computeIfAbsent(name,
+          key -> new RuntimeStatisticsRecorder(name, getOrCreateStatistics(name), getOrCreateHistograms(name)));
+    }
+    return recorder;
+  }
+
+  private final class RuntimeStatisticsRecorder implements StatisticsRecorder {
+
+    private final String name;
+    private final Statistics<E> statistics;
+    private final RainfallHistogramSink<E> namedHistograms;
+    private final EventLog eventLog;
+    private final int eventLogNameId;
+
+    RuntimeStatisticsRecorder(final String name, final Statistics<E> statistics,
+                              final RainfallHistogramSink<E> namedHistograms) {
+      this.name = name;
+      this.statistics = statistics;
+      this.namedHistograms = namedHistograms;
+      this.eventLog = RuntimeStatisticsHolder.this.eventLog;
+      this.eventLogNameId = eventLog == null ? -1 : eventLog.nameId(name);
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public void record(final long responseTimeInNs, final Enum result) {
+      long latencyInNs = Math.max(0L, responseTimeInNs - latencyOffsetInNs);
+      statistics.increaseCounterAndSetLatencyInNs(result, latencyInNs);
+      histograms.recordValue(result, latencyInNs);
+      if (namedHistograms != null) {
+        namedHistograms.recordValue(result, latencyInNs);
+      }
+      StatisticsPhase<E> phase = currentPhase;
+      if (phase != null) {
+        phase.record(result, latencyInNs);
+      }
+      if (eventLog != null) {
+        eventLog.record(eventLogNameId, result, latencyInNs);
+      }
+    }
+
+    @Override
+    public void recordBatch(final long responseTimeInNs, final Enum result, final int batchSize) {
+      long latencyInNs = Math.max(0L, responseTimeInNs - latencyOffsetInNs);
+      statistics.increaseCounterAndSetLatencyInNs(result, latencyInNs, batchSize);
+      histograms.recordValueWithCount(result, latencyInNs, batchSize);
+      if (namedHistograms != null) {
+        namedHistograms.recordValueWithCount(result, latencyInNs, batchSize);
+      }
+      StatisticsPhase<E> phase = currentPhase;
+      if (phase != null) {
+        phase.recordBatch(result, latencyInNs, batchSize);
+      }
+      if (eventLog != null) {
+        eventLog.recordBatch(eventLogNameId, result, latencyInNs, batchSize);
+      }
+    }
+  }
+
+  @Override
+  public void measureFromIntendedStart() {
+    measuredFromIntendedStart = true;
+  }
+
+  @Override
+  public boolean isMeasuredFromIntendedStart() {
+    return measuredFromIntendedStart;
+  }
+
+  @Override
+  public void increaseLateCount() {
+    loadStatistics.increaseLateCount();
+  }
+
+  @Override
+  public void increaseDroppedCount(final long count) {
+    loadStatistics.increaseDroppedCount(count);
+  }
+
+  @Override
+  public void recordThrottle(final long waitInNs) {
+    loadStatistics.recordThrottle(waitInNs);
+  }
+
+  @Override
+  public void increaseRefusedCount() {
+    loadStatistics.increaseRefusedCount();
+  }
+
+  @Override
+  public void recordTimeout(final long elapsedInNs) {
+    loadStatistics.recordTimeout(elapsedInNs);
+  }
+
+  @Override
+  public void recordArrival(final long intervalInNs) {
+    loadStatistics.recordArrival(intervalInNs);
+  }
+
+  @Override
+  public void recordLag(final long lagInNs) {
+    loadStatistics.recordLag(lagInNs);
+  }
+
+  @Override
+  public void offerLoad(final OfferedLoad offeredLoad) {
+    loadStatistics.offerLoad(offeredLoad);
+  }
+
+  @Override
+  public void changeActiveWorkers(final int delta) {
+    loadStatistics.changeActiveWorkers(delta);
+  }
+
+  /**
+   * The recorders switch to the new phase on their next operation, the workers are not paused.
+   */
+  @Override
+  public synchronized void beginPhase(final String name) {
+    long now = System.currentTimeMillis();
+    // few stripes, a phase is one of many, and its histograms are collapsed once it ended
+    StatisticsPhase<E> phase = new StatisticsPhase<E>(name, results,
+        new RainfallHistogramSink<E>(histogramFactory, Math.min(histogramStripes, NAMED_HISTOGRAM_STRIPES)), now);
+    phases.add(phase);
+    StatisticsPhase<E> previousPhase = currentPhase;
+    currentPhase = phase;
+    if (previousPhase != null) {
+      previousPhase.end(now);
+    }
+  }
+
+  @Override
+  public synchronized void replacePhase(final String name) {
+    StatisticsPhase<E> previousPhase = currentPhase;
+    if (previousPhase != null && previousPhase.isEmpty()) {
+      currentPhase = null;
+      phases.remove(previousPhase);
+    }
+    beginPhase(name);
+  }
+
+  /**
+   * Ends the current phase, the operations recorded afterwards are not accounted to any phase.
+   */
+  public synchronized void endPhase() {
+    StatisticsPhase<E> previousPhase = currentPhase;
+    currentPhase = null;
+    if (previousPhase != null) {
+      previousPhase.end(System.currentTimeMillis());
+    }
+  }
+
+  @Override
+  public void setPhaseOutcome(final String outcome) {
+    StatisticsPhase<E> phase = currentPhase;
+    if (phase != null) {
+      phase.setOutcome(outcome);
+    }
+  }
+
+  @Override
+  public String getPhaseName() {
+    StatisticsPhase<E> phase = currentPhase;
+    return phase == null ? null : phase.getName();
+  }
+
+  @Override
+  public List<StatisticsPhase<E>> getPhases() {
+    return new ArrayList<StatisticsPhase<E>>(phases);
+  }
+
+  private Statistics<E> getOrCreateStatistics(final String name) {
     Statistics<E> eStatistics = this.statistics.get(name);
     if (eStatistics == null) {
       final Statistics<E> statistics = new Statistics<>(name, results);
@@ -115,8 +374,19 @@ public class RuntimeStatisticsHolder<E extends Enum<E>> extends StatisticsHolder
         eStatistics = statistics;
       }
     }
-    eStatistics.increaseCounterAndSetLatencyInNs(result, responseTimeInNs);
-    histograms.recordValue(result, responseTimeInNs);
+    return eStatistics;
+  }
+
+  private RainfallHistogramSink<E> getOrCreateHistograms(final String name) {
+    if (maxHistogramNames <= 0) {
+      return null;
+    }
+    RainfallHistogramSink<E> sink = this.histogramsByName.get(name);
+    if (sink == null && histogramNamesCount.get() < maxHistogramNames) {
+      sink = this.histogramsByName.computeIfAbsent(name, key -> histogramNamesCount.incrementAndGet() <= maxHistogramNames
+          ? new RainfallHistogramSink<E>(histogramFactory, Math.min(histogramStripes, NAMED_HISTOGRAM_STRIPES)) : null);
+    }
+    return sink;
   }
 
   @Override
@@ -140,10 +410,17 @@ public class RuntimeStatisticsHolder<E extends Enum<E>> extends StatisticsHolder
     return this.startTime;
   }
 
+  /**
+   * @param startTime start time of the run, in ms, e.g. shared by runs started together
+   */
+  public void setStartTime(final long startTime) {
+    this.startTime = startTime;
+  }
+
   public StatisticsPeekHolder<E> peek() {
     if (running) {
       return new StatisticsPeekHolder<E>(this.results, this.resultsReported, this.statistics, this.statisticsCollectors,
-          this.assertionsErrors, histograms, this.startTime);
+          this.assertionsErrors, histograms, this.histogramsByName, this.loadStatistics, getPhases(), this.startTime);
     } else {
       return null;
     }
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.statistics;
+
+/**
+ * A per worker view of a {@link StatisticsHolder}, used by the executions that schedule operations at an intended
+ * start time.
+ * <p>
+ * The operations measure their own response time, so the delay between the intended start time and the actual start
+ * time is added to every recorded response time: the recorded values are measured from the intended start time, which
+ * already accounts for the coordinated omission, so they are not corrected with an expected interval. An instance is
+ * confined to a single worker thread.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class ScheduledStatisticsHolder<E extends Enum<E>> extends ForwardingStatisticsHolder<E> {
+
+  private final StatisticsHolder<E> statisticsHolder;
+  private long startDelayInNs = 0L;
+
+  public ScheduledStatisticsHolder(final StatisticsHolder<E> statisticsHolder) {
+    this.statisticsHolder = statisticsHolder;
+    statisticsHolder.measureFromIntendedStart();
+  }
+
+  @Override
+  protected StatisticsHolder<E> delegate() {
+    return statisticsHolder;
+  }
+
+  public void schedule(final long startDelayInNs) {
+    this.startDelayInNs = Math.max(0L, startDelayInNs);
+  }
+
+  /**
+   * @return a holder adding the start delay of the current operation, which is not changed by the next operations of
+   * the worker
+   */
+  @Override
+  public StatisticsHolder<E> snapshot() {
+    ScheduledStatisticsHolder<E> snapshot = new ScheduledStatisticsHolder<E>(statisticsHolder);
+    snapshot.schedule(startDelayInNs);
+    return snapshot;
+  }
+
+  @Override
+  public void record(final String name, final long responseTimeInNs, final Enum result) {
+    statisticsHolder.record(name, responseTimeInNs + startDelayInNs, result);
+  }
+
+  @Override
+  public void recordBatch(final String name, final long responseTimeInNs, final Enum result, final int batchSize) {
+    statisticsHolder.recordBatch(name, responseTimeInNs + startDelayInNs, result, batchSize);
+  }
+
+  @Override
+  protected void record(final StatisticsRecorder recorder, final long responseTimeInNs, final Enum result) {
+    recorder.record(responseTimeInNs + startDelayInNs, result);
+  }
+
+  @Override
+  protected void recordBatch(final StatisticsRecorder recorder, final long responseTimeInNs, final Enum result,
+                             final int batchSize) {
+    recorder.recordBatch(responseTimeInNs + startDelayInNs, result, batchSize);
+  }
+}
@@ -18,7 +18,6 @@ package io.rainfall.statistics;
 
 
 import java.util.Arrays;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A {@link Statistics} instance holds the statistics of all results at a given point in time
@@ -31,14 +30,16 @@ public class Statistics<E extends Enum<E>> {
   private final String name;
   private Enum<E>[] results;
   private final int[] resultIndexesByOrdinal;
-  private final ConcurrentHashMap<Enum, LongAdder> cumulativeCounters = new ConcurrentHashMap<Enum, LongAdder>();   //TODO replace with max, average
-  private final ConcurrentHashMap<Enum, LongAdder> cumulativeTotalLatenciesInNs = new ConcurrentHashMap<Enum, LongAdder>();
+  private final StatisticsCells cumulativeCells;   //TODO replace with max, average
   private final long[] lastDrainedCounters;
   private final long[] lastDrainedTotalLatenciesInNs;
+  private final long[] lastDrainedItems;
   private final long[] scratchPeriodicCounters;
   private final long[] scratchPeriodicLatencies;
   private final long[] scratchCumulativeCounters;
   private final long[] scratchCumulativeLatencies;
+  private final long[] scratchPeriodicItems;
+  private final long[] scratchCumulativeItems;
   private volatile long periodicStartTime;
   private volatile long cumulativeStartTime;
 
@@ -52,10 +53,10 @@ public class Statistics<E extends Enum<E>> {
     this.scratchPeriodicLatencies = new long[results.length];
     this.scratchCumulativeCounters = new long[results.length];
     this.scratchCumulativeLatencies = new long[results.length];
-    for (Enum<E> result : results) {
-      this.cumulativeCounters.put(result, new LongAdder());
-      this.cumulativeTotalLatenciesInNs.put(result, new LongAdder());
-    }
+    this.lastDrainedItems = new long[results.length];
+    this.scratchPeriodicItems = new long[results.length];
+    this.scratchCumulativeItems = new long[results.length];
+    this.cumulativeCells = new StatisticsCells(results.length, StatisticsCells.DEFAULT_STRIPES);
     this.periodicStartTime = getTimeInNs();
     this.cumulativeStartTime = this.periodicStartTime;
   }
@@ -70,25 +71,37 @@ public class Statistics<E extends Enum<E>> {
     this.scratchPeriodicLatencies = new long[results.length];
     this.scratchCumulativeCounters = new long[results.length];
     this.scratchCumulativeLatencies = new long[results.length];
-    for (Enum<E> result : results) {
-      this.cumulativeCounters.put(result, new LongAdder());
-      this.cumulativeTotalLatenciesInNs.put(result, new LongAdder());
-    }
+    this.lastDrainedItems = new long[results.length];
+    this.scratchPeriodicItems = new long[results.length];
+    this.scratchCumulativeItems = new long[results.length];
+    this.cumulativeCells = new StatisticsCells(results.length, StatisticsCells.DEFAULT_STRIPES);
     this.periodicStartTime = startTime;
     this.cumulativeStartTime = this.periodicStartTime;
   }
 
-  LongAdder getCumulativeCounters(Enum result) {
-    return cumulativeCounters.get(result);
+  long getCumulativeCounters(Enum result) {
+    return cumulativeCells.sumCounters(getResultIndex(result));
   }
 
-  LongAdder getCumulativeTotalLatencies(Enum result) {
-    return cumulativeTotalLatenciesInNs.get(result);
+  long getCumulativeTotalLatencies(Enum result) {
+    return cumulativeCells.sumLatencies(getResultIndex(result));
   }
 
   public void increaseCounterAndSetLatencyInNs(final Enum result, final long latency) {
-    cumulativeCounters.get(result).increment();
-    cumulativeTotalLatenciesInNs.get(result).add(latency);
+    cumulativeCells.add(getResultIndex(result), latency);
+  }
+
+  /**
+   * Counts a batch of operations once, with its latency, and its items apart for the per-item TPS.
+   *
+   * @param itemCount amount of logical operations of the batch
+   */
+  public void increaseCounterAndSetLatencyInNs(final Enum result, final long latency, final long itemCount) {
+    cumulativeCells.add(getResultIndex(result), latency, itemCount);
+  }
+
+  long getCumulativeItems(Enum result) {
+    return cumulativeCells.sumItems(getResultIndex(result));
   }
 
   public String getName() {
@@ -106,7 +119,7 @@ public class Statistics<E extends Enum<E>> {
   public synchronized long getCurrentTps(Enum result) {
     long time = getTimeInNs() - periodicStartTime;
     int resultIndex = getResultIndex(result);
-    long currentCount = cumulativeCounters.get(result).sum() - lastDrainedCounters[resultIndex];
+    long currentCount = cumulativeCells.sumCounters(resultIndex) - lastDrainedCounters[resultIndex];
     return time < 1000000L ? currentCount : currentCount * 1000L * 1000000L / time;
   }
 
@@ -124,13 +137,15 @@ public class Statistics<E extends Enum<E>> {
     this.periodicStartTime = now;
 
     for (int i = 0; i < results.length; i++) {
-      Enum<E> key = results[i];
-      scratchCumulativeCounters[i] = this.cumulativeCounters.get(key).sum();
-      scratchCumulativeLatencies[i] = this.cumulativeTotalLatenciesInNs.get(key).sum();
+      scratchCumulativeCounters[i] = this.cumulativeCells.sumCounters(i);
+      scratchCumulativeLatencies[i] = this.cumulativeCells.sumLatencies(i);
       scratchPeriodicCounters[i] = scratchCumulativeCounters[i] - lastDrainedCounters[i];
       scratchPeriodicLatencies[i] = scratchCumulativeLatencies[i] - lastDrainedTotalLatenciesInNs[i];
       lastDrainedCounters[i] = scratchCumulativeCounters[i];
       lastDrainedTotalLatenciesInNs[i] = scratchCumulativeLatencies[i];
+      scratchCumulativeItems[i] = this.cumulativeCells.sumItems(i);
+      scratchPeriodicItems[i] = scratchCumulativeItems[i] - lastDrainedItems[i];
+      lastDrainedItems[i] = scratchCumulativeItems[i];
     }
 
     if (aggregatePeriodicCounters != null) {
@@ -142,17 +157,16 @@ public class Statistics<E extends Enum<E>> {
     StatisticsPeek<E> statisticsPeek = new StatisticsPeek<E>(this.name, this.results, timestamp, false);
     statisticsPeek.setPeriodicValues(periodicLength, this.results, scratchPeriodicCounters, scratchPeriodicLatencies);
     statisticsPeek.setCumulativeValues(cumulativeLength, this.results, scratchCumulativeCounters, scratchCumulativeLatencies);
+    statisticsPeek.setItemValues(periodicLength, scratchPeriodicItems, cumulativeLength, scratchCumulativeItems);
     return statisticsPeek;
   }
 
   public void reset() {
-    for (Enum<E> key : results) {
-      this.cumulativeCounters.get(key).reset();
-      this.cumulativeTotalLatenciesInNs.get(key).reset();
-    }
+    this.cumulativeCells.reset();
     for (int i = 0; i < results.length; i++) {
       this.lastDrainedCounters[i] = 0L;
       this.lastDrainedTotalLatenciesInNs[i] = 0L;
+      this.lastDrainedItems[i] = 0L;
     }
     this.periodicStartTime = getTimeInNs();
     this.cumulativeStartTime = this.periodicStartTime;
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.statistics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Striped counters and total latencies of the results of a {@link Statistics}, stored in a flat long[].
+ * <p>
+ * Each stripe holds a counter, a total latency and a count of the extra items of the batches per result index, and is
+ * padded from the next stripe to avoid false sharing. The stripe is chosen by the id of the recording thread, so
+ * recording never allocates nor hashes.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class StatisticsCells {
+
+  static final int DEFAULT_STRIPES = defaultStripes();
+
+  private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(long[].class);
+  private static final int PADDING = 8;
+
+  private static final int SLOTS = 3;
+
+  private final long[] cells;
+  private final int resultsCount;
+  private final int stripeLength;
+  private final int stripeMask;
+
+  StatisticsCells(int resultsCount, int stripes) {
+    int stripesCount = Integer.highestOneBit(Math.max(1, stripes));
+    if (stripesCount < stripes) {
+      stripesCount <<= 1;
+    }
+    this.resultsCount = resultsCount;
+    this.stripeMask = stripesCount - 1;
+    this.stripeLength = ((resultsCount * SLOTS + PADDING - 1) / PADDING) * PADDING + PADDING;
+    this.cells = new long[PADDING + stripesCount * stripeLength];
+  }
+
+  void add(int resultIndex, long latency) {
+    int index = PADDING + (probe() & stripeMask) * stripeLength + resultIndex * SLOTS;
+    CELLS.getAndAdd(cells, index, 1L);
+    CELLS.getAndAdd(cells, index + 1, latency);
+  }
+
+  /**
+   * Adds a batch, counted once with its latency, and whose items are counted apart.
+   */
+  void add(int resultIndex, long latency, long items) {
+    int index = PADDING + (probe() & stripeMask) * stripeLength + resultIndex * SLOTS;
+    CELLS.getAndAdd(cells, index, 1L);
+    CELLS.getAndAdd(cells, index + 1, latency);
+    if (items != 1L) {
+      CELLS.getAndAdd(cells, index + 2, items - 1L);
+    }
+  }
+
+  long sumCounters(int resultIndex) {
+    return sum(resultIndex * SLOTS);
+  }
+
+  long sumLatencies(int resultIndex) {
+    return sum(resultIndex * SLOTS + 1);
+  }
+
+  long sumItems(int resultIndex) {
+    return sumCounters(resultIndex) + sum(resultIndex * SLOTS + 2);
+  }
+
+  private long sum(int offset) {
+    long sum = 0L;
+    for (int index = PADDING + offset; index < cells.length; index += stripeLength) {
+      sum += (long)CELLS.getVolatile(cells, index);
+    }
+    return sum;
+  }
+
+  void reset() {
+    for (int stripe = 0; stripe <= stripeMask; stripe++) {
+      int base = PADDING + stripe * stripeLength;
+      for (int i = 0; i < resultsCount * SLOTS; i++) {
+        CELLS.setVolatile(cells, base + i, 0L);
+      }
+    }
+  }
+
+  int getStripesCount() {
+    return stripeMask + 1;
+  }
+
+  private static int probe() {
+    long id = Thread.currentThread().getId();
+    return (int)((id * 0x9E3779B97F4A7C15L) >>> 32);
+  }
+
+  private static int defaultStripes() {
+    return Math.min(64, Runtime.getRuntime().availableProcessors() * 2);
+  }
+}
@@ -19,6 +19,8 @@ package io.rainfall.statistics;
 import io.rainfall.statistics.collector.StatisticsCollector;
 import org.HdrHistogram.Histogram;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -36,12 +38,185 @@ public abstract class StatisticsHolder<E extends Enum<E>> {
 
   public abstract Histogram fetchHistogram(final Enum<E> result);
 
+  /**
+   * @return the histogram of the operation name for a result, or null if the histograms are not kept per name
+   */
+  public Histogram fetchHistogram(final String name, final Enum<E> result) {
+    return null;
+  }
+
   public abstract void reset();
 
   public abstract long getCurrentTps(Enum result);
 
   public abstract void record(String name, long responseTimeInNs, Enum result);
 
+  /**
+   * @return a holder recording as this one does at the time of the call, which can be used from any thread, e.g. by
+   * the completion of an asynchronous operation
+   */
+  public StatisticsHolder<E> snapshot() {
+    return this;
+  }
+
+  /**
+   * @return the holder shared by all the workers this one records into, which can be used from any thread, but
+   * without the corrections of this holder
+   */
+  public StatisticsHolder<E> shared() {
+    return this;
+  }
+
+  /**
+   * Records the response time of a batch of logical operations executed in one call, e.g. a multi-get. The batch is
+   * counted once, its items are counted apart for the per-item TPS, and its response time is recorded in the
+   * histograms once for each item.
+   *
+   * @param batchSize amount of logical operations of the batch
+   */
+  public void recordBatch(String name, long responseTimeInNs, Enum result, int batchSize) {
+    record(name, responseTimeInNs, result);
+  }
+
+  /**
+   * Registers an operation name, so that its response times can be recorded without resolving the name each time.
+   *
+   * @param name the operation name
+   * @return a recorder of the operation name, bound to this holder
+   */
+  public StatisticsRecorder register(final String name) {
+    return new StatisticsRecorder() {
+      @Override
+      public String getName() {
+        return name;
+      }
+
+      @Override
+      public void record(final long responseTimeInNs, final Enum result) {
+        StatisticsHolder.this.record(name, responseTimeInNs, result);
+      }
+
+      @Override
+      public void recordBatch(final long responseTimeInNs, final Enum result, final int batchSize) {
+        StatisticsHolder.this.recordBatch(name, responseTimeInNs, result, batchSize);
+      }
+    };
+  }
+
+  /**
+   * Declares that the operations are measured from their intended start time, e.g. by an open-model execution, so
+   * that the histograms already account for the coordinated omission and are not corrected again when reported.
+   */
+  public void measureFromIntendedStart() {
+  }
+
+  /**
+   * @return true if the operations are measured from their intended start time
+   */
+  public boolean isMeasuredFromIntendedStart() {
+    return false;
+  }
+
+  public void increaseLateCount() {
+  }
+
+  /**
+   * Sets the load offered by an open-model execution, to report the intended rate.
+   */
+  public void offerLoad(OfferedLoad offeredLoad) {
+  }
+
+  public void increaseDroppedCount(long count) {
+  }
+
+  /**
+   * Records the time an operation waited for the permit of a {@link io.rainfall.utils.TokenBucket}, which is not
+   * part of its response time.
+   *
+   * @param waitInNs time waited for the permit
+   */
+  public void recordThrottle(long waitInNs) {
+  }
+
+  /**
+   * Counts an operation which was not executed because a {@link io.rainfall.utils.TokenBucket} refused its permit.
+   */
+  public void increaseRefusedCount() {
+  }
+
+  /**
+   * Records an operation still running after its timeout, detected by an {@link io.rainfall.utils.OperationWatchdog}.
+   *
+   * @param elapsedInNs time the operation had been running for when it was detected
+   */
+  public void recordTimeout(long elapsedInNs) {
+  }
+
+  /**
+   * Records the realized time between the starts of two consecutive operations of an open-model worker.
+   *
+   * @param intervalInNs time since the start of the previous operation of the worker
+   */
+  public void recordArrival(long intervalInNs) {
+  }
+
+  /**
+   * Records how late an operation started on the clock of a replayed trace.
+   *
+   * @param lagInNs delay between the replayed time of the operation and its actual start time
+   */
+  public void recordLag(long lagInNs) {
+  }
+
+  /**
+   * Records a change of the amount of workers executing the operations.
+   *
+   * @param delta amount of workers started, or retired when negative
+   */
+  public void changeActiveWorkers(int delta) {
+  }
+
+  /**
+   * Starts a new phase of the run: the operations recorded from now on are also accounted to this phase, the previous
+   * one ends.
+   *
+   * @param name name of the phase
+   */
+  public void beginPhase(String name) {
+  }
+
+  /**
+   * Starts a new phase of the run in place of the current one, which is dropped if it didn't record any operation,
+   * e.g. when an execution splits its own phase into iterations.
+   *
+   * @param name name of the phase
+   */
+  public void replacePhase(String name) {
+    beginPhase(name);
+  }
+
+  /**
+   * Sets how the current phase ended, e.g. whether a warmup reached the steady state, to be reported with the phase.
+   *
+   * @param outcome outcome of the phase
+   */
+  public void setPhaseOutcome(String outcome) {
+  }
+
+  /**
+   * @return the name of the current phase, or null if the phases are not kept
+   */
+  public String getPhaseName() {
+    return null;
+  }
+
+  /**
+   * @return the phases of the run, in their order
+   */
+  public List<StatisticsPhase<E>> getPhases() {
+    return Collections.emptyList();
+  }
+
   public abstract void increaseAssertionsErrorsCount(String name);
 
   public abstract void pause();
@@ -17,6 +17,7 @@
 package io.rainfall.statistics;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -50,6 +51,37 @@ public class StatisticsPeek<E extends Enum<E>> {
   private double averageOfCumulativeAverageLatencies = 0.0d;
   private long sumOfCumulativeTps = 0L;
 
+  private final long[] periodicItems;
+  private final long[] periodicItemTps;
+  private final long[] cumulativeItems;
+  private final long[] cumulativeItemTps;
+
+  private long periodicLateCount = 0L;
+  private long periodicDroppedCount = 0L;
+  private long cumulativeLateCount = 0L;
+  private long cumulativeDroppedCount = 0L;
+  private long periodicIntendedCount = 0L;
+  private long periodicIntendedTps = 0L;
+  private long cumulativeIntendedCount = 0L;
+  private long cumulativeIntendedTps = 0L;
+  private int activeWorkers = 0;
+  private long periodicRefusedCount = 0L;
+  private long periodicThrottledTimeInNs = 0L;
+  private long cumulativeRefusedCount = 0L;
+  private long cumulativeThrottledTimeInNs = 0L;
+  private long periodicTimeoutCount = 0L;
+  private double periodicMaxTimeoutElapsedInMs = 0.0d;
+  private long cumulativeTimeoutCount = 0L;
+  private double cumulativeMaxTimeoutElapsedInMs = 0.0d;
+  private double periodicArrivalCov = Double.NaN;
+  private double cumulativeArrivalCov = Double.NaN;
+  private long periodicLagCount = 0L;
+  private double periodicAverageLagInMs = 0.0d;
+  private double periodicMaxLagInMs = 0.0d;
+  private long cumulativeLagCount = 0L;
+  private double cumulativeAverageLagInMs = 0.0d;
+  private double cumulativeMaxLagInMs = 0.0d;
+
   public StatisticsPeek(String name, Enum<E>[] keys, long timestamp) {
     this(name, keys, timestamp, true);
   }
@@ -67,6 +99,10 @@ public class StatisticsPeek<E extends Enum<E>> {
     this.cumulativeTotalLatenciesInNs = retainRawTotals ? new long[keys.length] : null;
     this.cumulativeAverageLatencies = new double[keys.length];
     this.cumulativeTps = new long[keys.length];
+    this.periodicItems = new long[keys.length];
+    this.periodicItemTps = new long[keys.length];
+    this.cumulativeItems = new long[keys.length];
+    this.cumulativeItemTps = new long[keys.length];
   }
 
   public String getName() {
@@ -123,6 +159,29 @@ public class StatisticsPeek<E extends Enum<E>> {
         averageLatencyInMs(this.averageOfPeriodicAverageLatencies, this.sumOfPeriodicCounters);
   }
 
+  public void setItemValues(long periodicLength, long[] periodicItems, long cumulativeLength, long[] cumulativeItems) {
+    long periodicLengthInSec = periodicLength / 1000000 / 1000;
+    long cumulativeLengthInSec = cumulativeLength / 1000000 / 1000;
+    for (int i = 0; i < keys.length; i++) {
+      this.periodicItems[i] = periodicItems[i];
+      this.periodicItemTps[i] = periodicLengthInSec > 0 ? periodicItems[i] / periodicLengthInSec : periodicItems[i];
+      this.cumulativeItems[i] = cumulativeItems[i];
+      this.cumulativeItemTps[i] = cumulativeLengthInSec > 0 ? cumulativeItems[i] / cumulativeLengthInSec
+          : cumulativeItems[i];
+    }
+  }
+
+  void setAggregatedItemValues(Collection<StatisticsPeek<E>> statisticsPeeks) {
+    for (int i = 0; i < keys.length; i++) {
+      for (StatisticsPeek<E> peek : statisticsPeeks) {
+        this.periodicItems[i] += peek.getPeriodicItemCounters(keys[i]);
+        this.periodicItemTps[i] += peek.getPeriodicItemTps(keys[i]);
+        this.cumulativeItems[i] += peek.getCumulativeItemCounters(keys[i]);
+        this.cumulativeItemTps[i] += peek.getCumulativeItemTps(keys[i]);
+      }
+    }
+  }
+
   void setAggregatedPeriodicValues(Enum<E>[] keys, long[] periodicCounters, long[] periodicTotalLatencies, long[] periodicTps) {
     long totalPeriodicLatencyInNs = 0L;
     for (int i = 0; i < keys.length; i++) {
@@ -157,6 +216,59 @@ public class StatisticsPeek<E extends Enum<E>> {
         averageLatencyInMs(totalCumulativeLatencyInNs, this.sumOfCumulativeCounters);
   }
 
+  void setLoadValues(long periodicLateCount, long periodicDroppedCount, long cumulativeLateCount,
+                     long cumulativeDroppedCount) {
+    this.periodicLateCount = periodicLateCount;
+    this.periodicDroppedCount = periodicDroppedCount;
+    this.cumulativeLateCount = cumulativeLateCount;
+    this.cumulativeDroppedCount = cumulativeDroppedCount;
+  }
+
+  void setIntendedValues(long periodicLength, long periodicIntendedCount, long cumulativeLength,
+                         long cumulativeIntendedCount) {
+    long periodicLengthInSec = periodicLength / 1000000 / 1000;
+    long cumulativeLengthInSec = cumulativeLength / 1000000 / 1000;
+    this.periodicIntendedCount = periodicIntendedCount;
+    this.periodicIntendedTps = periodicLengthInSec > 0 ? periodicIntendedCount / periodicLengthInSec : periodicIntendedCount;
+    this.cumulativeIntendedCount = cumulativeIntendedCount;
+    this.cumulativeIntendedTps = cumulativeLengthInSec > 0 ? cumulativeIntendedCount / cumulativeLengthInSec : cumulativeIntendedCount;
+  }
+
+  void setActiveWorkers(int activeWorkers) {
+    this.activeWorkers = activeWorkers;
+  }
+
+  void setThrottleValues(long periodicRefusedCount, long periodicThrottledTimeInNs, long cumulativeRefusedCount,
+                         long cumulativeThrottledTimeInNs) {
+    this.periodicRefusedCount = periodicRefusedCount;
+    this.periodicThrottledTimeInNs = periodicThrottledTimeInNs;
+    this.cumulativeRefusedCount = cumulativeRefusedCount;
+    this.cumulativeThrottledTimeInNs = cumulativeThrottledTimeInNs;
+  }
+
+  void setTimeoutValues(long periodicTimeoutCount, long periodicMaxTimeoutElapsedInNs, long cumulativeTimeoutCount,
+                        long cumulativeMaxTimeoutElapsedInNs) {
+    this.periodicTimeoutCount = periodicTimeoutCount;
+    this.periodicMaxTimeoutElapsedInMs = periodicMaxTimeoutElapsedInNs / 1_000_000.0d;
+    this.cumulativeTimeoutCount = cumulativeTimeoutCount;
+    this.cumulativeMaxTimeoutElapsedInMs = cumulativeMaxTimeoutElapsedInNs / 1_000_000.0d;
+  }
+
+  void setArrivalValues(double periodicArrivalCov, double cumulativeArrivalCov) {
+    this.periodicArrivalCov = periodicArrivalCov;
+    this.cumulativeArrivalCov = cumulativeArrivalCov;
+  }
+
+  void setLagValues(long periodicLagCount, long periodicLagTotalInNs, long periodicMaxLagInNs,
+                    long cumulativeLagCount, long cumulativeLagTotalInNs, long cumulativeMaxLagInNs) {
+    this.periodicLagCount = periodicLagCount;
+    this.periodicAverageLagInMs = averageLatencyInMs(periodicLagTotalInNs, periodicLagCount);
+    this.periodicMaxLagInMs = periodicMaxLagInNs / 1000000d;
+    this.cumulativeLagCount = cumulativeLagCount;
+    this.cumulativeAverageLagInMs = averageLatencyInMs(cumulativeLagTotalInNs, cumulativeLagCount);
+    this.cumulativeMaxLagInMs = cumulativeMaxLagInNs / 1000000d;
+  }
+
   private double averageLatencyInMs(double totalLatencyInNs, long counter) {
     if (counter == 0L) {
       return 0.0d;
@@ -176,10 +288,19 @@ public class StatisticsPeek<E extends Enum<E>> {
       long cumulativeTotalLatencyInNs = 0L;
       long periodicTps = 0L;
       long cumulativeTps = 0L;
+      long periodicItemCounter = 0L;
+      long cumulativeItemCounter = 0L;
+      long periodicItemTps = 0L;
+      long cumulativeItemTps = 0L;
 
       for (String name : names) {
         StatisticsPeek<E> peek = statisticsPeeks.get(name);
 
+        periodicItemCounter += peek.getPeriodicItemCounters(key);
+        cumulativeItemCounter += peek.getCumulativeItemCounters(key);
+        periodicItemTps += peek.getPeriodicItemTps(key);
+        cumulativeItemTps += peek.getCumulativeItemTps(key);
+
         periodicCounter += peek.getPeriodicCounters(key);
         cumulativeCounter += peek.getCumulativeCounters(key);
 
@@ -202,6 +323,10 @@ public class StatisticsPeek<E extends Enum<E>> {
       this.cumulativeAverageLatencies[keyIndex] = averageLatencyInMs(cumulativeTotalLatencyInNs, cumulativeCounter);
       this.periodicTps[keyIndex] = periodicTps;
       this.cumulativeTps[keyIndex] = cumulativeTps;
+      this.periodicItems[keyIndex] = periodicItemCounter;
+      this.cumulativeItems[keyIndex] = cumulativeItemCounter;
+      this.periodicItemTps[keyIndex] = periodicItemTps;
+      this.cumulativeItemTps[keyIndex] = cumulativeItemTps;
 
       this.sumOfPeriodicCounters += periodicCounter;
       totalPeriodicLatencyInNs += periodicTotalLatencyInNs;
@@ -273,6 +398,158 @@ public class StatisticsPeek<E extends Enum<E>> {
     return this.sumOfCumulativeTps;
   }
 
+  /**
+   * @return the amount of logical operations during the period, each item of a batch being counted, while
+   * {@link #getPeriodicCounters(Enum)} counts a batch once
+   */
+  public Long getPeriodicItemCounters(Enum<E> key) {
+    return periodicItems[getKeyIndex(key)];
+  }
+
+  public Long getPeriodicItemTps(Enum<E> key) {
+    return periodicItemTps[getKeyIndex(key)];
+  }
+
+  public Long getCumulativeItemCounters(Enum<E> key) {
+    return cumulativeItems[getKeyIndex(key)];
+  }
+
+  public Long getCumulativeItemTps(Enum<E> key) {
+    return cumulativeItemTps[getKeyIndex(key)];
+  }
+
+  public long getPeriodicLateCount() {
+    return this.periodicLateCount;
+  }
+
+  public long getPeriodicDroppedCount() {
+    return this.periodicDroppedCount;
+  }
+
+  public long getCumulativeLateCount() {
+    return this.cumulativeLateCount;
+  }
+
+  public long getCumulativeDroppedCount() {
+    return this.cumulativeDroppedCount;
+  }
+
+  /**
+   * @return the amount of operations the open-model executions intended to start during the period
+   */
+  public long getPeriodicIntendedCount() {
+    return this.periodicIntendedCount;
+  }
+
+  /**
+   * @return the rate the open-model executions intended to offer during the period, to compare with
+   * {@link #getSumOfPeriodicTps()}
+   */
+  public long getPeriodicIntendedTps() {
+    return this.periodicIntendedTps;
+  }
+
+  public long getCumulativeIntendedCount() {
+    return this.cumulativeIntendedCount;
+  }
+
+  public long getCumulativeIntendedTps() {
+    return this.cumulativeIntendedTps;
+  }
+
+  /**
+   * @return the amount of operations not executed during the period because a token bucket refused their permit
+   */
+  public long getPeriodicRefusedCount() {
+    return this.periodicRefusedCount;
+  }
+
+  /**
+   * @return the total time the operations waited for the permits of token buckets during the period
+   */
+  public long getPeriodicThrottledTimeInNs() {
+    return this.periodicThrottledTimeInNs;
+  }
+
+  public long getCumulativeRefusedCount() {
+    return this.cumulativeRefusedCount;
+  }
+
+  public long getCumulativeThrottledTimeInNs() {
+    return this.cumulativeThrottledTimeInNs;
+  }
+
+  /**
+   * @return the amount of operations detected during the period as still running after their timeout
+   */
+  public long getPeriodicTimeoutCount() {
+    return this.periodicTimeoutCount;
+  }
+
+  /**
+   * @return the longest time an operation detected during the period had been running for
+   */
+  public double getPeriodicMaxTimeoutElapsedInMs() {
+    return this.periodicMaxTimeoutElapsedInMs;
+  }
+
+  public long getCumulativeTimeoutCount() {
+    return this.cumulativeTimeoutCount;
+  }
+
+  public double getCumulativeMaxTimeoutElapsedInMs() {
+    return this.cumulativeMaxTimeoutElapsedInMs;
+  }
+
+  /**
+   * @return the coefficient of variation of the realized inter-arrival times of the merged arrivals of the open-model
+   * workers during the period: 0 for uniform arrivals, 1 for Poisson arrivals, more for bursty ones, NaN without arrivals
+   */
+  public double getPeriodicArrivalCov() {
+    return this.periodicArrivalCov;
+  }
+
+  public double getCumulativeArrivalCov() {
+    return this.cumulativeArrivalCov;
+  }
+
+  /**
+   * @return the amount of operations started by a trace replay during the period, whose lag was recorded
+   */
+  public long getPeriodicLagCount() {
+    return this.periodicLagCount;
+  }
+
+  /**
+   * @return the average delay of the operations of a trace replay behind the trace clock during the period
+   */
+  public double getPeriodicAverageLagInMs() {
+    return this.periodicAverageLagInMs;
+  }
+
+  public double getPeriodicMaxLagInMs() {
+    return this.periodicMaxLagInMs;
+  }
+
+  public long getCumulativeLagCount() {
+    return this.cumulativeLagCount;
+  }
+
+  public double getCumulativeAverageLagInMs() {
+    return this.cumulativeAverageLagInMs;
+  }
+
+  public double getCumulativeMaxLagInMs() {
+    return this.cumulativeMaxLagInMs;
+  }
+
+  /**
+   * @return the amount of workers the closed-model executions had running at the time of the peek
+   */
+  public int getActiveWorkers() {
+    return this.activeWorkers;
+  }
+
   private int getKeyIndex(Enum<E> key) {
     int ordinal = key.ordinal();
     if (ordinal < keyIndexesByOrdinal.length) {
@@ -22,6 +22,7 @@ import org.HdrHistogram.Histogram;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -34,6 +35,8 @@ public class StatisticsPeekHolder<E extends Enum<E>> {
   private final Enum<E>[] resultsReported;
   private final ConcurrentHashMap<String, LongAdder> assertionsErrors;
   private final RainfallHistogramSink<E> histograms;
+  private final Map<String, RainfallHistogramSink<E>> histogramsByName;
+  private final List<StatisticsPhase<E>> phases;
   private final long startTime;
 
   private Map<String, StatisticsPeek<E>> statisticsPeeks = new HashMap<String, StatisticsPeek<E>>();
@@ -55,10 +58,33 @@ public class StatisticsPeekHolder<E extends Enum<E>> {
                               final Set<StatisticsCollector> statisticsCollectors,
                               final ConcurrentHashMap<String, LongAdder> assertionsErrors, RainfallHistogramSink<E> histograms,
                               long startTime) {
+    this(results, resultsReported, statisticsMap, statisticsCollectors, assertionsErrors, histograms,
+        Collections.emptyMap(), null, startTime);
+  }
+
+  public StatisticsPeekHolder(final Enum<E>[] results, final Enum<E>[] resultsReported,
+                              final Map<String, Statistics<E>> statisticsMap,
+                              final Set<StatisticsCollector> statisticsCollectors,
+                              final ConcurrentHashMap<String, LongAdder> assertionsErrors, RainfallHistogramSink<E> histograms,
+                              final Map<String, RainfallHistogramSink<E>> histogramsByName,
+                              final LoadStatistics loadStatistics, long startTime) {
+    this(results, resultsReported, statisticsMap, statisticsCollectors, assertionsErrors, histograms, histogramsByName,
+        loadStatistics, Collections.emptyList(), startTime);
+  }
+
+  public StatisticsPeekHolder(final Enum<E>[] results, final Enum<E>[] resultsReported,
+                              final Map<String, Statistics<E>> statisticsMap,
+                              final Set<StatisticsCollector> statisticsCollectors,
+                              final ConcurrentHashMap<String, LongAdder> assertionsErrors, RainfallHistogramSink<E> histograms,
+                              final Map<String, RainfallHistogramSink<E>> histogramsByName,
+                              final LoadStatistics loadStatistics, final List<StatisticsPhase<E>> phases,
+                              long startTime) {
     Enum<E>[] aggregateResults = resolveAggregateResults(results, statisticsMap);
     this.resultsReported = resultsReported;
     this.assertionsErrors = assertionsErrors;
     this.histograms = histograms;
+    this.histogramsByName = histogramsByName;
+    this.phases = phases;
     this.startTime = startTime;
     long snapshotTimestamp = System.currentTimeMillis();
     this.timestamp = snapshotTimestamp;
@@ -91,6 +117,10 @@ public class StatisticsPeekHolder<E extends Enum<E>> {
         reportedPeriodicCounters, reportedPeriodicLatencies, reportedPeriodicTps);
     this.totalStatisticsPeeks.setAggregatedCumulativeValues(this.resultsReported,
         reportedCumulativeCounters, reportedCumulativeLatencies, reportedCumulativeTps);
+    this.totalStatisticsPeeks.setAggregatedItemValues(statisticsPeeks.values());
+    if (loadStatistics != null) {
+      loadStatistics.peek(this.totalStatisticsPeeks);
+    }
 
     if (!statisticsCollectors.isEmpty()) {
       this.extraCollectedStatistics = new HashMap<String, Exporter>();
@@ -182,4 +212,19 @@ public class StatisticsPeekHolder<E extends Enum<E>> {
     return histograms.fetchHistogram(result);
   }
 
+  /**
+   * @return the histogram of the operation name for a result, or null if the histograms are not kept for this name
+   */
+  public Histogram fetchHistogram(final String name, final Enum<E> result) {
+    RainfallHistogramSink<E> sink = histogramsByName.get(name);
+    return sink == null ? null : sink.fetchHistogram(result);
+  }
+
+  /**
+   * @return the phases of the run at the time of the peek, in their order
+   */
+  public List<StatisticsPhase<E>> getPhases() {
+    return phases;
+  }
+
 }
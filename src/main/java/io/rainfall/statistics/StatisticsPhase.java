@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.statistics;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Counters and histograms of the operations recorded during one phase of a run, e.g. one execution, or one iteration
+ * of a {@link io.rainfall.execution.Repeat}, so that the idle, ramp and steady-state periods can be told apart.
+ * <p>
+ * The histograms are striped while the phase is running, and collapsed into one histogram per result once it ended,
+ * so that the ended phases of a long run keep a small footprint.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class StatisticsPhase<E extends Enum<E>> {
+
+  private final String name;
+  private final Enum<E>[] results;
+  private volatile RainfallHistogramSink<E> histograms;
+  private volatile Histogram[] endHistograms = null;
+  private final LongAdder[] counters;
+  private final long startTime;
+  private volatile long endTime = 0L;
+  private volatile String outcome = null;
+
+  StatisticsPhase(final String name, final Enum<E>[] results, final RainfallHistogramSink<E> histograms,
+                  final long startTime) {
+    this.name = name;
+    this.results = results;
+    this.histograms = histograms;
+    this.startTime = startTime;
+    int maxOrdinal = -1;
+    for (Enum<E> result : results) {
+      maxOrdinal = Math.max(maxOrdinal, result.ordinal());
+    }
+    this.counters = new LongAdder[maxOrdinal + 1];
+    for (Enum<E> result : results) {
+      counters[result.ordinal()] = new LongAdder();
+    }
+  }
+
+  void record(final Enum result, final long latencyInNs) {
+    counters[result.ordinal()].increment();
+    // the operations racing with the end of the phase are only counted
+    RainfallHistogramSink<E> sink = histograms;
+    if (sink != null) {
+      sink.recordValue(result, latencyInNs);
+    }
+  }
+
+  void recordBatch(final Enum result, final long latencyInNs, final int batchSize) {
+    counters[result.ordinal()].increment();
+    // the operations racing with the end of the phase are only counted
+    RainfallHistogramSink<E> sink = histograms;
+    if (sink != null) {
+      sink.recordValueWithCount(result, latencyInNs, batchSize);
+    }
+  }
+
+  synchronized void end(final long endTime) {
+    this.endTime = endTime;
+    RainfallHistogramSink<E> sink = histograms;
+    if (sink != null) {
+      Histogram[] collapsed = new Histogram[counters.length];
+      for (Enum<E> result : results) {
+        collapsed[result.ordinal()] = sink.fetchHistogram(result);
+      }
+      endHistograms = collapsed;
+      histograms = null;
+    }
+  }
+
+  synchronized void reset() {
+    for (LongAdder counter : counters) {
+      if (counter != null) {
+        counter.reset();
+      }
+    }
+    RainfallHistogramSink<E> sink = histograms;
+    if (sink != null) {
+      sink.reset();
+    } else {
+      for (Histogram histogram : endHistograms) {
+        if (histogram != null) {
+          histogram.reset();
+        }
+      }
+    }
+  }
+
+  boolean isEmpty() {
+    for (LongAdder counter : counters) {
+      if (counter != null && counter.sum() > 0L) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  void setOutcome(final String outcome) {
+    this.outcome = outcome;
+  }
+
+  /**
+   * @return how the phase ended, e.g. whether a warmup reached the steady state, or null if it wasn't set
+   */
+  public String getOutcome() {
+    return outcome;
+  }
+
+  public Enum<E>[] getResults() {
+    return results;
+  }
+
+  public long getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * @return the end time of the phase, or 0 while it is running
+   */
+  public long getEndTime() {
+    return endTime;
+  }
+
+  public boolean isRunning() {
+    return endTime == 0L;
+  }
+
+  public long getLengthInMs() {
+    long end = endTime;
+    return (end == 0L ? System.currentTimeMillis() : end) - startTime;
+  }
+
+  public long getCount(final Enum<E> result) {
+    return counters[result.ordinal()].sum();
+  }
+
+  public long getTps(final Enum<E> result) {
+    return getCount(result) * 1000L / Math.max(1L, getLengthInMs());
+  }
+
+  /**
+   * @return the histogram of the response times of the result during the phase
+   */
+  public synchronized Histogram fetchHistogram(final Enum<E> result) {
+    RainfallHistogramSink<E> sink = histograms;
+    return sink != null ? sink.fetchHistogram(result) : endHistograms[result.ordinal()];
+  }
+
+  @Override
+  public String toString() {
+    return "Phase " + name;
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.statistics;
+
+/**
+ * Records the response times of one operation name, as registered with {@link StatisticsHolder#register(String)}.
+ * <p>
+ * The name is resolved once when registering, so recording through a {@link StatisticsRecorder} avoids the lookups
+ * done by {@link StatisticsHolder#record(String, long, Enum)}. A recorder is bound to the {@link StatisticsHolder}
+ * that created it.
+ *
+ * @author Aurelien Broszniowski
+ */
+public interface StatisticsRecorder {
+
+  String getName();
+
+  void record(long responseTimeInNs, Enum result);
+
+  /**
+   * Records the response time of a batch of operations once, see {@link StatisticsHolder#recordBatch}.
+   */
+  default void recordBatch(long responseTimeInNs, Enum result, int batchSize) {
+    record(responseTimeInNs, result);
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.statistics;
+
+/**
+ * A per worker view of a {@link StatisticsHolder}, used by the executions to give each worker a holder resolving each
+ * operation name once.
+ * <p>
+ * The first record of an operation name registers it, and the next ones go through its {@link StatisticsRecorder},
+ * found by comparing the references of the names, so that the operations recording with a constant name are recorded
+ * without hashing it. An instance is confined to a single worker thread.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class WorkerStatisticsHolder<E extends Enum<E>> extends ForwardingStatisticsHolder<E> {
+
+  private static final int MAX_NAMES = 16;
+
+  private final StatisticsHolder<E> statisticsHolder;
+  private final String[] names = new String[MAX_NAMES];
+  private final StatisticsRecorder[] recorders = new StatisticsRecorder[MAX_NAMES];
+  private int size = 0;
+
+  public WorkerStatisticsHolder(final StatisticsHolder<E> statisticsHolder) {
+    this.statisticsHolder = statisticsHolder;
+  }
+
+  @Override
+  protected StatisticsHolder<E> delegate() {
+    return statisticsHolder;
+  }
+
+  /**
+   * @return a holder which can be used from any thread, without the recorders of the worker
+   */
+  @Override
+  public StatisticsHolder<E> snapshot() {
+    return statisticsHolder.snapshot();
+  }
+
+  @Override
+  public StatisticsRecorder register(final String name) {
+    return recorder(name);
+  }
+
+  @Override
+  public void record(final String name, final long responseTimeInNs, final Enum result) {
+    recorder(name).record(responseTimeInNs, result);
+  }
+
+  @Override
+  public void recordBatch(final String name, final long responseTimeInNs, final Enum result, final int batchSize) {
+    recorder(name).recordBatch(responseTimeInNs, result, batchSize);
+  }
+
+  private StatisticsRecorder recorder(final String name) {
+    for (int i = 0; i < size; i++) {
+      if (names[i] == name) {
+        return recorders[i];
+      }
+    }
+    // the same name built again, e.g. by concatenation
+    for (int i = 0; i < size; i++) {
+      if (names[i].equals(name)) {
+        return recorders[i];
+      }
+    }
+    StatisticsRecorder recorder = statisticsHolder.register(name);
+    if (size < MAX_NAMES) {
+      names[size] = name;
+      recorders[size] = recorder;
+      size++;
+    }
+    return recorder;
+  }
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.statistics.eventlog;
+
+import io.rainfall.statistics.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records every operation as a fixed-width binary event, for post-hoc analysis with an {@link EventLogReader}.
+ * <p>
+ * The recording threads write into a fixed set of off-heap ring buffers, chosen by the id of the thread, without
+ * locking, so that the memory of the log doesn't grow with the amount of threads, e.g. virtual threads. A flusher
+ * thread drains the ring buffers into memory-mapped segment files, which are rotated once full. When a ring buffer is
+ * full because the flusher lags behind, the event is dropped and counted instead of blocking the recording thread.
+ * <p>
+ * An event is made of the completion time (in ns since the creation of the log), the latency in ns, the id of the
+ * operation name, the ordinal of the result and the amount of operations it stands for, more than one for a batch.
+ * The names and results are saved in a properties file, next to the segments.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class EventLog implements Closeable {
+
+  public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+  public static final int DEFAULT_BUFFER_RECORDS = 4096;
+  public static final long DEFAULT_FLUSH_INTERVAL_IN_MS = 100L;
+
+  static final int RECORD_SIZE = 28;
+  static final int SEGMENT_HEADER_SIZE = 16;
+  static final int MAGIC = 0x5241494E;
+  static final int VERSION = 1;
+  static final String SEGMENT_PREFIX = "events-";
+  static final String SEGMENT_SUFFIX = ".log";
+  static final String METADATA_FILE = "eventlog.properties";
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final Path directory;
+  private final String[] results;
+  private final long segmentSize;
+  private final int maxSegments;
+  private final long flushIntervalInNs;
+  private final long startTimeInMs = System.currentTimeMillis();
+  private final long startTimeInNs = System.nanoTime();
+
+  private final ConcurrentHashMap<String, Integer> nameIds = new ConcurrentHashMap<>();
+  private final List<String> names = new ArrayList<>();
+  private volatile boolean namesChanged = false;
+
+  private final RingBuffer[] buffers;
+  private final LongAdder droppedCount = new LongAdder();
+
+  private final Deque<Path> segments = new ArrayDeque<>();
+  private int segmentIndex = 0;
+  private FileChannel segmentChannel;
+  private MappedByteBuffer segment;
+  private long segmentRecords;
+  private long writtenCount = 0L;
+
+  private final Thread flusher;
+  private volatile boolean closed = false;
+
+  public EventLog(final Path directory, final Enum<?>[] results) throws IOException {
+    this(directory, results, DEFAULT_SEGMENT_SIZE, 0, DEFAULT_BUFFER_RECORDS, DEFAULT_FLUSH_INTERVAL_IN_MS);
+  }
+
+  /**
+   * @param directory          directory of the segments, created if needed
+   * @param results            results of the operations
+   * @param segmentSize        size of a segment file, in bytes
+   * @param maxSegments        amount of segments kept on disk, the oldest ones are deleted, 0 to keep all of them
+   * @param bufferRecords      amount of events a ring buffer can hold before dropping events
+   * @param flushIntervalInMs  interval between two drains of the buffers
+   */
+  public EventLog(final Path directory, final Enum<?>[] results, final long segmentSize, final int maxSegments,
+                  final int bufferRecords, final long flushIntervalInMs) throws IOException {
+    if (segmentSize < SEGMENT_HEADER_SIZE + RECORD_SIZE) {
+      throw new IllegalArgumentException("The segment size must be at least " + (SEGMENT_HEADER_SIZE + RECORD_SIZE) + " bytes.");
+    }
+    if (maxSegments < 0 || bufferRecords <= 0 || flushIntervalInMs <= 0) {
+      throw new IllegalArgumentException("The amount of segments, the buffer size and the flush interval can not be negative.");
+    }
+    this.directory = directory;
+    int maxOrdinal = -1;
+    for (Enum<?> result : results) {
+      maxOrdinal = Math.max(maxOrdinal, result.ordinal());
+    }
+    this.results = new String[maxOrdinal + 1];
+    for (Enum<?> result : results) {
+      this.results[result.ordinal()] = result.name();
+    }
+    this.segmentSize = segmentSize - (segmentSize - SEGMENT_HEADER_SIZE) % RECORD_SIZE;
+    this.maxSegments = maxSegments;
+    this.flushIntervalInNs = flushIntervalInMs * 1_000_000L;
+    this.buffers = new RingBuffer[stripes()];
+    for (int i = 0; i < buffers.length; i++) {
+      buffers[i] = new RingBuffer(bufferRecords);
+    }
+
+    Files.createDirectories(directory);
+    writeMetadata();
+    openSegment();
+
+    this.flusher = new Thread(this::flushPeriodically, "Rainfall-core Event Log Flusher");
+    this.flusher.setDaemon(true);
+    this.flusher.start();
+  }
+
+  /**
+   * @param name operation name
+   * @return the id of the operation name in the events
+   */
+  public int nameId(final String name) {
+    Integer id = nameIds.get(name);
+    if (id == null) {
+      synchronized (names) {
+        id = nameIds.get(name);
+        if (id == null) {
+          id = names.size();
+          names.add(name);
+          nameIds.put(name, id);
+          namesChanged = true;
+        }
+      }
+    }
+    return id;
+  }
+
+  /**
+   * Records an event completing now, never blocks.
+   *
+   * @param nameId      id of the operation name, from {@link #nameId(String)}
+   * @param result      result of the operation
+   * @param latencyInNs latency of the operation
+   */
+  public void record(final int nameId, final Enum<?> result, final long latencyInNs) {
+    recordBatch(nameId, result, latencyInNs, 1);
+  }
+
+  /**
+   * Records an event standing for a batch of operations completing now, never blocks.
+   *
+   * @param nameId      id of the operation name, from {@link #nameId(String)}
+   * @param result      result of the operations
+   * @param latencyInNs latency of the batch
+   * @param batchSize   amount of operations in the batch
+   */
+  public void recordBatch(final int nameId, final Enum<?> result, final long latencyInNs, final int batchSize) {
+    long id = Thread.currentThread().getId();
+    RingBuffer buffer = buffers[(int)((id * 0x9E3779B97F4A7C15L) >>> 32) & (buffers.length - 1)];
+    if (!buffer.offer(System.nanoTime() - startTimeInNs, latencyInNs, nameId, result.ordinal(), batchSize)) {
+      droppedCount.increment();
+    }
+  }
+
+  /**
+   * @return the amount of events dropped because a buffer was full
+   */
+  public long getDroppedCount() {
+    return droppedCount.sum();
+  }
+
+  /**
+   * @return the amount of events written to the segments
+   */
+  public synchronized long getWrittenCount() {
+    return writtenCount;
+  }
+
+  /**
+   * @return the amount of ring buffers shared by the recording threads
+   */
+  int getBufferCount() {
+    return buffers.length;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  private void flushPeriodically() {
+    while (!closed) {
+      LockSupport.parkNanos(flushIntervalInNs);
+      try {
+        flush();
+      } catch (IOException e) {
+        logger.error("Can not write the event log in " + directory, e);
+      }
+    }
+  }
+
+  /**
+   * Drains the buffers of the recording threads to the segments.
+   */
+  public synchronized void flush() throws IOException {
+    if (segment == null) {
+      return;
+    }
+    for (RingBuffer buffer : buffers) {
+      long sequence = buffer.tail.get();
+      // stops at the first event claimed by a recording thread but not written yet, drained by the next flush
+      while (buffer.isPublished(sequence)) {
+        if (segment.remaining() < RECORD_SIZE) {
+          rotate();
+        }
+        buffer.copyTo(sequence, segment);
+        segmentRecords++;
+        writtenCount++;
+        sequence++;
+      }
+      buffer.tail.lazySet(sequence);
+    }
+    segment.putLong(8, segmentRecords);
+    if (namesChanged) {
+      writeMetadata();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    LockSupport.unpark(flusher);
+    try {
+      flusher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (this) {
+      flush();
+      closeSegment();
+      writeMetadata();
+    }
+  }
+
+  private void rotate() throws IOException {
+    closeSegment();
+    openSegment();
+  }
+
+  private void openSegment() throws IOException {
+    Path path = directory.resolve(segmentFileName(segmentIndex++));
+    segmentChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    segment.putInt(MAGIC);
+    segment.putInt(VERSION);
+    segment.putLong(0L);
+    segmentRecords = 0L;
+    segments.addLast(path);
+    while (maxSegments > 0 && segments.size() > maxSegments) {
+      Files.deleteIfExists(segments.removeFirst());
+    }
+  }
+
+  private void closeSegment() throws IOException {
+    if (segment != null) {
+      segment.putLong(8, segmentRecords);
+      segment.force();
+      segmentChannel.close();
+      segment = null;
+      segmentChannel = null;
+    }
+  }
+
+  private void writeMetadata() throws IOException {
+    Properties properties = new Properties();
+    properties.setProperty("version", Integer.toString(VERSION));
+    properties.setProperty("startTimeInMs", Long.toString(startTimeInMs));
+    properties.setProperty("results", String.join(",", results));
+    synchronized (names) {
+      properties.setProperty("names", Integer.toString(names.size()));
+      for (int i = 0; i < names.size(); i++) {
+        properties.setProperty("name." + i, names.get(i));
+      }
+      namesChanged = false;
+    }
+    Path temporary = directory.resolve(METADATA_FILE + ".tmp");
+    try (OutputStream out = Files.newOutputStream(temporary)) {
+      properties.store(out, "Rainfall event log");
+    }
+    Files.move(temporary, directory.resolve(METADATA_FILE), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static int stripes() {
+    int stripes = Math.min(64, Runtime.getRuntime().availableProcessors() * 2);
+    int powerOfTwo = Integer.highestOneBit(stripes);
+    return powerOfTwo < stripes ? powerOfTwo << 1 : powerOfTwo;
+  }
+
+  static String segmentFileName(int index) {
+    return String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+  }
+
+  /**
+   * Multiple producers (the recording threads of a stripe), single consumer (the flusher) ring of events, off-heap.
+   * A producer claims a sequence, writes its event, then publishes the sequence in the slot of the event.
+   */
+  private static final class RingBuffer {
+    private final ByteBuffer events;
+    private final int capacity;
+    // the sequence + 1 of the event last written in each slot
+    private final AtomicLongArray published;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    RingBuffer(int capacity) {
+      this.capacity = capacity;
+      this.events = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+      this.published = new AtomicLongArray(capacity);
+    }
+
+    boolean offer(long timestampInNs, long latencyInNs, int nameId, int result, int count) {
+      long sequence;
+      do {
+        sequence = head.get();
+        if (sequence - tail.get() >= capacity) {
+          return false;
+        }
+      } while (!head.compareAndSet(sequence, sequence + 1));
+      int slot = (int)(sequence % capacity);
+      int position = slot * RECORD_SIZE;
+      events.putLong(position, timestampInNs);
+      events.putLong(position + 8, latencyInNs);
+      events.putInt(position + 16, nameId);
+      events.putInt(position + 20, result);
+      events.putInt(position + 24, count);
+      published.lazySet(slot, sequence + 1);
+      return true;
+    }
+
+    boolean isPublished(long sequence) {
+      return published.get((int)(sequence % capacity)) == sequence + 1;
+    }
+
+    void copyTo(long sequence, ByteBuffer segment) {
+      int position = (int)(sequence % capacity) * RECORD_SIZE;
+      segment.putLong(events.getLong(position));
+      segment.putLong(events.getLong(position + 8));
+      segment.putInt(events.getInt(position + 16));
+      segment.putInt(events.getInt(position + 20));
+      segment.putInt(events.getInt(position + 24));
+    }
+  }
+}
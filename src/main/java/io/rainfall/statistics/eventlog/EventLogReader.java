@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.statistics.eventlog;
+
+import io.rainfall.statistics.StatisticsPeek;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Reads the events written by an {@link EventLog}, and re-derives the {@link StatisticsPeek} series at any interval.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class EventLogReader {
+
+  public interface EventConsumer {
+    /**
+     * @param timestampInNs completion time of the operation, in ns since the start of the log
+     * @param nameId        id of the operation name, see {@link #getName(int)}
+     * @param resultOrdinal ordinal of the result
+     * @param latencyInNs   latency of the operation
+     * @param count         amount of operations of the event, more than one for a batch
+     */
+    void accept(long timestampInNs, int nameId, int resultOrdinal, long latencyInNs, int count);
+  }
+
+  private final Path directory;
+  private final long startTimeInMs;
+  private final List<String> results;
+  private final List<String> names;
+
+  public EventLogReader(final Path directory) throws IOException {
+    this.directory = directory;
+    Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(directory.resolve(EventLog.METADATA_FILE))) {
+      properties.load(in);
+    }
+    this.startTimeInMs = Long.parseLong(properties.getProperty("startTimeInMs"));
+    String results = properties.getProperty("results");
+    this.results = results.isEmpty() ? Collections.<String>emptyList() : Arrays.asList(results.split(","));
+    int namesCount = Integer.parseInt(properties.getProperty("names"));
+    List<String> names = new ArrayList<String>(namesCount);
+    for (int i = 0; i < namesCount; i++) {
+      names.add(properties.getProperty("name." + i));
+    }
+    this.names = Collections.unmodifiableList(names);
+  }
+
+  public long getStartTimeInMs() {
+    return startTimeInMs;
+  }
+
+  public List<String> getResults() {
+    return Collections.unmodifiableList(results);
+  }
+
+  public List<String> getNames() {
+    return names;
+  }
+
+  public String getName(final int nameId) {
+    return names.get(nameId);
+  }
+
+  /**
+   * Reads all the events of the segments still on disk, oldest segment first. Inside a segment, the events are
+   * grouped by ring buffer of the recording threads, so they are only roughly ordered by time.
+   */
+  public void forEach(final EventConsumer consumer) throws IOException {
+    for (Path segmentPath : segments()) {
+      try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+        MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (segment.getInt(0) != EventLog.MAGIC) {
+          throw new IOException("The file " + segmentPath + " is not an event log segment.");
+        }
+        int version = segment.getInt(4);
+        if (version != EventLog.VERSION) {
+          throw new IOException("The event log segment " + segmentPath + " has an unsupported version " + version);
+        }
+        long records = Math.min(segment.getLong(8),
+            (channel.size() - EventLog.SEGMENT_HEADER_SIZE) / EventLog.RECORD_SIZE);
+        segment.position(EventLog.SEGMENT_HEADER_SIZE);
+        for (long i = 0; i < records; i++) {
+          long timestampInNs = segment.getLong();
+          long latencyInNs = segment.getLong();
+          int nameId = segment.getInt();
+          int resultOrdinal = segment.getInt();
+          int count = segment.getInt();
+          consumer.accept(timestampInNs, nameId, resultOrdinal, latencyInNs, count);
+        }
+      }
+    }
+  }
+
+  /**
+   * Computes the statistics of the events between two timestamps, per interval.
+   *
+   * @param results        results to compute the statistics of, matched by name with the recorded results
+   * @param name           operation name, or null for all the operations
+   * @param fromInMs       start of the first interval (epoch time in ms, inclusive)
+   * @param toInMs         end of the last interval (epoch time in ms, exclusive)
+   * @param intervalInMs   length of an interval
+   * @return one peek per interval, timestamped with the end of its interval, whose cumulative values start at fromInMs
+   */
+  public <E extends Enum<E>> List<StatisticsPeek<E>> peeks(final Enum<E>[] results, final String name,
+                                                           final long fromInMs, final long toInMs,
+                                                           final long intervalInMs) throws IOException {
+    if (intervalInMs <= 0 || toInMs < fromInMs) {
+      throw new IllegalArgumentException("The interval must be positive, and the end of the series after its start.");
+    }
+    final int intervals = (int)((toInMs - fromInMs + intervalInMs - 1) / intervalInMs);
+    final int[] indexesByOrdinal = new int[this.results.size()];
+    for (int ordinal = 0; ordinal < indexesByOrdinal.length; ordinal++) {
+      indexesByOrdinal[ordinal] = -1;
+      for (int i = 0; i < results.length; i++) {
+        if (results[i].name().equals(this.results.get(ordinal))) {
+          indexesByOrdinal[ordinal] = i;
+        }
+      }
+    }
+    final int nameId = name == null ? -1 : names.indexOf(name);
+    final long[][] counters = new long[intervals][results.length];
+    final long[][] latencies = new long[intervals][results.length];
+    final long[][] items = new long[intervals][results.length];
+    final long fromInNs = (fromInMs - startTimeInMs) * 1_000_000L;
+    final long toInNs = (toInMs - startTimeInMs) * 1_000_000L;
+    final long intervalInNs = intervalInMs * 1_000_000L;
+
+    if (name == null || nameId >= 0) {
+      forEach(new EventConsumer() {
+        @Override
+        public void accept(final long timestampInNs, final int eventNameId, final int resultOrdinal,
+                           final long latencyInNs, final int count) {
+          if (timestampInNs < fromInNs || timestampInNs >= toInNs || (nameId >= 0 && eventNameId != nameId)
+              || resultOrdinal >= indexesByOrdinal.length || indexesByOrdinal[resultOrdinal] < 0) {
+            return;
+          }
+          int interval = (int)((timestampInNs - fromInNs) / intervalInNs);
+          // a batch is counted once, with its latency, and its operations apart
+          counters[interval][indexesByOrdinal[resultOrdinal]]++;
+          latencies[interval][indexesByOrdinal[resultOrdinal]] += latencyInNs;
+          items[interval][indexesByOrdinal[resultOrdinal]] += count;
+        }
+      });
+    }
+
+    List<StatisticsPeek<E>> peeks = new ArrayList<StatisticsPeek<E>>(intervals);
+    long[] cumulativeCounters = new long[results.length];
+    long[] cumulativeLatencies = new long[results.length];
+    long[] cumulativeItems = new long[results.length];
+    for (int interval = 0; interval < intervals; interval++) {
+      for (int i = 0; i < results.length; i++) {
+        cumulativeCounters[i] += counters[interval][i];
+        cumulativeLatencies[i] += latencies[interval][i];
+        cumulativeItems[i] += items[interval][i];
+      }
+      StatisticsPeek<E> peek = new StatisticsPeek<E>(name == null ? "ALL" : name, results,
+          fromInMs + (interval + 1) * intervalInMs);
+      peek.setPeriodicValues(intervalInNs, results, counters[interval], latencies[interval]);
+      peek.setCumulativeValues((interval + 1) * intervalInNs, results, cumulativeCounters, cumulativeLatencies);
+      peek.setItemValues(intervalInNs, items[interval], (interval + 1) * intervalInNs, cumulativeItems);
+      peeks.add(peek);
+    }
+    return peeks;
+  }
+
+  private List<Path> segments() throws IOException {
+    List<Path> segments = new ArrayList<Path>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+        EventLog.SEGMENT_PREFIX + "*" + EventLog.SEGMENT_SUFFIX)) {
+      for (Path path : stream) {
+        segments.add(path);
+      }
+    }
+    Collections.sort(segments);
+    return segments;
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.trace;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operation log to replay, stored in a compact binary file which is memory-mapped, so that traces larger than the heap
+ * can be replayed without being parsed during the run.
+ * <p>
+ * The file starts with a header (magic number, version, amount of records, offset of the names of the operations),
+ * followed by fixed-size records (timestamp in ns, key, size, index of the name of the operation), and ends with the
+ * names of the operations. A trace is written with a {@link TraceWriter}, or converted once from a CSV access log with
+ * {@link #fromCsv(Path, Path, TimeUnit)}.
+ *
+ * @author Aurelien Broszniowski
+ */
+public final class Trace {
+
+  static final int MAGIC = 0x52465452;
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 32;
+  static final int RECORD_SIZE = 24;
+  private static final long RECORDS_PER_SEGMENT = (1L << 30) / RECORD_SIZE;
+
+  private final Path path;
+  private final long size;
+  private final List<String> operationNames;
+  private final MappedByteBuffer[] segments;
+
+  private Trace(final Path path, final long size, final List<String> operationNames,
+                final MappedByteBuffer[] segments) {
+    this.path = path;
+    this.size = size;
+    this.operationNames = operationNames;
+    this.segments = segments;
+  }
+
+  /**
+   * @param path binary trace file
+   * @return the memory-mapped trace
+   */
+  public static Trace open(final Path path) throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+      if (file.length() < HEADER_SIZE || file.readInt() != MAGIC) {
+        throw new IOException(path + " is not a Rainfall trace.");
+      }
+      int version = file.readInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported version " + version + " of the trace " + path);
+      }
+      long size = file.readLong();
+      long namesOffset = file.readLong();
+      if (namesOffset != HEADER_SIZE + size * RECORD_SIZE || namesOffset > file.length()) {
+        throw new IOException("The trace " + path + " is truncated.");
+      }
+
+      file.seek(namesOffset);
+      int nameCount = file.readInt();
+      List<String> names = new ArrayList<String>(nameCount);
+      for (int i = 0; i < nameCount; i++) {
+        names.add(file.readUTF());
+      }
+
+      FileChannel channel = file.getChannel();
+      MappedByteBuffer[] segments = new MappedByteBuffer[(int)((size + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT)];
+      for (int i = 0; i < segments.length; i++) {
+        long first = i * RECORDS_PER_SEGMENT;
+        long count = Math.min(RECORDS_PER_SEGMENT, size - first);
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * RECORD_SIZE, count * RECORD_SIZE);
+      }
+      return new Trace(path, size, Collections.unmodifiableList(names), segments);
+    }
+  }
+
+  /**
+   * Converts a CSV access log into a binary trace, unless the trace is already more recent than the log, and opens it.
+   * <p>
+   * Each line holds the timestamp, the name of the operation, the key and the size of a record, separated by commas,
+   * the lines being sorted by timestamp.
+   * Empty lines, lines starting with # and a header line are skipped. Keys that are not numbers are hashed.
+   *
+   * @param csv           access log
+   * @param path          binary trace file
+   * @param timestampUnit unit of the timestamps of the log
+   * @return the memory-mapped trace
+   */
+  public static Trace fromCsv(final Path csv, final Path path, final TimeUnit timestampUnit) throws IOException {
+    if (!Files.exists(path) || Files.getLastModifiedTime(path).compareTo(Files.getLastModifiedTime(csv)) < 0) {
+      Path converted = path.resolveSibling(path.getFileName() + ".tmp");
+      try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+           TraceWriter writer = new TraceWriter(converted)) {
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+          lineNumber++;
+          line = line.trim();
+          if (line.isEmpty() || line.startsWith("#")) {
+            continue;
+          }
+          String[] fields = line.split(",");
+          if (fields.length < 4) {
+            throw new IOException("Line " + lineNumber + " of " + csv + " doesn't hold a timestamp, an operation, "
+                                  + "a key and a size.");
+          }
+          long timestamp;
+          try {
+            timestamp = Long.parseLong(fields[0].trim());
+          } catch (NumberFormatException e) {
+            if (lineNumber == 1) {
+              continue;
+            }
+            throw new IOException("Invalid timestamp at line " + lineNumber + " of " + csv, e);
+          }
+          try {
+            writer.write(timestampUnit.toNanos(timestamp), fields[1].trim(), parseKey(fields[2].trim()),
+                Integer.parseInt(fields[3].trim()));
+          } catch (NumberFormatException e) {
+            throw new IOException("Invalid size at line " + lineNumber + " of " + csv, e);
+          } catch (IllegalArgumentException e) {
+            throw new IOException("The timestamp at line " + lineNumber + " of " + csv + " is before the previous one, "
+                                  + "the log must be sorted by time.", e);
+          }
+        }
+      }
+      Files.move(converted, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+    return open(path);
+  }
+
+  static long parseKey(final String key) {
+    try {
+      return Long.parseLong(key);
+    } catch (NumberFormatException e) {
+      // FNV-1a
+      long hash = 0xCBF29CE484222325L;
+      for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+        hash ^= b & 0xFF;
+        hash *= 0x100000001B3L;
+      }
+      return hash;
+    }
+  }
+
+  private ByteBuffer segment(final long index) {
+    return segments[(int)(index / RECORDS_PER_SEGMENT)];
+  }
+
+  private int offset(final long index) {
+    return (int)(index % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  /**
+   * @return the amount of records of the trace
+   */
+  public long size() {
+    return size;
+  }
+
+  public List<String> getOperationNames() {
+    return operationNames;
+  }
+
+  public long getTimestampInNs(final long index) {
+    return segment(index).getLong(offset(index));
+  }
+
+  public long getKey(final long index) {
+    return segment(index).getLong(offset(index) + 8);
+  }
+
+  public int getSize(final long index) {
+    return segment(index).getInt(offset(index) + 16);
+  }
+
+  /**
+   * @return the index of the name of the operation of the record in {@link #getOperationNames()}
+   */
+  public int getOperation(final long index) {
+    return segment(index).getInt(offset(index) + 20);
+  }
+
+  /**
+   * @return the time between the first and the last records
+   */
+  public long getLengthInNs() {
+    return size == 0L ? 0L : getTimestampInNs(size - 1) - getTimestampInNs(0);
+  }
+
+  /**
+   * @param timestampInNs time of the trace
+   * @return the amount of records up to the time, the records being sorted by time
+   */
+  public long countUntil(final long timestampInNs) {
+    long low = 0L;
+    long high = size;
+    while (low < high) {
+      long middle = (low + high) >>> 1;
+      if (getTimestampInNs(middle) <= timestampInNs) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return a cursor over the records of the trace
+   */
+  public TraceRecord cursor() {
+    return new TraceRecord(this);
+  }
+
+  @Override
+  public String toString() {
+    return "trace " + path.getFileName() + " (" + size + " records)";
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.trace;
+
+/**
+ * Cursor over the records of a {@link Trace}.
+ * <p>
+ * While a trace is replayed, the record being replayed by the current thread is available to the operations with
+ * {@link #current()}, so that they use its key and size instead of generating their own.
+ *
+ * @author Aurelien Broszniowski
+ */
+public final class TraceRecord {
+
+  private static final ThreadLocal<TraceRecord> CURRENT = new ThreadLocal<TraceRecord>();
+
+  private final Trace trace;
+  private long index = -1L;
+
+  TraceRecord(final Trace trace) {
+    this.trace = trace;
+  }
+
+  /**
+   * @return the record replayed by the current thread, or null if the thread isn't replaying a trace
+   */
+  public static TraceRecord current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Sets the record replayed by the current thread, this is done by the executions replaying a trace.
+   *
+   * @param record cursor of the thread, or null once the replay is over
+   */
+  public static void setCurrent(final TraceRecord record) {
+    if (record == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(record);
+    }
+  }
+
+  public TraceRecord moveTo(final long index) {
+    this.index = index;
+    return this;
+  }
+
+  public long getIndex() {
+    return index;
+  }
+
+  public long getTimestampInNs() {
+    return trace.getTimestampInNs(index);
+  }
+
+  public String getOperationName() {
+    return trace.getOperationNames().get(trace.getOperation(index));
+  }
+
+  public long getKey() {
+    return trace.getKey(index);
+  }
+
+  public int getSize() {
+    return trace.getSize(index);
+  }
+
+  @Override
+  public String toString() {
+    return "record " + index + " of the " + trace;
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.trace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes the records of a {@link Trace}, which must be written in the order of their timestamps.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class TraceWriter implements Closeable {
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(Trace.RECORD_SIZE * 4096);
+  private final Map<String, Integer> operations = new LinkedHashMap<String, Integer>();
+  private long size = 0L;
+  private long lastTimestampInNs = Long.MIN_VALUE;
+
+  public TraceWriter(final Path path) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    this.channel.position(Trace.HEADER_SIZE);
+  }
+
+  /**
+   * @param timestampInNs time of the record, not before the time of the previous record
+   * @param operation     name of the operation
+   * @param key           key of the operation
+   * @param size          size of the value of the operation
+   */
+  public void write(final long timestampInNs, final String operation, final long key, final int size)
+      throws IOException {
+    if (timestampInNs < lastTimestampInNs) {
+      throw new IllegalArgumentException("The records of a trace must be written in the order of their timestamps, "
+                                         + timestampInNs + " is before " + lastTimestampInNs + ".");
+    }
+    lastTimestampInNs = timestampInNs;
+    Integer operationIndex = operations.get(operation);
+    if (operationIndex == null) {
+      operationIndex = operations.size();
+      operations.put(operation, operationIndex);
+    }
+    if (buffer.remaining() < Trace.RECORD_SIZE) {
+      flush();
+    }
+    buffer.putLong(timestampInNs).putLong(key).putInt(size).putInt(operationIndex);
+    this.size++;
+  }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+      long namesOffset = channel.position();
+
+      ByteArrayOutputStream names = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(names);
+      out.writeInt(operations.size());
+      for (String operation : operations.keySet()) {
+        out.writeUTF(operation);
+      }
+      out.flush();
+      write(ByteBuffer.wrap(names.toByteArray()), namesOffset);
+
+      ByteBuffer header = ByteBuffer.allocate(Trace.HEADER_SIZE);
+      header.putInt(Trace.MAGIC).putInt(Trace.VERSION).putLong(size).putLong(namesOffset).putLong(0L).flip();
+      write(header, 0L);
+    } finally {
+      channel.close();
+    }
+  }
+
+  private void write(final ByteBuffer bytes, long position) throws IOException {
+    while (bytes.hasRemaining()) {
+      position += channel.write(bytes, position);
+    }
+  }
+}
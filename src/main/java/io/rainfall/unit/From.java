@@ -27,6 +27,10 @@ public class From extends UnitMeasurement {
     return new From(count, unit);
   }
 
+  public static From from(int count) {
+    return new From(count, Instance.instances);
+  }
+
   public From(final int count, final Unit unit) {
     super(count, unit);
   }
@@ -27,6 +27,10 @@ public class To extends UnitMeasurement {
     return new To(count, unit);
   }
 
+  public static To to(int count) {
+    return new To(count, Instance.instances);
+  }
+
   public To(int count, Unit unit) {
     super(count, unit);
   }
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.utils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * View of a {@link WorkerPools} pool lent to one execution: shutting it down only stops the tasks submitted through
+ * it, the threads of the pool are kept for the next execution.
+ * <p>
+ * {@link #awaitTermination(long, TimeUnit)} returns once all the tasks of the view are done, which is the end of the
+ * phase of the execution. Only one-shot tasks can be scheduled, the periodic ones would never end the phase.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class BorrowedExecutorService extends AbstractExecutorService implements ScheduledExecutorService {
+
+  private final ScheduledExecutorService pool;
+  private final WorkerPools workerPools;
+  private final Map<TrackedTask, Future<?>> tasks = new ConcurrentHashMap<>();
+  private final AtomicInteger pendingCount = new AtomicInteger();
+  private volatile boolean shutdown = false;
+
+  BorrowedExecutorService(final ScheduledExecutorService pool, final WorkerPools workerPools) {
+    this.pool = pool;
+    this.workerPools = workerPools;
+  }
+
+  @Override
+  public void execute(final Runnable command) {
+    TrackedTask task = track(command);
+    register(task, pool.submit(task));
+  }
+
+  @Override
+  public ScheduledFuture<?> schedule(final Runnable command, final long delay, final TimeUnit unit) {
+    TrackedTask task = track(command);
+    ScheduledFuture<?> future = pool.schedule(task, delay, unit);
+    register(task, future);
+    return future;
+  }
+
+  @Override
+  public <V> ScheduledFuture<V> schedule(final Callable<V> callable, final long delay, final TimeUnit unit) {
+    final TrackedTask task = track(null);
+    ScheduledFuture<V> future = pool.schedule(() -> {
+      if (!task.start()) {
+        return null;
+      }
+      try {
+        return callable.call();
+      } finally {
+        task.finish();
+      }
+    }, delay, unit);
+    register(task, future);
+    return future;
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleAtFixedRate(final Runnable command, final long initialDelay, final long period,
+                                                final TimeUnit unit) {
+    throw new UnsupportedOperationException("Periodic tasks can not be scheduled on a borrowed worker pool.");
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleWithFixedDelay(final Runnable command, final long initialDelay, final long delay,
+                                                   final TimeUnit unit) {
+    throw new UnsupportedOperationException("Periodic tasks can not be scheduled on a borrowed worker pool.");
+  }
+
+  @Override
+  public void shutdown() {
+    shutdown = true;
+    synchronized (this) {
+      notifyAll();
+    }
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    shutdown();
+    for (Map.Entry<TrackedTask, Future<?>> entry : tasks.entrySet()) {
+      TrackedTask task = entry.getKey();
+      if (task.cancel()) {
+        entry.getValue().cancel(false);
+      } else if (task.command instanceof Future) {
+        // the task is running, interrupt it
+        ((Future<?>)task.command).cancel(true);
+      } else {
+        entry.getValue().cancel(true);
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return shutdown;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return shutdown && pendingCount.get() == 0;
+  }
+
+  @Override
+  public synchronized boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+    long deadlineInNs = System.nanoTime() + unit.toNanos(timeout);
+    while (!isTerminated()) {
+      long remainingInNs = deadlineInNs - System.nanoTime();
+      if (remainingInNs <= 0L) {
+        return false;
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remainingInNs);
+    }
+    return true;
+  }
+
+  private TrackedTask track(final Runnable command) {
+    if (shutdown) {
+      throw new RejectedExecutionException("The borrowed worker pool is shut down.");
+    }
+    TrackedTask task = new TrackedTask(command);
+    pendingCount.incrementAndGet();
+    workerPools.taskStarted();
+    return task;
+  }
+
+  private void register(final TrackedTask task, final Future<?> future) {
+    if (!task.isDone()) {
+      tasks.put(task, future);
+      if (task.isDone()) {
+        tasks.remove(task);
+      }
+    }
+  }
+
+  private void taskDone(final TrackedTask task) {
+    tasks.remove(task);
+    pendingCount.decrementAndGet();
+    workerPools.taskFinished();
+    if (shutdown) {
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Task of the view, which either runs or is cancelled, exactly once.
+   */
+  private final class TrackedTask implements Runnable {
+    private final Runnable command;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private volatile boolean done = false;
+
+    TrackedTask(final Runnable command) {
+      this.command = command;
+    }
+
+    boolean start() {
+      return started.compareAndSet(false, true);
+    }
+
+    boolean cancel() {
+      if (started.compareAndSet(false, true)) {
+        if (command instanceof Future) {
+          ((Future<?>)command).cancel(false);
+        }
+        finish();
+        return true;
+      }
+      return false;
+    }
+
+    boolean isDone() {
+      return done;
+    }
+
+    void finish() {
+      done = true;
+      taskDone(this);
+    }
+
+    @Override
+    public void run() {
+      if (!start()) {
+        return;
+      }
+      try {
+        command.run();
+      } finally {
+        finish();
+      }
+    }
+  }
+}
@@ -22,12 +22,16 @@ package io.rainfall.utils;
  *
  * We want do avoid using a linear congruential generator in order to get a standardized test.
  *
+ * Each worker draws from its own stream, seeded from the master seed of the {@link RandomStreams}, so that a run
+ * can be replayed.
+ *
  * @author Aurelien Broszniowski
  */
 
 public class ConcurrentPseudoRandom {
 
   private static final float FLOAT_UNIT = 1.0f / (1 << 24);
+  private static final double DOUBLE_UNIT = 1.0d / (1L << 53);
   private static final long FLOAT_MIX = 0x2545F4914F6CDD1DL;
 
   private final ThreadLocal<RandomFunction> randomFunction = new ThreadLocal<RandomFunction>() {
@@ -37,7 +41,11 @@ public class ConcurrentPseudoRandom {
   };
 
   private RandomFunction getRandomFunction() {
-    return randomFunction.get();
+    RandomFunction function = randomFunction.get();
+    if (function.generation != RandomStreams.getGeneration() || function.worker != CurrentThreadpool.getWorker()) {
+      function.reseed();
+    }
+    return function;
   }
 
   public long nextLong() {
@@ -60,9 +68,28 @@ public class ConcurrentPseudoRandom {
     return max * getRandomFunction().nextFloat();
   }
 
+  /**
+   * @return a double uniformly distributed between 0.0 (inclusive) and 1.0 (exclusive), with 53 random bits
+   */
+  public double nextDouble() {
+    return getRandomFunction().nextDouble();
+  }
+
   private class RandomFunction {
 
-    long seed = 8682522807148012L ^ System.nanoTime();
+    long seed;
+    int generation;
+    String worker;
+
+    RandomFunction() {
+      reseed();
+    }
+
+    void reseed() {
+      this.generation = RandomStreams.getGeneration();
+      this.worker = CurrentThreadpool.getWorker();
+      this.seed = RandomStreams.streamSeed();
+    }
 
     public long nextLong() {
       long nb = nextLong(this.seed);
@@ -83,6 +110,12 @@ public class ConcurrentPseudoRandom {
       return nb;
     }
 
+    public double nextDouble() {
+      long mixed = nextLong(this.seed) * FLOAT_MIX;
+      this.seed = this.seed * 181783497276652981L;
+      return (mixed >>> 11) * DOUBLE_UNIT;
+    }
+
     //  Float.intBitsToFloat(nextInt()) ???
     public float nextFloat(final long next) {
       long mixed = nextLong(next) * FLOAT_MIX;
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.utils;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Name of the threadpool of the {@link io.rainfall.configuration.ConcurrencyConfig} the current thread belongs to,
+ * set by the threads created by the configuration. The threads of the runs started together by
+ * {@link io.rainfall.ConcurrentRuns} also carry the name of their run, so that their workers are told apart.
+ * <p>
+ * The pooled threads run the workers of successive executions, so an execution names the worker of the current thread
+ * after the index of the worker it starts, see {@link #startWorker(int)}.
+ *
+ * @author Aurelien Broszniowski
+ */
+public final class CurrentThreadpool {
+
+  private static final ThreadLocal<String> NAME = new ThreadLocal<String>();
+  private static final ThreadLocal<String> WORKER = new ThreadLocal<String>();
+  private static final ThreadLocal<String> RUN = new ThreadLocal<String>();
+
+  private CurrentThreadpool() {
+  }
+
+  /**
+   * @return the name of the threadpool of the current thread, or null if it wasn't created by the configuration
+   */
+  public static String get() {
+    return NAME.get();
+  }
+
+  /**
+   * @return the name of the current worker, i.e. the name of its threadpool followed by the index of the worker
+   * started by the execution, or by the rank of creation of the thread in the threadpool before (e.g. "DEFAULT-0"),
+   * prefixed by the name of its run if any (e.g. "run-1/DEFAULT-0"), or null if it wasn't created by the
+   * configuration
+   */
+  public static String getWorker() {
+    return WORKER.get();
+  }
+
+  /**
+   * @return the name of the run of the current thread, or null if it isn't one of several concurrent runs
+   */
+  public static String getRun() {
+    return RUN.get();
+  }
+
+  /**
+   * @param runName name of the run executed by the current thread, inherited by the threadpools it creates, or null
+   */
+  public static void setRun(final String runName) {
+    if (runName == null) {
+      RUN.remove();
+    } else {
+      RUN.set(runName);
+    }
+  }
+
+  /**
+   * Names the worker of the current thread after the index of the worker an execution starts on it, so that the
+   * worker is named the same whichever thread of the threadpool runs it.
+   *
+   * @param workerIndex index of the worker in its threadpool, for the execution
+   */
+  public static void startWorker(final int workerIndex) {
+    String threadpoolName = NAME.get();
+    if (threadpoolName != null) {
+      String runName = RUN.get();
+      WORKER.set(workerName(runName, threadpoolName, workerIndex));
+    }
+  }
+
+  private static String workerName(final String runName, final String threadpoolName, final int workerIndex) {
+    return (runName == null ? "" : runName + "/") + threadpoolName + "-" + workerIndex;
+  }
+
+  /**
+   * @param threadpoolName name of the threadpool
+   * @param delegate       creates the threads
+   * @return a factory of threads which belong to the threadpool, and to the run of the current thread
+   */
+  public static ThreadFactory factory(final String threadpoolName, final ThreadFactory delegate) {
+    final AtomicInteger workerNumber = new AtomicInteger();
+    final String runName = RUN.get();
+    return runnable -> {
+      final String worker = workerName(runName, threadpoolName, workerNumber.getAndIncrement());
+      return delegate.newThread(() -> {
+        NAME.set(threadpoolName);
+        WORKER.set(worker);
+        if (runName != null) {
+          RUN.set(runName);
+        }
+        runnable.run();
+      });
+    };
+  }
+}
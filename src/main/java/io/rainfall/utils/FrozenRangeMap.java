@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable {@link RangeMap}, whose ranges are computed with double precision from the weights given at
+ * construction.
+ * <p>
+ * {@link #getNextRandom(ConcurrentPseudoRandom)} picks a value with a probability proportional to its weight in constant
+ * time, without allocating nor synchronizing, using Vose's alias method. {@link #get(float)} does a binary search over
+ * the ranges.
+ *
+ * @author Aurelien Broszniowski
+ */
+public final class FrozenRangeMap<E> extends RangeMap<E> {
+
+  private final Object[] values;
+  private final double[] upperBounds;
+  private final double higherBound;
+  private final double[] probabilities;
+  private final int[] aliases;
+
+  /**
+   * @param weights weights of the values, values with a weight which is not positive are ignored
+   * @param values values, in the same order as their weights
+   */
+  public FrozenRangeMap(final double[] weights, final List<? extends E> values) {
+    if (weights.length != values.size()) {
+      throw new IllegalArgumentException("There are " + weights.length + " weights for " + values.size() + " values.");
+    }
+    int size = 0;
+    double[] positiveWeights = new double[weights.length];
+    Object[] positiveValues = new Object[weights.length];
+    for (int i = 0; i < weights.length; i++) {
+      if (weights[i] > 0) {
+        if (Double.isInfinite(weights[i]) || Double.isNaN(weights[i])) {
+          throw new IllegalArgumentException("The weight " + weights[i] + " is not a finite number.");
+        }
+        positiveWeights[size] = weights[i];
+        positiveValues[size] = values.get(i);
+        size++;
+      }
+    }
+
+    this.values = Arrays.copyOf(positiveValues, size);
+    this.upperBounds = new double[size];
+    double bound = 0.0d;
+    for (int i = 0; i < size; i++) {
+      bound += positiveWeights[i];
+      upperBounds[i] = bound;
+    }
+    this.higherBound = bound;
+
+    this.probabilities = new double[size];
+    this.aliases = new int[size];
+    buildAliasTable(Arrays.copyOf(positiveWeights, size));
+  }
+
+  /**
+   * Vose's alias method: each value is given a column of height 1, filled with its own probability and topped up with
+   * the excess probability of an alias.
+   */
+  private void buildAliasTable(final double[] weights) {
+    int size = weights.length;
+    int[] small = new int[size];
+    int[] large = new int[size];
+    int smallCount = 0;
+    int largeCount = 0;
+    for (int i = 0; i < size; i++) {
+      weights[i] = weights[i] * size / higherBound;
+      if (weights[i] < 1.0d) {
+        small[smallCount++] = i;
+      } else {
+        large[largeCount++] = i;
+      }
+    }
+
+    while (smallCount > 0 && largeCount > 0) {
+      int less = small[--smallCount];
+      int more = large[--largeCount];
+      probabilities[less] = weights[less];
+      aliases[less] = more;
+      weights[more] = (weights[more] + weights[less]) - 1.0d;
+      if (weights[more] < 1.0d) {
+        small[smallCount++] = more;
+      } else {
+        large[largeCount++] = more;
+      }
+    }
+    // the remaining columns are full, up to rounding errors
+    while (largeCount > 0) {
+      int index = large[--largeCount];
+      probabilities[index] = 1.0d;
+      aliases[index] = index;
+    }
+    while (smallCount > 0) {
+      int index = small[--smallCount];
+      probabilities[index] = 1.0d;
+      aliases[index] = index;
+    }
+  }
+
+  /**
+   * @return this map, which is already frozen
+   */
+  @Override
+  public FrozenRangeMap<E> freeze() {
+    return this;
+  }
+
+  @Override
+  public void put(final Float weight, final E value) {
+    throw new UnsupportedOperationException("A frozen RangeMap can not be modified.");
+  }
+
+  @Override
+  public E get(final float key) {
+    if (key < 0.0f || key >= higherBound || values.length == 0) {
+      return null;
+    }
+    return valueAt(indexOf(key));
+  }
+
+  @Override
+  public Float getHigherBound() {
+    return (float)higherBound;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Collection<E> getAll() {
+    return (List<E>)Collections.unmodifiableList(Arrays.asList(values));
+  }
+
+  @Override
+  public E getNextRandom(final ConcurrentPseudoRandom concurrentPseudoRandom) {
+    int size = values.length;
+    if (size <= 1) {
+      return size == 0 ? null : valueAt(0);
+    }
+    // 53 random bits, the column and the coin are both drawn from them
+    double column = concurrentPseudoRandom.nextDouble() * size;
+    int index = (int)column;
+    return valueAt(column - index < probabilities[index] ? index : aliases[index]);
+  }
+
+  private int indexOf(final double key) {
+    int low = 0;
+    int high = upperBounds.length - 1;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (key < upperBounds[middle]) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low;
+  }
+
+  @SuppressWarnings("unchecked")
+  private E valueAt(final int index) {
+    return (E)values[index];
+  }
+}
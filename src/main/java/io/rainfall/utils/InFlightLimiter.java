@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.utils;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the amount of asynchronous operations in flight in a threadpool: the dispatcher threads block when the bound
+ * is reached, until an operation completes.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class InFlightLimiter {
+
+  private final int maxInFlight;
+  private final Semaphore permits;
+  private int inFlight = 0;
+
+  public InFlightLimiter(final int maxInFlight) {
+    if (maxInFlight <= 0) {
+      throw new IllegalArgumentException("The maximum amount of operations in flight must be positive.");
+    }
+    this.maxInFlight = maxInFlight;
+    this.permits = new Semaphore(maxInFlight);
+  }
+
+  public void acquire() throws InterruptedException {
+    permits.acquire();
+    synchronized (this) {
+      inFlight++;
+    }
+  }
+
+  public void release() {
+    synchronized (this) {
+      inFlight--;
+      if (inFlight == 0) {
+        notifyAll();
+      }
+    }
+    permits.release();
+  }
+
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * Waits until all the operations in flight completed.
+   *
+   * @return true if no operation is in flight, false if the timeout elapsed before
+   */
+  public synchronized boolean awaitCompletion(final long timeout, final TimeUnit unit) throws InterruptedException {
+    long deadlineInNs = System.nanoTime() + unit.toNanos(timeout);
+    while (inFlight > 0) {
+      long remainingInNs = deadlineInNs - System.nanoTime();
+      if (remainingInNs <= 0L) {
+        return false;
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remainingInNs);
+    }
+    return true;
+  }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.utils;
+
+import io.rainfall.statistics.ForwardingStatisticsHolder;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.StatisticsRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Detects the operations running for longer than their timeout, e.g. blocked forever on a lost response.
+ * <p>
+ * Each worker owns a slot in which it publishes the start time of its current operation, with an ordered write, and
+ * releases it with an atomic swap. A single thread scans the slots, and counts an operation exceeding its timeout once,
+ * with the time it was running for. Depending on the {@link Action}, the worker is then interrupted, or the whole run
+ * is abandoned, by interrupting the thread which started the watchdog. The worker clears the interrupt when it
+ * releases the slot, so that it doesn't leak to the next task of a pooled thread.
+ * <p>
+ * When a timeout result is set, the timed out operation is recorded with it, and the result the operation records
+ * itself if it ever returns is dropped: the worker and the watchdog race on the slot to record the operation first.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class OperationWatchdog implements Closeable {
+
+  /**
+   * What the watchdog does with an operation exceeding its timeout.
+   */
+  public enum Action {
+    // only record the timeout
+    RECORD,
+    // record the timeout and interrupt the worker executing the operation
+    INTERRUPT,
+    // record the timeout, interrupt the worker, and end the run without waiting for the operation
+    ABANDON
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OperationWatchdog.class);
+
+  private static final long MIN_SCAN_INTERVAL_IN_NS = TimeUnit.MILLISECONDS.toNanos(1L);
+  private static final long MAX_SCAN_INTERVAL_IN_NS = TimeUnit.MILLISECONDS.toNanos(100L);
+
+  // states of a slot, the other values are the start time of the running operation, negated once it recorded itself
+  private static final long IDLE = 0L;
+  private static final long TIMED_OUT = Long.MIN_VALUE;
+  private static final long INTERRUPTED = Long.MIN_VALUE + 1L;
+
+  private final long defaultTimeoutInNs;
+  private final Action action;
+  private final Enum<?> timeoutResult;
+  private final Thread runThread;
+  private final List<Slot> slots = new CopyOnWriteArrayList<Slot>();
+  private final ThreadLocal<Slot> currentSlot = ThreadLocal.withInitial(this::register);
+  private final Thread scanner;
+  private volatile long minTimeoutInNs;
+  private volatile boolean closed = false;
+  private volatile String abandonedOperation = null;
+
+  /**
+   * Starts watching the operations, the run abandoned by {@link Action#ABANDON} is the current thread.
+   *
+   * @param defaultTimeoutInNs timeout of the operations without their own timeout, or 0 to not watch them
+   * @param action             what to do with an operation exceeding its timeout
+   * @param timeoutResult      result recorded for an operation exceeding its timeout, instead of its own result, or
+   *                           null to only count it
+   */
+  public OperationWatchdog(final long defaultTimeoutInNs, final Action action, final Enum<?> timeoutResult) {
+    this.defaultTimeoutInNs = defaultTimeoutInNs;
+    this.action = action;
+    this.timeoutResult = timeoutResult;
+    this.runThread = Thread.currentThread();
+    this.minTimeoutInNs = defaultTimeoutInNs > 0L ? defaultTimeoutInNs : Long.MAX_VALUE;
+    this.scanner = new Thread(this::scan, "Rainfall-core Operation Watchdog");
+    this.scanner.setDaemon(true);
+    this.scanner.start();
+  }
+
+  private Slot register() {
+    Slot slot = new Slot(Thread.currentThread(), timeoutResult != null);
+    slots.add(slot);
+    return slot;
+  }
+
+  /**
+   * Marks the start of an operation executed by the current thread, which must record into
+   * {@link Slot#getStatisticsHolder()}.
+   *
+   * @param operationName name of the operation, under which its timeout is recorded
+   * @param timeoutInNs   timeout of the operation, or 0 for the default timeout
+   * @param holder        statistics the operation records into
+   * @return the slot of the current thread, to mark the end of the operation
+   */
+  public Slot begin(final String operationName, final long timeoutInNs, final StatisticsHolder<?> holder) {
+    long timeout = timeoutInNs > 0L ? timeoutInNs : defaultTimeoutInNs;
+    Slot slot = currentSlot.get();
+    slot.filter.statisticsHolder = holder;
+    if (timeout > 0L) {
+      if (timeout < minTimeoutInNs) {
+        minTimeoutInNs = timeout;
+      }
+      slot.operationName = operationName;
+      slot.timeoutInNs = timeout;
+      slot.holder = holder;
+      // a distinct positive start time per operation of the slot
+      long startInNs = Math.max(Math.max(1L, System.nanoTime()), slot.lastStartInNs + 1L);
+      slot.lastStartInNs = startInNs;
+      slot.state.lazySet(startInNs);
+    }
+    return slot;
+  }
+
+  /**
+   * @return the operation which made the run abandoned, or null
+   */
+  public String getAbandonedOperation() {
+    return abandonedOperation;
+  }
+
+  private void scan() {
+    while (!closed) {
+      LockSupport.parkNanos(Math.max(MIN_SCAN_INTERVAL_IN_NS, Math.min(MAX_SCAN_INTERVAL_IN_NS, minTimeoutInNs / 10)));
+      long now = System.nanoTime();
+      for (Slot slot : slots) {
+        long state = slot.state.get();
+        if (state == IDLE) {
+          if (!slot.thread.isAlive()) {
+            slots.remove(slot);
+          }
+          continue;
+        }
+        if (state == TIMED_OUT || state == INTERRUPTED) {
+          continue;
+        }
+        long startInNs = Math.abs(state);
+        long elapsedInNs = now - startInNs;
+        if (elapsedInNs < slot.timeoutInNs || startInNs == slot.reportedStartInNs) {
+          continue;
+        }
+        if (state > 0L) {
+          // the operation didn't record itself yet, its record is replaced by the timeout
+          if (slot.state.compareAndSet(state, TIMED_OUT)) {
+            timedOut(slot, state, elapsedInNs, timeoutResult != null);
+          }
+        } else {
+          slot.reportedStartInNs = startInNs;
+          timedOut(slot, state, elapsedInNs, false);
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void timedOut(final Slot slot, final long state, final long elapsedInNs, final boolean recordResult) {
+    // the holder of the worker is confined to its thread
+    StatisticsHolder holder = slot.holder.shared();
+    holder.recordTimeout(elapsedInNs);
+    if (recordResult) {
+      holder.record(slot.operationName, elapsedInNs, timeoutResult);
+    }
+    LOGGER.warn("The operation {} executed by {} is still running after {} ms ({} ms timeout).", slot.operationName,
+        slot.thread.getName(), TimeUnit.NANOSECONDS.toMillis(elapsedInNs), TimeUnit.NANOSECONDS.toMillis(slot.timeoutInNs));
+    if (action != Action.RECORD) {
+      // the worker releasing the slot waits for the interrupt, to clear it
+      synchronized (slot) {
+        // the worker may have moved to its next operation in the meantime
+        long current = slot.state.get();
+        if ((current == TIMED_OUT || current == state) && slot.state.compareAndSet(current, INTERRUPTED)) {
+          slot.thread.interrupt();
+        }
+      }
+    }
+    if (action == Action.ABANDON && abandonedOperation == null) {
+      abandonedOperation = slot.operationName;
+      runThread.interrupt();
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    LockSupport.unpark(scanner);
+    try {
+      scanner.join(TimeUnit.SECONDS.toMillis(1L));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * State of the current operation of a worker.
+   */
+  public static final class Slot {
+    private final Thread thread;
+    private final boolean filtered;
+    private final AtomicLong state = new AtomicLong(IDLE);
+    private final RecordFilter filter = new RecordFilter(this);
+    private String operationName;
+    private long timeoutInNs;
+    private StatisticsHolder<?> holder;
+    // only accessed by the worker
+    private long lastStartInNs = 0L;
+    // only accessed by the scanner
+    private long reportedStartInNs = 0L;
+
+    private Slot(final Thread thread, final boolean filtered) {
+      this.thread = thread;
+      this.filtered = filtered;
+    }
+
+    /**
+     * @return the holder the operation records into, which drops its records once it timed out
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends Enum<E>> StatisticsHolder<E> getStatisticsHolder() {
+      return (StatisticsHolder<E>)(filtered ? filter : filter.statisticsHolder);
+    }
+
+    /**
+     * Marks the end of the operation, and clears the interrupt of the watchdog if the operation was interrupted.
+     */
+    public void end() {
+      if (state.getAndSet(IDLE) == INTERRUPTED) {
+        synchronized (this) {
+          Thread.interrupted();
+        }
+      }
+    }
+
+    /**
+     * @return true if the operation can record itself, false if the watchdog recorded it as timed out
+     */
+    boolean claim() {
+      long current = state.get();
+      while (current > 0L) {
+        if (state.compareAndSet(current, -current)) {
+          return true;
+        }
+        current = state.get();
+      }
+      return current != TIMED_OUT && current != INTERRUPTED;
+    }
+  }
+
+  /**
+   * Statistics of a worker, dropping the records of its operation once the watchdog recorded it as timed out.
+   */
+  private static final class RecordFilter<E extends Enum<E>> extends ForwardingStatisticsHolder<E> {
+
+    private final Slot slot;
+    private StatisticsHolder<E> statisticsHolder;
+
+    RecordFilter(final Slot slot) {
+      this.slot = slot;
+    }
+
+    @Override
+    protected StatisticsHolder<E> delegate() {
+      return statisticsHolder;
+    }
+
+    @Override
+    public void record(final String name, final long responseTimeInNs, final Enum result) {
+      if (slot.claim()) {
+        statisticsHolder.record(name, responseTimeInNs, result);
+      }
+    }
+
+    @Override
+    public void recordBatch(final String name, final long responseTimeInNs, final Enum result, final int batchSize) {
+      if (slot.claim()) {
+        statisticsHolder.recordBatch(name, responseTimeInNs, result, batchSize);
+      }
+    }
+
+    @Override
+    protected void record(final StatisticsRecorder recorder, final long responseTimeInNs, final Enum result) {
+      if (slot.claim()) {
+        recorder.record(responseTimeInNs, result);
+      }
+    }
+
+    @Override
+    protected void recordBatch(final StatisticsRecorder recorder, final long responseTimeInNs, final Enum result,
+                               final int batchSize) {
+      if (slot.claim()) {
+        recorder.recordBatch(responseTimeInNs, result, batchSize);
+      }
+    }
+
+    @Override
+    public StatisticsHolder<E> snapshot() {
+      return statisticsHolder.snapshot();
+    }
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Master seed of the {@link ConcurrentPseudoRandom}s, from which each worker derives its own independent streams,
+ * the same way as {@link java.util.SplittableRandom} splits its streams: the seed of a stream is the SplitMix64 mix of
+ * the master seed, of the name of the worker and of the rank of the generator among the generators the worker drew
+ * from since the last {@link #seed(long)}.
+ * <p>
+ * The workers are named after their threadpool and the index of the worker started by the execution (see
+ * {@link CurrentThreadpool#startWorker(int)}), so that a run with the same master seed and the same thread counts
+ * draws the same values whichever pooled thread runs a worker, and other threads are named after the thread name.
+ * A generator restarts its streams when the worker of its thread changes.
+ *
+ * @author Aurelien Broszniowski
+ */
+public final class RandomStreams {
+
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  private static final ConcurrentMap<String, Long> workerSeeds = new ConcurrentHashMap<String, Long>();
+  private static final ConcurrentMap<String, AtomicLong> workerStreamCounts = new ConcurrentHashMap<String, AtomicLong>();
+  private static volatile long masterSeed = newMasterSeed();
+  private static volatile int generation = 0;
+
+  private RandomStreams() {
+  }
+
+  /**
+   * @return a master seed picked from the current time
+   */
+  public static long newMasterSeed() {
+    return mix64(System.nanoTime() ^ System.currentTimeMillis() * GOLDEN_GAMMA);
+  }
+
+  /**
+   * Reseeds all the {@link ConcurrentPseudoRandom}s: each of them restarts its streams from the new master seed.
+   *
+   * @param seed master seed
+   */
+  public static synchronized void seed(final long seed) {
+    masterSeed = seed;
+    workerSeeds.clear();
+    workerStreamCounts.clear();
+    generation++;
+  }
+
+  public static long getMasterSeed() {
+    return masterSeed;
+  }
+
+  /**
+   * @return the seeds of the workers which drew values since the last {@link #seed(long)}, by name of worker
+   */
+  public static Map<String, Long> getWorkerSeeds() {
+    return new TreeMap<String, Long>(workerSeeds);
+  }
+
+  static int getGeneration() {
+    return generation;
+  }
+
+  /**
+   * @param name name of what the threads draw together, e.g. a threadpool
+   * @return a seed derived from the master seed and the name only, the same for all the threads
+   */
+  public static long sharedSeed(final String name) {
+    return mix64(mix64(masterSeed ^ GOLDEN_GAMMA) + GOLDEN_GAMMA * mix64(name.hashCode()));
+  }
+
+  /**
+   * A generator is ranked by the first draw of the worker from it, so the ranks are the same when a run with the same
+   * master seed is replayed, even in the same JVM, whatever generators were created before.
+   *
+   * @return the seed of the next stream of the current worker, never 0
+   */
+  static long streamSeed() {
+    String worker = CurrentThreadpool.getWorker();
+    if (worker == null) {
+      worker = Thread.currentThread().getName();
+    }
+    AtomicLong streamCount = workerStreamCounts.get(worker);
+    if (streamCount == null) {
+      streamCount = new AtomicLong();
+      AtomicLong previous = workerStreamCounts.putIfAbsent(worker, streamCount);
+      if (previous != null) {
+        streamCount = previous;
+      }
+    }
+    long streamId = streamCount.getAndIncrement();
+    Long workerSeed = workerSeeds.get(worker);
+    if (workerSeed == null) {
+      workerSeed = mix64(masterSeed + GOLDEN_GAMMA * mix64(worker.hashCode()));
+      Long previous = workerSeeds.putIfAbsent(worker, workerSeed);
+      if (previous != null) {
+        workerSeed = previous;
+      }
+    }
+    long seed = mix64(workerSeed + GOLDEN_GAMMA * (streamId + 1));
+    return seed == 0L ? GOLDEN_GAMMA : seed;
+  }
+
+  /**
+   * SplitMix64 finalizer
+   */
+  static long mix64(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -45,9 +45,13 @@ import java.util.List;
 public class RangeMap<E> {
 
   private static final int DEFAULT_CAPACITY = 4;
+  private static final float[] EMPTY_FLOATS = new float[0];
+  private static final Object[] EMPTY_VALUES = new Object[0];
 
-  private float[] upperBounds = new float[DEFAULT_CAPACITY];
-  private Object[] values = new Object[DEFAULT_CAPACITY];
+  // allocated on the first put, a frozen map never allocates them
+  private float[] weights = EMPTY_FLOATS;
+  private float[] upperBounds = EMPTY_FLOATS;
+  private Object[] values = EMPTY_VALUES;
   private int size = 0;
   private float higherBound = 0.0f;
 
@@ -55,6 +59,7 @@ public class RangeMap<E> {
     if (weight > 0) {
       ensureCapacity(size + 1);
       higherBound += weight;
+      weights[size] = weight;
       upperBounds[size] = higherBound;
       values[size] = value;
       size++;
@@ -90,15 +95,29 @@ public class RangeMap<E> {
     return get(concurrentPseudoRandom.nextFloat(higherBound));
   }
 
+  /**
+   * @return an immutable copy of this map, whose random values are picked without synchronization
+   */
+  public synchronized FrozenRangeMap<E> freeze() {
+    double[] frozenWeights = new double[size];
+    for (int i = 0; i < size; i++) {
+      frozenWeights[i] = weights[i];
+    }
+    return new FrozenRangeMap<E>(frozenWeights, new ArrayList<E>(getAll()));
+  }
+
   private void ensureCapacity(int capacity) {
     if (capacity <= upperBounds.length) {
       return;
     }
-    int newCapacity = Math.max(capacity, upperBounds.length * 2);
+    int newCapacity = Math.max(capacity, Math.max(DEFAULT_CAPACITY, upperBounds.length * 2));
+    float[] expandedWeights = new float[newCapacity];
     float[] expandedUpperBounds = new float[newCapacity];
     Object[] expandedValues = new Object[newCapacity];
+    System.arraycopy(weights, 0, expandedWeights, 0, size);
     System.arraycopy(upperBounds, 0, expandedUpperBounds, 0, size);
     System.arraycopy(values, 0, expandedValues, 0, size);
+    weights = expandedWeights;
     upperBounds = expandedUpperBounds;
     values = expandedValues;
   }
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free token bucket, capping the rate of the operations it is attached to (see
+ * {@link io.rainfall.WeightedOperation#rateLimit(TokenBucket)}, {@link io.rainfall.Scenario#rateLimit(TokenBucket)}
+ * and {@link io.rainfall.configuration.ConcurrencyConfig#rateLimit(String, TokenBucket)}).
+ * <p>
+ * The bucket is split in stripes, each refilled at its share of the rate, so that the workers mostly update different
+ * cache lines. A stripe is a generic cell rate algorithm: it only holds the theoretical time of its next permit, which
+ * is moved forward with a compare-and-set. A worker takes a permit from the first stripe that can give one, so the
+ * stripes don't waste any capacity.
+ * <p>
+ * When no permit is available, the worker waits for the next one if it comes within the maximum wait, else the permit
+ * is refused. The maximum wait is 0 by default: a capped operation is refused rather than stalling its worker, which
+ * goes on with the other operations of the scenario after a short back off (see {@link #getRefusalBackoffInNs()}).
+ * <p>
+ * A reservation tells the time to wait for the permit, and the stripe it was taken from, so that an unused permit is
+ * given back to the stripe which lent it.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class TokenBucket {
+
+  private static final int PADDING = 16;
+  private static final int STRIPE_BITS = 16;
+  private static final long STRIPE_MASK = (1L << STRIPE_BITS) - 1L;
+  private static final long MAX_WAIT_IN_NS = Long.MAX_VALUE >> STRIPE_BITS;
+  private static final long MAX_REFUSAL_BACKOFF_IN_NS = TimeUnit.MILLISECONDS.toNanos(1L);
+
+  /**
+   * Reservation of a refused permit.
+   */
+  public static final long REFUSED = -1L;
+
+  private final long permitsPerSecond;
+  private final long burst;
+  private final int stripes;
+  private final long intervalInNs;
+  private final long toleranceInNs;
+  private final AtomicLongArray nextPermitsInNs;
+  private long maxWaitInNs = 0L;
+
+  /**
+   * @param permitsPerSecond rate of the permits
+   * @param burst            amount of permits that can be taken at once after an idle period
+   */
+  public TokenBucket(final long permitsPerSecond, final long burst) {
+    this(permitsPerSecond, burst, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param permitsPerSecond rate of the permits
+   * @param burst            amount of permits that can be taken at once after an idle period
+   * @param stripes          amount of stripes, at most the burst
+   */
+  public TokenBucket(final long permitsPerSecond, final long burst, final int stripes) {
+    if (permitsPerSecond <= 0L || burst <= 0L || stripes <= 0) {
+      throw new IllegalArgumentException("The rate, the burst and the amount of stripes of a token bucket must be "
+                                         + "positive.");
+    }
+    this.permitsPerSecond = permitsPerSecond;
+    this.burst = burst;
+    this.stripes = (int)Math.min(Math.min(stripes, burst), 1L << STRIPE_BITS);
+    this.intervalInNs = Math.max(1L, TimeUnit.SECONDS.toNanos(1) * this.stripes / permitsPerSecond);
+    this.toleranceInNs = (burst / this.stripes - 1L) * intervalInNs;
+    this.nextPermitsInNs = new AtomicLongArray(this.stripes * PADDING);
+    long nowInNs = System.nanoTime();
+    for (int i = 0; i < this.stripes; i++) {
+      nextPermitsInNs.set(i * PADDING, nowInNs);
+    }
+  }
+
+  /**
+   * @param permitsPerSecond rate of the permits
+   * @return a bucket which allows bursts of up to a tenth of a second of permits
+   */
+  public static TokenBucket tokenBucket(final long permitsPerSecond) {
+    return new TokenBucket(permitsPerSecond, Math.max(1L, permitsPerSecond / 10));
+  }
+
+  /**
+   * @param maxWait maximum time a worker waits for a permit, the permit is refused beyond
+   * @param unit    unit of the time
+   * @return this bucket
+   */
+  public TokenBucket maxWait(final long maxWait, final TimeUnit unit) {
+    if (maxWait < 0L || unit.toNanos(maxWait) > MAX_WAIT_IN_NS) {
+      throw new IllegalArgumentException("The maximum wait can not be negative, nor longer than "
+                                         + TimeUnit.NANOSECONDS.toHours(MAX_WAIT_IN_NS) + " hours.");
+    }
+    this.maxWaitInNs = unit.toNanos(maxWait);
+    return this;
+  }
+
+  /**
+   * Reserves a permit.
+   *
+   * @param nowInNs current time
+   * @return the reservation of the permit, see {@link #waitInNs(long)}, or {@link #REFUSED} if the permit is refused
+   */
+  public long reserve(final long nowInNs) {
+    int first = (int)(Thread.currentThread().getId() % stripes);
+    while (true) {
+      int stripe = -1;
+      long nextPermitInNs = Long.MAX_VALUE;
+      for (int i = 0; i < stripes; i++) {
+        int candidate = ((first + i) % stripes) * PADDING;
+        long candidateNextPermitInNs = nextPermitsInNs.get(candidate);
+        if (candidateNextPermitInNs - toleranceInNs <= nowInNs) {
+          stripe = candidate;
+          nextPermitInNs = candidateNextPermitInNs;
+          break;
+        }
+        if (candidateNextPermitInNs < nextPermitInNs) {
+          stripe = candidate;
+          nextPermitInNs = candidateNextPermitInNs;
+        }
+      }
+      long waitInNs = Math.max(0L, nextPermitInNs - toleranceInNs - nowInNs);
+      if (waitInNs > maxWaitInNs) {
+        return REFUSED;
+      }
+      if (nextPermitsInNs.compareAndSet(stripe, nextPermitInNs, Math.max(nextPermitInNs, nowInNs) + intervalInNs)) {
+        return (waitInNs << STRIPE_BITS) | (stripe / PADDING);
+      }
+    }
+  }
+
+  /**
+   * @param reservation reservation of a permit which was not refused
+   * @return the time to wait before using the permit
+   */
+  public static long waitInNs(final long reservation) {
+    return reservation >>> STRIPE_BITS;
+  }
+
+  /**
+   * Gives back a permit which was reserved but not used, to the stripe it was taken from.
+   *
+   * @param reservation reservation of the permit
+   */
+  public void refund(final long reservation) {
+    nextPermitsInNs.addAndGet((int)(reservation & STRIPE_MASK) * PADDING, -intervalInNs);
+  }
+
+  /**
+   * @return the time a worker backs off after a refused permit, so that a worker whose operations are all capped
+   * doesn't spin on the bucket
+   */
+  public long getRefusalBackoffInNs() {
+    return Math.min(MAX_REFUSAL_BACKOFF_IN_NS, Math.max(1L, TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+  }
+
+  public long getPermitsPerSecond() {
+    return permitsPerSecond;
+  }
+
+  @Override
+  public String toString() {
+    return "at most " + permitsPerSecond + " operations per second (burst of " + burst
+           + (maxWaitInNs > 0L ? ", waiting up to " + TimeUnit.NANOSECONDS.toMillis(maxWaitInNs) + "ms" : "") + ")";
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to the virtual threads of the running JVM.
+ * <p>
+ * Rainfall is compiled for Java 11, so the virtual threads API (Java 21) is looked up at runtime.
+ *
+ * @author Aurelien Broszniowski
+ */
+public final class VirtualThreads {
+
+  private static final Method OF_VIRTUAL = lookupOfVirtual();
+  private static final MethodHandle IS_VIRTUAL = lookupIsVirtual();
+  private static final Method NEW_THREAD_PER_TASK_EXECUTOR = lookupNewThreadPerTaskExecutor();
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * @return true if the running JVM can create virtual threads
+   */
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * @throws IllegalStateException if the running JVM doesn't support virtual threads
+   */
+  public static void checkSupported() {
+    if (!isSupported()) {
+      throw new IllegalStateException("Virtual threads require Java 21 or later, running on Java "
+                                      + System.getProperty("java.version"));
+    }
+  }
+
+  /**
+   * @param thread a thread
+   * @return true if the thread is a virtual thread
+   */
+  public static boolean isVirtual(Thread thread) {
+    try {
+      return (boolean)IS_VIRTUAL.invokeExact(thread);
+    } catch (Throwable t) {
+      return false;
+    }
+  }
+
+  /**
+   * Creates a factory of virtual threads, named with the prefix followed by a counter.
+   *
+   * @param namePrefix prefix of the threads names
+   * @return a {@link ThreadFactory} creating virtual threads
+   * @throws IllegalStateException if the running JVM doesn't support virtual threads
+   */
+  public static ThreadFactory factory(String namePrefix) {
+    checkSupported();
+    try {
+      Object builder = OF_VIRTUAL.invoke(null);
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+      return (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Can not create a virtual thread factory", e);
+    }
+  }
+
+  /**
+   * Creates an executor starting a new virtual thread for each task, the virtual threads are cheap enough not to be
+   * pooled.
+   *
+   * @param factory factory of virtual threads, see {@link #factory(String)}
+   * @return an {@link ExecutorService} creating a thread per task
+   * @throws IllegalStateException if the running JVM doesn't support virtual threads
+   */
+  public static ExecutorService newThreadPerTaskExecutor(ThreadFactory factory) {
+    checkSupported();
+    try {
+      return (ExecutorService)NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Can not create a thread per task executor", e);
+    }
+  }
+
+  private static Method lookupOfVirtual() {
+    try {
+      Method ofVirtual = Thread.class.getMethod("ofVirtual");
+      // on Java 19 and 20, virtual threads are a preview feature which can be disabled
+      ofVirtual.invoke(null);
+      return ofVirtual;
+    } catch (Throwable t) {
+      return null;
+    }
+  }
+
+  private static Method lookupNewThreadPerTaskExecutor() {
+    try {
+      return Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+    } catch (Throwable t) {
+      return null;
+    }
+  }
+
+  private static MethodHandle lookupIsVirtual() {
+    try {
+      return MethodHandles.publicLookup()
+          .findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+    } catch (Throwable t) {
+      return MethodHandles.dropArguments(MethodHandles.constant(boolean.class, false), 0, Thread.class);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.utils;
+
+import io.rainfall.Configuration;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threadpools living as long as a {@link io.rainfall.ScenarioRun}, whose threads are lent to all its executions
+ * through {@link BorrowedExecutorService}s.
+ * <p>
+ * Reusing the same threads from an execution to the next saves the creation of the threads, and keeps their
+ * thread-local state (histogram stripes, pseudo random generators, ...) warm. The end of an execution is a barrier:
+ * {@link #awaitIdle(long, TimeUnit)} waits until no task lent by the pools is running anymore.
+ * <p>
+ * The pools belong to one run, which hands them to its executions in the configurations of the run, so that the runs
+ * sharing a {@link io.rainfall.configuration.ConcurrencyConfig} don't share their pools.
+ *
+ * @author Aurelien Broszniowski
+ */
+public class WorkerPools extends Configuration implements Closeable {
+
+  private final Map<String, ScheduledThreadPoolExecutor> pools = new HashMap<>();
+  private int runningTasks = 0;
+
+  /**
+   * @param threadCounts amount of threads of each threadpool, by name
+   */
+  public WorkerPools(final Map<String, Integer> threadCounts) {
+    for (Map.Entry<String, Integer> threadCount : threadCounts.entrySet()) {
+      final String threadpoolName = threadCount.getKey();
+      final AtomicInteger threadNumber = new AtomicInteger();
+      ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(threadCount.getValue(),
+          CurrentThreadpool.factory(threadpoolName, runnable -> {
+            Thread thread = new Thread(runnable,
+                "Rainfall-core Worker " + threadpoolName + " - " + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+          }));
+      pool.setRemoveOnCancelPolicy(true);
+      pools.put(threadpoolName, pool);
+    }
+  }
+
+  public boolean contains(final String threadpoolName) {
+    return pools.containsKey(threadpoolName);
+  }
+
+  /**
+   * @param threadpoolName name of the threadpool
+   * @return a view of the threadpool for one execution
+   */
+  public BorrowedExecutorService borrow(final String threadpoolName) {
+    ScheduledThreadPoolExecutor pool = pools.get(threadpoolName);
+    if (pool == null) {
+      throw new IllegalArgumentException("No worker pool is named " + threadpoolName);
+    }
+    return new BorrowedExecutorService(pool, this);
+  }
+
+  synchronized void taskStarted() {
+    runningTasks++;
+  }
+
+  synchronized void taskFinished() {
+    runningTasks--;
+    if (runningTasks == 0) {
+      notifyAll();
+    }
+  }
+
+  /**
+   * Waits until all the tasks lent by the pools are done.
+   *
+   * @return true if the pools are idle, false if the timeout elapsed before
+   */
+  public synchronized boolean awaitIdle(final long timeout, final TimeUnit unit) throws InterruptedException {
+    long deadlineInNs = System.nanoTime() + unit.toNanos(timeout);
+    while (runningTasks > 0) {
+      long remainingInNs = deadlineInNs - System.nanoTime();
+      if (remainingInNs <= 0L) {
+        return false;
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remainingInNs);
+    }
+    return true;
+  }
+
+  @Override
+  public List<String> getDescription() {
+    List<String> description = new ArrayList<String>();
+    for (Map.Entry<String, ScheduledThreadPoolExecutor> pool : pools.entrySet()) {
+      description.add("Worker pool [" + pool.getKey() + "] : " + pool.getValue().getCorePoolSize() + " threads");
+    }
+    return description;
+  }
+
+  @Override
+  public void close() {
+    for (ScheduledThreadPoolExecutor pool : pools.values()) {
+      pool.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall;
+
+import io.rainfall.configuration.ConcurrencyConfig;
+import io.rainfall.execution.Times;
+import io.rainfall.statistics.RuntimeStatisticsHolder;
+import io.rainfall.statistics.ScheduledStatisticsHolder;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.StatisticsPeek;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+public class AsyncOperationTest {
+
+  private enum Result {
+    OK, KO
+  }
+
+  @Test
+  public void operationsShouldBeRecordedOnCompletionAndBoundedInFlight() throws Exception {
+    RuntimeStatisticsHolder<Result> statisticsHolder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+    final ConcurrencyConfig concurrencyConfig = new ConcurrencyConfig().threads(1).maxInFlight(3);
+    final ConcurrentLinkedQueue<CompletableFuture<Result>> pending = new ConcurrentLinkedQueue<>();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    AsyncOperation get = new AsyncOperation("get", Result.KO) {
+      @Override
+      protected CompletionStage<Result> execAsync(final Map<Class<? extends Configuration>, Configuration> configurations,
+                                                  final List<AssertionEvaluator> assertions) {
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        pending.add(future);
+        maxInFlight.accumulateAndGet(concurrencyConfig.getInFlightLimiter(null).getInFlight(), Math::max);
+        return future;
+      }
+    };
+
+    // completes the requests in the background, the failing ones every 5 requests
+    Thread server = new Thread(() -> {
+      int count = 0;
+      while (count < 20) {
+        CompletableFuture<Result> future = pending.poll();
+        if (future == null) {
+          Thread.yield();
+          continue;
+        }
+        if (++count % 5 == 0) {
+          future.completeExceptionally(new IllegalStateException("failed"));
+        } else {
+          future.complete(Result.OK);
+        }
+      }
+    });
+    server.start();
+
+    new Times(20).execute(statisticsHolder, Scenario.scenario("async").exec(get),
+        Collections.<Class<? extends Configuration>, Configuration>singletonMap(ConcurrencyConfig.class,
+            concurrencyConfig), Collections.<AssertionEvaluator>emptyList());
+    assertThat(concurrencyConfig.awaitInFlightCompletion(5, TimeUnit.SECONDS), is(true));
+    server.join();
+
+    assertThat(maxInFlight.get(), lessThanOrEqualTo(3));
+    StatisticsPeek<Result> peek = statisticsHolder.peek().getStatisticsPeeks("get");
+    assertThat(peek.getCumulativeCounters(Result.OK), is(16L));
+    assertThat(peek.getCumulativeCounters(Result.KO), is(4L));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void completionShouldBeRecordedWithTheScheduleOfItsDispatch() throws TestException {
+    StatisticsHolder<Result> statisticsHolder = mock(StatisticsHolder.class);
+    ScheduledStatisticsHolder<Result> scheduledStatisticsHolder = new ScheduledStatisticsHolder<Result>(statisticsHolder);
+    final CompletableFuture<Result> pending = new CompletableFuture<>();
+    AsyncOperation get = new AsyncOperation("get", Result.KO) {
+      @Override
+      protected CompletionStage<Result> execAsync(final Map<Class<? extends Configuration>, Configuration> configurations,
+                                                  final List<AssertionEvaluator> assertions) {
+        return pending;
+      }
+    };
+
+    scheduledStatisticsHolder.schedule(5_000_000L);
+    get.exec(scheduledStatisticsHolder, Collections.<Class<? extends Configuration>, Configuration>emptyMap(),
+        Collections.<AssertionEvaluator>emptyList());
+    // the worker moves on to its next operation before the completion
+    scheduledStatisticsHolder.schedule(2_000_000L);
+    pending.complete(null);
+
+    verify(statisticsHolder).record("get", 5_000_000L, Result.KO);
+    verify(statisticsHolder, never()).record("get", 2_000_000L, Result.KO);
+  }
+
+  @Test
+  public void failureToSendShouldReleaseThePermit() {
+    ConcurrencyConfig concurrencyConfig = new ConcurrencyConfig().maxInFlight(1);
+    AsyncOperation failing = new AsyncOperation("put", Result.KO) {
+      @Override
+      protected CompletionStage<Result> execAsync(final Map<Class<? extends Configuration>, Configuration> configurations,
+                                                  final List<AssertionEvaluator> assertions) {
+        throw new IllegalStateException("not connected");
+      }
+    };
+    RuntimeStatisticsHolder<Result> statisticsHolder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+    for (int i = 0; i < 2; i++) {
+      try {
+        failing.exec(statisticsHolder, Collections.<Class<? extends Configuration>, Configuration>singletonMap(
+            ConcurrencyConfig.class, concurrencyConfig), Collections.<AssertionEvaluator>emptyList());
+      } catch (IllegalStateException | TestException e) {
+        // expected
+      }
+    }
+    assertThat(concurrencyConfig.getInFlightLimiter(null).getInFlight(), is(0));
+  }
+}
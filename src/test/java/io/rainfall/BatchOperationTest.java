@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall;
+
+import io.rainfall.batch.BatchSize;
+import io.rainfall.statistics.RuntimeStatisticsHolder;
+import io.rainfall.statistics.StatisticsPeek;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+public class BatchOperationTest {
+
+  private enum Result {
+    OK, KO
+  }
+
+  @Test
+  public void batchShouldBeRecordedOnceWithItsSize() throws TestException {
+    RuntimeStatisticsHolder<Result> statisticsHolder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+    final List<Integer> sizes = new ArrayList<Integer>();
+    BatchOperation multiGet = new BatchOperation("multi-get", BatchSize.fixed(25)) {
+      @Override
+      protected Enum execBatch(final int batchSize,
+                               final Map<Class<? extends Configuration>, Configuration> configurations,
+                               final List<AssertionEvaluator> assertions) {
+        sizes.add(batchSize);
+        return Result.OK;
+      }
+    };
+
+    multiGet.exec(statisticsHolder, Collections.emptyMap(), Collections.emptyList());
+    multiGet.exec(statisticsHolder, Collections.emptyMap(), Collections.emptyList());
+
+    assertThat(sizes, contains(25, 25));
+    StatisticsPeek<Result> peek = statisticsHolder.peek().getStatisticsPeeks("multi-get");
+    assertThat(peek.getCumulativeCounters(Result.OK), is(2L));
+    assertThat(peek.getCumulativeItemCounters(Result.OK), is(50L));
+    assertThat(multiGet.getDescription(), contains("multi-get in batches of 25"));
+  }
+}
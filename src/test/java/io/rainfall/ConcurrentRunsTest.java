@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall;
+
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.StatisticsPeekHolder;
+import io.rainfall.utils.ConcurrentPseudoRandom;
+import io.rainfall.utils.CurrentThreadpool;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static io.rainfall.configuration.ReportingConfig.html;
+import static io.rainfall.configuration.ReportingConfig.report;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+public class ConcurrentRunsTest {
+
+  private enum Result {
+    OK, KO
+  }
+
+  @Test
+  public void runsShouldExecuteSideBySideWithTheirOwnStatistics() throws Exception {
+    // each execution waits for the other one, which only ends if both run at the same time
+    CountDownLatch running = new CountDownLatch(2);
+    ScenarioRun<Result> foreground = new ScenarioRun<Result>(Scenario.scenario("foreground"))
+        .executed(new RecordingExecution(running, 3))
+        .config(report(Result.class).log(html("target/concurrent-runs/foreground")));
+    ScenarioRun<Result> background = new ScenarioRun<Result>(Scenario.scenario("background"))
+        .executed(new RecordingExecution(running, 7))
+        .config(report(Result.class).log(html("target/concurrent-runs/background")));
+
+    Map<ScenarioRun<?>, StatisticsPeekHolder<?>> peeks = Runner.concurrently(foreground, background)
+        .seed(42L)
+        .report("target/concurrent-runs/aggregated")
+        .start();
+
+    StatisticsPeekHolder<?> foregroundPeek = peeks.get(foreground);
+    StatisticsPeekHolder<?> backgroundPeek = peeks.get(background);
+    assertThat(foregroundPeek.getTotalStatisticsPeeks().getSumOfCumulativeCounters(), is(3L));
+    assertThat(backgroundPeek.getTotalStatisticsPeeks().getSumOfCumulativeCounters(), is(7L));
+    assertThat(foregroundPeek.getStartTime(), is(backgroundPeek.getStartTime()));
+    assertThat(foregroundPeek.getPhases().size(), is(1));
+    assertThat(backgroundPeek.getPhases().size(), is(1));
+    assertTrue(new File("target/concurrent-runs/aggregated/aggregated-report.html").exists());
+    assertTrue(new File("target/concurrent-runs/aggregated/foreground").isDirectory());
+    assertTrue(new File("target/concurrent-runs/aggregated/background").isDirectory());
+  }
+
+  @Test
+  public void runFailingBeforeTheStartShouldReleaseTheOtherRuns() throws Exception {
+    ScenarioRun<Result> failing = new ScenarioRun<Result>(Scenario.scenario("failing"))
+        .warmup(new Execution() {
+          @Override
+          public <E extends Enum<E>> void execute(final StatisticsHolder<E> statisticsHolder, final Scenario scenario,
+                                                  final Map<Class<? extends Configuration>, Configuration> configurations,
+                                                  final List<AssertionEvaluator> assertions) throws TestException {
+            throw new TestException("warmup failed");
+          }
+
+          @Override
+          public String toString() {
+            return "failing warmup";
+          }
+        })
+        .executed(new RecordingExecution(new CountDownLatch(0), 1))
+        .config(report(Result.class));
+    ScenarioRun<Result> waiting = new ScenarioRun<Result>(Scenario.scenario("waiting"))
+        .executed(new RecordingExecution(new CountDownLatch(0), 1))
+        .config(report(Result.class));
+
+    try {
+      Runner.concurrently(waiting, failing).start();
+      fail("The failure of a run should fail the concurrent runs");
+    } catch (RuntimeException e) {
+      assertThat(e.getMessage(), containsString("A concurrent scenario run failed"));
+    }
+  }
+
+  @Test
+  public void runsShouldDrawDistinctStreamsAndBeStartedAgain() throws Exception {
+    ConcurrentPseudoRandom rnd = new ConcurrentPseudoRandom();
+    DrawingExecution first = new DrawingExecution(rnd);
+    DrawingExecution second = new DrawingExecution(rnd);
+    ConcurrentRuns runs = Runner.concurrently(
+        new ScenarioRun<Result>(Scenario.scenario("first")).executed(first).config(report(Result.class)),
+        new ScenarioRun<Result>(Scenario.scenario("second")).executed(second).config(report(Result.class)))
+        .seed(42L);
+
+    runs.start();
+    long firstValue = first.value;
+    // both runs draw from a worker of their DEFAULT threadpool
+    assertThat(firstValue, is(not(second.value)));
+
+    runs.start();
+    assertThat(first.value, is(firstValue));
+  }
+
+  private static class DrawingExecution extends Execution {
+    private final ConcurrentPseudoRandom rnd;
+    private volatile long value;
+
+    DrawingExecution(final ConcurrentPseudoRandom rnd) {
+      this.rnd = rnd;
+    }
+
+    @Override
+    public <E extends Enum<E>> void execute(final StatisticsHolder<E> statisticsHolder, final Scenario scenario,
+                                            final Map<Class<? extends Configuration>, Configuration> configurations,
+                                            final List<AssertionEvaluator> assertions) throws TestException {
+      ExecutorService executor = Executors.newSingleThreadExecutor(
+          CurrentThreadpool.factory("DEFAULT", Executors.defaultThreadFactory()));
+      try {
+        value = executor.submit(() -> rnd.nextLong()).get();
+      } catch (InterruptedException | ExecutionException e) {
+        throw new TestException("Can not draw a value", e);
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "drawing";
+    }
+  }
+
+  private static class RecordingExecution extends Execution {
+    private final CountDownLatch running;
+    private final int count;
+
+    RecordingExecution(final CountDownLatch running, final int count) {
+      this.running = running;
+      this.count = count;
+    }
+
+    @Override
+    public <E extends Enum<E>> void execute(final StatisticsHolder<E> statisticsHolder, final Scenario scenario,
+                                            final Map<Class<? extends Configuration>, Configuration> configurations,
+                                            final List<AssertionEvaluator> assertions) throws TestException {
+      running.countDown();
+      try {
+        if (!running.await(10, TimeUnit.SECONDS)) {
+          throw new TestException("The other run is not running");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new TestException("Interrupted while waiting for the other run", e);
+      }
+      for (int i = 0; i < count; i++) {
+        statisticsHolder.record("op", 1_000_000L, (E)Result.OK);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "recording " + count;
+    }
+  }
+}
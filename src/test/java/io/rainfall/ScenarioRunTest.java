@@ -23,6 +23,7 @@ import io.rainfall.reporting.Reporter;
 import io.rainfall.statistics.RuntimeStatisticsHolder;
 import io.rainfall.statistics.StatisticsHolder;
 import io.rainfall.statistics.StatisticsPeekHolder;
+import io.rainfall.utils.OperationWatchdog;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
@@ -109,6 +110,27 @@ public class ScenarioRunTest {
   }
 
 
+  @Test
+  public void calibrationShouldMeasureTheHarnessOverhead() throws Exception {
+    final AtomicInteger executions = new AtomicInteger();
+    Scenario scenario = Scenario.scenario("calibrated").exec(
+        weighted(0.25, new CountingOperation(executions)),
+        weighted(0.75, new CountingOperation(executions)));
+    Calibration calibration = Calibration.calibration(10_000).subtractOverhead();
+
+    new ScenarioRun<Result>(scenario)
+        .calibrate(calibration)
+        .executed(times(100))
+        .config(ConcurrencyConfig.concurrencyConfig().threads(2), report(Result.class))
+        .start();
+
+    assertThat(executions.get(), is(100));
+    assertTrue(calibration.getTimePerOperationInNs() > 0d);
+    assertTrue(calibration.getMaxTpsPerThread() > 0d);
+    assertTrue(calibration.getMedianOverheadInNs() >= 0L);
+    assertThat(calibration.getDescription().size(), is(2));
+  }
+
   @Test
   public void testCorrectInstantiation() {
     Runner runner = mock(Runner.class);
@@ -207,6 +229,47 @@ public class ScenarioRunTest {
     assertThat(secondPeek.getTotalStatisticsPeeks().getSumOfPeriodicCounters(), is(5L));
   }
 
+  @Test
+  public void hungOperationShouldAbandonTheRun() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    Scenario scenario = Scenario.scenario("hung").exec(new WeightedOperation(1.0, new Operation() {
+      @Override
+      public void exec(final StatisticsHolder statisticsHolder,
+                       final Map<Class<? extends Configuration>, Configuration> configurations,
+                       final List<AssertionEvaluator> assertions) {
+        // ignores the interruptions, like a call stuck in a non interruptible read
+        while (release.getCount() > 0) {
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            // hung
+          }
+        }
+      }
+
+      @Override
+      public List<String> getDescription() {
+        return List.of("hung");
+      }
+    }).named("hung-read").timeout(100, TimeUnit.MILLISECONDS));
+
+    long start = System.nanoTime();
+    try {
+      new ScenarioRun<Result>(scenario)
+          .executed(times(1))
+          .config(ConcurrencyConfig.concurrencyConfig().onOperationTimeout(OperationWatchdog.Action.ABANDON),
+              report(Result.class))
+          .start();
+      fail("The run should have been abandoned");
+    } catch (RuntimeException e) {
+      assertThat(e.getMessage(), is("The run was abandoned, the operation hung-read is hung."));
+    } finally {
+      release.countDown();
+    }
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    assertThat(Thread.currentThread().isInterrupted(), is(false));
+  }
+
   @Test
   public void firstPeriodicReportShouldWaitForTheFullInterval() {
     ScenarioRun<Result> scenarioRun = new ScenarioRun<Result>(Scenario.scenario("initial-delay"));
@@ -313,4 +376,26 @@ public class ScenarioRunTest {
       return summarizeObservedActiveReport.get();
     }
   }
+
+  private static class CountingOperation implements Operation {
+    private final AtomicInteger executions;
+
+    CountingOperation(final AtomicInteger executions) {
+      this.executions = executions;
+    }
+
+    @Override
+    public void exec(final StatisticsHolder statisticsHolder,
+                     final Map<Class<? extends Configuration>, Configuration> configurations,
+                     final List<AssertionEvaluator> assertions) {
+      executions.incrementAndGet();
+      statisticsHolder.record("counting", 1_000L, Result.OK);
+    }
+
+    @Override
+    public List<String> getDescription() {
+      return List.of("counting");
+    }
+  }
+
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall;
+
+import io.rainfall.configuration.ConcurrencyConfig;
+import io.rainfall.execution.Times;
+import io.rainfall.statistics.RuntimeStatisticsHolder;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.StatisticsPeek;
+import io.rainfall.utils.TokenBucket;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.rainfall.configuration.ConcurrencyConfig.defaultThreadpoolname;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+public class WeightedOperationTest {
+
+  private enum Result {
+    OK
+  }
+
+  @Test
+  public void cappedOperationShouldBeRefusedWithoutSlowingTheOthers() throws TestException {
+    AtomicInteger writes = new AtomicInteger();
+    AtomicInteger reads = new AtomicInteger();
+    Scenario scenario = Scenario.scenario("capped writes").exec(
+        new WeightedOperation(0.5, countingOperation(writes)).rateLimit(new TokenBucket(10, 10, 1)),
+        new WeightedOperation(0.5, countingOperation(reads)));
+
+    // the workers back off 1ms after a refused permit
+    RuntimeStatisticsHolder<Result> statisticsHolder = execute(scenario, 400);
+
+    StatisticsPeek<Result> peek = statisticsHolder.peek().getTotalStatisticsPeeks();
+    assertThat(writes.get(), lessThanOrEqualTo(20));
+    assertThat(reads.get(), greaterThan(150));
+    assertThat(writes.get() + reads.get() + peek.getCumulativeRefusedCount(), is(400L));
+  }
+
+  @Test
+  public void permitsShouldBeTakenAtEveryLevel() throws TestException {
+    AtomicInteger writes = new AtomicInteger();
+    AtomicInteger reads = new AtomicInteger();
+    Scenario scenario = Scenario.scenario("capped threadpool").exec(
+        new WeightedOperation(0.5, countingOperation(writes)),
+        new WeightedOperation(0.5, countingOperation(reads)).rateLimit(new TokenBucket(1000, 1000, 1)));
+    Scenario runScenario = scenario.forRun(
+        Collections.singletonMap(defaultThreadpoolname, new TokenBucket(10, 10, 1)), null);
+
+    // the workers back off 1ms after a refused permit
+    execute(runScenario, 200);
+
+    assertThat(writes.get() + reads.get(), lessThanOrEqualTo(20));
+  }
+
+  @Test
+  public void theStateOfARunShouldNotBeKeptInTheScenario() {
+    Operation operation = countingOperation(new AtomicInteger());
+    Scenario scenario = Scenario.scenario("shared").exec(operation);
+
+    Scenario runScenario = scenario.forRun(
+        Collections.singletonMap(defaultThreadpoolname, new TokenBucket(10, 10, 1)), null);
+
+    assertThat(scenario.getOperations().get(defaultThreadpoolname).getAll().iterator().next().getOperation(),
+        sameInstance(operation));
+    assertThat(runScenario.getOperations().get(defaultThreadpoolname).getAll().iterator().next().getOperation(),
+        not(sameInstance(operation)));
+  }
+
+  @Test
+  public void throttledTimeShouldBeRecordedApart() throws TestException {
+    AtomicInteger writes = new AtomicInteger();
+    Scenario scenario = Scenario.scenario("throttled").exec(countingOperation(writes))
+        .rateLimit(new TokenBucket(100, 1, 1).maxWait(1, TimeUnit.SECONDS));
+
+    RuntimeStatisticsHolder<Result> statisticsHolder = execute(scenario, 20);
+
+    StatisticsPeek<Result> peek = statisticsHolder.peek().getTotalStatisticsPeeks();
+    assertThat(writes.get(), is(20));
+    assertThat(peek.getCumulativeRefusedCount(), is(0L));
+    assertThat(peek.getCumulativeThrottledTimeInNs(), greaterThan(TimeUnit.MILLISECONDS.toNanos(150)));
+    // the operations measure their own response time, without the throttled time
+    assertThat(statisticsHolder.fetchHistogram(Result.OK).getMaxValue(), lessThanOrEqualTo(2000L));
+  }
+
+  private RuntimeStatisticsHolder<Result> execute(final Scenario scenario, final long occurrences)
+      throws TestException {
+    RuntimeStatisticsHolder<Result> statisticsHolder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+    new Times(occurrences).execute(statisticsHolder, scenario,
+        Collections.<Class<? extends Configuration>, Configuration>singletonMap(ConcurrencyConfig.class,
+            new ConcurrencyConfig().threads(1)),
+        Collections.<AssertionEvaluator>emptyList());
+    return statisticsHolder;
+  }
+
+  private Operation countingOperation(final AtomicInteger count) {
+    return new Operation() {
+      @Override
+      public void exec(final StatisticsHolder statisticsHolder,
+                       final Map<Class<? extends Configuration>, Configuration> configurations,
+                       final List<AssertionEvaluator> assertions) {
+        count.incrementAndGet();
+        statisticsHolder.record("counting", 1000L, Result.OK);
+      }
+
+      @Override
+      public List<String> getDescription() {
+        return Collections.singletonList("counting");
+      }
+    };
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.batch;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+public class BatchSizeTest {
+
+  @Test
+  public void fixedBatchSizeShouldNotChange() {
+    BatchSize batchSize = BatchSize.fixed(50);
+    batchSize.completed(50, TimeUnit.SECONDS.toNanos(10));
+    assertThat(batchSize.next(), is(50));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fixedBatchSizeShouldBePositive() {
+    BatchSize.fixed(0);
+  }
+
+  @Test
+  public void latencyTargetBatchSizeShouldConvergeTowardsTheTargetLatency() {
+    BatchSize batchSize = BatchSize.latencyTarget(1, 10_000, 10, TimeUnit.MILLISECONDS);
+
+    // a store taking 1ms per call plus 0.1ms per item, 10ms for a batch of 90 items
+    for (int i = 0; i < 200; i++) {
+      int size = batchSize.next();
+      batchSize.completed(size, TimeUnit.MICROSECONDS.toNanos(1000 + 100 * size));
+    }
+    assertThat(batchSize.next(), allOf(greaterThanOrEqualTo(85), lessThanOrEqualTo(95)));
+  }
+
+  @Test
+  public void latencyTargetBatchSizeShouldStayWithinItsBounds() {
+    BatchSize batchSize = BatchSize.latencyTarget(5, 20, 10, TimeUnit.MILLISECONDS);
+    for (int i = 0; i < 100; i++) {
+      batchSize.completed(batchSize.next(), TimeUnit.MICROSECONDS.toNanos(1));
+    }
+    assertThat(batchSize.next(), is(20));
+    for (int i = 0; i < 100; i++) {
+      batchSize.completed(batchSize.next(), TimeUnit.SECONDS.toNanos(1));
+    }
+    assertThat(batchSize.next(), is(5));
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.benchmark;
+
+import io.rainfall.ObjectGenerator;
+import io.rainfall.SequenceGenerator;
+import io.rainfall.generator.IterationSequenceGenerator;
+import io.rainfall.generator.RandomStringGenerator;
+import io.rainfall.generator.StringGenerator;
+import io.rainfall.generator.StripedLongSequenceGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation of the keys and values used by the operations.
+ *
+ * @author Aurelien Broszniowski
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+
+  private SequenceGenerator iterationSequenceGenerator;
+  private SequenceGenerator stripedLongSequenceGenerator;
+  private ObjectGenerator<String> stringGenerator;
+  private ObjectGenerator<String> randomStringGenerator;
+  private long seed;
+
+  @Setup
+  public void setUp() {
+    iterationSequenceGenerator = new IterationSequenceGenerator();
+    stripedLongSequenceGenerator = new StripedLongSequenceGenerator(4, new StripedLongSequenceGenerator.InstanceIndexSupplier() {
+      @Override
+      public Integer get() {
+        return 1;
+      }
+    });
+    stringGenerator = new StringGenerator(32);
+    randomStringGenerator = new RandomStringGenerator(32);
+  }
+
+  @Benchmark
+  public long iterationSequenceNext() {
+    return iterationSequenceGenerator.next();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public long iterationSequenceNext4Threads() {
+    return iterationSequenceGenerator.next();
+  }
+
+  @Benchmark
+  public long stripedLongSequenceNext() {
+    return stripedLongSequenceGenerator.next();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public long stripedLongSequenceNext4Threads() {
+    return stripedLongSequenceGenerator.next();
+  }
+
+  @Benchmark
+  public String stringGenerate() {
+    return stringGenerator.generate(seed++);
+  }
+
+  @Benchmark
+  public String randomStringGenerate() {
+    return randomStringGenerator.generate(seed++);
+  }
+}
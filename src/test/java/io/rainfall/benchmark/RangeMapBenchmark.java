@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.benchmark;
+
+import io.rainfall.utils.ConcurrentPseudoRandom;
+import io.rainfall.utils.FrozenRangeMap;
+import io.rainfall.utils.RangeMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selection of the next weighted operation of a scenario with {@link RangeMap#getNextRandom}, on a mutable
+ * {@link RangeMap} and on the {@link FrozenRangeMap} used by the scenarios.
+ *
+ * @author Aurelien Broszniowski
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RangeMapBenchmark {
+
+  @Param({ "1", "4", "16", "64" })
+  public int operations;
+
+  private RangeMap<Integer> rangeMap;
+  private RangeMap<Integer> frozenRangeMap;
+  private ConcurrentPseudoRandom random;
+
+  @Setup
+  public void setUp() {
+    rangeMap = new RangeMap<Integer>();
+    for (int i = 0; i < operations; i++) {
+      rangeMap.put(1.0f / operations, i);
+    }
+    frozenRangeMap = rangeMap.freeze();
+    random = new ConcurrentPseudoRandom();
+  }
+
+  @Benchmark
+  public Integer getNextRandom() {
+    return rangeMap.getNextRandom(random);
+  }
+
+  @Benchmark
+  public Integer getNextRandomFrozen() {
+    return frozenRangeMap.getNextRandom(random);
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.benchmark;
+
+import io.rainfall.statistics.RuntimeStatisticsHolder;
+import io.rainfall.statistics.StatisticsPeekHolder;
+import org.HdrHistogram.Histogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the statistics recording and reporting path: {@link RuntimeStatisticsHolder#record} with an
+ * increasing amount of recording threads, the aggregation of the histograms and the construction of a
+ * {@link StatisticsPeekHolder} for a reporting tick.
+ *
+ * @author Aurelien Broszniowski
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticsHolderBenchmark {
+
+  public enum Result {
+    OK, ERROR, TIMEOUT
+  }
+
+  @Param({ "1", "16" })
+  public int names;
+
+  private RuntimeStatisticsHolder<Result> statisticsHolder;
+  private String[] operationNames;
+
+  @Setup
+  public void setUp() {
+    statisticsHolder = new RuntimeStatisticsHolder<Result>(Result.values(), Result.values(), Collections.emptySet());
+    operationNames = new String[names];
+    for (int i = 0; i < names; i++) {
+      operationNames[i] = "operation-" + i;
+      for (Result result : Result.values()) {
+        statisticsHolder.record(operationNames[i], 1000L + i, result);
+      }
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void record1Thread() {
+    statisticsHolder.record(operationNames[0], 1000L, Result.OK);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void record4Threads() {
+    statisticsHolder.record(operationNames[0], 1000L, Result.OK);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void recordMaxThreads() {
+    statisticsHolder.record(operationNames[0], 1000L, Result.OK);
+  }
+
+  @Benchmark
+  public Histogram fetchHistogram() {
+    statisticsHolder.record(operationNames[0], 1000L, Result.OK);
+    return statisticsHolder.fetchHistogram(Result.OK);
+  }
+
+  @Benchmark
+  public StatisticsPeekHolder<Result> peek() {
+    return statisticsHolder.peek();
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.benchmark;
+
+import io.rainfall.statistics.RuntimeStatisticsHolder;
+import io.rainfall.statistics.StatisticsRecorder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares recording by name with recording through a registered {@link StatisticsRecorder}.
+ * Run with the gc profiler to check that the steady state doesn't allocate (gc.alloc.rate.norm close to 0).
+ *
+ * @author Aurelien Broszniowski
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticsRecorderBenchmark {
+
+  public enum Result {
+    OK, ERROR
+  }
+
+  private RuntimeStatisticsHolder<Result> statisticsHolder;
+  private StatisticsRecorder recorder;
+
+  @Setup
+  public void setUp() {
+    statisticsHolder = new RuntimeStatisticsHolder<Result>(Result.values(), Result.values(), Collections.emptySet());
+    recorder = statisticsHolder.register("get");
+  }
+
+  @Benchmark
+  public void recordByName() {
+    statisticsHolder.record("get", 1000L, Result.OK);
+  }
+
+  @Benchmark
+  public void recordWithRecorder() {
+    recorder.record(1000L, Result.OK);
+  }
+}
@@ -16,12 +16,20 @@
 
 package io.rainfall.configuration;
 
+import io.rainfall.utils.VirtualThreads;
 import org.junit.Test;
 
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import static io.rainfall.configuration.ConcurrencyConfig.defaultThreadpoolname;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -106,4 +114,39 @@ public class ConcurrencyConfigTest {
     assertThat(config.getIterationCountForThread(defaultThreadpoolname, distributedConfig, 3, 12L), is(equalTo(1L)));
   }
 
+  @Test
+  public void virtualThreadpoolsShouldRunOnVirtualThreads() throws Exception {
+    assumeTrue(VirtualThreads.isSupported());
+    ConcurrencyConfig config = new ConcurrencyConfig().threads("platform", 2).virtualThreads("virtual", 1000);
+
+    Map<String, ExecutorService> executors = config.createFixedExecutorService();
+    assertThat(executors.get("virtual").submit(() -> VirtualThreads.isVirtual(Thread.currentThread())).get(), is(true));
+    assertThat(executors.get("platform").submit(() -> VirtualThreads.isVirtual(Thread.currentThread())).get(), is(false));
+    for (ExecutorService executor : executors.values()) {
+      executor.shutdown();
+    }
+
+    Map<String, ScheduledExecutorService> schedulers = config.createScheduledExecutorService();
+    assertThat(schedulers.get("virtual").schedule(() -> VirtualThreads.isVirtual(Thread.currentThread()),
+        1, TimeUnit.MILLISECONDS).get(), is(true));
+    for (ScheduledExecutorService scheduler : schedulers.values()) {
+      scheduler.shutdown();
+    }
+  }
+
+  @Test
+  public void platformThreadsShouldReplaceVirtualThreads() {
+    assumeTrue(VirtualThreads.isSupported());
+    ConcurrencyConfig config = new ConcurrencyConfig().virtualThreads(10).threads(4);
+
+    assertThat(config.isVirtual(defaultThreadpoolname), is(false));
+    assertThat(config.getThreadCount(defaultThreadpoolname), is(4));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void virtualThreadsShouldBeRejectedWhenUnsupported() {
+    assumeFalse(VirtualThreads.isSupported());
+    new ConcurrencyConfig().virtualThreads(10);
+  }
+
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+import io.rainfall.AssertionEvaluator;
+import io.rainfall.Configuration;
+import io.rainfall.Operation;
+import io.rainfall.Scenario;
+import io.rainfall.TestException;
+import io.rainfall.configuration.ConcurrencyConfig;
+import io.rainfall.execution.arrival.ArrivalProcess;
+import io.rainfall.statistics.RuntimeStatisticsHolder;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.unit.Over;
+import io.rainfall.unit.TimeDivision;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.rainfall.execution.Executions.adaptiveRate;
+import static io.rainfall.execution.ServiceLevelObjective.slo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class AdaptiveRateTest {
+
+  private enum Result {
+    OK, KO
+  }
+
+  private static final TimeDivision milliseconds = new TimeDivision(TimeUnit.MILLISECONDS);
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void aimdShouldIncreaseAdditivelyAndDecreaseMultiplicatively() {
+    ServiceLevelObjective slo = slo().percentile(99.0, 10, TimeUnit.MILLISECONDS).errorRatio(0.01, Result.KO);
+    AimdController aimd = new AimdController(10, 0.5);
+
+    assertThat(aimd.nextRate(100, TimeUnit.MILLISECONDS.toNanos(5), 0.0, slo), closeTo(110, 0.001));
+    assertThat(aimd.nextRate(100, TimeUnit.MILLISECONDS.toNanos(20), 0.0, slo), closeTo(50, 0.001));
+    assertThat(aimd.nextRate(100, TimeUnit.MILLISECONDS.toNanos(5), 0.1, slo), closeTo(50, 0.001));
+  }
+
+  @Test
+  public void pidShouldConvergeTowardsTheTargetLatency() {
+    ServiceLevelObjective slo = slo().percentile(99.0, 10, TimeUnit.MILLISECONDS);
+    PidController pid = new PidController(0.5, 0.1, 0.0);
+
+    // a system whose latency grows linearly with the rate, 10ms at 1000 operations per second
+    double rate = 100;
+    for (int i = 0; i < 200; i++) {
+      rate = pid.nextRate(rate, (long)(rate * 10_000), 0.0, slo);
+    }
+    assertThat(rate, closeTo(1000, 10));
+
+    pid.reset();
+    assertThat(pid.nextRate(1000, TimeUnit.MILLISECONDS.toNanos(20), 0.0, slo), lessThan(1000.0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void arrivalsShouldOnlyBeUniform() {
+    AdaptiveRate adaptiveRate = adaptiveRate(slo(), Over.over(1, TimeDivision.seconds));
+    adaptiveRate.arrivals(ArrivalProcess.uniform());
+    adaptiveRate.arrivals(ArrivalProcess.poisson());
+  }
+
+  @Test
+  public void controllerShouldLowerTheRateWhileTheObjectiveIsViolated() throws TestException, IOException {
+    File decisionsFile = new File(folder.getRoot(), "decisions.csv");
+    RuntimeStatisticsHolder<Result> statisticsHolder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+    AdaptiveRate adaptiveRate = adaptiveRate(slo().percentile(99.0, 5, TimeUnit.MILLISECONDS),
+        Over.over(650, milliseconds))
+        .from(400)
+        .between(10, 1000)
+        .adjustEvery(100, TimeUnit.MILLISECONDS)
+        .controller(new AimdController(50, 0.5))
+        .decisions(decisionsFile.getPath());
+
+    adaptiveRate.execute(statisticsHolder, Scenario.scenario("adaptive").exec(recordingOperation(20_000_000L)),
+        Collections.<Class<? extends Configuration>, Configuration>singletonMap(ConcurrencyConfig.class,
+            new ConcurrencyConfig().threads(2)),
+        Collections.<AssertionEvaluator>emptyList());
+
+    List<AdaptiveRate.Decision> decisions = adaptiveRate.getDecisions();
+    assertThat(decisions.size(), greaterThanOrEqualTo(3));
+    for (AdaptiveRate.Decision decision : decisions) {
+      if (decision.getAchievedTps() > 0) {
+        assertThat(decision.isSloMet(), is(false));
+        assertThat(decision.getNextRate(), lessThan(decision.getRate()));
+      }
+    }
+    assertThat(decisions.get(decisions.size() - 1).getNextRate(), lessThan(400.0));
+    assertThat(Files.readAllLines(decisionsFile.toPath()).size(), is(decisions.size() + 1));
+    assertThat(statisticsHolder.peek().getTotalStatisticsPeeks().getCumulativeIntendedCount(), greaterThan(0L));
+  }
+
+  private Operation recordingOperation(final long latencyInNs) {
+    return new Operation() {
+      @Override
+      public void exec(final StatisticsHolder statisticsHolder,
+                       final Map<Class<? extends Configuration>, Configuration> configurations,
+                       final List<AssertionEvaluator> assertions) {
+        statisticsHolder.record("op", latencyInNs, Result.OK);
+      }
+
+      @Override
+      public List<String> getDescription() {
+        return Collections.singletonList("recording op");
+      }
+    };
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+import io.rainfall.AssertionEvaluator;
+import io.rainfall.Configuration;
+import io.rainfall.Operation;
+import io.rainfall.Scenario;
+import io.rainfall.TestException;
+import io.rainfall.configuration.ConcurrencyConfig;
+import io.rainfall.execution.arrival.ArrivalProcess;
+import io.rainfall.statistics.RuntimeStatisticsHolder;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.StatisticsPeek;
+import io.rainfall.unit.Over;
+import io.rainfall.unit.TimeDivision;
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.rainfall.execution.Executions.atRate;
+import static io.rainfall.execution.Executions.during;
+import static io.rainfall.unit.TimeDivision.seconds;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class AtRateTest {
+
+  private enum Result {
+    OK
+  }
+
+  private static final TimeDivision milliseconds = new TimeDivision(TimeUnit.MILLISECONDS);
+
+  @Test
+  public void executeShouldHonorTheArrivalRate() throws TestException {
+    AtomicInteger executions = new AtomicInteger();
+    RuntimeStatisticsHolder<Result> statisticsHolder = execute(new AtRate(200, seconds, Over.over(500, milliseconds)),
+        new ConcurrencyConfig().threads(2), stallingOperation(executions, -1, 0L));
+
+    assertThat(executions.get(), greaterThanOrEqualTo(90));
+    assertThat(executions.get(), lessThanOrEqualTo(100));
+    StatisticsPeek<Result> peek = statisticsHolder.peek().getTotalStatisticsPeeks();
+    assertThat(peek.getCumulativeDroppedCount(), is(0L));
+    // the execution ends as soon as no arrival is left before its deadline
+    assertThat(peek.getCumulativeIntendedCount(), greaterThanOrEqualTo(99L));
+    assertThat(peek.getCumulativeIntendedCount(), lessThanOrEqualTo(100L));
+  }
+
+  @Test
+  public void stalledOperationShouldBeReportedWithItsQueueingDelay() throws TestException {
+    AtomicInteger executions = new AtomicInteger();
+    RuntimeStatisticsHolder<Result> statisticsHolder = execute(new AtRate(100, seconds, Over.over(300, milliseconds)),
+        new ConcurrencyConfig().threads(1), stallingOperation(executions, 2, 100L));
+
+    StatisticsPeek<Result> peek = statisticsHolder.peek().getTotalStatisticsPeeks();
+    assertThat(peek.getCumulativeLateCount(), greaterThan(0L));
+    assertThat(peek.getCumulativeDroppedCount(), is(0L));
+
+    Histogram histogram = statisticsHolder.fetchHistogram(Result.OK);
+    // the operations queued behind the stall are measured from their intended start time
+    assertThat(histogram.getCountBetweenValues(TimeUnit.MILLISECONDS.toNanos(20), Long.MAX_VALUE / 2), greaterThan(3L));
+    assertThat(histogram.getTotalCount(), greaterThanOrEqualTo((long)executions.get()));
+  }
+
+  @Test
+  public void operationsBeyondTheBacklogShouldBeDropped() throws TestException {
+    AtomicInteger executions = new AtomicInteger();
+    RuntimeStatisticsHolder<Result> statisticsHolder = execute(
+        atRate(100, seconds, during(1, seconds)).backlog(1),
+        new ConcurrencyConfig().threads(1), stallingOperation(executions, 2, 200L));
+
+    StatisticsPeek<Result> peek = statisticsHolder.peek().getTotalStatisticsPeeks();
+    assertThat(peek.getCumulativeDroppedCount(), greaterThanOrEqualTo(10L));
+    assertThat(executions.get() + peek.getCumulativeDroppedCount(), lessThanOrEqualTo(100L));
+  }
+
+  @Test
+  public void arrivalsShouldFollowTheArrivalProcess() throws TestException {
+    AtomicInteger executions = new AtomicInteger();
+    RuntimeStatisticsHolder<Result> uniform = execute(new AtRate(200, seconds, Over.over(500, milliseconds)),
+        new ConcurrencyConfig().threads(1), stallingOperation(executions, -1, 0L));
+    RuntimeStatisticsHolder<Result> poisson = execute(
+        new AtRate(200, seconds, Over.over(500, milliseconds)).arrivals(ArrivalProcess.poisson()),
+        new ConcurrencyConfig().threads(1), stallingOperation(executions, -1, 0L));
+
+    assertThat(uniform.peek().getTotalStatisticsPeeks().getCumulativeArrivalCov(), lessThan(0.5d));
+    assertThat(poisson.peek().getTotalStatisticsPeeks().getCumulativeArrivalCov(), greaterThan(0.6d));
+  }
+
+  private RuntimeStatisticsHolder<Result> execute(final AtRate atRate, final ConcurrencyConfig concurrencyConfig,
+                                                  final Operation operation) throws TestException {
+    RuntimeStatisticsHolder<Result> statisticsHolder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+    Scenario scenario = Scenario.scenario("at-rate").exec(operation);
+
+    atRate.execute(statisticsHolder, scenario,
+        Collections.<Class<? extends Configuration>, Configuration>singletonMap(ConcurrencyConfig.class, concurrencyConfig),
+        Collections.<AssertionEvaluator>emptyList());
+    return statisticsHolder;
+  }
+
+  private Operation stallingOperation(final AtomicInteger executions, final int stallingExecution,
+                                      final long stallInMs) {
+    return new Operation() {
+      @Override
+      public void exec(final StatisticsHolder statisticsHolder,
+                       final Map<Class<? extends Configuration>, Configuration> configurations,
+                       final List<AssertionEvaluator> assertions) {
+        long start = statisticsHolder.getTimeInNs();
+        if (executions.getAndIncrement() == stallingExecution) {
+          try {
+            Thread.sleep(stallInMs);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        statisticsHolder.record("op", statisticsHolder.getTimeInNs() - start, Result.OK);
+      }
+
+      @Override
+      public List<String> getDescription() {
+        return Collections.singletonList("stalling op");
+      }
+    };
+  }
+}
@@ -18,9 +18,12 @@ package io.rainfall.execution;
 
 import io.rainfall.AssertionEvaluator;
 import io.rainfall.Configuration;
+import io.rainfall.Operation;
 import io.rainfall.Scenario;
+import io.rainfall.TestException;
 import io.rainfall.configuration.ConcurrencyConfig;
 import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.WarmUpStatisticsHolder;
 import io.rainfall.unit.From;
 import io.rainfall.unit.Instance;
 import io.rainfall.unit.Over;
@@ -29,6 +32,7 @@ import io.rainfall.unit.To;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,10 +40,15 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -72,10 +81,14 @@ public class RampTest {
 
     ramp.scheduleThreads(statisticsHolder, scenario, configurations, assertions, new AtomicBoolean(), schedulers);
 
-    verify(scheduler).schedule(any(Callable.class), eq(8000L), eq(TimeUnit.MILLISECONDS));
-    verify(scheduler).schedule(any(Callable.class), eq(6000L), eq(TimeUnit.MILLISECONDS));
-    verify(scheduler).schedule(any(Callable.class), eq(4000L), eq(TimeUnit.MILLISECONDS));
-    verify(scheduler).schedule(any(Callable.class), eq(2000L), eq(TimeUnit.MILLISECONDS));
+    // all the threads start at once, then are retired one by one
+    verify(scheduler, times(8)).schedule(any(Callable.class), eq(0L), eq(TimeUnit.MILLISECONDS));
+    List<Long> stops = new ArrayList<>();
+    for (Pattern.WorkerSchedule workerSchedule : ramp.workerSchedules()) {
+      stops.add(workerSchedule.stopInMs);
+    }
+    assertThat(stops, containsInAnyOrder(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE,
+        8000L, 6000L, 4000L, 2000L));
   }
 
   @Test
@@ -101,10 +114,46 @@ public class RampTest {
 
     ramp.scheduleThreads(statisticsHolder, scenario, configurations, assertions, new AtomicBoolean(), schedulers);
 
-    verify(scheduler).schedule(any(Callable.class), eq(0L), eq(TimeUnit.MILLISECONDS));
+    // the 2 threads of the start, and the first added thread
+    verify(scheduler, times(3)).schedule(any(Callable.class), eq(0L), eq(TimeUnit.MILLISECONDS));
     verify(scheduler).schedule(any(Callable.class), eq(2000L), eq(TimeUnit.MILLISECONDS));
     verify(scheduler).schedule(any(Callable.class), eq(4000L), eq(TimeUnit.MILLISECONDS));
     verify(scheduler).schedule(any(Callable.class), eq(6000L), eq(TimeUnit.MILLISECONDS));
   }
 
+  @Test
+  public void rampDownShouldRetireTheWorkers() throws TestException {
+    final ActiveWorkersHolder statisticsHolder = new ActiveWorkersHolder();
+    Map<Class<? extends Configuration>, Configuration> configurations = new HashMap<>();
+    configurations.put(ConcurrencyConfig.class, new ConcurrencyConfig().threads(4));
+    Ramp ramp = new Ramp(From.from(4), To.to(1), Over.over(600, new TimeDivision(TimeUnit.MILLISECONDS)));
+
+    ramp.execute(statisticsHolder, Scenario.scenario("ramp down").exec(new Operation() {
+      @Override
+      public void exec(final StatisticsHolder statisticsHolder,
+                       final Map<Class<? extends Configuration>, Configuration> configurations,
+                       final List<AssertionEvaluator> assertions) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+      }
+
+      @Override
+      public List<String> getDescription() {
+        return Collections.singletonList("sleeping op");
+      }
+    }), configurations, new ArrayList<AssertionEvaluator>());
+
+    // 4 threads start, 3 are retired along the ramp, and the last one stops at the end of the execution
+    assertThat(statisticsHolder.activeWorkers, contains(1, 2, 3, 4, 3, 2, 1, 0));
+  }
+
+  private static class ActiveWorkersHolder extends WarmUpStatisticsHolder {
+    private final List<Integer> activeWorkers = new ArrayList<>();
+    private int count = 0;
+
+    @Override
+    public synchronized void changeActiveWorkers(final int delta) {
+      count += delta;
+      activeWorkers.add(count);
+    }
+  }
 }
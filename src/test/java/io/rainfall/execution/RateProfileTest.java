@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+import io.rainfall.AssertionEvaluator;
+import io.rainfall.Configuration;
+import io.rainfall.Operation;
+import io.rainfall.Scenario;
+import io.rainfall.TestException;
+import io.rainfall.configuration.ConcurrencyConfig;
+import io.rainfall.statistics.RuntimeStatisticsHolder;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.StatisticsPeek;
+import io.rainfall.unit.Every;
+import io.rainfall.unit.Over;
+import io.rainfall.unit.TimeDivision;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.rainfall.execution.Executions.rateProfile;
+import static io.rainfall.execution.Executions.rateRamp;
+import static io.rainfall.execution.Executions.rateSine;
+import static io.rainfall.execution.Executions.rateSteps;
+import static io.rainfall.unit.From.from;
+import static io.rainfall.unit.TimeDivision.seconds;
+import static io.rainfall.unit.To.to;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class RateProfileTest {
+
+  private enum Result {
+    OK
+  }
+
+  private static final TimeDivision milliseconds = new TimeDivision(TimeUnit.MILLISECONDS);
+
+  @Test
+  public void rampShouldIntendTheIntegralOfTheRate() {
+    RateProfile ramp = rateRamp(from(1000), to(3000), Over.over(10, seconds));
+    // the rate is sampled at the start of each 1ms slot
+    assertThat((double)ramp.getIntendedCount(), closeTo(20000, 10));
+    assertThat(ramp.toString(), is("Rate ramp 1000 to 3000 operations per second over 10 seconds"));
+  }
+
+  @Test
+  public void sineShouldOscillateBetweenItsBounds() {
+    RateProfile sine = rateSine(from(100), to(300), Every.every(1, seconds), Over.over(4, seconds));
+    // whole periods average to the middle rate
+    assertThat((double)sine.getIntendedCount(), closeTo(800, 1));
+  }
+
+  @Test
+  public void schedulesOfTheWorkersShouldFollowTheRate() {
+    RateProfile steps = rateSteps(Every.every(1, seconds), 10, 0, 100);
+    int workers = 3;
+    List<Long> arrivals = new ArrayList<Long>();
+    for (int worker = 0; worker < workers; worker++) {
+      ArrivalSchedule schedule = steps.createSchedule(0L, worker, workers);
+      long arrival;
+      while ((arrival = schedule.next()) != Long.MAX_VALUE) {
+        arrivals.add(arrival);
+      }
+    }
+    Collections.sort(arrivals);
+
+    assertThat(arrivals.size(), is(110));
+    long oneSecond = TimeUnit.SECONDS.toNanos(1);
+    int firstStep = 0;
+    for (Long arrival : arrivals) {
+      assertThat("no arrival while the rate is zero", arrival < oneSecond || arrival >= 2 * oneSecond, is(true));
+      if (arrival < oneSecond) {
+        firstStep++;
+      }
+    }
+    assertThat(firstStep, is(10));
+  }
+
+  @Test
+  public void executionShouldReportTheIntendedRate() throws TestException {
+    AtomicInteger executions = new AtomicInteger();
+    RuntimeStatisticsHolder<Result> statisticsHolder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+    RateProfile profile = rateProfile(Over.over(500, milliseconds), elapsedInMs -> elapsedInMs < 250 ? 100.0 : 300.0);
+
+    profile.execute(statisticsHolder, Scenario.scenario("rate profile").exec(countingOperation(executions)),
+        Collections.<Class<? extends Configuration>, Configuration>singletonMap(ConcurrencyConfig.class,
+            new ConcurrencyConfig().threads(2)),
+        Collections.<AssertionEvaluator>emptyList());
+
+    assertThat(profile.getIntendedCount(), is(100L));
+    assertThat(executions.get(), greaterThanOrEqualTo(95));
+    assertThat(executions.get(), lessThanOrEqualTo(100));
+    StatisticsPeek<Result> peek = statisticsHolder.peek().getTotalStatisticsPeeks();
+    // the execution ends as soon as no arrival is left before its deadline
+    assertThat(peek.getCumulativeIntendedCount(), greaterThanOrEqualTo(99L));
+    assertThat(peek.getCumulativeIntendedCount(), lessThanOrEqualTo(100L));
+    assertThat(peek.getSumOfCumulativeCounters(), is((long)executions.get()));
+  }
+
+  private Operation countingOperation(final AtomicInteger executions) {
+    return new Operation() {
+      @Override
+      public void exec(final StatisticsHolder statisticsHolder,
+                       final Map<Class<? extends Configuration>, Configuration> configurations,
+                       final List<AssertionEvaluator> assertions) {
+        executions.incrementAndGet();
+        statisticsHolder.record("op", 1000L, Result.OK);
+      }
+
+      @Override
+      public List<String> getDescription() {
+        return Collections.singletonList("counting op");
+      }
+    };
+  }
+}
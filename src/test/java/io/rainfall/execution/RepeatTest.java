@@ -23,15 +23,18 @@ import io.rainfall.Scenario;
 import io.rainfall.TestException;
 import io.rainfall.statistics.StatisticsHolder;
 import org.junit.Test;
+import org.mockito.InOrder;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * @author Aurelien Broszniowski
@@ -54,4 +57,22 @@ public class RepeatTest {
     verify(execution1, times(3)).execute(statisticsHolder, scenario, configurations, assertions);
     verify(execution2, times(3)).execute(statisticsHolder, scenario, configurations, assertions);
   }
+
+  @Test
+  public void eachIterationShouldBeAPhase() throws TestException {
+    StatisticsHolder statisticsHolder = mock(StatisticsHolder.class);
+    when(statisticsHolder.getPhaseName()).thenReturn("2) repeat");
+    Scenario scenario = mock(Scenario.class);
+    Map<Class<? extends Configuration>, Configuration> configurations = new HashMap<>();
+    List<AssertionEvaluator> assertions = new ArrayList<>();
+
+    Execution execution = mock(Execution.class);
+    new Repeat(2, new Execution[] { execution }).execute(statisticsHolder, scenario, configurations, assertions);
+
+    InOrder inOrder = inOrder(statisticsHolder, execution);
+    inOrder.verify(statisticsHolder).replacePhase("2) repeat - iteration 1");
+    inOrder.verify(execution).execute(statisticsHolder, scenario, configurations, assertions);
+    inOrder.verify(statisticsHolder).beginPhase("2) repeat - iteration 2");
+    inOrder.verify(execution).execute(statisticsHolder, scenario, configurations, assertions);
+  }
 }
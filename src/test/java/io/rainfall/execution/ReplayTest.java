@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+import io.rainfall.AssertionEvaluator;
+import io.rainfall.Configuration;
+import io.rainfall.Operation;
+import io.rainfall.Scenario;
+import io.rainfall.TestException;
+import io.rainfall.WeightedOperation;
+import io.rainfall.configuration.ConcurrencyConfig;
+import io.rainfall.statistics.RuntimeStatisticsHolder;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.StatisticsPeek;
+import io.rainfall.trace.Trace;
+import io.rainfall.trace.TraceRecord;
+import io.rainfall.trace.TraceWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.rainfall.execution.Executions.replay;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class ReplayTest {
+
+  private enum Result {
+    OK
+  }
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void recordsShouldBeDispatchedToTheOperationsByName() throws Exception {
+    Trace trace = trace(100, 0L);
+    AtomicInteger gets = new AtomicInteger();
+    AtomicInteger puts = new AtomicInteger();
+    final Set<Long> keys = ConcurrentHashMap.newKeySet();
+
+    execute(replay(trace).asFastAsPossible(), 2,
+        new WeightedOperation(0.5, countingOperation(gets, keys)).named("get"),
+        new WeightedOperation(0.5, countingOperation(puts, keys)).named("put"));
+
+    assertThat(gets.get(), is(50));
+    assertThat(puts.get(), is(50));
+    assertThat(keys.size(), is(10));
+  }
+
+  @Test
+  public void recordsShouldBePartitionedByKey() throws Exception {
+    Trace trace = trace(200, 0L);
+    final ConcurrentMap<Long, Set<Thread>> threadsByKey = new ConcurrentHashMap<Long, Set<Thread>>();
+    Operation operation = new Operation() {
+      @Override
+      public void exec(final StatisticsHolder statisticsHolder,
+                       final Map<Class<? extends Configuration>, Configuration> configurations,
+                       final List<AssertionEvaluator> assertions) {
+        threadsByKey.computeIfAbsent(TraceRecord.current().getKey(), key -> ConcurrentHashMap.newKeySet())
+            .add(Thread.currentThread());
+      }
+
+      @Override
+      public List<String> getDescription() {
+        return Collections.singletonList("partition");
+      }
+    };
+
+    execute(replay(trace).asFastAsPossible().partitionBy(Replay.Partitioning.KEY_HASH), 4,
+        new WeightedOperation(0.5, operation).named("get"), new WeightedOperation(0.5, operation).named("put"));
+
+    for (Set<Thread> threads : threadsByKey.values()) {
+      assertThat(threads.size(), is(1));
+    }
+  }
+
+  @Test
+  public void recordsShouldBeStridedRoundRobin() throws Exception {
+    Trace trace = trace(203, 0L);
+    final ConcurrentMap<Thread, AtomicInteger> countsByThread = new ConcurrentHashMap<Thread, AtomicInteger>();
+    final Set<Long> keys = ConcurrentHashMap.newKeySet();
+    AtomicInteger count = new AtomicInteger();
+    Operation operation = new Operation() {
+      @Override
+      public void exec(final StatisticsHolder statisticsHolder,
+                       final Map<Class<? extends Configuration>, Configuration> configurations,
+                       final List<AssertionEvaluator> assertions) {
+        count.incrementAndGet();
+        countsByThread.computeIfAbsent(Thread.currentThread(), thread -> new AtomicInteger()).incrementAndGet();
+      }
+
+      @Override
+      public List<String> getDescription() {
+        return Collections.singletonList("round-robin");
+      }
+    };
+
+    execute(replay(trace).asFastAsPossible().partitionBy(Replay.Partitioning.ROUND_ROBIN), 4,
+        new WeightedOperation(0.5, operation).named("get"), new WeightedOperation(0.5, operation).named("put"));
+
+    assertThat(count.get(), is(203));
+    assertThat(countsByThread.size(), is(4));
+    for (AtomicInteger threadCount : countsByThread.values()) {
+      assertThat(threadCount.get(), is(greaterThanOrEqualTo(50)));
+    }
+  }
+
+  @Test
+  public void recordsShouldBeReplayedAtTheirTimeWithTheSpeedup() throws Exception {
+    // 50 records over 490ms, replayed twice as fast
+    Trace trace = trace(50, TimeUnit.MILLISECONDS.toNanos(10));
+    AtomicInteger count = new AtomicInteger();
+
+    long start = System.nanoTime();
+    RuntimeStatisticsHolder<Result> statisticsHolder = execute(replay(trace).speedup(2.0d), 1,
+        new WeightedOperation(0.5, countingOperation(count, ConcurrentHashMap.newKeySet())).named("get"),
+        new WeightedOperation(0.5, countingOperation(count, ConcurrentHashMap.newKeySet())).named("put"));
+    long lengthInMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    assertThat(count.get(), is(50));
+    assertThat(lengthInMs, greaterThanOrEqualTo(240L));
+    assertThat(lengthInMs, lessThan(2000L));
+    StatisticsPeek<Result> peek = statisticsHolder.peek().getTotalStatisticsPeeks();
+    assertThat(peek.getCumulativeLagCount(), is(50L));
+    assertThat(peek.getCumulativeIntendedCount(), greaterThan(0L));
+  }
+
+  @Test(expected = TestException.class)
+  public void unnamedOperationsOfTheTraceShouldBeRejected() throws Exception {
+    execute(replay(trace(10, 0L)), 1,
+        new WeightedOperation(1.0, countingOperation(new AtomicInteger(), ConcurrentHashMap.newKeySet())).named("get"));
+  }
+
+  private Trace trace(final int size, final long intervalInNs) throws IOException {
+    Path path = folder.newFile().toPath();
+    try (TraceWriter writer = new TraceWriter(path)) {
+      for (int i = 0; i < size; i++) {
+        writer.write(1_000_000L + i * intervalInNs, i % 2 == 0 ? "get" : "put", i % 10, 128);
+      }
+    }
+    return Trace.open(path);
+  }
+
+  private Operation countingOperation(final AtomicInteger count, final Set<Long> keys) {
+    return new Operation() {
+      @Override
+      public void exec(final StatisticsHolder statisticsHolder,
+                       final Map<Class<? extends Configuration>, Configuration> configurations,
+                       final List<AssertionEvaluator> assertions) {
+        count.incrementAndGet();
+        keys.add(TraceRecord.current().getKey());
+        statisticsHolder.record("replay", 1000L, Result.OK);
+      }
+
+      @Override
+      public List<String> getDescription() {
+        return Collections.singletonList("counting");
+      }
+    };
+  }
+
+  private RuntimeStatisticsHolder<Result> execute(final Replay replay, final int threadCount,
+                                                  final WeightedOperation... operations) throws TestException {
+    RuntimeStatisticsHolder<Result> statisticsHolder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+    Scenario scenario = Scenario.scenario("replay").exec(operations);
+
+    replay.execute(statisticsHolder, scenario,
+        Collections.<Class<? extends Configuration>, Configuration>singletonMap(ConcurrencyConfig.class,
+            new ConcurrencyConfig().threads(threadCount)),
+        Collections.<AssertionEvaluator>emptyList());
+    return statisticsHolder;
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+import io.rainfall.AssertionEvaluator;
+import io.rainfall.Configuration;
+import io.rainfall.Operation;
+import io.rainfall.Scenario;
+import io.rainfall.TestException;
+import io.rainfall.configuration.ConcurrencyConfig;
+import io.rainfall.statistics.RuntimeStatisticsHolder;
+import io.rainfall.statistics.ScheduledStatisticsHolder;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.unit.Over;
+import io.rainfall.unit.TimeDivision;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.rainfall.execution.Executions.saturationSearch;
+import static io.rainfall.execution.ServiceLevelObjective.slo;
+import static io.rainfall.unit.TimeDivision.seconds;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.startsWith;
+
+public class SaturationSearchTest {
+
+  private enum Result {
+    OK, KO
+  }
+
+  private static final TimeDivision milliseconds = new TimeDivision(TimeUnit.MILLISECONDS);
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void searchShouldGrowTheRateThenBisectAroundTheKnee() throws TestException {
+    final List<Long> rates = new ArrayList<Long>();
+    SaturationSearch search = new SaturationSearch(slo().percentile(99.0, 5, TimeUnit.MILLISECONDS),
+        Over.over(1, seconds)) {
+      @Override
+      protected <E extends Enum<E>> Step runStep(final long ratePerSecond, final StatisticsHolder<E> statisticsHolder,
+                                                 final Scenario scenario,
+                                                 final Map<Class<? extends Configuration>, Configuration> configurations,
+                                                 final List<AssertionEvaluator> assertions) {
+        rates.add(ratePerSecond);
+        long latencyInNs = ratePerSecond <= 700 ? 1_000_000L : 10_000_000L;
+        return new Step(ratePerSecond, ratePerSecond, latencyInNs, latencyInNs, latencyInNs, latencyInNs, 0.0d,
+            latencyInNs <= 5_000_000L);
+      }
+    }.from(100).precision(0.05);
+
+    search.execute(null, null, Collections.<Class<? extends Configuration>, Configuration>emptyMap(),
+        Collections.<AssertionEvaluator>emptyList());
+
+    assertThat(rates, contains(100L, 200L, 400L, 800L, 600L, 700L, 750L, 725L));
+    assertThat(search.getMaxSustainableRate(), is(700L));
+  }
+
+  @Test
+  public void searchShouldStopAtTheMaximumRate() throws TestException {
+    final List<Long> rates = new ArrayList<Long>();
+    SaturationSearch search = new SaturationSearch(slo(), Over.over(1, seconds)) {
+      @Override
+      protected <E extends Enum<E>> Step runStep(final long ratePerSecond, final StatisticsHolder<E> statisticsHolder,
+                                                 final Scenario scenario,
+                                                 final Map<Class<? extends Configuration>, Configuration> configurations,
+                                                 final List<AssertionEvaluator> assertions) {
+        rates.add(ratePerSecond);
+        return new Step(ratePerSecond, ratePerSecond, 0L, 0L, 0L, 0L, 0.0d, true);
+      }
+    }.from(100).upTo(500);
+
+    search.execute(null, null, Collections.<Class<? extends Configuration>, Configuration>emptyMap(),
+        Collections.<AssertionEvaluator>emptyList());
+
+    assertThat(rates, contains(100L, 200L, 400L, 500L));
+    assertThat(search.getMaxSustainableRate(), is(500L));
+  }
+
+  @Test
+  public void errorRatioShouldViolateTheObjective() throws TestException {
+    RuntimeStatisticsHolder<Result> statisticsHolder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+    SaturationSearch search = saturationSearch(slo().errorRatio(0.001, Result.KO), Over.over(200, milliseconds))
+        .from(50).maxSteps(1);
+
+    search.execute(statisticsHolder, Scenario.scenario("errors").exec(recordingOperation(Result.KO)),
+        Collections.<Class<? extends Configuration>, Configuration>singletonMap(ConcurrencyConfig.class,
+            new ConcurrencyConfig().threads(1)),
+        Collections.<AssertionEvaluator>emptyList());
+
+    assertThat(search.getSteps().size(), is(1));
+    assertThat(search.getSteps().get(0).getErrorRatio(), is(1.0d));
+    assertThat(search.getSteps().get(0).isSloMet(), is(false));
+    assertThat(search.getMaxSustainableRate(), is(0L));
+  }
+
+  @Test(expected = TestException.class)
+  public void severalThreadpoolsShouldBeRejected() throws TestException {
+    SaturationSearch search = saturationSearch(slo().percentile(99.0, 50, TimeUnit.MILLISECONDS),
+        Over.over(200, milliseconds));
+
+    search.execute(null, Scenario.scenario("saturation"),
+        Collections.<Class<? extends Configuration>, Configuration>singletonMap(ConcurrencyConfig.class,
+            new ConcurrencyConfig().threads("first", 1).threads("second", 1)),
+        Collections.<AssertionEvaluator>emptyList());
+  }
+
+  @Test
+  public void executionShouldWriteTheCurve() throws TestException, IOException {
+    File curve = new File(folder.getRoot(), "curve.csv");
+    RuntimeStatisticsHolder<Result> statisticsHolder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+    SaturationSearch search = saturationSearch(slo().percentile(99.0, 50, TimeUnit.MILLISECONDS),
+        Over.over(200, milliseconds)).from(50).upTo(200).curve(curve.getPath());
+
+    search.execute(statisticsHolder, Scenario.scenario("saturation").exec(recordingOperation(Result.OK)),
+        Collections.<Class<? extends Configuration>, Configuration>singletonMap(ConcurrencyConfig.class,
+            new ConcurrencyConfig().threads(2)),
+        Collections.<AssertionEvaluator>emptyList());
+
+    assertThat(search.getMaxSustainableRate(), is(200L));
+    List<String> lines = Files.readAllLines(curve.toPath());
+    assertThat(lines.size(), is(4));
+    assertThat(lines.get(1), startsWith("50,"));
+    assertThat(lines.get(3), startsWith("200,"));
+  }
+
+  @Test
+  public void sampleShouldMeasureTheCompletedOperationsFromTheirIntendedStart() {
+    RuntimeStatisticsHolder<Result> statisticsHolder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+    ObjectiveStatisticsHolder<Result> objectiveStatisticsHolder = new ObjectiveStatisticsHolder<Result>(
+        statisticsHolder, slo().errorRatio(0.5, Result.KO));
+    ScheduledStatisticsHolder<Result> scheduledStatisticsHolder =
+        new ScheduledStatisticsHolder<Result>(objectiveStatisticsHolder);
+
+    // 1ms responses started 9ms late: each operation is recorded once, at 10ms
+    scheduledStatisticsHolder.schedule(9_000_000L);
+    for (int i = 0; i < 3; i++) {
+      scheduledStatisticsHolder.record("op", 1_000_000L, Result.OK);
+    }
+    scheduledStatisticsHolder.record("op", 1_000_000L, Result.KO);
+
+    ObjectiveStatisticsHolder.Sample sample = objectiveStatisticsHolder.sample();
+    assertThat(sample.getTotalCount(), is(4L));
+    assertThat(sample.getErrorRatio(), is(0.25d));
+    assertThat(sample.getLatencyInNs(0.0d) > 9_000_000L, is(true));
+    assertThat(statisticsHolder.fetchHistogram(Result.OK).getTotalCount(), is(3L));
+    assertThat(statisticsHolder.isMeasuredFromIntendedStart(), is(true));
+    assertThat(objectiveStatisticsHolder.sample().getTotalCount(), is(0L));
+  }
+
+  private Operation recordingOperation(final Result result) {
+    return new Operation() {
+      @Override
+      public void exec(final StatisticsHolder statisticsHolder,
+                       final Map<Class<? extends Configuration>, Configuration> configurations,
+                       final List<AssertionEvaluator> assertions) {
+        statisticsHolder.record("op", 100_000L, result);
+      }
+
+      @Override
+      public List<String> getDescription() {
+        return Collections.singletonList("recording op");
+      }
+    };
+  }
+}
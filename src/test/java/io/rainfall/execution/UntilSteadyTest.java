@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution;
+
+import io.rainfall.AssertionEvaluator;
+import io.rainfall.Configuration;
+import io.rainfall.Operation;
+import io.rainfall.Scenario;
+import io.rainfall.TestException;
+import io.rainfall.configuration.ConcurrencyConfig;
+import io.rainfall.statistics.RuntimeStatisticsHolder;
+import io.rainfall.statistics.StatisticsHolder;
+import io.rainfall.statistics.WarmUpStatisticsHolder;
+import io.rainfall.statistics.collector.StatisticsCollector;
+import io.rainfall.unit.Over;
+import io.rainfall.unit.TimeDivision;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static io.rainfall.execution.Executions.untilSteady;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+public class UntilSteadyTest {
+
+  private enum Result {
+    OK
+  }
+
+  @Test
+  public void detectorShouldWaitForAFullWindowOfSteadyIntervals() {
+    SteadyStateDetector detector = new SteadyStateDetector(3, 0.05, 0.10, 0.01, 0.05);
+
+    assertThat(detector.offer(interval(1000, 1_000_000, 0, 0)), is(false));
+    assertThat(detector.offer(interval(500, 1_000_000, 0, 0)), is(false));
+    assertThat(detector.offer(interval(1000, 1_000_000, 0, 0)), is(false));
+    assertThat(detector.offer(interval(1010, 1_000_000, 0, 0)), is(false));
+    assertThat(detector.offer(interval(990, 1_050_000, 0, 0)), is(true));
+  }
+
+  @Test
+  public void detectorShouldWaitForTheJitAndTheGarbageCollector() {
+    SteadyStateDetector detector = new SteadyStateDetector(2, 0.05, 0.10, 0.01, 0.05);
+
+    detector.offer(interval(1000, 1_000_000, 100, 0));
+    assertThat(detector.offer(interval(1000, 1_000_000, 0, 0)), is(false));
+    assertThat(detector.offer(interval(1000, 1_000_000, 0, 200)), is(false));
+    assertThat(detector.offer(interval(1000, 1_000_000, 5, 20)), is(false));
+    assertThat(detector.offer(interval(1000, 1_000_000, 5, 20)), is(true));
+
+    assertThat(SteadyStateDetector.coefficientOfVariation(new double[] { 1, 1, 1 }), is(0.0));
+    assertThat(SteadyStateDetector.coefficientOfVariation(new double[] { 9, 11 }), closeTo(0.1, 0.0001));
+  }
+
+  @Test
+  public void executionShouldEndOnceSteady() throws TestException {
+    UntilSteady untilSteady = untilSteady(Over.over(30, TimeDivision.seconds))
+        .checkEvery(50, TimeUnit.MILLISECONDS)
+        .window(3)
+        .tolerance(0.5, 0.5)
+        .runtimeTolerance(-1, -1);
+
+    assertThat(untilSteady.getDescription().get(0), startsWith("Warmup until steady, at most "));
+
+    long start = System.currentTimeMillis();
+    untilSteady.execute(new WarmUpStatisticsHolder(), Scenario.scenario("steady").exec(sleepingOperation(false)),
+        configurations(), Collections.<AssertionEvaluator>emptyList());
+
+    assertThat(untilSteady.getEndReason(), is(UntilSteady.EndReason.STEADY));
+    assertThat(untilSteady.getDurationInMs(), greaterThanOrEqualTo(150L));
+    assertThat(System.currentTimeMillis() - start, lessThan(10_000L));
+    assertThat(untilSteady.getDescription().get(0), containsString("steady state reached after "));
+    assertThat(untilSteady.getDescription().size(), is(2));
+  }
+
+  @Test
+  public void executionShouldEndAfterTheMaximumDuration() throws TestException {
+    UntilSteady untilSteady = untilSteady(Over.over(300, new TimeDivision(TimeUnit.MILLISECONDS)))
+        .checkEvery(50, TimeUnit.MILLISECONDS)
+        .tolerance(0.0, 0.0);
+
+    RuntimeStatisticsHolder<Result> statisticsHolder = new RuntimeStatisticsHolder<Result>(Result.values(),
+        Result.values(), Collections.<StatisticsCollector>emptySet());
+    statisticsHolder.beginPhase("1) warmup");
+    WarmUp warmUp = new WarmUp(untilSteady);
+    warmUp.execute(statisticsHolder, Scenario.scenario("unsteady").exec(sleepingOperation(true)),
+        configurations(), Collections.<AssertionEvaluator>emptyList());
+
+    assertThat(untilSteady.getEndReason(), is(UntilSteady.EndReason.MAX_DURATION));
+    assertThat(untilSteady.getDurationInMs(), greaterThanOrEqualTo(300L));
+    assertThat(warmUp.getDescription().get(0), containsString("no steady state after the maximum duration of "));
+    assertThat(statisticsHolder.getPhases().get(0).getOutcome(),
+        startsWith("no steady state after the maximum duration of "));
+  }
+
+  private static SteadyStateDetector.Interval interval(double tps, double latencyInNs, long compilationTimeInMs,
+                                                      long gcTimeInMs) {
+    return new SteadyStateDetector.Interval(1000L, tps, latencyInNs, 1000L, compilationTimeInMs, gcTimeInMs);
+  }
+
+  private Map<Class<? extends Configuration>, Configuration> configurations() {
+    return Collections.<Class<? extends Configuration>, Configuration>singletonMap(ConcurrencyConfig.class,
+        new ConcurrencyConfig().threads(1));
+  }
+
+  private Operation sleepingOperation(final boolean randomLatency) {
+    return new Operation() {
+      @Override
+      public void exec(final StatisticsHolder statisticsHolder,
+                       final Map<Class<? extends Configuration>, Configuration> configurations,
+                       final List<AssertionEvaluator> assertions) {
+        try {
+          Thread.sleep(1);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        long latencyInNs = randomLatency ? ThreadLocalRandom.current().nextLong(1_000L, 10_000_000L) : 1_000_000L;
+        statisticsHolder.record("op", latencyInNs, Result.OK);
+      }
+
+      @Override
+      public List<String> getDescription() {
+        return Collections.singletonList("sleeping op");
+      }
+    };
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.execution.arrival;
+
+import io.rainfall.utils.RandomStreams;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+public class ArrivalProcessTest {
+
+  private static final double MEAN_INTERVAL_IN_NS = 1_000_000d;
+
+  @Before
+  public void setUp() {
+    RandomStreams.seed(42L);
+  }
+
+  @After
+  public void tearDown() {
+    RandomStreams.seed(RandomStreams.newMasterSeed());
+  }
+
+  @Test
+  public void uniformArrivalsShouldInterleaveTheWorkers() {
+    ArrivalProcess.Arrivals arrivals = ArrivalProcess.uniform().arrivals(100d, 1, 4);
+
+    assertThat(arrivals.nextIntervalInNs(), is(25d));
+    assertThat(arrivals.nextIntervalInNs(), is(100d));
+    assertThat(arrivals.nextIntervalInNs(), is(100d));
+  }
+
+  @Test
+  public void poissonArrivalsShouldBeExponential() {
+    double[] moments = moments(ArrivalProcess.poisson(), 200_000);
+
+    assertThat(moments[0], closeTo(MEAN_INTERVAL_IN_NS, MEAN_INTERVAL_IN_NS * 0.02));
+    assertThat(moments[1], closeTo(1.0d, 0.03));
+  }
+
+  @Test
+  public void burstsShouldKeepTheMeanRateAndBeMoreVariable() {
+    double[] moments = moments(ArrivalProcess.bursts(10.0d, 0.2d, 50, TimeUnit.MILLISECONDS), 500_000);
+
+    assertThat(moments[0], closeTo(MEAN_INTERVAL_IN_NS, MEAN_INTERVAL_IN_NS * 0.1));
+    assertThat(moments[1], greaterThan(1.3d));
+  }
+
+  @Test
+  public void onOffSourcesShouldKeepTheMeanRateAndBeMoreVariable() {
+    double[] moments = moments(ArrivalProcess.onOff(50, 50, TimeUnit.MILLISECONDS, 1.8d), 500_000);
+
+    assertThat(moments[0], closeTo(MEAN_INTERVAL_IN_NS, MEAN_INTERVAL_IN_NS * 0.15));
+    assertThat(moments[1], greaterThan(1.5d));
+  }
+
+  @Test
+  public void burstsOfTheWorkersShouldStayBurstyOnceMerged() {
+    double[] moments = mergedMoments(ArrivalProcess.bursts(10.0d, 0.2d, 50, TimeUnit.MILLISECONDS), 16, 500_000);
+
+    assertThat(moments[0], closeTo(MEAN_INTERVAL_IN_NS, MEAN_INTERVAL_IN_NS * 0.1));
+    assertThat(moments[1], greaterThan(1.3d));
+  }
+
+  @Test
+  public void onOffSourcesOfTheWorkersShouldStayBurstyOnceMerged() {
+    double[] moments = mergedMoments(ArrivalProcess.onOff(50, 50, TimeUnit.MILLISECONDS, 1.8d), 16, 500_000);
+
+    assertThat(moments[0], closeTo(MEAN_INTERVAL_IN_NS, MEAN_INTERVAL_IN_NS * 0.15));
+    assertThat(moments[1], greaterThan(1.5d));
+  }
+
+  /**
+   * @return the mean and the coefficient of variation of the inter-arrival times
+   */
+  private double[] moments(final ArrivalProcess process, final int count) {
+    ArrivalProcess.Arrivals arrivals = process.arrivals(MEAN_INTERVAL_IN_NS, 0, 1);
+    double[] intervalsInNs = new double[count];
+    for (int i = 0; i < count; i++) {
+      intervalsInNs[i] = arrivals.nextIntervalInNs();
+    }
+    return moments(intervalsInNs);
+  }
+
+  /**
+   * @return the mean and the coefficient of variation of the inter-arrival times of the merged arrivals of the workers
+   */
+  private double[] mergedMoments(final ArrivalProcess process, final int workerCount, final int count) {
+    double[] arrivalsInNs = new double[count];
+    int perWorker = count / workerCount;
+    for (int worker = 0; worker < workerCount; worker++) {
+      ArrivalProcess.Arrivals arrivals = process.arrivals(MEAN_INTERVAL_IN_NS * workerCount, worker, workerCount);
+      double timeInNs = 0.0d;
+      for (int i = 0; i < perWorker; i++) {
+        timeInNs += arrivals.nextIntervalInNs();
+        arrivalsInNs[worker * perWorker + i] = timeInNs;
+      }
+    }
+    int merged = perWorker * workerCount;
+    double[] sorted = Arrays.copyOf(arrivalsInNs, merged);
+    Arrays.sort(sorted);
+    // only up to the end of the shortest worker, the merged arrivals are incomplete after it
+    double endInNs = Double.MAX_VALUE;
+    for (int worker = 0; worker < workerCount; worker++) {
+      endInNs = Math.min(endInNs, arrivalsInNs[(worker + 1) * perWorker - 1]);
+    }
+    int last = 0;
+    while (last < merged - 1 && sorted[last + 1] <= endInNs) {
+      last++;
+    }
+    double[] intervalsInNs = new double[last];
+    for (int i = 0; i < last; i++) {
+      intervalsInNs[i] = sorted[i + 1] - sorted[i];
+    }
+    return moments(intervalsInNs);
+  }
+
+  private double[] moments(final double[] intervalsInNs) {
+    double sum = 0.0d;
+    double squareSum = 0.0d;
+    for (double intervalInNs : intervalsInNs) {
+      sum += intervalInNs;
+      squareSum += intervalInNs * intervalInNs;
+    }
+    double mean = sum / intervalsInNs.length;
+    return new double[] { mean, Math.sqrt(squareSum / intervalsInNs.length - mean * mean) / mean };
+  }
+}
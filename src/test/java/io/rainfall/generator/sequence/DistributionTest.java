@@ -16,6 +16,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.lessThan;
@@ -168,4 +170,99 @@ public class DistributionTest {
       if (i % 10000 == 0) System.out.println(i + " = " + d.longValue());
     }
   }
+
+  @Test
+  public void testAllDistributionsStayInRange() {
+    ConcurrentPseudoRandom rnd = new ConcurrentPseudoRandom();
+    for (Distribution distribution : Distribution.values()) {
+      for (int i = 0; i < 20000; i++) {
+        long next = distribution.generate(rnd, -500, 1500, 300);
+        assertThat(distribution.name(), next, greaterThanOrEqualTo(-500L));
+        assertThat(distribution.name(), next, lessThan(1500L));
+      }
+    }
+  }
+
+  @Test
+  public void testZigguratGaussianMoments() {
+    ConcurrentPseudoRandom rnd = new ConcurrentPseudoRandom();
+    int samples = 200000;
+    double sum = 0;
+    double sumOfSquares = 0;
+    for (int i = 0; i < samples; i++) {
+      long next = Distribution.ZIGGURAT_GAUSSIAN.generate(rnd, 0, 10000000, 100000);
+      sum += next;
+      sumOfSquares += (double)next * next;
+    }
+    double mean = sum / samples;
+    double stdDev = Math.sqrt(sumOfSquares / samples - mean * mean);
+    assertThat(mean, closeTo(5000000, 1000));
+    assertThat(stdDev, closeTo(100000, 1000));
+  }
+
+  @Test
+  public void testZigguratGaussianWithLargeWidthIsBounded() {
+    ConcurrentPseudoRandom rnd = new ConcurrentPseudoRandom();
+    for (int i = 0; i < 10000; i++) {
+      long next = Distribution.ZIGGURAT_GAUSSIAN.generate(rnd, 0, 10, Long.MAX_VALUE / 4);
+      assertThat(next, greaterThanOrEqualTo(0L));
+      assertThat(next, lessThan(10L));
+    }
+  }
+
+  @Test
+  public void testZipfianFrequencies() {
+    ConcurrentPseudoRandom rnd = new ConcurrentPseudoRandom();
+    int n = 1000;
+    double harmonic = 0;
+    for (int k = 1; k <= n; k++) {
+      harmonic += Math.pow(k, -0.99);
+    }
+    int samples = 200000;
+    int[] counts = new int[n];
+    for (int i = 0; i < samples; i++) {
+      counts[(int)Distribution.ZIPFIAN.generate(rnd, 0, n, 0)]++;
+    }
+    for (int k = 1; k <= 3; k++) {
+      assertThat((double)counts[k - 1] / samples, closeTo(Math.pow(k, -0.99) / harmonic, 0.005));
+    }
+  }
+
+  @Test
+  public void testLatestFavoursTheMaximum() {
+    ConcurrentPseudoRandom rnd = new ConcurrentPseudoRandom();
+    int samples = 100000;
+    int latest = 0;
+    for (int i = 0; i < samples; i++) {
+      if (Distribution.LATEST.generate(rnd, 0, 1000, 0) == 999) {
+        latest++;
+      }
+    }
+    assertThat((double)latest / samples, greaterThan(0.1));
+  }
+
+  @Test
+  public void testHotspotFrequencies() {
+    ConcurrentPseudoRandom rnd = new ConcurrentPseudoRandom();
+    int samples = 100000;
+    int hot = 0;
+    for (int i = 0; i < samples; i++) {
+      if (Distribution.HOTSPOT.generate(rnd, 0, 10000, 1000) < 1000) {
+        hot++;
+      }
+    }
+    assertThat((double)hot / samples, closeTo(Distribution.HOTSPOT_PROBABILITY, 0.01));
+  }
+
+  @Test
+  public void testExponentialMean() {
+    ConcurrentPseudoRandom rnd = new ConcurrentPseudoRandom();
+    int samples = 100000;
+    double sum = 0;
+    for (int i = 0; i < samples; i++) {
+      sum += Distribution.EXPONENTIAL.generate(rnd, 0, 100000000, 10000);
+    }
+    // the values are truncated, so the mean is half a unit lower
+    assertThat(sum / samples, closeTo(10000, 150));
+  }
 }
@@ -16,15 +16,20 @@
 
 package io.rainfall.statistics;
 
+import io.rainfall.utils.VirtualThreads;
 import org.HdrHistogram.Histogram;
 import org.HdrHistogram.ConcurrentHistogram;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assume.assumeTrue;
 
 public class RuntimeStatisticsHolderTest {
 
@@ -68,6 +73,212 @@ public class RuntimeStatisticsHolderTest {
     assertThat(secondHolder.fetchHistogram(Result.OK).getTotalCount(), is(1L));
   }
 
+  @Test
+  public void virtualThreadsShouldRecordIntoSharedHistograms() throws InterruptedException {
+    assumeTrue(VirtualThreads.isSupported());
+    RuntimeStatisticsHolder<Result> holder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+
+    ThreadFactory factory = VirtualThreads.factory("test-");
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 1000; i++) {
+      Thread thread = factory.newThread(() -> {
+        for (int j = 0; j < 10; j++) {
+          holder.record("op", 10L, Result.OK);
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(holder.fetchHistogram(Result.OK).getTotalCount(), is(10000L));
+    assertThat(holder.peek().getTotalStatisticsPeeks().getCumulativeCounters(Result.OK), is(10000L));
+  }
+
+  @Test
+  public void histogramStripesShouldBeBoundedRegardlessOfThreadCount() throws InterruptedException {
+    RuntimeStatisticsHolder<Result> holder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet(), 3);
+
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 32; i++) {
+      Thread thread = new Thread(() -> {
+        for (int j = 0; j < 100; j++) {
+          holder.record("op", 10L, Result.OK);
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(holder.fetchHistogram(Result.OK).getTotalCount(), is(3200L));
+    holder.record("op", 10L, Result.OK);
+    assertThat(holder.fetchHistogram(Result.OK).getTotalCount(), is(3201L));
+  }
+
+  @Test
+  public void histogramSinkShouldRoundStripesToPowerOfTwo() {
+    RainfallHistogramSink<Result> sink = new RainfallHistogramSink<Result>(new RainfallHistogramSink.Factory() {
+      @Override
+      public ConcurrentHashMap<Enum, Histogram> createHistograms() {
+        ConcurrentHashMap<Enum, Histogram> histograms = new ConcurrentHashMap<Enum, Histogram>();
+        histograms.put(Result.OK, new ConcurrentHistogram(3));
+        return histograms;
+      }
+    }, 5);
+
+    assertThat(sink.getStripesCount(), is(8));
+    sink.recordValue(Result.OK, 10L);
+    sink.reset();
+    assertThat(sink.fetchHistogram(Result.OK).getTotalCount(), is(0L));
+  }
+
+  @Test
+  public void histogramsPerNameShouldBeCappedToTheFirstNames() {
+    RuntimeStatisticsHolder<Result> holder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet(), 4, 2);
+
+    holder.record("cache1", 1_000L, Result.OK);
+    holder.record("cache2", 50_000_000L, Result.OK);
+    holder.record("cache2", 60_000_000L, Result.ERROR);
+    holder.record("cache3", 10L, Result.OK);
+
+    assertThat(holder.fetchHistogram("cache1", Result.OK).getTotalCount(), is(1L));
+    assertThat(holder.fetchHistogram("cache2", Result.OK).getTotalCount(), is(1L));
+    assertThat(holder.fetchHistogram("cache2", Result.OK).getMinValue() >= 49_000_000L, is(true));
+    assertThat(holder.fetchHistogram("cache2", Result.ERROR).getTotalCount(), is(1L));
+    assertThat(holder.fetchHistogram("cache3", Result.OK) == null, is(true));
+    assertThat(holder.fetchHistogram(Result.OK).getTotalCount(), is(3L));
+    assertThat(holder.peek().fetchHistogram("cache1", Result.OK).getTotalCount(), is(1L));
+  }
+
+  @Test
+  public void histogramsPerNameShouldBeDisabledByDefault() {
+    RuntimeStatisticsHolder<Result> holder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+
+    holder.record("cache1", 1_000L, Result.OK);
+
+    assertThat(holder.fetchHistogram("cache1", Result.OK) == null, is(true));
+    assertThat(holder.peek().fetchHistogram("cache1", Result.OK) == null, is(true));
+  }
+
+  @Test
+  public void registeredRecorderShouldRecordStatisticsAndHistograms() {
+    RuntimeStatisticsHolder<Result> holder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet(), 4, 10);
+
+    StatisticsRecorder recorder = holder.register("op");
+    assertThat(holder.register("op") == recorder, is(true));
+
+    recorder.record(1_000_000L, Result.OK);
+    recorder.record(3_000_000L, Result.OK);
+    holder.record("op", 2_000_000L, Result.ERROR);
+
+    StatisticsPeek<Result> peek = holder.peek().getStatisticsPeeks("op");
+    assertThat(peek.getCumulativeCounters(Result.OK), is(2L));
+    assertThat(peek.getCumulativeAverageLatencyInMs(Result.OK), is(2.0d));
+    assertThat(peek.getCumulativeCounters(Result.ERROR), is(1L));
+    assertThat(holder.fetchHistogram(Result.OK).getTotalCount(), is(2L));
+    assertThat(holder.fetchHistogram("op", Result.OK).getTotalCount(), is(2L));
+  }
+
+  @Test
+  public void phasesShouldOnlyAccountTheOperationsRecordedDuringThem() {
+    RuntimeStatisticsHolder<Result> holder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+    StatisticsRecorder recorder = holder.register("op");
+
+    recorder.record(1_000_000L, Result.OK);
+    holder.beginPhase("ramp");
+    recorder.record(2_000_000L, Result.OK);
+    holder.beginPhase("steady");
+    assertThat(holder.getPhaseName(), is("steady"));
+    recorder.record(3_000_000L, Result.OK);
+    holder.record("op", 4_000_000L, Result.ERROR);
+    holder.endPhase();
+    recorder.record(5_000_000L, Result.OK);
+
+    List<StatisticsPhase<Result>> phases = holder.peek().getPhases();
+    assertThat(phases.size(), is(2));
+    StatisticsPhase<Result> ramp = phases.get(0);
+    assertThat(ramp.getName(), is("ramp"));
+    assertThat(ramp.isRunning(), is(false));
+    assertThat(ramp.getCount(Result.OK), is(1L));
+    assertThat(ramp.fetchHistogram(Result.OK).getMaxValue() / 1_000_000L, is(2L));
+    StatisticsPhase<Result> steady = phases.get(1);
+    assertThat(steady.getCount(Result.OK), is(1L));
+    assertThat(steady.getCount(Result.ERROR), is(1L));
+    assertThat(steady.fetchHistogram(Result.OK).getTotalCount(), is(1L));
+    assertThat(holder.getPhaseName() == null, is(true));
+    assertThat(holder.fetchHistogram(Result.OK).getTotalCount(), is(4L));
+  }
+
+  @Test
+  public void emptyPhaseShouldBeReplaced() {
+    RuntimeStatisticsHolder<Result> holder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+
+    holder.beginPhase("1) warmup");
+    holder.record("op", 1_000_000L, Result.OK);
+    holder.beginPhase("2) repeat");
+    holder.replacePhase("2) repeat - iteration 1");
+    holder.record("op", 1_000_000L, Result.OK);
+    holder.replacePhase("2) repeat - iteration 2");
+    holder.endPhase();
+
+    List<StatisticsPhase<Result>> phases = holder.getPhases();
+    assertThat(phases.size(), is(3));
+    assertThat(phases.get(0).getName(), is("1) warmup"));
+    assertThat(phases.get(1).getName(), is("2) repeat - iteration 1"));
+    assertThat(phases.get(1).fetchHistogram(Result.OK).getTotalCount(), is(1L));
+    assertThat(phases.get(2).getName(), is("2) repeat - iteration 2"));
+  }
+
+  @Test
+  public void batchShouldBeCountedOnceAndItsItemsApart() {
+    RuntimeStatisticsHolder<Result> holder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet(), 4, 10);
+
+    holder.recordBatch("multi-get", 4_000_000L, Result.OK, 10);
+    holder.recordBatch("multi-get", 2_000_000L, Result.OK, 5);
+    holder.record("multi-get", 3_000_000L, Result.OK);
+
+    StatisticsPeekHolder<Result> peekHolder = holder.peek();
+    StatisticsPeek<Result> peek = peekHolder.getStatisticsPeeks("multi-get");
+    assertThat(peek.getCumulativeCounters(Result.OK), is(3L));
+    assertThat(peek.getCumulativeItemCounters(Result.OK), is(16L));
+    assertThat(peek.getPeriodicItemCounters(Result.OK), is(16L));
+    assertThat(peek.getCumulativeAverageLatencyInMs(Result.OK), is(3.0d));
+    assertThat(peekHolder.getTotalStatisticsPeeks().getCumulativeItemCounters(Result.OK), is(16L));
+    assertThat(holder.fetchHistogram(Result.OK).getTotalCount(), is(16L));
+    assertThat(holder.fetchHistogram("multi-get", Result.OK).getTotalCount(), is(16L));
+
+    holder.recordBatch("multi-get", 1_000_000L, Result.OK, 4);
+    assertThat(holder.peek().getStatisticsPeeks("multi-get").getPeriodicItemCounters(Result.OK), is(4L));
+  }
+
+  @Test
+  public void latencyOffsetShouldBeSubtractedFromRecordedResponseTimes() {
+    RuntimeStatisticsHolder<Result> holder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+    holder.setLatencyOffsetInNs(500L);
+
+    holder.record("op", 2_000L, Result.OK);
+    holder.record("op", 100L, Result.OK);
+
+    Histogram histogram = holder.fetchHistogram(Result.OK);
+    assertThat(histogram.getTotalCount(), is(2L));
+    assertThat(histogram.getMinValue(), is(0L));
+    assertThat(histogram.getMaxValue(), is(1_500L));
+  }
+
   @Test
   public void fetchHistogramShouldReuseTheAggregateHistogramInstance() {
     RuntimeStatisticsHolder<Result> holder = new RuntimeStatisticsHolder<Result>(
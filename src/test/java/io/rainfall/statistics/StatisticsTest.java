@@ -65,11 +65,36 @@ public class StatisticsTest {
     statistics.increaseCounterAndSetLatencyInNs(two, 34 * 1000000L);
     statistics.increaseCounterAndSetLatencyInNs(two, 97 * 1000000L);
 
-    assertThat(statistics.getCumulativeCounters(two).longValue(), is(3L));
-    assertThat(statistics.getCumulativeTotalLatencies(two).longValue(), is((105 + 34 + 97) * 1000000L));
+    assertThat(statistics.getCumulativeCounters(two), is(3L));
+    assertThat(statistics.getCumulativeTotalLatencies(two), is((105 + 34 + 97) * 1000000L));
     statistics.peek(1L);
-    assertThat(statistics.getCumulativeCounters(two).longValue(), is(3L));
-    assertThat(statistics.getCumulativeTotalLatencies(two).longValue(), is((105 + 34 + 97) * 1000000L));
+    assertThat(statistics.getCumulativeCounters(two), is(3L));
+    assertThat(statistics.getCumulativeTotalLatencies(two), is((105 + 34 + 97) * 1000000L));
+  }
+
+  @Test
+  public void testConcurrentCumulativeCounters() throws InterruptedException {
+    final Result[] keys = new Result[] { Result.ONE, Result.TWO, Result.THREE };
+    final Statistics<Result> statistics = new Statistics<Result>("test", keys, 100);
+
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 10000; j++) {
+          statistics.increaseCounterAndSetLatencyInNs(Result.THREE, 2L);
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(statistics.getCumulativeCounters(Result.THREE), is(80000L));
+    assertThat(statistics.getCumulativeTotalLatencies(Result.THREE), is(160000L));
+    assertThat(statistics.getCumulativeCounters(Result.ONE), is(0L));
+    statistics.reset();
+    assertThat(statistics.getCumulativeCounters(Result.THREE), is(0L));
   }
 
 /*
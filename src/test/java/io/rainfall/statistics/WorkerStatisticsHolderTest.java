@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.statistics;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+public class WorkerStatisticsHolderTest {
+
+  private enum Result {
+    OK,
+    KO
+  }
+
+  @Test
+  public void nameShouldBeRegisteredOnce() {
+    StatisticsHolder<Result> statisticsHolder = mock(StatisticsHolder.class);
+    StatisticsRecorder recorder = mock(StatisticsRecorder.class);
+    when(statisticsHolder.register("get")).thenReturn(recorder);
+
+    WorkerStatisticsHolder<Result> workerStatisticsHolder = new WorkerStatisticsHolder<Result>(statisticsHolder);
+    workerStatisticsHolder.record("get", 10L, Result.OK);
+    workerStatisticsHolder.record(new String("get"), 20L, Result.KO);
+    workerStatisticsHolder.recordBatch("get", 30L, Result.OK, 3);
+
+    verify(statisticsHolder, times(1)).register("get");
+    verify(recorder).record(10L, Result.OK);
+    verify(recorder).record(20L, Result.KO);
+    verify(recorder).recordBatch(30L, Result.OK, 3);
+  }
+
+  @Test
+  public void recordsShouldLandInTheRuntimeStatistics() {
+    RuntimeStatisticsHolder<Result> statisticsHolder = new RuntimeStatisticsHolder<Result>(
+        Result.values(), Result.values(), Collections.emptySet());
+    WorkerStatisticsHolder<Result> workerStatisticsHolder = new WorkerStatisticsHolder<Result>(statisticsHolder);
+
+    for (int i = 0; i < 5; i++) {
+      workerStatisticsHolder.record("get", 1000L, Result.OK);
+    }
+
+    assertThat(statisticsHolder.fetchHistogram(Result.OK).getTotalCount(), is(5L));
+    assertThat(statisticsHolder.peek().getStatisticsPeeks("get").getCumulativeCounters(Result.OK), is(5L));
+  }
+}
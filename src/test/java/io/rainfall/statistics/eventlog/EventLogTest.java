@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.statistics.eventlog;
+
+import io.rainfall.statistics.RuntimeStatisticsHolder;
+import io.rainfall.statistics.StatisticsPeek;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+public class EventLogTest {
+
+  private enum Result {
+    OK, KO
+  }
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void eventsRecordedByManyThreadsShouldBeReadBack() throws Exception {
+    Path directory = folder.getRoot().toPath().resolve("events");
+    final EventLog eventLog = new EventLog(directory, Result.values());
+    final int get = eventLog.nameId("get");
+    final int put = eventLog.nameId("put");
+
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 1000; i++) {
+          eventLog.record(i % 2 == 0 ? get : put, i % 10 == 0 ? Result.KO : Result.OK, 1000L);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    eventLog.close();
+
+    EventLogReader reader = new EventLogReader(directory);
+    assertThat(reader.getNames(), is(Arrays.asList("get", "put")));
+    assertThat(reader.getResults(), is(Arrays.asList("OK", "KO")));
+
+    final long[] counts = new long[2];
+    final AtomicLong latencies = new AtomicLong();
+    reader.forEach((timestampInNs, nameId, resultOrdinal, latencyInNs, count) -> {
+      counts[resultOrdinal]++;
+      latencies.addAndGet(latencyInNs);
+    });
+    assertThat(counts[Result.OK.ordinal()] + counts[Result.KO.ordinal()] + eventLog.getDroppedCount(), is(4000L));
+    assertThat(eventLog.getWrittenCount(), is(counts[0] + counts[1]));
+    assertThat(latencies.get(), is(1000L * eventLog.getWrittenCount()));
+  }
+
+  @Test
+  public void fullBuffersShouldDropAndCountEvents() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    EventLog eventLog = new EventLog(directory, Result.values(), EventLog.DEFAULT_SEGMENT_SIZE, 0, 8, 60_000L);
+    int op = eventLog.nameId("op");
+    for (int i = 0; i < 20; i++) {
+      eventLog.record(op, Result.OK, 10L);
+    }
+    assertThat(eventLog.getDroppedCount(), is(12L));
+
+    eventLog.flush();
+    for (int i = 0; i < 8; i++) {
+      eventLog.record(op, Result.OK, 10L);
+    }
+    eventLog.close();
+    assertThat(eventLog.getWrittenCount(), is(16L));
+    assertThat(eventLog.getDroppedCount(), is(12L));
+  }
+
+  @Test
+  public void segmentsShouldBeRotatedAndRetained() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    long segmentSize = EventLog.SEGMENT_HEADER_SIZE + 10 * EventLog.RECORD_SIZE;
+    EventLog eventLog = new EventLog(directory, Result.values(), segmentSize, 3, 1024, 60_000L);
+    int op = eventLog.nameId("op");
+    for (int i = 0; i < 55; i++) {
+      eventLog.record(op, Result.OK, i);
+    }
+    eventLog.close();
+
+    try (Stream<Path> files = Files.list(directory)) {
+      assertThat(files.filter(path -> path.getFileName().toString().startsWith(EventLog.SEGMENT_PREFIX)).count(), is(3L));
+    }
+    final AtomicLong count = new AtomicLong();
+    final AtomicLong minLatency = new AtomicLong(Long.MAX_VALUE);
+    new EventLogReader(directory).forEach((timestampInNs, nameId, resultOrdinal, latencyInNs, eventCount) -> {
+      count.incrementAndGet();
+      minLatency.set(Math.min(minLatency.get(), latencyInNs));
+    });
+    // the 6 segments hold 10, 10, 10, 10, 10 and 5 events, the 3 oldest ones are deleted
+    assertThat(count.get(), is(25L));
+    assertThat(minLatency.get(), is(30L));
+  }
+
+  @Test
+  public void peeksShouldBeDerivedAtAnyInterval() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    RuntimeStatisticsHolder<Result> holder = new RuntimeStatisticsHolder<Result>(Result.values(), Result.values(),
+        Collections.emptySet());
+    EventLog eventLog = new EventLog(directory, Result.values());
+    holder.setEventLog(eventLog);
+    long from = System.currentTimeMillis() - 1;
+    for (int i = 0; i < 30; i++) {
+      holder.record("get", 2_000_000L, Result.OK);
+      holder.record("put", 4_000_000L, i % 3 == 0 ? Result.KO : Result.OK);
+    }
+    eventLog.close();
+    long to = System.currentTimeMillis() + 1;
+
+    EventLogReader reader = new EventLogReader(directory);
+    List<StatisticsPeek<Result>> all = reader.peeks(Result.values(), null, from, to, to - from);
+    assertThat(all.size(), is(1));
+    assertThat(all.get(0).getSumOfPeriodicCounters(), is(60L));
+    assertThat(all.get(0).getPeriodicCounters(Result.KO), is(10L));
+
+    List<StatisticsPeek<Result>> puts = reader.peeks(Result.values(), "put", from, to, 1);
+    assertThat(puts.size(), is((int)(to - from)));
+    StatisticsPeek<Result> last = puts.get(puts.size() - 1);
+    assertThat(last.getCumulativeCounters(Result.OK), is(20L));
+    assertThat(last.getCumulativeAverageLatencyInMs(Result.OK), is(4.0d));
+    long periodicSum = 0;
+    for (StatisticsPeek<Result> peek : puts) {
+      periodicSum += peek.getSumOfPeriodicCounters();
+      assertThat(peek.getTimestamp(), is(lessThanOrEqualTo(to)));
+    }
+    assertThat(periodicSum, is(30L));
+    assertThat(reader.peeks(Result.values(), "unknown", from, to, 1).get(0).getSumOfCumulativeCounters(), is(0L));
+  }
+
+  @Test
+  public void batchesShouldBeRecordedWithTheirItemCount() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    RuntimeStatisticsHolder<Result> holder = new RuntimeStatisticsHolder<Result>(Result.values(), Result.values(),
+        Collections.emptySet());
+    EventLog eventLog = new EventLog(directory, Result.values());
+    holder.setEventLog(eventLog);
+    long from = System.currentTimeMillis() - 1;
+    holder.recordBatch("putAll", 5_000_000L, Result.OK, 100);
+    holder.record("put", 1_000_000L, Result.OK);
+    eventLog.close();
+    long to = System.currentTimeMillis() + 1;
+
+    EventLogReader reader = new EventLogReader(directory);
+    final AtomicLong items = new AtomicLong();
+    reader.forEach((timestampInNs, nameId, resultOrdinal, latencyInNs, count) -> items.addAndGet(count));
+    assertThat(items.get(), is(101L));
+    StatisticsPeek<Result> peek = reader.peeks(Result.values(), null, from, to, to - from).get(0);
+    assertThat(peek.getCumulativeCounters(Result.OK), is(2L));
+    assertThat(peek.getCumulativeItemCounters(Result.OK), is(101L));
+  }
+
+  @Test
+  public void buffersShouldBeSharedByTheThreads() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    final EventLog eventLog = new EventLog(directory, Result.values(), EventLog.DEFAULT_SEGMENT_SIZE, 0, 128, 60_000L);
+    final int op = eventLog.nameId("op");
+    int bufferCount = eventLog.getBufferCount();
+    for (int t = 0; t < 100; t++) {
+      Thread thread = new Thread(() -> eventLog.record(op, Result.OK, 10L));
+      thread.start();
+      thread.join();
+    }
+    assertThat(eventLog.getBufferCount(), is(bufferCount));
+    assertThat(eventLog.getBufferCount() <= 64, is(true));
+
+    eventLog.close();
+    assertThat(eventLog.getWrittenCount(), is(100L));
+  }
+
+  @Test(expected = IOException.class)
+  public void readingAMissingLogShouldFail() throws Exception {
+    new EventLogReader(folder.getRoot().toPath().resolve("missing"));
+  }
+}
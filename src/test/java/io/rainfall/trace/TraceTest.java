@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.trace;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+public class TraceTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void writtenRecordsShouldBeReadBack() throws IOException {
+    Path path = folder.getRoot().toPath().resolve("trace.bin");
+    try (TraceWriter writer = new TraceWriter(path)) {
+      for (int i = 0; i < 10000; i++) {
+        writer.write(i * 1000L, i % 3 == 0 ? "put" : "get", i * 7L, i);
+      }
+    }
+
+    Trace trace = Trace.open(path);
+    assertThat(trace.size(), is(10000L));
+    assertThat(trace.getOperationNames(), is(Arrays.asList("put", "get")));
+    assertThat(trace.getTimestampInNs(9999), is(9999000L));
+    assertThat(trace.getKey(42), is(294L));
+    assertThat(trace.getSize(42), is(42));
+    assertThat(trace.getOperationNames().get(trace.getOperation(42)), is("put"));
+    assertThat(trace.getLengthInNs(), is(9999000L));
+    assertThat(trace.countUntil(4500L), is(5L));
+    assertThat(trace.cursor().moveTo(43).getOperationName(), is("get"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void recordsShouldBeWrittenInTheOrderOfTheirTimestamps() throws IOException {
+    try (TraceWriter writer = new TraceWriter(folder.getRoot().toPath().resolve("trace.bin"))) {
+      writer.write(1000L, "get", 1L, 10);
+      writer.write(999L, "get", 2L, 10);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void unsortedCsvShouldBeRejected() throws IOException {
+    Path csv = folder.getRoot().toPath().resolve("unsorted.csv");
+    Files.write(csv, Arrays.asList("1005,get,12,100", "1000,put,13,100"), StandardCharsets.UTF_8);
+    Trace.fromCsv(csv, folder.getRoot().toPath().resolve("unsorted.bin"), TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  public void csvShouldBeConvertedOnce() throws IOException {
+    Path csv = folder.getRoot().toPath().resolve("access.csv");
+    Files.write(csv, Arrays.asList("timestamp,operation,key,size", "1000,get,12,100", "", "# comment",
+        "1005,put,user-42,2048"), StandardCharsets.UTF_8);
+    Path path = folder.getRoot().toPath().resolve("access.bin");
+
+    Trace trace = Trace.fromCsv(csv, path, TimeUnit.MILLISECONDS);
+    assertThat(trace.size(), is(2L));
+    assertThat(trace.getLengthInNs(), is(TimeUnit.MILLISECONDS.toNanos(5)));
+    assertThat(trace.getKey(0), is(12L));
+    assertThat(trace.getKey(1), is(Trace.parseKey("user-42")));
+    assertThat(trace.getSize(1), is(2048));
+
+    // the binary trace is more recent than the log, it is not converted again
+    Files.write(csv, Arrays.asList("1000,get,12,100"), StandardCharsets.UTF_8);
+    Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() - 1000L));
+    assertThat(Trace.fromCsv(csv, path, TimeUnit.MILLISECONDS).size(), is(2L));
+  }
+}
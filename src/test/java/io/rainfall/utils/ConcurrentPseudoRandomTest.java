@@ -100,4 +100,24 @@ public class ConcurrentPseudoRandomTest {
       assertThat(value, is(lessThan(upperBound)));
     }
   }
+
+  @Test
+  public void testNextDouble() {
+    ConcurrentPseudoRandom random = new ConcurrentPseudoRandom();
+    double min = Double.MAX_VALUE;
+    double max = -Double.MAX_VALUE;
+    double sum = 0;
+
+    for (int i = 0; i < 100000; i++) {
+      double value = random.nextDouble();
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+      sum += value;
+    }
+    assertThat(min, is(greaterThanOrEqualTo(0d)));
+    assertThat(min, is(lessThan(0.001d)));
+    assertThat(max, is(lessThan(1d)));
+    assertThat(max, is(greaterThan(0.999d)));
+    assertThat(Math.abs(sum / 100000 - 0.5d), is(lessThan(0.01d)));
+  }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class FrozenRangeMapTest {
+
+  private static final int SAMPLES = 400_000;
+
+  @Test
+  public void testGetUsesDoublePrecisionRanges() {
+    FrozenRangeMap<String> map = new FrozenRangeMap<String>(new double[] { 0.25, 0.5, 0.25 },
+        Arrays.asList("Value1", "Value2", "Value3"));
+
+    assertThat(map.get(0.10f), is(equalTo("Value1")));
+    assertThat(map.get(0.25f), is(equalTo("Value2")));
+    assertThat(map.get(0.75f), is(equalTo("Value3")));
+    assertThat(map.get(1.00f), is(equalTo(null)));
+    assertThat(map.get(-0.10f), is(equalTo(null)));
+    assertThat(map.getHigherBound(), is(equalTo(1.0f)));
+  }
+
+  @Test
+  public void testIgnoredWeightsAreNotPicked() {
+    FrozenRangeMap<String> map = new FrozenRangeMap<String>(new double[] { 0.0, 3.0, -1.0 },
+        Arrays.asList("Ignored", "Value1", "Ignored"));
+
+    assertThat(new ArrayList<String>(map.getAll()), is(equalTo(Arrays.asList("Value1"))));
+    assertThat(map.getNextRandom(new ConcurrentPseudoRandom()), is(equalTo("Value1")));
+  }
+
+  @Test
+  public void testEmptyMapReturnsNoValue() {
+    FrozenRangeMap<String> map = new FrozenRangeMap<String>(new double[0], new ArrayList<String>());
+
+    assertThat(map.getNextRandom(new ConcurrentPseudoRandom()), is(equalTo(null)));
+    assertThat(map.get(0.0f), is(equalTo(null)));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testFrozenMapCanNotBeModified() {
+    new RangeMap<String>().freeze().put(0.5f, "Value1");
+  }
+
+  @Test
+  public void testFreezeKeepsTheWeightsAndOrder() {
+    RangeMap<String> map = new RangeMap<String>();
+    map.put(0.20f, "Value1");
+    map.put(0.0f, "Ignored");
+    map.put(0.30f, "Value2");
+
+    FrozenRangeMap<String> frozen = map.freeze();
+    assertThat(new ArrayList<String>(frozen.getAll()), is(equalTo(Arrays.asList("Value1", "Value2"))));
+    assertThat(frozen.get(0.10f), is(equalTo("Value1")));
+    assertThat(frozen.get(0.30f), is(equalTo("Value2")));
+    assertThat(frozen.freeze(), is(sameInstance(frozen)));
+    assertThat(frozen.freeze().get(0.30f), is(equalTo("Value2")));
+  }
+
+  @Test
+  public void testSmallMapFollowsTheWeights() {
+    assertFrequencies(new double[] { 1, 2, 3, 4 });
+  }
+
+  @Test
+  public void testLargeMapFollowsTheWeights() {
+    double[] weights = new double[40];
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = (i % 7) + 0.5;
+    }
+    weights[3] = 40.0;
+    assertFrequencies(weights);
+  }
+
+  private void assertFrequencies(final double[] weights) {
+    List<Integer> values = new ArrayList<Integer>();
+    double total = 0;
+    for (int i = 0; i < weights.length; i++) {
+      values.add(i);
+      total += weights[i];
+    }
+    FrozenRangeMap<Integer> map = new FrozenRangeMap<Integer>(weights, values);
+
+    ConcurrentPseudoRandom random = new ConcurrentPseudoRandom();
+    int[] counts = new int[weights.length];
+    for (int i = 0; i < SAMPLES; i++) {
+      counts[map.getNextRandom(random)]++;
+    }
+    for (int i = 0; i < weights.length; i++) {
+      assertThat("Frequency of value " + i, (double)counts[i] / SAMPLES, closeTo(weights[i] / total, 0.01));
+    }
+  }
+}
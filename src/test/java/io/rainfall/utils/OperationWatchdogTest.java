@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.utils;
+
+import io.rainfall.statistics.StatisticsHolder;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+public class OperationWatchdogTest {
+
+  private enum Result {
+    OK, TIMEOUT
+  }
+
+  @Test
+  public void hungOperationShouldBeRecordedOnceWithItsElapsedTime() throws Exception {
+    StatisticsHolder holder = sharedHolder();
+    OperationWatchdog watchdog = new OperationWatchdog(TimeUnit.MILLISECONDS.toNanos(50), OperationWatchdog.Action.RECORD,
+        Result.TIMEOUT);
+    try {
+      OperationWatchdog.Slot slot = watchdog.begin("fast", 0L, holder);
+      slot.end();
+      slot = watchdog.begin("slow", 0L, holder);
+      Thread.sleep(300L);
+      slot.end();
+      Thread.sleep(100L);
+    } finally {
+      watchdog.close();
+    }
+
+    long timeoutInNs = TimeUnit.MILLISECONDS.toNanos(50);
+    verify(holder, times(1)).recordTimeout(longThat(elapsed -> elapsed >= timeoutInNs));
+    verify(holder, times(1)).record(eq("slow"), longThat(elapsed -> elapsed >= timeoutInNs), eq(Result.TIMEOUT));
+    verify(holder, never()).record(eq("fast"), anyLong(), eq(Result.TIMEOUT));
+    assertThat(watchdog.getAbandonedOperation(), is(nullValue()));
+  }
+
+  @Test
+  public void hungOperationShouldNotRecordItselfOnceTimedOut() throws Exception {
+    StatisticsHolder worker = mock(StatisticsHolder.class);
+    StatisticsHolder shared = sharedHolder();
+    when(worker.shared()).thenReturn(shared);
+    OperationWatchdog watchdog = new OperationWatchdog(TimeUnit.MILLISECONDS.toNanos(50), OperationWatchdog.Action.RECORD,
+        Result.TIMEOUT);
+    try {
+      OperationWatchdog.Slot slot = watchdog.begin("fast", 0L, worker);
+      slot.getStatisticsHolder().record("fast", 1L, Result.OK);
+      slot.end();
+      slot = watchdog.begin("slow", 0L, worker);
+      Thread.sleep(300L);
+      slot.getStatisticsHolder().record("slow", 300L, Result.OK);
+      slot.end();
+    } finally {
+      watchdog.close();
+    }
+
+    // the timeout is recorded by the watchdog thread into the shared holder, the late result is dropped
+    verify(worker, times(1)).record("fast", 1L, Result.OK);
+    verify(worker, never()).record(eq("slow"), anyLong(), eq(Result.OK));
+    verify(worker, never()).recordTimeout(anyLong());
+    verify(shared, times(1)).recordTimeout(anyLong());
+    verify(shared, times(1)).record(eq("slow"), anyLong(), eq(Result.TIMEOUT));
+  }
+
+  @Test
+  public void operationTimeoutShouldOverrideTheDefaultTimeout() throws Exception {
+    StatisticsHolder holder = sharedHolder();
+    OperationWatchdog watchdog = new OperationWatchdog(0L, OperationWatchdog.Action.RECORD, null);
+    try {
+      // no default timeout, only the operation with its own timeout is watched
+      OperationWatchdog.Slot slot = watchdog.begin("unwatched", 0L, holder);
+      Thread.sleep(100L);
+      slot.end();
+      slot = watchdog.begin("watched", TimeUnit.MILLISECONDS.toNanos(20), holder);
+      Thread.sleep(100L);
+      slot.end();
+    } finally {
+      watchdog.close();
+    }
+
+    verify(holder, times(1)).recordTimeout(anyLong());
+  }
+
+  @Test
+  public void hungWorkerShouldBeInterrupted() throws Exception {
+    final StatisticsHolder holder = sharedHolder();
+    final OperationWatchdog watchdog = new OperationWatchdog(TimeUnit.MILLISECONDS.toNanos(50),
+        OperationWatchdog.Action.INTERRUPT, null);
+    final AtomicBoolean interrupted = new AtomicBoolean(false);
+    final CountDownLatch done = new CountDownLatch(1);
+    try {
+      Thread worker = new Thread(() -> {
+        OperationWatchdog.Slot slot = watchdog.begin("hung", 0L, holder);
+        try {
+          Thread.sleep(10_000L);
+        } catch (InterruptedException e) {
+          interrupted.set(true);
+        } finally {
+          slot.end();
+          done.countDown();
+        }
+      });
+      worker.setDaemon(true);
+      worker.start();
+
+      assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+      assertThat(interrupted.get(), is(true));
+    } finally {
+      watchdog.close();
+    }
+  }
+
+  @Test
+  public void interruptShouldNotOutliveTheOperation() throws Exception {
+    final StatisticsHolder holder = sharedHolder();
+    final OperationWatchdog watchdog = new OperationWatchdog(TimeUnit.MILLISECONDS.toNanos(50),
+        OperationWatchdog.Action.INTERRUPT, null);
+    final AtomicBoolean interruptedAfterEnd = new AtomicBoolean(true);
+    final CountDownLatch done = new CountDownLatch(1);
+    try {
+      Thread worker = new Thread(() -> {
+        OperationWatchdog.Slot slot = watchdog.begin("deaf", 0L, holder);
+        // ignores the interrupt, as an operation blocked in an uninterruptible call
+        long deadlineInNs = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+        while (System.nanoTime() < deadlineInNs) {
+          Thread.onSpinWait();
+        }
+        slot.end();
+        interruptedAfterEnd.set(Thread.currentThread().isInterrupted());
+        done.countDown();
+      });
+      worker.setDaemon(true);
+      worker.start();
+
+      assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+      assertThat(interruptedAfterEnd.get(), is(false));
+      verify(holder, times(1)).recordTimeout(anyLong());
+    } finally {
+      watchdog.close();
+    }
+  }
+
+  private static StatisticsHolder sharedHolder() {
+    StatisticsHolder holder = mock(StatisticsHolder.class);
+    when(holder.shared()).thenReturn(holder);
+    return holder;
+  }
+}
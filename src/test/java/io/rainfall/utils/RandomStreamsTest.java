@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+public class RandomStreamsTest {
+
+  @After
+  public void tearDown() {
+    RandomStreams.seed(RandomStreams.newMasterSeed());
+  }
+
+  @Test
+  public void theSameMasterSeedShouldReplayTheSameValues() throws Exception {
+    ConcurrentPseudoRandom rnd = new ConcurrentPseudoRandom();
+
+    RandomStreams.seed(42L);
+    List<Long> first = draw(rnd, "default");
+    RandomStreams.seed(42L);
+    List<Long> replay = draw(rnd, "default");
+    RandomStreams.seed(43L);
+    List<Long> other = draw(rnd, "default");
+
+    assertThat(replay, is(first));
+    assertThat(other, is(not(first)));
+  }
+
+  @Test
+  public void theSameMasterSeedShouldReplayTheSameValuesWhateverTheGeneratorsCreatedBefore() throws Exception {
+    RandomStreams.seed(42L);
+    List<Long> first = draw(new ConcurrentPseudoRandom(), "default");
+    new ConcurrentPseudoRandom();
+    new ConcurrentPseudoRandom();
+    RandomStreams.seed(42L);
+    List<Long> replay = draw(new ConcurrentPseudoRandom(), "default");
+
+    assertThat(replay, is(first));
+  }
+
+  @Test
+  public void eachWorkerShouldDrawFromItsOwnStream() throws Exception {
+    ConcurrentPseudoRandom rnd = new ConcurrentPseudoRandom();
+    RandomStreams.seed(42L);
+
+    final List<Long> worker0 = new ArrayList<Long>();
+    final List<Long> worker1 = new ArrayList<Long>();
+    ExecutorService executor = Executors.newFixedThreadPool(2,
+        CurrentThreadpool.factory("default", Executors.defaultThreadFactory()));
+    try {
+      // the first task is run by the worker default-0, the second one by default-1
+      executor.submit(() -> draw(worker0, rnd)).get();
+      executor.submit(() -> draw(worker1, rnd)).get();
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    assertThat(worker1, is(not(worker0)));
+    assertThat(RandomStreams.getWorkerSeeds(), hasKey("default-0"));
+    assertThat(RandomStreams.getWorkerSeeds(), hasKey("default-1"));
+  }
+
+  @Test
+  public void aWorkerShouldDrawTheSameValuesWhicheverThreadRunsIt() throws Exception {
+    ConcurrentPseudoRandom rnd = new ConcurrentPseudoRandom();
+
+    final List<Long> first = new ArrayList<Long>();
+    final List<Long> otherThread = new ArrayList<Long>();
+    final List<Long> sameThread = new ArrayList<Long>();
+    ThreadFactory factory = CurrentThreadpool.factory("default", Executors.defaultThreadFactory());
+    ExecutorService firstThread = Executors.newSingleThreadExecutor(factory);
+    ExecutorService secondThread = Executors.newSingleThreadExecutor(factory);
+    try {
+      RandomStreams.seed(42L);
+      firstThread.submit(() -> {
+        CurrentThreadpool.startWorker(5);
+        draw(first, rnd);
+      }).get();
+      RandomStreams.seed(42L);
+      secondThread.submit(() -> {
+        CurrentThreadpool.startWorker(5);
+        draw(otherThread, rnd);
+      }).get();
+      RandomStreams.seed(42L);
+      firstThread.submit(() -> {
+        CurrentThreadpool.startWorker(0);
+        draw(new ArrayList<Long>(), rnd);
+        CurrentThreadpool.startWorker(5);
+        draw(sameThread, rnd);
+      }).get();
+    } finally {
+      firstThread.shutdown();
+      secondThread.shutdown();
+      firstThread.awaitTermination(1, TimeUnit.SECONDS);
+      secondThread.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    assertThat(otherThread, is(first));
+    assertThat(sameThread, is(first));
+    assertThat(RandomStreams.getWorkerSeeds(), hasKey("default-5"));
+  }
+
+  @Test
+  public void generatorsShouldNotShareTheirStream() {
+    RandomStreams.seed(42L);
+    ConcurrentPseudoRandom rnd1 = new ConcurrentPseudoRandom();
+    ConcurrentPseudoRandom rnd2 = new ConcurrentPseudoRandom();
+
+    assertThat(rnd1.nextLong(), is(not(rnd2.nextLong())));
+  }
+
+  private List<Long> draw(final ConcurrentPseudoRandom rnd, final String threadpoolName) throws Exception {
+    final List<Long> values = new ArrayList<Long>();
+    ExecutorService executor = Executors.newSingleThreadExecutor(
+        CurrentThreadpool.factory(threadpoolName, Executors.defaultThreadFactory()));
+    try {
+      executor.submit(() -> draw(values, rnd)).get();
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+    return values;
+  }
+
+  private void draw(final List<Long> values, final ConcurrentPseudoRandom rnd) {
+    for (int i = 0; i < 10; i++) {
+      values.add(rnd.nextLong());
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.utils;
+
+import io.rainfall.statistics.LongAdder;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+public class TokenBucketTest {
+
+  @Test
+  public void burstShouldBeGivenAtOnceAndTheNextPermitsRefused() {
+    TokenBucket bucket = new TokenBucket(10, 5, 1);
+    long nowInNs = System.nanoTime();
+
+    for (int i = 0; i < 5; i++) {
+      assertThat(TokenBucket.waitInNs(bucket.reserve(nowInNs)), is(0L));
+    }
+    assertThat(bucket.reserve(nowInNs), is(TokenBucket.REFUSED));
+    // refilled at 10 permits per second
+    assertThat(TokenBucket.waitInNs(bucket.reserve(nowInNs + TimeUnit.MILLISECONDS.toNanos(100))), is(0L));
+    assertThat(bucket.reserve(nowInNs + TimeUnit.MILLISECONDS.toNanos(100)), is(TokenBucket.REFUSED));
+  }
+
+  @Test
+  public void permitsShouldBeWaitedForWithinTheMaximumWait() {
+    TokenBucket bucket = new TokenBucket(10, 1, 1).maxWait(250, TimeUnit.MILLISECONDS);
+    long nowInNs = System.nanoTime();
+
+    assertThat(TokenBucket.waitInNs(bucket.reserve(nowInNs)), is(0L));
+    assertThat(TokenBucket.waitInNs(bucket.reserve(nowInNs)), is(TimeUnit.MILLISECONDS.toNanos(100)));
+    assertThat(TokenBucket.waitInNs(bucket.reserve(nowInNs)), is(TimeUnit.MILLISECONDS.toNanos(200)));
+    assertThat(bucket.reserve(nowInNs), is(TokenBucket.REFUSED));
+  }
+
+  @Test
+  public void stripesShouldShareTheWholeRate() throws InterruptedException {
+    final TokenBucket bucket = new TokenBucket(1000, 100, 4);
+    final LongAdder permits = new LongAdder();
+    final long deadlineInNs = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> {
+        long nowInNs;
+        while ((nowInNs = System.nanoTime()) < deadlineInNs) {
+          long reservation = bucket.reserve(nowInNs);
+          if (reservation != TokenBucket.REFUSED && TokenBucket.waitInNs(reservation) == 0L) {
+            permits.increment();
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    // burst + 500ms at 1000 permits per second
+    assertThat(permits.sum(), lessThanOrEqualTo(600L + 4));
+    assertThat(permits.sum(), greaterThan(400L));
+  }
+
+  @Test
+  public void refundShouldGiveThePermitBackToTheStripeWhichLentIt() {
+    TokenBucket bucket = new TokenBucket(20, 2, 2);
+    long nowInNs = System.nanoTime();
+
+    // both stripes lend their only permit, whichever the home stripe of the thread
+    long first = bucket.reserve(nowInNs);
+    long second = bucket.reserve(nowInNs);
+    assertThat(TokenBucket.waitInNs(first), is(0L));
+    assertThat(TokenBucket.waitInNs(second), is(0L));
+    assertThat(bucket.reserve(nowInNs), is(TokenBucket.REFUSED));
+
+    bucket.refund(second);
+    long refunded = bucket.reserve(nowInNs);
+    assertThat(TokenBucket.waitInNs(refunded), is(0L));
+    assertThat(refunded, is(second));
+    assertThat(bucket.reserve(nowInNs), is(TokenBucket.REFUSED));
+  }
+}
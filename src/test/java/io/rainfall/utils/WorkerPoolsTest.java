@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2014-2023 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rainfall.utils;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+public class WorkerPoolsTest {
+
+  @Test
+  public void successiveExecutionsShouldReuseTheSameThreads() throws Exception {
+    try (WorkerPools workerPools = new WorkerPools(Collections.singletonMap("default", 2))) {
+      Set<Thread> firstThreads = runPhase(workerPools.borrow("default"));
+      assertThat(workerPools.awaitIdle(1, TimeUnit.SECONDS), is(true));
+      Set<Thread> secondThreads = runPhase(workerPools.borrow("default"));
+      assertThat(workerPools.awaitIdle(1, TimeUnit.SECONDS), is(true));
+
+      assertThat(firstThreads.size(), is(2));
+      assertThat(secondThreads, is(firstThreads));
+    }
+  }
+
+  @Test
+  public void shutdownNowShouldOnlyStopTheTasksOfTheView() throws Exception {
+    try (WorkerPools workerPools = new WorkerPools(Collections.singletonMap("default", 1))) {
+      BorrowedExecutorService executor = workerPools.borrow("default");
+      final CountDownLatch running = new CountDownLatch(1);
+      Future<?> blocking = executor.submit(() -> {
+        running.countDown();
+        Thread.sleep(10_000L);
+        return null;
+      });
+      final AtomicBoolean ran = new AtomicBoolean(false);
+      ScheduledFuture<?> scheduled = executor.schedule(() -> ran.set(true), 10, TimeUnit.SECONDS);
+      running.await();
+      assertThat(workerPools.awaitIdle(50, TimeUnit.MILLISECONDS), is(false));
+
+      executor.shutdownNow();
+      assertThat(executor.awaitTermination(1, TimeUnit.SECONDS), is(true));
+      assertThat(blocking.isCancelled(), is(true));
+      assertThat(scheduled.isCancelled(), is(true));
+      assertThat(ran.get(), is(false));
+      assertThat(workerPools.awaitIdle(1, TimeUnit.SECONDS), is(true));
+
+      // the pool is still usable by the next execution
+      BorrowedExecutorService next = workerPools.borrow("default");
+      assertThat(next.submit(() -> 42).get(1, TimeUnit.SECONDS), is(42));
+    }
+  }
+
+  private Set<Thread> runPhase(final ExecutorService executor) throws InterruptedException {
+    final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    final CountDownLatch together = new CountDownLatch(2);
+    for (int i = 0; i < 2; i++) {
+      executor.execute(() -> {
+        threads.add(Thread.currentThread());
+        together.countDown();
+        try {
+          together.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(1, TimeUnit.SECONDS), is(true));
+    return threads;
+  }
+}